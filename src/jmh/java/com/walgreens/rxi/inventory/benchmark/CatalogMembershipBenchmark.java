@@ -0,0 +1,77 @@
+package com.walgreens.rxi.inventory.benchmark;
+
+import com.walgreens.rxi.inventory.service.readmodel.ProductIdBitmap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Membership checks and set operations on the {@link ProductIdBitmap} of two catalogs, each holding
+ * {@code catalogSize} of the products of a catalogue four times as large.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogMembershipBenchmark {
+
+    @Param({ "10000", "300000" })
+    private int catalogSize;
+
+    private ProductIdBitmap left;
+
+    private ProductIdBitmap right;
+
+    private long[] page;
+
+    private long productId;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        left = ProductIdBitmap.of(randomIds(random));
+        right = ProductIdBitmap.of(randomIds(random));
+        page = new long[1000];
+        productId = catalogSize;
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return left.contains(productId);
+    }
+
+    @Benchmark
+    public long intersectionCardinality() {
+        return left.and(right).cardinality();
+    }
+
+    @Benchmark
+    public long unionCardinality() {
+        return left.or(right).cardinality();
+    }
+
+    @Benchmark
+    public int differenceFirstPage() {
+        return left.andNot(right).copyIdsAfter(-1, page);
+    }
+
+    private long[] randomIds(Random random) {
+        long[] ids = new long[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            ids[i] = 1 + random.nextInt(catalogSize * 4);
+        }
+        return ids;
+    }
+}
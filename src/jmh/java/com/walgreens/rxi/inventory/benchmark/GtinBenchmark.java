@@ -0,0 +1,99 @@
+package com.walgreens.rxi.inventory.benchmark;
+
+import com.walgreens.rxi.inventory.service.gtin.Gtin;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validation of GTINs, per code, from strings and from the bytes of a plain text batch: {@value #CODES} codes of
+ * every GTIN length, one in ten of them invalid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GtinBenchmark {
+
+    private static final int CODES = 1000;
+
+    private static final int[] LENGTHS = { 8, 12, 13, 14 };
+
+    private String[] codes;
+
+    private byte[] lines;
+
+    private int[] lineEnds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        codes = new String[CODES];
+        lineEnds = new int[CODES];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < CODES; i++) {
+            char[] digits = new char[LENGTHS[i % LENGTHS.length]];
+            int sum = 0;
+            for (int j = digits.length - 2; j >= 0; j--) {
+                int digit = random.nextInt(10);
+                digits[j] = (char) ('0' + digit);
+                sum += digit * ((digits.length - 1 - j) % 2 == 1 ? 3 : 1);
+            }
+            int check = (10 - sum % 10) % 10;
+            digits[digits.length - 1] = (char) ('0' + (random.nextInt(10) == 0 ? (check + 1) % 10 : check));
+            codes[i] = new String(digits);
+            text.append(codes[i]);
+            lineEnds[i] = text.length();
+            text.append('\n');
+        }
+        lines = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public long parseStrings() {
+        long valid = 0;
+        for (String code : codes) {
+            valid += Gtin.parse(code);
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public long parseBytes() {
+        long valid = 0;
+        int from = 0;
+        for (int to : lineEnds) {
+            valid += Gtin.parse(lines, from, to);
+            from = to + 1;
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public int normalizeStrings() {
+        int length = 0;
+        for (String code : codes) {
+            long parsed = Gtin.parse(code);
+            if (parsed >= 0) {
+                length += Gtin.format(parsed).length();
+            }
+        }
+        return length;
+    }
+}
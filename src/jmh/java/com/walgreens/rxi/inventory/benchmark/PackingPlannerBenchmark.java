@@ -0,0 +1,70 @@
+package com.walgreens.rxi.inventory.benchmark;
+
+import com.walgreens.rxi.inventory.service.packing.PackingPlan;
+import com.walgreens.rxi.inventory.service.packing.PackingPlanner;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Packing plans of {@code lines} lines of random boxes onto pallets, with and without a maximum load.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackingPlannerBenchmark {
+
+    @Param({ "1000", "10000" })
+    private int lines;
+
+    @Param({ "0", "1000" })
+    private double maxWeight;
+
+    private double[] length;
+
+    private double[] width;
+
+    private double[] height;
+
+    private double[] weight;
+
+    private int[] count;
+
+    private PackingPlanner planner;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        length = new double[lines];
+        width = new double[lines];
+        height = new double[lines];
+        weight = new double[lines];
+        count = new int[lines];
+        for (int line = 0; line < lines; line++) {
+            length[line] = 5 + random.nextInt(60);
+            width[line] = 5 + random.nextInt(40);
+            height[line] = 2 + random.nextInt(50);
+            weight[line] = random.nextInt(200) / 10.0;
+            count[line] = 1 + random.nextInt(40);
+        }
+        planner = new PackingPlanner(120, 80, 150, maxWeight);
+    }
+
+    @Benchmark
+    public PackingPlan plan() {
+        return planner.plan(length, width, height, weight, count);
+    }
+}
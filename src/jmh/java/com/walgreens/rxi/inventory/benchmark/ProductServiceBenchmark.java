@@ -0,0 +1,170 @@
+package com.walgreens.rxi.inventory.benchmark;
+
+import com.walgreens.rxi.inventory.InventoryApp;
+import com.walgreens.rxi.inventory.config.TestSecurityConfiguration;
+import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.repository.CatalogRepository;
+import com.walgreens.rxi.inventory.repository.CategoryRepository;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.CatalogService;
+import com.walgreens.rxi.inventory.service.ProductService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link ProductService} and {@link CatalogService} calls against H2, with the test configuration and the
+ * second-level cache enabled.
+ * <p>
+ * The warm benchmarks read products that are in the second-level cache after the first warmup iteration; the cold
+ * ones evict the product from the cache before reading it, so that every call reaches the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+
+    private static final int PRODUCTS = 1000;
+
+    private static final int CATALOGS = 50;
+
+    private static final int PRODUCTS_PER_CATALOG = 20;
+
+    private static final PageRequest CATALOG_PAGE = PageRequest.of(0, 20);
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    private CatalogService catalogService;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private long[] productIds;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context =
+            new SpringApplicationBuilder(InventoryApp.class, TestSecurityConfiguration.class)
+                .properties(
+                    "server.port=0",
+                    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+                    "jhipster.cache.ehcache.max-entries=" + 2 * PRODUCTS,
+                    "logging.level.ROOT=WARN",
+                    "logging.level.com.walgreens.rxi.inventory=WARN",
+                    // No broker is needed, the producer only logs its connection attempts
+                    "logging.level.org.apache.kafka=ERROR"
+                )
+                .run();
+        productService = context.getBean(ProductService.class);
+        catalogService = context.getBean(CatalogService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<Product> products = transactionTemplate.execute(
+            status -> {
+                Category category = context.getBean(CategoryRepository.class).save(new Category().name("Benchmark"));
+                List<Product> newProducts = new ArrayList<>(PRODUCTS);
+                for (int i = 0; i < PRODUCTS; i++) {
+                    newProducts.add(
+                        new Product()
+                            .name("Product " + i)
+                            .description("Description of product " + i)
+                            .company("Company " + (i % 10))
+                            .type(ProductType.DRUG)
+                            .storageType(StorageType.SHELF)
+                            .price(BigDecimal.valueOf(i * 137L, 2))
+                            .status(ProductStatus.ONSALE)
+                            .category(category)
+                    );
+                }
+                return context.getBean(ProductRepository.class).saveAll(newProducts);
+            }
+        );
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                List<Catalog> catalogs = new ArrayList<>(CATALOGS);
+                for (int i = 0; i < CATALOGS; i++) {
+                    Catalog catalog = new Catalog().code("CATALOG-" + i).status(CatalogStatus.ACTIVE);
+                    for (int j = 0; j < PRODUCTS_PER_CATALOG; j++) {
+                        catalog.addProductCode(products.get((i * PRODUCTS_PER_CATALOG + j) % PRODUCTS));
+                    }
+                    catalogs.add(catalog);
+                }
+                context.getBean(CatalogRepository.class).saveAll(catalogs);
+            }
+        );
+        productIds = products.stream().mapToLong(Product::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> findOneWarmCache() {
+        return productService.findOne(nextProductId());
+    }
+
+    @Benchmark
+    public Optional<Product> findOneColdCache() {
+        long id = nextProductId();
+        entityManagerFactory.getCache().evict(Product.class, id);
+        return productService.findOne(id);
+    }
+
+    @Benchmark
+    public Optional<Product> partialUpdate() {
+        long id = nextProductId();
+        return productService.partialUpdate(new Product().id(id).price(BigDecimal.valueOf(id + next, 2)));
+    }
+
+    @Benchmark
+    public Page<Catalog> catalogFindAll() {
+        return catalogService.findAll(CATALOG_PAGE);
+    }
+
+    @Benchmark
+    public Page<Catalog> catalogFindAllWithProducts() {
+        return catalogService.findAllWithEagerRelationships(CATALOG_PAGE);
+    }
+
+    private long nextProductId() {
+        long id = productIds[next];
+        next = (next + 1) % productIds.length;
+        return id;
+    }
+}
@@ -0,0 +1,156 @@
+package com.walgreens.rxi.inventory.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walgreens.rxi.inventory.config.JacksonConfiguration;
+import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import com.walgreens.rxi.inventory.service.mapper.CatalogMapper;
+import com.walgreens.rxi.inventory.service.mapper.CatalogMapperImpl;
+import com.walgreens.rxi.inventory.service.mapper.CategoryMapperImpl;
+import com.walgreens.rxi.inventory.service.mapper.PackagingMapperImpl;
+import com.walgreens.rxi.inventory.service.mapper.ProductMapper;
+import com.walgreens.rxi.inventory.service.mapper.ProductMapperImpl;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson serialization of the pages returned by the REST API, with the modules of {@link JacksonConfiguration}.
+ * <p>
+ * The {@code Dto} benchmarks include the mapping of the entities to their response DTOs; run with {@code -prof gc}
+ * to compare the allocation rates of the entity and DTO paths.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({ "20", "200" })
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<Product> products;
+
+    private List<ProductSummaryDTO> summaries;
+
+    private List<Catalog> catalogs;
+
+    private ProductMapper productMapper;
+
+    private CatalogMapper catalogMapper;
+
+    @Setup
+    public void setUp() {
+        JacksonConfiguration jacksonConfiguration = new JacksonConfiguration();
+        List<Module> modules = new ArrayList<>();
+        modules.add(jacksonConfiguration.javaTimeModule());
+        modules.add(jacksonConfiguration.jdk8TimeModule());
+        modules.add(jacksonConfiguration.hibernate5Module());
+        objectMapper = Jackson2ObjectMapperBuilder.json().modules(modules).build();
+        productMapper = new ProductMapperImpl(new CategoryMapperImpl(), new PackagingMapperImpl());
+        catalogMapper = new CatalogMapperImpl(productMapper);
+
+        Category category = new Category().id(1L).name("Analgesics").description("Pain relief");
+        Packaging packaging = new Packaging().id(1L).name("Box").quantity(12).length(10.0).width(5.0).height(2.5);
+        products = new ArrayList<>(pageSize);
+        summaries = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            Product product = new Product()
+                .id(id)
+                .name("Product " + id)
+                .description("Description of product " + id)
+                .company("Company " + (id % 10))
+                .type(ProductType.DRUG)
+                .storageType(StorageType.SHELF)
+                .price(BigDecimal.valueOf(id * 137, 2))
+                .salesUnit(UnitOfMeasurement.values()[(int) (id % UnitOfMeasurement.values().length)])
+                .salesQuantity(BigDecimal.ONE)
+                .imageContentType("image/png")
+                .imageHash(String.format("%064x", id))
+                .status(ProductStatus.ONSALE)
+                .category(category)
+                .packaging(packaging);
+            products.add(product);
+            summaries.add(
+                new ProductSummaryDTO(
+                    product.getId(),
+                    product.getName(),
+                    product.getDescription(),
+                    product.getCompany(),
+                    product.getType(),
+                    product.getStorageType(),
+                    product.getPrice(),
+                    product.getSalesUnit(),
+                    product.getSalesQuantity(),
+                    product.getImageContentType(),
+                    product.getImageHash(),
+                    product.getStatus(),
+                    null,
+                    category.getId(),
+                    packaging.getId()
+                )
+            );
+        }
+        catalogs = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            Catalog catalog = new Catalog().id(id).code("CATALOG-" + id).status(CatalogStatus.ACTIVE);
+            // Every catalog references a slice of the products
+            for (int i = 0; i < 10; i++) {
+                catalog.addProductCode(products.get((int) ((id * 10 + i) % pageSize)));
+            }
+            catalogs.add(catalog);
+        }
+    }
+
+    @Benchmark
+    public byte[] productPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] productSummaryPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    @Benchmark
+    public byte[] catalogPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(catalogs);
+    }
+
+    @Benchmark
+    public byte[] productDtoPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productMapper.toDto(products));
+    }
+
+    @Benchmark
+    public byte[] catalogDtoPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(catalogMapper.toDto(catalogs));
+    }
+}
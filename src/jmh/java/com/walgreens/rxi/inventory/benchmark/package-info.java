@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks of the inventory hot paths, run with the {@code jmh} Maven profile.
+ */
+package com.walgreens.rxi.inventory.benchmark;
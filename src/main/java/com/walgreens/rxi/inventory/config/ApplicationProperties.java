@@ -1,5 +1,6 @@
 package com.walgreens.rxi.inventory.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +10,327 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final ImageStore imageStore = new ImageStore();
+
+    private final ReadModel readModel = new ReadModel();
+
+    private final ProductImport productImport = new ProductImport();
+
+    private final CatalogChanges catalogChanges = new CatalogChanges();
+
+    private final ProductCounters productCounters = new ProductCounters();
+
+    private final Outbox outbox = new Outbox();
+
+    private final StockMovements stockMovements = new StockMovements();
+
+    private final CacheInvalidation cacheInvalidation = new CacheInvalidation();
+
+    public ImageStore getImageStore() {
+        return imageStore;
+    }
+
+    public ReadModel getReadModel() {
+        return readModel;
+    }
+
+    public ProductImport getProductImport() {
+        return productImport;
+    }
+
+    public CatalogChanges getCatalogChanges() {
+        return catalogChanges;
+    }
+
+    public ProductCounters getProductCounters() {
+        return productCounters;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public StockMovements getStockMovements() {
+        return stockMovements;
+    }
+
+    public CacheInvalidation getCacheInvalidation() {
+        return cacheInvalidation;
+    }
+
+    public static class ImageStore {
+
+        private String location = "target/images";
+
+        private long cacheMaxAgeSeconds = 31536000;
+
+        private int migrationBatchSize = 100;
+
+        private boolean migrateOnStartup = true;
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public long getCacheMaxAgeSeconds() {
+            return cacheMaxAgeSeconds;
+        }
+
+        public void setCacheMaxAgeSeconds(long cacheMaxAgeSeconds) {
+            this.cacheMaxAgeSeconds = cacheMaxAgeSeconds;
+        }
+
+        public int getMigrationBatchSize() {
+            return migrationBatchSize;
+        }
+
+        public void setMigrationBatchSize(int migrationBatchSize) {
+            this.migrationBatchSize = migrationBatchSize;
+        }
+
+        public boolean isMigrateOnStartup() {
+            return migrateOnStartup;
+        }
+
+        public void setMigrateOnStartup(boolean migrateOnStartup) {
+            this.migrateOnStartup = migrateOnStartup;
+        }
+    }
+
+    public static class ReadModel {
+
+        private boolean enabled = false;
+
+        private String reconcileCron = "0 */15 * * * ?";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getReconcileCron() {
+            return reconcileCron;
+        }
+
+        public void setReconcileCron(String reconcileCron) {
+            this.reconcileCron = reconcileCron;
+        }
+    }
+
+    public static class ProductImport {
+
+        private int batchSize = 500;
+
+        private int maxReportedErrors = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+    }
+
+    public static class CatalogChanges {
+
+        private Duration retention = Duration.ofDays(30);
+
+        private String compactionCron = "0 30 2 * * ?";
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public String getCompactionCron() {
+            return compactionCron;
+        }
+
+        public void setCompactionCron(String compactionCron) {
+            this.compactionCron = compactionCron;
+        }
+    }
+
+    public static class ProductCounters {
+
+        private String reconcileCron = "0 */15 * * * ?";
+
+        public String getReconcileCron() {
+            return reconcileCron;
+        }
+
+        public void setReconcileCron(String reconcileCron) {
+            this.reconcileCron = reconcileCron;
+        }
+    }
+
+    public static class Outbox {
+
+        private String relayCron = "* * * * * ?";
+
+        private int batchSize = 2000;
+
+        private String topicPrefix = "inventory.";
+
+        public String getRelayCron() {
+            return relayCron;
+        }
+
+        public void setRelayCron(String relayCron) {
+            this.relayCron = relayCron;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public String getTopicPrefix() {
+            return topicPrefix;
+        }
+
+        public void setTopicPrefix(String topicPrefix) {
+            this.topicPrefix = topicPrefix;
+        }
+    }
+
+    public static class StockMovements {
+
+        private boolean enabled = true;
+
+        private String topic = "inventory.stock-movements";
+
+        private String groupId = "inventory-stock";
+
+        private int consumers = 1;
+
+        private int maxPollRecords = 5000;
+
+        private Duration retention = Duration.ofDays(7);
+
+        private String purgeCron = "0 45 2 * * ?";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public int getConsumers() {
+            return consumers;
+        }
+
+        public void setConsumers(int consumers) {
+            this.consumers = consumers;
+        }
+
+        public int getMaxPollRecords() {
+            return maxPollRecords;
+        }
+
+        public void setMaxPollRecords(int maxPollRecords) {
+            this.maxPollRecords = maxPollRecords;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public String getPurgeCron() {
+            return purgeCron;
+        }
+
+        public void setPurgeCron(String purgeCron) {
+            this.purgeCron = purgeCron;
+        }
+    }
+
+    public static class CacheInvalidation {
+
+        private boolean enabled = true;
+
+        private String topic = "inventory.cache-invalidations";
+
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        private int maxBatchSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+}
@@ -61,6 +61,8 @@ public class CacheConfiguration {
             createCache(cm, com.walgreens.rxi.inventory.domain.Product.class.getName());
             createCache(cm, com.walgreens.rxi.inventory.domain.Product.class.getName() + ".catalogs");
             createCache(cm, com.walgreens.rxi.inventory.domain.ProductCode.class.getName());
+            createCache(cm, com.walgreens.rxi.inventory.repository.ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE);
+            createCache(cm, com.walgreens.rxi.inventory.repository.ProductCodeRepository.PRODUCT_CODES_BY_BARCODE_CACHE);
             // jhipster-needle-ehcache-add-entry
         };
     }
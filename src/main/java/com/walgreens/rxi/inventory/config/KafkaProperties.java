@@ -1,5 +1,6 @@
 package com.walgreens.rxi.inventory.config;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -11,10 +12,14 @@ public class KafkaProperties {
 
     private String bootStrapServers = "localhost:9092";
 
+    private int maxInFlightMessages = 10000;
+
     private Map<String, String> consumer = new HashMap<>();
 
     private Map<String, String> producer = new HashMap<>();
 
+    private final FanOut fanOut = new FanOut();
+
     public String getBootStrapServers() {
         return bootStrapServers;
     }
@@ -23,6 +28,17 @@ public class KafkaProperties {
         this.bootStrapServers = bootStrapServers;
     }
 
+    /**
+     * @return how many messages of batch publications can await their acknowledgement at once.
+     */
+    public int getMaxInFlightMessages() {
+        return maxInFlightMessages;
+    }
+
+    public void setMaxInFlightMessages(int maxInFlightMessages) {
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
     public Map<String, Object> getConsumerProps() {
         Map<String, Object> properties = new HashMap<>(this.consumer);
         if (!properties.containsKey("bootstrap.servers")) {
@@ -46,4 +62,50 @@ public class KafkaProperties {
     public void setProducer(Map<String, String> producer) {
         this.producer = producer;
     }
+
+    public FanOut getFanOut() {
+        return fanOut;
+    }
+
+    /**
+     * Fan-out of the topics consumed by {@code GET /api/inventory-kafka/consume}.
+     */
+    public static class FanOut {
+
+        private int bufferSize = 1024;
+
+        private int senderThreads = 8;
+
+        private Duration heartbeatInterval = Duration.ofSeconds(5);
+
+        /**
+         * @return how many records are buffered for a subscriber before it is coalesced or dropped.
+         */
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        /**
+         * @return how many threads send the buffered records to the subscribers.
+         */
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+    }
 }
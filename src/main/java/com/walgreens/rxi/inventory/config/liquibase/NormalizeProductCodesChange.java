@@ -0,0 +1,136 @@
+package com.walgreens.rxi.inventory.config.liquibase;
+
+import com.walgreens.rxi.inventory.service.gtin.Gtin;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Normalizes the {@code upc} and {@code barcode} of the existing product codes to their GTIN-14 form, as
+ * {@link com.walgreens.rxi.inventory.service.ProductCodeService} does on write, before the unique constraints on
+ * both columns are added.
+ * <p>
+ * Codes that are not GTINs are kept as they are. Codes that normalize to the same value as another row make the
+ * change fail, listing them, so that they are merged or corrected by hand rather than by the failure of a
+ * constraint that names no row.
+ */
+public class NormalizeProductCodesChange implements CustomTaskChange {
+
+    private static final String SELECT_SQL = "select id, upc, barcode from product_code order by id";
+
+    private static final String UPDATE_SQL = "update product_code set upc = ?, barcode = ? where id = ?";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int MAX_REPORTED_COLLISIONS = 100;
+
+    private final Logger log = LoggerFactory.getLogger(NormalizeProductCodesChange.class);
+
+    private int normalized;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        Map<String, Long> upcs = new HashMap<>();
+        Map<String, Long> barcodes = new HashMap<>();
+        List<String> collisions = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        try {
+            try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(SELECT_SQL)) {
+                while (resultSet.next()) {
+                    long id = resultSet.getLong(1);
+                    String upc = resultSet.getString(2);
+                    String barcode = resultSet.getString(3);
+                    String normalizedUpc = normalize(upc);
+                    String normalizedBarcode = normalize(barcode);
+                    addCode(upcs, "upc", normalizedUpc, id, collisions);
+                    addCode(barcodes, "barcode", normalizedBarcode, id, collisions);
+                    if (!Objects.equals(upc, normalizedUpc) || !Objects.equals(barcode, normalizedBarcode)) {
+                        updates.add(new Object[] { normalizedUpc, normalizedBarcode, id });
+                    }
+                }
+            }
+            if (!collisions.isEmpty()) {
+                throw new CustomChangeException(
+                    collisions.size() +
+                    " product codes have the same GTIN as another one once normalized, merge or correct them first: " +
+                    String.join(", ", collisions.subList(0, Math.min(collisions.size(), MAX_REPORTED_COLLISIONS)))
+                );
+            }
+            update(connection, updates);
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not normalize the product codes", e);
+        }
+        normalized = updates.size();
+        log.info("Normalized the GTINs of {} product codes", normalized);
+    }
+
+    private static String normalize(String code) {
+        if (code == null) {
+            return null;
+        }
+        long parsed = Gtin.parse(code);
+        return parsed >= 0 ? Gtin.format(parsed) : code;
+    }
+
+    private static void addCode(Map<String, Long> codes, String column, String code, long id, List<String> collisions) {
+        if (code == null) {
+            return;
+        }
+        Long other = codes.putIfAbsent(code, id);
+        if (other != null) {
+            collisions.add(column + " " + code + " of product codes " + other + " and " + id);
+        }
+    }
+
+    private static void update(Connection connection, List<Object[]> updates) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            for (int i = 0; i < updates.size(); i++) {
+                Object[] update = updates.get(i);
+                statement.setString(1, (String) update[0]);
+                statement.setString(2, (String) update[1]);
+                statement.setLong(3, (Long) update[2]);
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Normalized the GTINs of " + normalized + " product codes";
+    }
+
+    @Override
+    public void setUp() {
+        // No parameters
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase data migrations written in Java.
+ */
+package com.walgreens.rxi.inventory.config.liquibase;
@@ -1,6 +1,7 @@
 package com.walgreens.rxi.inventory.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
 import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
 import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
@@ -13,6 +14,8 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 /**
  * A Product.
@@ -25,7 +28,16 @@ public class Product implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @GenericGenerator(
+        name = "sequenceGenerator",
+        strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "sequence_generator"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        }
+    )
     private Long id;
 
     @NotNull
@@ -60,13 +72,18 @@ public class Product implements Serializable {
     @Column(name = "sales_quantity", precision = 21, scale = 2)
     private BigDecimal salesQuantity;
 
-    @Lob
-    @Column(name = "image")
-    private byte[] image;
+    /**
+     * Image bytes received from clients, written to the image store on save; not persisted in the row.
+     */
+    private transient byte[] image;
 
     @Column(name = "image_content_type")
     private String imageContentType;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private ProductStatus status;
@@ -233,6 +250,19 @@ public class Product implements Serializable {
         this.imageContentType = imageContentType;
     }
 
+    public String getImageHash() {
+        return this.imageHash;
+    }
+
+    public Product imageHash(String imageHash) {
+        this.imageHash = imageHash;
+        return this;
+    }
+
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+
     public ProductStatus getStatus() {
         return this.status;
     }
@@ -350,6 +380,7 @@ public class Product implements Serializable {
             ", salesQuantity=" + getSalesQuantity() +
             ", image='" + getImage() + "'" +
             ", imageContentType='" + getImageContentType() + "'" +
+            ", imageHash='" + getImageHash() + "'" +
             ", status='" + getStatus() + "'" +
             "}";
     }
@@ -0,0 +1,25 @@
+package com.walgreens.rxi.inventory.domain.enumeration;
+
+/**
+ * The StockMovementType enumeration.
+ */
+public enum StockMovementType {
+    RECEIPT(1),
+    SALE(-1),
+    TRANSFER_IN(1),
+    TRANSFER_OUT(-1),
+    WRITE_OFF(-1);
+
+    private final int sign;
+
+    StockMovementType(int sign) {
+        this.sign = sign;
+    }
+
+    /**
+     * @return {@code 1} if the movement adds to the stock, {@code -1} if it takes from it.
+     */
+    public int getSign() {
+        return sign;
+    }
+}
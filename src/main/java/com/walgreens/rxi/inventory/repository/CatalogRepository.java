@@ -1,10 +1,9 @@
 package com.walgreens.rxi.inventory.repository;
 
 import com.walgreens.rxi.inventory.domain.Catalog;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,14 +13,20 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface CatalogRepository extends JpaRepository<Catalog, Long> {
+    /**
+     * Fetch the products of the given catalogs, in a single query whose size is bounded by the number of ids.
+     * The eager to-one associations of the products are fetched by the same query rather than one product at a time.
+     * Catalogs already in the persistence context get their product set initialized.
+     *
+     * @param ids the ids of the catalogs.
+     * @return the catalogs, with their products.
+     */
     @Query(
-        value = "select distinct catalog from Catalog catalog left join fetch catalog.productCodes",
-        countQuery = "select count(distinct catalog) from Catalog catalog"
+        "select distinct catalog from Catalog catalog left join fetch catalog.productCodes product " +
+        "left join fetch product.productCode left join fetch product.category left join fetch product.packaging " +
+        "where catalog.id in :ids"
     )
-    Page<Catalog> findAllWithEagerRelationships(Pageable pageable);
-
-    @Query("select distinct catalog from Catalog catalog left join fetch catalog.productCodes")
-    List<Catalog> findAllWithEagerRelationships();
+    List<Catalog> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query("select catalog from Catalog catalog left join fetch catalog.productCodes where catalog.id =:id")
     Optional<Catalog> findOneWithEagerRelationships(@Param("id") Long id);
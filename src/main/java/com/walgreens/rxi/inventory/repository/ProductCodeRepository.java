@@ -1,12 +1,50 @@
 package com.walgreens.rxi.inventory.repository;
 
 import com.walgreens.rxi.inventory.domain.ProductCode;
+import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data SQL repository for the ProductCode entity.
+ * <p>
+ * The lookups by code are cached, including the codes that are not found, so that repeated scans of an unknown
+ * code do not reach the database. They cache the id of the code only, which only the writes of the code change:
+ * {@link com.walgreens.rxi.inventory.service.ProductCodeService} evicts them, and the code and its product are
+ * loaded by id, through the second-level cache.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductCodeRepository extends JpaRepository<ProductCode, Long> {}
+public interface ProductCodeRepository extends JpaRepository<ProductCode, Long> {
+    String PRODUCT_CODES_BY_UPC_CACHE = "productCodesByUpc";
+
+    String PRODUCT_CODES_BY_BARCODE_CACHE = "productCodesByBarcode";
+
+    String WHERE_NO_PRODUCT = " where product.id is null";
+
+    /**
+     * Get the codes that no product has, with an anti-join on the unique index of {@code product.product_code_id}.
+     * <p>
+     * The product side of a one-to-one cannot be loaded lazily: it is fetched by the join, where it is
+     * {@code null}, rather than by one more query per code.
+     *
+     * @param pageable the pagination information.
+     * @return the page of codes.
+     */
+    @Query(
+        value = "select productCode from ProductCode productCode left join fetch productCode.product product" + WHERE_NO_PRODUCT,
+        countQuery = "select count(productCode) from ProductCode productCode left join productCode.product product" + WHERE_NO_PRODUCT
+    )
+    Page<ProductCode> findAllWithoutProduct(Pageable pageable);
+
+    @Cacheable(cacheNames = PRODUCT_CODES_BY_UPC_CACHE)
+    @Query("select productCode.id from ProductCode productCode where productCode.upc = ?1")
+    Optional<Long> findIdByUpc(String upc);
+
+    @Cacheable(cacheNames = PRODUCT_CODES_BY_BARCODE_CACHE)
+    @Query("select productCode.id from ProductCode productCode where productCode.barcode = ?1")
+    Optional<Long> findIdByBarcode(String barcode);
+}
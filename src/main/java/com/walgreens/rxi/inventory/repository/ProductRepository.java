@@ -1,7 +1,16 @@
 package com.walgreens.rxi.inventory.repository;
 
 import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.service.dto.PackagingDimensionsDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductImageDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +18,48 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    /**
+     * Select clause of the list projection: every column but the image.
+     */
+    String SUMMARY_SELECT =
+        "select new com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO(" +
+        "product.id, product.name, product.description, product.company, product.type, product.storageType, " +
+        "product.price, product.salesUnit, product.salesQuantity, product.imageContentType, product.imageHash, product.status, " +
+        "product.productCode.id, product.category.id, product.packaging.id) from Product product";
+
+    @Query(value = SUMMARY_SELECT, countQuery = "select count(product) from Product product")
+    Page<ProductSummaryDTO> findAllSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where product.id = :id")
+    Optional<ProductSummaryDTO> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT + " where product.id in :ids order by product.id")
+    List<ProductSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_SELECT + " join product.catalogs catalog where catalog.id = :catalogId order by product.id")
+    List<ProductSummaryDTO> findSummariesByCatalogId(@Param("catalogId") Long catalogId);
+
+    @Query("select product.id from Product product where product.id in :ids order by product.id")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * @param ids the ids of the products.
+     * @return the dimensions of the packaging of each product that has one.
+     */
+    @Query(
+        "select new com.walgreens.rxi.inventory.service.dto.PackagingDimensionsDTO(product.id, packaging.id, packaging.length, " +
+        "packaging.width, packaging.height, packaging.grosWeight, packaging.quantity) " +
+        "from Product product join product.packaging packaging where product.id in :ids"
+    )
+    List<PackagingDimensionsDTO> findPackagingDimensionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(
+        "select new com.walgreens.rxi.inventory.service.dto.ProductImageDTO(product.imageHash, product.imageContentType) " +
+        "from Product product where product.id = :id and product.imageHash is not null"
+    )
+    Optional<ProductImageDTO> findImageById(@Param("id") Long id);
+
+    @Query("select product.imageHash from Product product where product.id = :id")
+    Optional<String> findImageHashById(@Param("id") Long id);
+}
@@ -0,0 +1,246 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.dto.CatalogChangesDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Versions of the {@link Catalog} entities and log of their changes, for the incremental sync of store devices.
+ * <p>
+ * Every write to a catalog, or to one of its products, increments the version of the catalog and appends one
+ * {@code catalog_change} row per changed product, in the transaction of the write. The increment locks the
+ * catalog row until the transaction ends, so the versions of a catalog are committed in increasing order and a
+ * reader that sees a version also sees all the changes up to it. Changes older than
+ * {@code application.catalog-changes.retention} are deleted; a client that synced before them gets a snapshot.
+ */
+@Service
+@Transactional
+public class CatalogChangeService {
+
+    /**
+     * Maximum number of ids in the {@code IN} list of a statement.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String SELECT_PRODUCT_IDS_SQL = "select product_code_id from rel_catalog__product_code where catalog_id = ?";
+
+    private static final String INCREMENT_VERSION_SQL = "update catalog set version = version + 1 where id = ?";
+
+    private static final String SELECT_VERSION_SQL = "select version from catalog where id = ?";
+
+    private static final String SELECT_CATALOG_SQL = "select code, status, version, compacted_version from catalog where id = ?";
+
+    private static final String INSERT_CHANGE_SQL =
+        "insert into catalog_change (catalog_id, version, product_id, change_type, created_date) values (?, ?, ?, ?, ?)";
+
+    private static final String INCREMENT_CONTAINING_VERSIONS_SQL =
+        "update catalog set version = version + 1 where id in " +
+        "(select rel.catalog_id from rel_catalog__product_code rel where rel.product_code_id in (%s))";
+
+    private static final String INSERT_UPDATE_CHANGES_SQL =
+        "insert into catalog_change (catalog_id, version, product_id, change_type, created_date) " +
+        "select catalog.id, catalog.version, rel.product_code_id, 'UPDATED', ? from catalog catalog " +
+        "join rel_catalog__product_code rel on rel.catalog_id = catalog.id where rel.product_code_id in (%s)";
+
+    private static final String SELECT_CHANGES_SQL =
+        "select product_id, change_type from catalog_change where catalog_id = ? and version > ? and version <= ? order by version";
+
+    private static final String COMPACT_VERSIONS_SQL =
+        "update catalog set compacted_version = " +
+        "(select max(cc.version) from catalog_change cc where cc.catalog_id = catalog.id and cc.created_date < ?) " +
+        "where exists (select 1 from catalog_change cc where cc.catalog_id = catalog.id and cc.created_date < ?)";
+
+    private static final String DELETE_CHANGES_SQL = "delete from catalog_change where created_date < ?";
+
+    private enum ChangeType {
+        ADDED,
+        REMOVED,
+        UPDATED,
+    }
+
+    private final Logger log = LoggerFactory.getLogger(CatalogChangeService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ProductRepository productRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public CatalogChangeService(
+        JdbcTemplate jdbcTemplate,
+        ProductRepository productRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Get the ids of the products of a catalog, from the database.
+     *
+     * @param catalogId the id of the catalog.
+     * @return the ids of its products.
+     */
+    @Transactional(readOnly = true)
+    public long[] findProductIds(long catalogId) {
+        return jdbcTemplate.queryForList(SELECT_PRODUCT_IDS_SQL, Long.class, catalogId).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Increment the version of a catalog and log the products added to and removed from it.
+     * <p>
+     * The catalog row must exist in the database: new catalogs must have been flushed.
+     *
+     * @param catalogId the id of the catalog.
+     * @param addedProductIds the ids of the added products.
+     * @param removedProductIds the ids of the removed products.
+     * @return the new version of the catalog.
+     */
+    public long recordCatalogChanges(long catalogId, long[] addedProductIds, long[] removedProductIds) {
+        jdbcTemplate.update(INCREMENT_VERSION_SQL, catalogId);
+        long version = jdbcTemplate.queryForObject(SELECT_VERSION_SQL, Long.class, catalogId);
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(
+            INSERT_CHANGE_SQL,
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    boolean added = i < addedProductIds.length;
+                    statement.setLong(1, catalogId);
+                    statement.setLong(2, version);
+                    statement.setLong(3, added ? addedProductIds[i] : removedProductIds[i - addedProductIds.length]);
+                    statement.setString(4, (added ? ChangeType.ADDED : ChangeType.REMOVED).name());
+                    statement.setTimestamp(5, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return addedProductIds.length + removedProductIds.length;
+                }
+            }
+        );
+        log.debug("Catalog : {} is at version {}", catalogId, version);
+        return version;
+    }
+
+    /**
+     * Increment the version of every catalog that contains one of the updated products, and log the update.
+     *
+     * @param productIds the ids of the updated products.
+     */
+    public void recordProductUpdates(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().distinct().sorted().collect(Collectors.toList());
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            // Both statements only touch the catalogs that contain the products, whose rows stay locked in between
+            jdbcTemplate.update(String.format(INCREMENT_CONTAINING_VERSIONS_SQL, placeholders), chunk.toArray());
+            List<Object> parameters = new ArrayList<>(chunk.size() + 1);
+            parameters.add(now);
+            parameters.addAll(chunk);
+            jdbcTemplate.update(String.format(INSERT_UPDATE_CHANGES_SQL, placeholders), parameters.toArray());
+        }
+    }
+
+    /**
+     * Get the changes of a catalog since a version.
+     * <p>
+     * The changes of a product are collapsed into its last one, so the delta is proportional to the number of
+     * changed products. A snapshot is returned instead when no version is given, or when the changes that follow
+     * it have been compacted or never existed.
+     *
+     * @param catalogId the id of the catalog.
+     * @param sinceVersion the version the client holds, or {@code null} for a snapshot.
+     * @return the changes, or empty if the catalog does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CatalogChangesDTO> findChanges(long catalogId, Long sinceVersion) {
+        log.debug("Request to get the changes of Catalog : {} since version {}", catalogId, sinceVersion);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_CATALOG_SQL, catalogId);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Object> row = rows.get(0);
+        String code = (String) row.get("code");
+        CatalogStatus status = CatalogStatus.valueOf((String) row.get("status"));
+        long version = ((Number) row.get("version")).longValue();
+        long compactedVersion = ((Number) row.get("compacted_version")).longValue();
+        if (sinceVersion == null || sinceVersion < compactedVersion || sinceVersion > version) {
+            List<ProductSummaryDTO> products = productRepository.findSummariesByCatalogId(catalogId);
+            return Optional.of(new CatalogChangesDTO(catalogId, code, status, version, true, products, List.of()));
+        }
+        return Optional.of(findDelta(catalogId, code, status, sinceVersion, version));
+    }
+
+    private CatalogChangesDTO findDelta(long catalogId, String code, CatalogStatus status, long sinceVersion, long version) {
+        // The last change of a product decides whether it is upserted or removed
+        Map<Long, ChangeType> lastChanges = new LinkedHashMap<>();
+        jdbcTemplate.query(
+            SELECT_CHANGES_SQL,
+            resultSet -> {
+                long productId = resultSet.getLong(1);
+                lastChanges.remove(productId);
+                lastChanges.put(productId, ChangeType.valueOf(resultSet.getString(2)));
+            },
+            catalogId,
+            sinceVersion,
+            version
+        );
+        List<Long> upsertedIds = new ArrayList<>();
+        List<Long> removedIds = new ArrayList<>();
+        lastChanges.forEach((productId, changeType) -> (changeType == ChangeType.REMOVED ? removedIds : upsertedIds).add(productId));
+        List<ProductSummaryDTO> products = new ArrayList<>(upsertedIds.size());
+        for (int from = 0; from < upsertedIds.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, upsertedIds.size());
+            products.addAll(productRepository.findSummariesByIdIn(upsertedIds.subList(from, to)));
+        }
+        return new CatalogChangesDTO(catalogId, code, status, version, false, products, removedIds);
+    }
+
+    /**
+     * Delete the changes older than {@code application.catalog-changes.retention}.
+     */
+    @Scheduled(cron = "${application.catalog-changes.compaction-cron}")
+    public void compactChanges() {
+        compactChangesBefore(Instant.now().minus(applicationProperties.getCatalogChanges().getRetention()));
+    }
+
+    /**
+     * Delete the changes logged before an instant, and record the highest deleted version of each catalog.
+     *
+     * @param before the instant.
+     * @return the number of deleted changes.
+     */
+    public int compactChangesBefore(Instant before) {
+        log.debug("Request to compact the Catalog changes before {}", before);
+        Timestamp timestamp = Timestamp.from(before);
+        int catalogs = jdbcTemplate.update(COMPACT_VERSIONS_SQL, timestamp, timestamp);
+        int deleted = jdbcTemplate.update(DELETE_CHANGES_SQL, timestamp);
+        log.info("Compacted {} changes of {} Catalogs", deleted, catalogs);
+        return deleted;
+    }
+}
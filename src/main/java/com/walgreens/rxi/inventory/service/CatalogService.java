@@ -1,14 +1,29 @@
 package com.walgreens.rxi.inventory.service;
 
 import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.Product;
 import com.walgreens.rxi.inventory.repository.CatalogRepository;
+import com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus;
+import com.walgreens.rxi.inventory.service.outbox.OutboxService;
+import com.walgreens.rxi.inventory.service.readmodel.AfterCommit;
+import com.walgreens.rxi.inventory.service.readmodel.CatalogMembershipIndex;
+import com.walgreens.rxi.inventory.service.readmodel.ProductIdBitmap;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -18,23 +33,81 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class CatalogService {
 
+    /**
+     * Catalog ids per query fetching the products of a page of catalogs.
+     */
+    private static final int PRODUCT_FETCH_BATCH_SIZE = 500;
+
+    /**
+     * Inserts a membership row for an existing product, unless the catalog already contains it.
+     */
+    private static final String INSERT_PRODUCT_SQL =
+        "insert into rel_catalog__product_code (catalog_id, product_code_id) select ?, product.id from product product " +
+        "where product.id = ? and not exists " +
+        "(select 1 from rel_catalog__product_code rel where rel.catalog_id = ? and rel.product_code_id = ?)";
+
+    private static final String DELETE_PRODUCT_SQL = "delete from rel_catalog__product_code where catalog_id = ? and product_code_id = ?";
+
+    private static final String PRODUCTS_CACHE_REGION = Catalog.class.getName() + ".productCodes";
+
+    private static final String CATALOGS_CACHE_REGION = Product.class.getName() + ".catalogs";
+
     private final Logger log = LoggerFactory.getLogger(CatalogService.class);
 
     private final CatalogRepository catalogRepository;
 
-    public CatalogService(CatalogRepository catalogRepository) {
+    private final CatalogMembershipIndex catalogMembershipIndex;
+
+    private final CatalogChangeService catalogChangeService;
+
+    private final OutboxService outboxService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public CatalogService(
+        CatalogRepository catalogRepository,
+        CatalogMembershipIndex catalogMembershipIndex,
+        CatalogChangeService catalogChangeService,
+        OutboxService outboxService,
+        JdbcTemplate jdbcTemplate,
+        EntityManagerFactory entityManagerFactory,
+        CacheInvalidationBus cacheInvalidationBus
+    ) {
         this.catalogRepository = catalogRepository;
+        this.catalogMembershipIndex = catalogMembershipIndex;
+        this.catalogChangeService = catalogChangeService;
+        this.outboxService = outboxService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     /**
      * Save a catalog.
+     * <p>
+     * Its version is incremented, and the products added to or removed from it are logged by the
+     * {@link CatalogChangeService} and recorded in the outbox.
      *
      * @param catalog the entity to save.
      * @return the persisted entity.
      */
     public Catalog save(Catalog catalog) {
         log.debug("Request to save Catalog : {}", catalog);
-        return catalogRepository.save(catalog);
+        boolean created = catalog.getId() == null;
+        long[] previousProductIds = created ? new long[0] : catalogChangeService.findProductIds(catalog.getId());
+        // The catalog row must exist before its version is incremented
+        Catalog result = catalogRepository.saveAndFlush(catalog);
+        long[] productIds = result.getProductCodes().stream().mapToLong(Product::getId).toArray();
+        long[] added = difference(productIds, previousProductIds);
+        long[] removed = difference(previousProductIds, productIds);
+        long version = catalogChangeService.recordCatalogChanges(result.getId(), added, removed);
+        outboxService.recordCatalogSaved(result, created, version, added, removed);
+        catalogMembershipIndex.put(result.getId(), productIds);
+        return result;
     }
 
     /**
@@ -60,27 +133,49 @@ public class CatalogService {
                     return existingCatalog;
                 }
             )
-            .map(catalogRepository::save);
+            .map(catalogRepository::save)
+            .map(
+                savedCatalog -> {
+                    long version = catalogChangeService.recordCatalogChanges(savedCatalog.getId(), new long[0], new long[0]);
+                    outboxService.recordCatalogSaved(savedCatalog, false, version, new long[0], new long[0]);
+                    return savedCatalog;
+                }
+            );
     }
 
     /**
-     * Get all the catalogs.
+     * Get all the catalogs, without their products.
      *
+     * @param pageable the pagination information.
      * @return the list of entities.
      */
     @Transactional(readOnly = true)
-    public List<Catalog> findAll() {
+    public Page<Catalog> findAll(Pageable pageable) {
         log.debug("Request to get all Catalogs");
-        return catalogRepository.findAllWithEagerRelationships();
+        return catalogRepository.findAll(pageable);
     }
 
     /**
-     * Get all the catalogs with eager load of many-to-many relationships.
+     * Get all the catalogs with their products.
+     * <p>
+     * The page is read first, then the products of its catalogs are fetched by batches of
+     * {@value #PRODUCT_FETCH_BATCH_SIZE} catalog ids: the memory used by a request is bounded by the page,
+     * however many catalogs there are.
      *
+     * @param pageable the pagination information.
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
     public Page<Catalog> findAllWithEagerRelationships(Pageable pageable) {
-        return catalogRepository.findAllWithEagerRelationships(pageable);
+        log.debug("Request to get all Catalogs with their Products");
+        Page<Catalog> page = catalogRepository.findAll(pageable);
+        List<Long> ids = page.map(Catalog::getId).getContent();
+        for (int from = 0; from < ids.size(); from += PRODUCT_FETCH_BATCH_SIZE) {
+            int to = Math.min(from + PRODUCT_FETCH_BATCH_SIZE, ids.size());
+            // Initializes the product sets of the catalogs of the page, which are in the persistence context
+            catalogRepository.findAllWithEagerRelationshipsByIdIn(ids.subList(from, to));
+        }
+        return page;
     }
 
     /**
@@ -103,5 +198,160 @@ public class CatalogService {
     public void delete(Long id) {
         log.debug("Request to delete Catalog : {}", id);
         catalogRepository.deleteById(id);
+        outboxService.recordCatalogDeleted(id);
+        catalogMembershipIndex.remove(id);
+    }
+
+    /**
+     * Add products to a catalog.
+     * <p>
+     * Only the missing rows of the {@code rel_catalog__product_code} join table are inserted, in a single JDBC batch,
+     * instead of the delete and re-insert of the whole product set that saving the catalog implies. Products that
+     * do not exist or are already in the catalog are ignored.
+     *
+     * @param id the id of the catalog.
+     * @param productIds the ids of the products to add.
+     * @return the number of added products, or empty if the catalog does not exist.
+     */
+    public Optional<Integer> addProducts(Long id, Collection<Long> productIds) {
+        log.debug("Request to add Products : {} to Catalog : {}", productIds, id);
+        if (!catalogRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        long[] added = updateMemberships(id, productIds, true);
+        if (added.length > 0) {
+            long version = catalogChangeService.recordCatalogChanges(id, added, new long[0]);
+            outboxService.recordCatalogProductsChanged(id, version, added, new long[0]);
+            catalogMembershipIndex.addProducts(id, added);
+        }
+        return Optional.of(added.length);
+    }
+
+    /**
+     * Remove products from a catalog.
+     * <p>
+     * Only the rows of the given products are deleted from the {@code rel_catalog__product_code} join table, in a
+     * single JDBC batch. Products that are not in the catalog are ignored.
+     *
+     * @param id the id of the catalog.
+     * @param productIds the ids of the products to remove.
+     * @return the number of removed products, or empty if the catalog does not exist.
+     */
+    public Optional<Integer> removeProducts(Long id, Collection<Long> productIds) {
+        log.debug("Request to remove Products : {} from Catalog : {}", productIds, id);
+        if (!catalogRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        long[] removed = updateMemberships(id, productIds, false);
+        if (removed.length > 0) {
+            long version = catalogChangeService.recordCatalogChanges(id, new long[0], removed);
+            outboxService.recordCatalogProductsChanged(id, version, new long[0], removed);
+            catalogMembershipIndex.removeProducts(id, removed);
+        }
+        return Optional.of(removed.length);
+    }
+
+    /**
+     * Insert or delete the membership row of each product and evict the cached product sets that changed.
+     *
+     * @return the ids of the products whose row was inserted or deleted.
+     */
+    private long[] updateMemberships(Long id, Collection<Long> productIds, boolean insert) {
+        // Rows are locked in id order, so that concurrent batches on the same catalog cannot deadlock
+        long[] ids = productIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        int[] counts = jdbcTemplate.batchUpdate(
+            insert ? INSERT_PRODUCT_SQL : DELETE_PRODUCT_SQL,
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setLong(1, id);
+                    statement.setLong(2, ids[i]);
+                    if (insert) {
+                        statement.setLong(3, id);
+                        statement.setLong(4, ids[i]);
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return ids.length;
+                }
+            }
+        );
+        long[] changed = new long[ids.length];
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (counts[i] > 0) {
+                changed[size++] = ids[i];
+            }
+        }
+        // The rows were changed behind Hibernate's back: only the product sets of the catalog and of the changed
+        // products are stale. They are evicted once committed: evicted before, they could be cached again from the
+        // rows being replaced.
+        long[] evicted = Arrays.copyOf(changed, size);
+        AfterCommit.run(
+            () -> {
+                Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+                cache.evictCollectionData(PRODUCTS_CACHE_REGION, id);
+                for (long productId : evicted) {
+                    cache.evictCollectionData(CATALOGS_CACHE_REGION, productId);
+                }
+            }
+        );
+        cacheInvalidationBus.broadcastEviction(PRODUCTS_CACHE_REGION, id);
+        for (long productId : evicted) {
+            cacheInvalidationBus.broadcastEviction(CATALOGS_CACHE_REGION, productId);
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the ids of {@code left} that are not in {@code right}.
+     */
+    private static long[] difference(long[] left, long[] right) {
+        ProductIdBitmap difference = ProductIdBitmap.of(left).andNot(ProductIdBitmap.of(right));
+        long[] ids = new long[(int) difference.cardinality()];
+        difference.copyIdsAfter(-1, ids);
+        return ids;
+    }
+
+    /**
+     * Get the products of one catalog by id, from the membership index.
+     * <p>
+     * The index is read outside of any transaction, so that these queries never wait for a database connection.
+     *
+     * @param id the id of the catalog.
+     * @return the ids of the products of the catalog.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ProductIdBitmap> findProductIds(Long id) {
+        log.debug("Request to get the Product ids of Catalog : {}", id);
+        return catalogMembershipIndex.findProducts(id);
+    }
+
+    /**
+     * Get the ids of the catalogs that contain a product, from the membership index.
+     *
+     * @param productId the id of the product.
+     * @return the ids of the catalogs, in increasing order.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Long> findIdsContainingProduct(Long productId) {
+        log.debug("Request to get the ids of the Catalogs containing Product : {}", productId);
+        return catalogMembershipIndex.findCatalogIdsContaining(productId);
+    }
+
+    /**
+     * Combine the products of several catalogs, from the membership index.
+     *
+     * @param operation the set operation.
+     * @param ids the ids of the catalogs, at least one; for a difference, the products of the first catalog
+     * that are in none of the others.
+     * @return the ids of the resulting products, or empty if one of the catalogs does not exist.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ProductIdBitmap> combineProductIds(CatalogMembershipIndex.SetOperation operation, List<Long> ids) {
+        log.debug("Request to get the {} of the Product ids of Catalogs : {}", operation, ids);
+        return catalogMembershipIndex.combine(operation, ids);
     }
 }
@@ -2,11 +2,15 @@ package com.walgreens.rxi.inventory.service;
 
 import com.walgreens.rxi.inventory.domain.Category;
 import com.walgreens.rxi.inventory.repository.CategoryRepository;
+import com.walgreens.rxi.inventory.service.dto.ProductCountsDTO;
+import com.walgreens.rxi.inventory.service.outbox.OutboxService;
+import com.walgreens.rxi.inventory.service.readmodel.ProductCounters;
 import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -20,8 +24,14 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    private final ProductCounters productCounters;
+
+    private final OutboxService outboxService;
+
+    public CategoryService(CategoryRepository categoryRepository, ProductCounters productCounters, OutboxService outboxService) {
         this.categoryRepository = categoryRepository;
+        this.productCounters = productCounters;
+        this.outboxService = outboxService;
     }
 
     /**
@@ -32,7 +42,10 @@ public class CategoryService {
      */
     public Category save(Category category) {
         log.debug("Request to save Category : {}", category);
-        return categoryRepository.save(category);
+        boolean created = category.getId() == null;
+        Category result = categoryRepository.save(category);
+        outboxService.recordCategorySaved(result, created);
+        return result;
     }
 
     /**
@@ -58,7 +71,13 @@ public class CategoryService {
                     return existingCategory;
                 }
             )
-            .map(categoryRepository::save);
+            .map(categoryRepository::save)
+            .map(
+                savedCategory -> {
+                    outboxService.recordCategorySaved(savedCategory, false);
+                    return savedCategory;
+                }
+            );
     }
 
     /**
@@ -72,6 +91,17 @@ public class CategoryService {
         return categoryRepository.findAll();
     }
 
+    /**
+     * Get the number of products of each category, by status and by type, from the in-memory counters.
+     *
+     * @return the counts of the categories that have products.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductCountsDTO> findProductCounts() {
+        log.debug("Request to get the Product counts of all Categories");
+        return productCounters.findCategoryCounts();
+    }
+
     /**
      * Get one category by id.
      *
@@ -92,5 +122,6 @@ public class CategoryService {
     public void delete(Long id) {
         log.debug("Request to delete Category : {}", id);
         categoryRepository.deleteById(id);
+        outboxService.recordCategoryDeleted(id);
     }
 }
@@ -0,0 +1,159 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content-addressed store for product images.
+ * <p>
+ * Each image is written once to the local file system under its SHA-256 hash, so identical images are stored
+ * once, files never change after being written and the hash can serve as a strong ETag.
+ */
+@Service
+public class ImageStoreService {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Logger log = LoggerFactory.getLogger(ImageStoreService.class);
+
+    private final Path root;
+
+    public ImageStoreService(ApplicationProperties applicationProperties) throws IOException {
+        this.root = Paths.get(applicationProperties.getImageStore().getLocation()).toAbsolutePath();
+        Files.createDirectories(root);
+        log.debug("Storing images in {}", root);
+    }
+
+    /**
+     * Store an image.
+     *
+     * @param content the image bytes.
+     * @return the SHA-256 hash of the image, in hexadecimal.
+     */
+    public String store(byte[] content) {
+        return store(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Store an image, streaming it to disk while it is hashed so that it is never fully held in memory.
+     *
+     * @param content the image content, not closed by this method.
+     * @return the SHA-256 hash of the image, in hexadecimal.
+     */
+    public String store(InputStream content) {
+        MessageDigest digest = newDigest();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, "upload-", ".tmp");
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                content.transferTo(out);
+            }
+            String hash = toHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored concurrently with the same content
+                }
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store image", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Find a stored image.
+     *
+     * @param hash the SHA-256 hash of the image.
+     * @return the path of the image file, empty if the hash is malformed or unknown.
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = resolve(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Copy a range of a stored image to a channel with {@link FileChannel#transferTo}, so the bytes go from
+     * the page cache to the target without being buffered in a {@code byte[]} per request.
+     *
+     * @param image the path returned by {@link #find(String)}.
+     * @param position the first byte to copy.
+     * @param count the number of bytes to copy.
+     * @param target the channel to copy to.
+     * @throws IOException if the image cannot be read or the channel written.
+     */
+    public void transferTo(Path image, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file {}", path, e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
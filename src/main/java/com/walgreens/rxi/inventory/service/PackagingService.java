@@ -2,11 +2,14 @@ package com.walgreens.rxi.inventory.service;
 
 import com.walgreens.rxi.inventory.domain.Packaging;
 import com.walgreens.rxi.inventory.repository.PackagingRepository;
+import com.walgreens.rxi.inventory.service.dto.ProductCountsDTO;
+import com.walgreens.rxi.inventory.service.readmodel.ProductCounters;
 import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -20,8 +23,11 @@ public class PackagingService {
 
     private final PackagingRepository packagingRepository;
 
-    public PackagingService(PackagingRepository packagingRepository) {
+    private final ProductCounters productCounters;
+
+    public PackagingService(PackagingRepository packagingRepository, ProductCounters productCounters) {
         this.packagingRepository = packagingRepository;
+        this.productCounters = productCounters;
     }
 
     /**
@@ -87,6 +93,17 @@ public class PackagingService {
         return packagingRepository.findAll();
     }
 
+    /**
+     * Get the number of products of each packaging, by status and by type, from the in-memory counters.
+     *
+     * @return the counts of the packagings that have products.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductCountsDTO> findProductCounts() {
+        log.debug("Request to get the Product counts of all Packagings");
+        return productCounters.findPackagingCounts();
+    }
+
     /**
      * Get one packaging by id.
      *
@@ -0,0 +1,161 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.dto.PackagingDimensionsDTO;
+import com.walgreens.rxi.inventory.service.dto.PackingPlanDTO;
+import com.walgreens.rxi.inventory.service.dto.PackingRequestDTO;
+import com.walgreens.rxi.inventory.service.packing.PackingPlan;
+import com.walgreens.rxi.inventory.service.packing.PackingPlanner;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service computing how the {@link Packaging} of products are best packed into shelves, drawers or pallets.
+ * <p>
+ * The dimensions of the packagings are read in one query per chunk of products; the packing itself runs in
+ * memory, in a {@link PackingPlanner}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PackingService {
+
+    /**
+     * Maximum number of ids in the {@code IN} list of a query.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final Comparator<PackingPlanDTO.Placement> PLACEMENT_ORDER = Comparator
+        .comparingDouble(PackingPlanDTO.Placement::getX)
+        .thenComparingDouble(PackingPlanDTO.Placement::getY);
+
+    private final Logger log = LoggerFactory.getLogger(PackingService.class);
+
+    private final ProductRepository productRepository;
+
+    public PackingService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Plan the packing of quantities of products into containers.
+     * <p>
+     * Each line is packed in as many packagings of its product as its quantity fills. The products without a
+     * packaging, or whose packaging has no dimensions, are reported as unpacked.
+     *
+     * @param request the lines to pack and the container.
+     * @return the plan.
+     */
+    public PackingPlanDTO plan(PackingRequestDTO request) {
+        log.debug("Request to plan a packing : {}", request);
+        List<PackingRequestDTO.Line> lines = request.getLines();
+        Map<Long, PackagingDimensionsDTO> packagings = findPackagings(lines);
+
+        int count = lines.size();
+        double[] length = new double[count];
+        double[] width = new double[count];
+        double[] height = new double[count];
+        double[] weight = new double[count];
+        int[] packages = new int[count];
+        Long[] packagingIds = new Long[count];
+        TreeSet<Long> unpackedProductIds = new TreeSet<>();
+        for (int line = 0; line < count; line++) {
+            Long productId = lines.get(line).getProductId();
+            PackagingDimensionsDTO packaging = packagings.get(productId);
+            if (
+                packaging == null ||
+                !isPositive(packaging.getLength()) ||
+                !isPositive(packaging.getWidth()) ||
+                !isPositive(packaging.getHeight())
+            ) {
+                unpackedProductIds.add(productId);
+                continue;
+            }
+            packagingIds[line] = packaging.getPackagingId();
+            length[line] = packaging.getLength();
+            width[line] = packaging.getWidth();
+            height[line] = packaging.getHeight();
+            weight[line] = isPositive(packaging.getGrossWeight()) ? packaging.getGrossWeight() : 0;
+            int perPackaging = isPositive(packaging.getQuantity()) ? packaging.getQuantity() : 1;
+            packages[line] = (lines.get(line).getQuantity() + perPackaging - 1) / perPackaging;
+        }
+
+        PackingRequestDTO.Container container = request.getContainer();
+        PackingPlanner planner = new PackingPlanner(
+            container.getLength(),
+            container.getWidth(),
+            container.getHeight(),
+            container.getMaxWeight() != null ? container.getMaxWeight() : 0
+        );
+        PackingPlan plan = planner.plan(length, width, height, weight, packages);
+        for (int line : plan.getUnpackedLines()) {
+            unpackedProductIds.add(lines.get(line).getProductId());
+        }
+        return toDto(plan, lines, packagingIds, unpackedProductIds);
+    }
+
+    private Map<Long, PackagingDimensionsDTO> findPackagings(List<PackingRequestDTO.Line> lines) {
+        List<Long> ids = lines.stream().map(PackingRequestDTO.Line::getProductId).distinct().collect(Collectors.toList());
+        Map<Long, PackagingDimensionsDTO> packagings = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            for (PackagingDimensionsDTO packaging : productRepository.findPackagingDimensionsByIdIn(chunk)) {
+                packagings.put(packaging.getProductId(), packaging);
+            }
+        }
+        return packagings;
+    }
+
+    private static PackingPlanDTO toDto(PackingPlan plan, List<PackingRequestDTO.Line> lines, Long[] packagingIds, TreeSet<Long> unpacked) {
+        List<List<PackingPlanDTO.Placement>> placements = new ArrayList<>(plan.getContainerCount());
+        for (int container = 0; container < plan.getContainerCount(); container++) {
+            placements.add(new ArrayList<>());
+        }
+        for (int placement = 0; placement < plan.getPlacementCount(); placement++) {
+            int line = plan.getPlacementLine(placement);
+            placements
+                .get(plan.getPlacementContainer(placement))
+                .add(
+                    new PackingPlanDTO.Placement(
+                        lines.get(line).getProductId(),
+                        packagingIds[line],
+                        plan.getPlacementX(placement),
+                        plan.getPlacementY(placement),
+                        plan.getDepth(line),
+                        plan.getWidth(line),
+                        plan.getHeight(line),
+                        plan.getPlacementColumns(placement),
+                        plan.getPackagesPerColumn(line),
+                        plan.getPlacementPackages(placement)
+                    )
+                );
+        }
+        List<PackingPlanDTO.ContainerPlan> containers = new ArrayList<>(plan.getContainerCount());
+        for (int container = 0; container < plan.getContainerCount(); container++) {
+            List<PackingPlanDTO.Placement> containerPlacements = placements.get(container);
+            containerPlacements.sort(PLACEMENT_ORDER);
+            containers.add(
+                new PackingPlanDTO.ContainerPlan(
+                    container,
+                    plan.getVolumeUtilisation(container),
+                    plan.getWeight(container),
+                    containerPlacements
+                )
+            );
+        }
+        return new PackingPlanDTO(plan.getContainerCount(), plan.getVolumeUtilisation(), containers, new ArrayList<>(unpacked));
+    }
+
+    private static boolean isPositive(Number value) {
+        return value != null && value.doubleValue() > 0;
+    }
+}
@@ -2,28 +2,59 @@ package com.walgreens.rxi.inventory.service;
 
 import com.walgreens.rxi.inventory.domain.ProductCode;
 import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
+import com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus;
+import com.walgreens.rxi.inventory.service.dto.GtinValidationDTO;
+import com.walgreens.rxi.inventory.service.gtin.Gtin;
+import com.walgreens.rxi.inventory.service.gtin.GtinError;
+import com.walgreens.rxi.inventory.service.gtin.InvalidGtinException;
+import com.walgreens.rxi.inventory.service.readmodel.AfterCommit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service Implementation for managing {@link ProductCode}.
+ * <p>
+ * The UPC of a code must be a GTIN, and is stored in its normalized GTIN-14 form, as is a barcode that is a GTIN;
+ * other barcodes, from other symbologies, are stored as they are. The lookups normalize the code they are given
+ * the same way, so that a code is found whatever the length it is scanned or typed with.
  */
 @Service
 @Transactional
 public class ProductCodeService {
 
+    private static final GtinValidationDTO.Result[] INVALID_RESULTS = {
+        new GtinValidationDTO.Result(null, GtinError.INVALID_LENGTH),
+        new GtinValidationDTO.Result(null, GtinError.INVALID_CHARACTER),
+        new GtinValidationDTO.Result(null, GtinError.INVALID_CHECK_DIGIT),
+    };
+
     private final Logger log = LoggerFactory.getLogger(ProductCodeService.class);
 
     private final ProductCodeRepository productCodeRepository;
 
-    public ProductCodeService(ProductCodeRepository productCodeRepository) {
+    private final CacheManager cacheManager;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public ProductCodeService(
+        ProductCodeRepository productCodeRepository,
+        CacheManager cacheManager,
+        CacheInvalidationBus cacheInvalidationBus
+    ) {
         this.productCodeRepository = productCodeRepository;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     /**
@@ -31,9 +62,15 @@ public class ProductCodeService {
      *
      * @param productCode the entity to save.
      * @return the persisted entity.
+     * @throws InvalidGtinException if the UPC is not a GTIN, or the barcode is a GTIN with a wrong check digit.
      */
     public ProductCode save(ProductCode productCode) {
         log.debug("Request to save ProductCode : {}", productCode);
+        normalizeCodes(productCode);
+        if (productCode.getId() != null) {
+            productCodeRepository.findById(productCode.getId()).ifPresent(this::clearProductCodeCaches);
+        }
+        clearProductCodeCaches(productCode);
         return productCodeRepository.save(productCode);
     }
 
@@ -42,14 +79,17 @@ public class ProductCodeService {
      *
      * @param productCode the entity to update partially.
      * @return the persisted entity.
+     * @throws InvalidGtinException if the UPC is not a GTIN, or the barcode is a GTIN with a wrong check digit.
      */
     public Optional<ProductCode> partialUpdate(ProductCode productCode) {
         log.debug("Request to partially update ProductCode : {}", productCode);
+        normalizeCodes(productCode);
 
         return productCodeRepository
             .findById(productCode.getId())
             .map(
                 existingProductCode -> {
+                    clearProductCodeCaches(existingProductCode);
                     if (productCode.getUpc() != null) {
                         existingProductCode.setUpc(productCode.getUpc());
                     }
@@ -57,6 +97,7 @@ public class ProductCodeService {
                         existingProductCode.setBarcode(productCode.getBarcode());
                     }
 
+                    clearProductCodeCaches(existingProductCode);
                     return existingProductCode;
                 }
             )
@@ -75,16 +116,15 @@ public class ProductCodeService {
     }
 
     /**
-     *  Get all the productCodes where Product is {@code null}.
-     *  @return the list of entities.
+     * Get the productCodes where Product is {@code null}, in one anti-join query and its count.
+     *
+     * @param pageable the pagination information.
+     * @return the page of productCodes.
      */
     @Transactional(readOnly = true)
-    public List<ProductCode> findAllWhereProductIsNull() {
-        log.debug("Request to get all productCodes where Product is null");
-        return StreamSupport
-            .stream(productCodeRepository.findAll().spliterator(), false)
-            .filter(productCode -> productCode.getProduct() == null)
-            .collect(Collectors.toList());
+    public Page<ProductCode> findAllWhereProductIsNull(Pageable pageable) {
+        log.debug("Request to get a page of productCodes where Product is null");
+        return productCodeRepository.findAllWithoutProduct(pageable);
     }
 
     /**
@@ -99,6 +139,71 @@ public class ProductCodeService {
         return productCodeRepository.findById(id);
     }
 
+    /**
+     * Get one productCode by UPC.
+     *
+     * @param upc the UPC of the entity, in any GTIN form.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductCode> findOneByUpc(String upc) {
+        log.debug("Request to get ProductCode by UPC : {}", upc);
+        return findOneByCode(upc, productCodeRepository::findIdByUpc);
+    }
+
+    /**
+     * Get one productCode by barcode.
+     *
+     * @param barcode the barcode of the entity, in any GTIN form if it is a GTIN.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductCode> findOneByBarcode(String barcode) {
+        log.debug("Request to get ProductCode by barcode : {}", barcode);
+        return findOneByCode(barcode, productCodeRepository::findIdByBarcode);
+    }
+
+    /**
+     * Validate and normalize a batch of codes as GTINs.
+     *
+     * @param codes the codes.
+     * @return the result of each code.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public GtinValidationDTO validateCodes(List<String> codes) {
+        log.debug("Request to validate {} codes", codes.size());
+        List<GtinValidationDTO.Result> results = new ArrayList<>(codes.size());
+        int valid = 0;
+        for (String code : codes) {
+            long parsed = Gtin.parse(code != null ? code : "");
+            valid += addResult(results, parsed);
+        }
+        return new GtinValidationDTO(valid, results.size() - valid, results);
+    }
+
+    /**
+     * Validate and normalize a batch of codes as GTINs, parsing them from the bytes of their lines.
+     *
+     * @param lines the codes, in ASCII, one per line.
+     * @return the result of each line, but a last empty one.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public GtinValidationDTO validateCodes(byte[] lines) {
+        log.debug("Request to validate {} bytes of codes", lines.length);
+        List<GtinValidationDTO.Result> results = new ArrayList<>();
+        int valid = 0;
+        int from = 0;
+        while (from < lines.length) {
+            int to = from;
+            while (to < lines.length && lines[to] != '\n') {
+                to++;
+            }
+            valid += addResult(results, Gtin.parse(lines, from, to));
+            from = to + 1;
+        }
+        return new GtinValidationDTO(valid, results.size() - valid, results);
+    }
+
     /**
      * Delete the productCode by id.
      *
@@ -106,6 +211,75 @@ public class ProductCodeService {
      */
     public void delete(Long id) {
         log.debug("Request to delete ProductCode : {}", id);
+        productCodeRepository.findById(id).ifPresent(this::clearProductCodeCaches);
         productCodeRepository.deleteById(id);
     }
+
+    /**
+     * Normalize the codes of a productCode before it is written.
+     */
+    private static void normalizeCodes(ProductCode productCode) {
+        if (productCode.getUpc() != null) {
+            productCode.setUpc(Gtin.normalize("UPC", productCode.getUpc()));
+        }
+        if (productCode.getBarcode() != null) {
+            long parsed = Gtin.parse(productCode.getBarcode());
+            if (parsed >= 0) {
+                productCode.setBarcode(Gtin.format(parsed));
+            } else if (Gtin.error(parsed) == GtinError.INVALID_CHECK_DIGIT) {
+                // All digits, of a GTIN length: a mistyped GTIN rather than another symbology
+                throw new InvalidGtinException("barcode", productCode.getBarcode(), GtinError.INVALID_CHECK_DIGIT);
+            }
+        }
+    }
+
+    /**
+     * Look the id of a code up in its normalized form if it is a GTIN, then as it is given, for the codes written
+     * before they were normalized, and load the code by id.
+     */
+    private Optional<ProductCode> findOneByCode(String code, Function<String, Optional<Long>> lookup) {
+        Optional<Long> id = Optional.empty();
+        long parsed = Gtin.parse(code);
+        if (parsed >= 0) {
+            String gtin = Gtin.format(parsed);
+            id = lookup.apply(gtin);
+            if (id.isEmpty() && !gtin.equals(code)) {
+                id = lookup.apply(code);
+            }
+        } else {
+            id = lookup.apply(code);
+        }
+        // A code deleted since its id was cached is not found
+        return id.flatMap(productCodeRepository::findById);
+    }
+
+    private static int addResult(List<GtinValidationDTO.Result> results, long parsed) {
+        if (parsed < 0) {
+            // The results of invalid codes are shared: they only differ by their error
+            results.add(INVALID_RESULTS[Gtin.error(parsed).ordinal()]);
+            return 0;
+        }
+        results.add(new GtinValidationDTO.Result(Gtin.format(parsed), null));
+        return 1;
+    }
+
+    /**
+     * Evict the lookups of the current codes of a productCode once the transaction has committed.
+     */
+    private void clearProductCodeCaches(ProductCode productCode) {
+        String upc = productCode.getUpc();
+        String barcode = productCode.getBarcode();
+        AfterCommit.run(
+            () -> {
+                if (upc != null) {
+                    Objects.requireNonNull(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE)).evict(upc);
+                    cacheInvalidationBus.broadcastEviction(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE, upc);
+                }
+                if (barcode != null) {
+                    Objects.requireNonNull(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_BARCODE_CACHE)).evict(barcode);
+                    cacheInvalidationBus.broadcastEviction(ProductCodeRepository.PRODUCT_CODES_BY_BARCODE_CACHE, barcode);
+                }
+            }
+        );
+    }
 }
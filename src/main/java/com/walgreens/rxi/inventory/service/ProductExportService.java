@@ -0,0 +1,134 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.io.IOException;
+import java.io.Writer;
+import javax.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Export of all the {@link Product} entities, as summaries, in NDJSON or in {@code ;}-separated CSV.
+ * <p>
+ * The products are read in id order through a forward-only cursor and written as they are read, so the export
+ * runs in constant memory whatever the size of the catalogue. The summaries are built by a constructor
+ * expression: no entity enters the persistence context, which therefore never needs to be cleared.
+ * The output can be fed back to {@link ProductImportService}, which ignores the id and image columns.
+ */
+@Service
+public class ProductExportService {
+
+    /**
+     * Rows fetched per round-trip by the cursor.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String CSV_HEADER =
+        "id;name;description;company;type;storage_type;price;sales_unit;sales_quantity;image_content_type;image_url;status;" +
+        "product_code_id;category_id;packaging_id";
+
+    private static final char CSV_SEPARATOR = ';';
+
+    private final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    private final EntityManager entityManager;
+
+    private final ObjectWriter summaryWriter;
+
+    public ProductExportService(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.summaryWriter =
+            objectMapper
+                .writerFor(ProductSummaryDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Export all the products.
+     *
+     * @param writer the destination, flushed but not closed by this method.
+     * @param format the format of the export.
+     * @return the number of exported products.
+     * @throws IOException if the export cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(Writer writer, ProductFileFormat format) throws IOException {
+        log.debug("Request to export Products to {}", format);
+        long start = System.nanoTime();
+        long rows = 0;
+        if (format == ProductFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try (
+            ScrollableResults results = entityManager
+                .unwrap(Session.class)
+                .createQuery(ProductRepository.SUMMARY_SELECT + " order by product.id", ProductSummaryDTO.class)
+                .setReadOnly(true)
+                .setFetchSize(FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)
+        ) {
+            while (results.next()) {
+                ProductSummaryDTO summary = (ProductSummaryDTO) results.get(0);
+                if (format == ProductFileFormat.CSV) {
+                    writeCsv(writer, summary);
+                } else {
+                    summaryWriter.writeValue(writer, summary);
+                }
+                writer.write('\n');
+                rows++;
+            }
+        }
+        writer.flush();
+        log.info("Exported {} Products in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, ProductSummaryDTO summary) throws IOException {
+        writeCsvValue(writer, summary.getId());
+        writeCsvValue(writer, summary.getName());
+        writeCsvValue(writer, summary.getDescription());
+        writeCsvValue(writer, summary.getCompany());
+        writeCsvValue(writer, summary.getType());
+        writeCsvValue(writer, summary.getStorageType());
+        writeCsvValue(writer, summary.getPrice());
+        writeCsvValue(writer, summary.getSalesUnit());
+        writeCsvValue(writer, summary.getSalesQuantity());
+        writeCsvValue(writer, summary.getImageContentType());
+        writeCsvValue(writer, summary.getImageUrl());
+        writeCsvValue(writer, summary.getStatus());
+        writeCsvValue(writer, summary.getProductCodeId());
+        writeCsvValue(writer, summary.getCategoryId());
+        writer.write(summary.getPackagingId() != null ? summary.getPackagingId().toString() : "");
+    }
+
+    /**
+     * Write a value followed by the separator; values that contain the separator, a quote or a line break are
+     * enclosed in double quotes, with {@code ""} for a quote.
+     */
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value != null) {
+            String text = value.toString();
+            if (text.indexOf(CSV_SEPARATOR) >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write(CSV_SEPARATOR);
+    }
+}
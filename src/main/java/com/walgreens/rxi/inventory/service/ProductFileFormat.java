@@ -0,0 +1,15 @@
+package com.walgreens.rxi.inventory.service;
+
+/**
+ * Line-oriented file formats of the bulk {@link com.walgreens.rxi.inventory.domain.Product} import and export.
+ */
+public enum ProductFileFormat {
+    /**
+     * One JSON object per line, {@code application/x-ndjson}.
+     */
+    NDJSON,
+    /**
+     * {@code ;}-separated values with a header line of snake_case column names, {@code text/csv}.
+     */
+    CSV,
+}
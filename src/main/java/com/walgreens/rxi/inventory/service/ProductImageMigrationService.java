@@ -0,0 +1,147 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus;
+import com.walgreens.rxi.inventory.service.readmodel.ProductReadModel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves the images still held in the {@code product.image} column to the {@link ImageStoreService}.
+ * <p>
+ * Rows are read in batches of {@code application.image-store.migration-batch-size}, each blob is streamed
+ * to the store without being materialized as a {@code byte[]}, and each batch is committed in its own
+ * transaction, so the job can be interrupted and resumed at any time. The blobs are read without a lock: a row
+ * whose image was replaced or removed in the meantime is left as it is, its new image is not overwritten.
+ */
+@Service
+public class ProductImageMigrationService {
+
+    private static final String SELECT_BATCH_SQL =
+        "select id, image from product where image is not null and image_hash is null order by id";
+
+    private static final String UPDATE_SQL =
+        "update product set image_hash = ?, image = null where id = ? and image_hash is null and image is not null";
+
+    private final Logger log = LoggerFactory.getLogger(ProductImageMigrationService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ImageStoreService imageStoreService;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ProductReadModel productReadModel;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public ProductImageMigrationService(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ImageStoreService imageStoreService,
+        EntityManagerFactory entityManagerFactory,
+        ProductReadModel productReadModel,
+        ApplicationProperties applicationProperties,
+        CacheInvalidationBus cacheInvalidationBus
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.imageStoreService = imageStoreService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.productReadModel = productReadModel;
+        this.applicationProperties = applicationProperties;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (applicationProperties.getImageStore().isMigrateOnStartup()) {
+            migrate();
+        }
+    }
+
+    /**
+     * Migrate all the images left in the {@code product} table.
+     *
+     * @return the number of migrated images.
+     */
+    public long migrate() {
+        log.debug("Request to migrate Product images to the image store");
+        AtomicLong migrated = new AtomicLong();
+        int read;
+        do {
+            read = transactionTemplate.execute(status -> migrateBatch(migrated));
+        } while (read > 0);
+        if (migrated.get() > 0) {
+            log.info("Migrated {} Product images to the image store", migrated.get());
+            if (productReadModel.isLoaded()) {
+                productReadModel.refresh();
+            }
+        }
+        return migrated.get();
+    }
+
+    /**
+     * @return the number of images read, migrated or not.
+     */
+    private int migrateBatch(AtomicLong migrated) {
+        int batchSize = applicationProperties.getImageStore().getMigrationBatchSize();
+        List<Object[]> updates = new ArrayList<>(batchSize);
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    SELECT_BATCH_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY
+                );
+                statement.setMaxRows(batchSize);
+                return statement;
+            },
+            resultSet -> {
+                long id = resultSet.getLong(1);
+                try (InputStream image = resultSet.getBinaryStream(2)) {
+                    updates.add(new Object[] { imageStoreService.store(image), id });
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read the image of Product " + id, e);
+                }
+            }
+        );
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        for (int i = 0; i < counts.length; i++) {
+            // A row whose image changed since it was read is left as it is: 0, unlike SUCCESS_NO_INFO
+            if (counts[i] != 0) {
+                Object id = updates.get(i)[1];
+                // The row was updated behind Hibernate's back
+                entityManagerFactory.getCache().evict(Product.class, id);
+                cacheInvalidationBus.broadcastEviction(Product.class.getName(), id);
+                migrated.incrementAndGet();
+            }
+        }
+        return updates.size();
+    }
+}
@@ -0,0 +1,591 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import com.walgreens.rxi.inventory.repository.CategoryRepository;
+import com.walgreens.rxi.inventory.repository.PackagingRepository;
+import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
+import com.walgreens.rxi.inventory.service.dto.ProductImportReportDTO;
+import com.walgreens.rxi.inventory.service.outbox.OutboxService;
+import com.walgreens.rxi.inventory.service.readmodel.ProductCounters;
+import com.walgreens.rxi.inventory.service.readmodel.ProductReadModel;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk import of {@link Product} entities from a supplier feed, in NDJSON or in {@code ;}-separated CSV with a
+ * header line ({@code fake-data/product.csv} layout).
+ * <p>
+ * The feed is read line by line, so it is never held in memory; a quoted CSV value may span up to
+ * {@value #MAX_ROW_LINES} lines, as the export writes the line breaks of a description. Each row is validated as it is read; the valid
+ * rows are persisted in batches of {@code application.product-import.batch-size} products, each in its own
+ * transaction, which is flushed (as JDBC batches) and cleared before the next one starts. When a batch fails, its
+ * rows are retried one by one so that only the faulty rows are rejected. The creation of the products is recorded
+ * in the outbox, in the transaction of their batch.
+ * <p>
+ * Relationships are given by id ({@code categoryId}, {@code packagingId} and {@code productCodeId}, or
+ * {@code category_id}... in CSV); their existence is checked once per id through a bounded lookup cache.
+ */
+@Service
+public class ProductImportService {
+
+    private static final char CSV_SEPARATOR = ';';
+
+    /**
+     * Columns of the CSV layout and of the export that are not imported: ids are generated and images are
+     * uploaded separately.
+     */
+    private static final Set<String> IGNORED_FIELDS = Set.of("id", "image", "imageContentType", "imageUrl");
+
+    private static final Set<String> FIELDS = Set.of(
+        "name",
+        "description",
+        "company",
+        "type",
+        "storageType",
+        "price",
+        "salesUnit",
+        "salesQuantity",
+        "status",
+        "productCodeId",
+        "categoryId",
+        "packagingId"
+    );
+
+    private static final int REFERENCE_CACHE_SIZE = 10_000;
+
+    /**
+     * Maximum number of lines a quoted CSV value may span.
+     */
+    private static final int MAX_ROW_LINES = 100;
+
+    private final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final CategoryRepository categoryRepository;
+
+    private final PackagingRepository packagingRepository;
+
+    private final ProductCodeRepository productCodeRepository;
+
+    private final ProductReadModel productReadModel;
+
+    private final ProductCounters productCounters;
+
+    private final OutboxService outboxService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductImportService(
+        EntityManager em,
+        PlatformTransactionManager transactionManager,
+        Validator validator,
+        ObjectMapper objectMapper,
+        CategoryRepository categoryRepository,
+        PackagingRepository packagingRepository,
+        ProductCodeRepository productCodeRepository,
+        ProductReadModel productReadModel,
+        ProductCounters productCounters,
+        OutboxService outboxService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.categoryRepository = categoryRepository;
+        this.packagingRepository = packagingRepository;
+        this.productCodeRepository = productCodeRepository;
+        this.productReadModel = productReadModel;
+        this.productCounters = productCounters;
+        this.outboxService = outboxService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Import products.
+     *
+     * @param reader the feed, not closed by this method.
+     * @param format the format of the feed.
+     * @return the report of the import.
+     * @throws IOException if the feed cannot be read.
+     */
+    public ProductImportReportDTO importProducts(Reader reader, ProductFileFormat format) throws IOException {
+        log.debug("Request to import Products from {}", format);
+        ApplicationProperties.ProductImport properties = applicationProperties.getProductImport();
+        ProductImportReportDTO report = new ProductImportReportDTO(properties.getMaxReportedErrors());
+        long start = System.nanoTime();
+
+        RowParser parser = format == ProductFileFormat.CSV ? new CsvRowParser(report) : new NdjsonRowParser(report);
+        References references = new References();
+        List<ImportedRow> batch = new ArrayList<>(properties.getBatchSize());
+        RowReader rows = new RowReader(reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader), parser);
+        String line;
+        while ((line = rows.next()) != null) {
+            // A row is reported at its first line
+            long rowNumber = rows.rowNumber;
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> fields;
+            try {
+                fields = parser.parse(line, rowNumber);
+            } catch (IllegalArgumentException e) {
+                report.rowRead();
+                report.rowFailed(rowNumber, e.getMessage());
+                continue;
+            }
+            if (fields == null) {
+                // Header line
+                continue;
+            }
+            report.rowRead();
+            ImportedRow row = toRow(rowNumber, fields, references, report);
+            if (row != null) {
+                batch.add(row);
+                if (batch.size() == properties.getBatchSize()) {
+                    persist(batch, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            persist(batch, report);
+        }
+
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        if (report.getImported() > 0) {
+            productCounters.refresh();
+            if (productReadModel.isLoaded()) {
+                productReadModel.refresh();
+            }
+        }
+        log.info("Imported Products: {}", report);
+        return report;
+    }
+
+    /**
+     * Convert and validate the fields of a row.
+     *
+     * @return the row to persist, or {@code null} if it was rejected.
+     */
+    private ImportedRow toRow(long line, Map<String, String> fields, References references, ProductImportReportDTO report) {
+        List<String> errors = new ArrayList<>();
+        Product product = new Product()
+            .name(fields.get("name"))
+            .description(fields.get("description"))
+            .company(fields.get("company"))
+            .type(parse(fields, "type", ProductType::valueOf, errors))
+            .storageType(parse(fields, "storageType", StorageType::valueOf, errors))
+            .price(parse(fields, "price", BigDecimal::new, errors))
+            .salesUnit(parse(fields, "salesUnit", UnitOfMeasurement::valueOf, errors))
+            .salesQuantity(parse(fields, "salesQuantity", BigDecimal::new, errors))
+            .status(parse(fields, "status", ProductStatus::valueOf, errors));
+        Long productCodeId = parseReference(fields, "productCodeId", references.productCodes, errors);
+        Long categoryId = parseReference(fields, "categoryId", references.categories, errors);
+        Long packagingId = parseReference(fields, "packagingId", references.packagings, errors);
+        for (ConstraintViolation<Product> violation : validator.validate(product)) {
+            String field = violation.getPropertyPath().toString();
+            // A value that could not be parsed is already reported, don't report it as missing too
+            if (errors.stream().noneMatch(error -> error.startsWith(field + ": "))) {
+                errors.add(field + ": " + violation.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            report.rowFailed(line, String.join(", ", errors));
+            return null;
+        }
+        return new ImportedRow(line, product, productCodeId, categoryId, packagingId);
+    }
+
+    private static <T> T parse(Map<String, String> fields, String field, Function<String, T> parser, List<String> errors) {
+        String value = fields.get(field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            errors.add(field + ": invalid value '" + value + "'");
+            return null;
+        }
+    }
+
+    private static Long parseReference(Map<String, String> fields, String field, ReferenceCache cache, List<String> errors) {
+        Long id = parse(fields, field, Long::valueOf, errors);
+        if (id != null && !cache.exists(id)) {
+            errors.add(field + ": " + id + " does not exist");
+            return null;
+        }
+        return id;
+    }
+
+    private void persist(List<ImportedRow> batch, ProductImportReportDTO report) {
+        try {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    batch.forEach(this::persist);
+                    em.flush();
+                    outboxService.recordProductsCreated(batch.stream().map(row -> row.product).collect(Collectors.toList()));
+                    em.clear();
+                }
+            );
+            report.rowsImported(batch.size());
+        } catch (RuntimeException e) {
+            log.debug("Import batch failed, retrying its rows one by one: {}", e.getMessage());
+            for (ImportedRow row : batch) {
+                // Discard the id assigned by the rolled back transaction
+                row.product.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(
+                        status -> {
+                            persist(row);
+                            em.flush();
+                            outboxService.recordProductsCreated(List.of(row.product));
+                        }
+                    );
+                    report.rowsImported(1);
+                } catch (RuntimeException rowException) {
+                    report.rowFailed(row.line, NestedExceptionUtils.getMostSpecificCause(rowException).getMessage());
+                }
+            }
+        }
+    }
+
+    private void persist(ImportedRow row) {
+        Product product = row.product;
+        product.setProductCode(row.productCodeId != null ? em.getReference(ProductCode.class, row.productCodeId) : null);
+        product.setCategory(row.categoryId != null ? em.getReference(Category.class, row.categoryId) : null);
+        product.setPackaging(row.packagingId != null ? em.getReference(Packaging.class, row.packagingId) : null);
+        em.persist(product);
+    }
+
+    /**
+     * Reads the feed row by row: a row is a line, or the lines spanned by a quoted CSV value.
+     * <p>
+     * A value still open after {@value #MAX_ROW_LINES} lines, or at the end of the feed, is taken for an unbalanced
+     * quote: its first line is returned alone, to be rejected as malformed, and the lines after it are read again as
+     * rows. At most {@value #MAX_ROW_LINES} lines are held in memory.
+     */
+    private static final class RowReader {
+
+        private final BufferedReader lines;
+
+        private final RowParser parser;
+
+        private final Deque<String> readAgain = new ArrayDeque<>();
+
+        private long lineNumber;
+
+        private long rowNumber;
+
+        private RowReader(BufferedReader lines, RowParser parser) {
+            this.lines = lines;
+            this.parser = parser;
+        }
+
+        /**
+         * @return the next row, or {@code null} at the end of the feed.
+         */
+        private String next() throws IOException {
+            String line = nextLine();
+            if (line == null) {
+                return null;
+            }
+            rowNumber = ++lineNumber;
+            if (!parser.opensOrClosesQuotedValue(line)) {
+                return line;
+            }
+            List<String> rowLines = new ArrayList<>();
+            rowLines.add(line);
+            String next;
+            while (rowLines.size() < MAX_ROW_LINES && (next = nextLine()) != null) {
+                rowLines.add(next);
+                if (parser.opensOrClosesQuotedValue(next)) {
+                    lineNumber += rowLines.size() - 1;
+                    return String.join("\n", rowLines);
+                }
+            }
+            for (int i = rowLines.size() - 1; i > 0; i--) {
+                readAgain.addFirst(rowLines.get(i));
+            }
+            return line;
+        }
+
+        private String nextLine() throws IOException {
+            return readAgain.isEmpty() ? lines.readLine() : readAgain.removeFirst();
+        }
+    }
+
+    /**
+     * A validated row, waiting for its batch to be persisted.
+     */
+    private static final class ImportedRow {
+
+        private final long line;
+
+        private final Product product;
+
+        private final Long productCodeId;
+
+        private final Long categoryId;
+
+        private final Long packagingId;
+
+        private ImportedRow(long line, Product product, Long productCodeId, Long categoryId, Long packagingId) {
+            this.line = line;
+            this.product = product;
+            this.productCodeId = productCodeId;
+            this.categoryId = categoryId;
+            this.packagingId = packagingId;
+        }
+    }
+
+    /**
+     * The existence caches of the referenced entities, for the duration of one import.
+     */
+    private final class References {
+
+        private final ReferenceCache categories = new ReferenceCache(categoryRepository::existsById);
+
+        private final ReferenceCache packagings = new ReferenceCache(packagingRepository::existsById);
+
+        private final ReferenceCache productCodes = new ReferenceCache(productCodeRepository::existsById);
+    }
+
+    /**
+     * Least recently used cache of the existence of referenced entities, by id.
+     */
+    private static final class ReferenceCache extends LinkedHashMap<Long, Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient LongPredicate loader;
+
+        private ReferenceCache(LongPredicate loader) {
+            super(16, 0.75f, true);
+            this.loader = loader;
+        }
+
+        private boolean exists(long id) {
+            return computeIfAbsent(id, loader::test);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > REFERENCE_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * Converts a row of the feed to fields named as the {@link Product} properties.
+     */
+    private interface RowParser {
+        /**
+         * @return the fields of the row, or {@code null} if the line is not a row.
+         * @throws IllegalArgumentException if the line is malformed.
+         */
+        Map<String, String> parse(String line, long lineNumber);
+
+        /**
+         * @return whether the line opens a quoted value that goes on to the next line, or closes the one opened on an
+         * earlier line.
+         */
+        default boolean opensOrClosesQuotedValue(String line) {
+            return false;
+        }
+    }
+
+    /**
+     * Reports each unknown field once per import.
+     */
+    private abstract static class AbstractRowParser implements RowParser {
+
+        private final ProductImportReportDTO report;
+
+        private final Set<String> unknownFields = new HashSet<>();
+
+        AbstractRowParser(ProductImportReportDTO report) {
+            this.report = report;
+        }
+
+        /**
+         * @return whether the field is imported.
+         */
+        boolean accept(String field, long lineNumber) {
+            if (FIELDS.contains(field)) {
+                return true;
+            }
+            if (!IGNORED_FIELDS.contains(field) && unknownFields.add(field)) {
+                report.warning(lineNumber, "Unknown field '" + field + "' ignored");
+            }
+            return false;
+        }
+    }
+
+    private final class NdjsonRowParser extends AbstractRowParser {
+
+        NdjsonRowParser(ProductImportReportDTO report) {
+            super(report);
+        }
+
+        @Override
+        public Map<String, String> parse(String line, long lineNumber) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage(), e);
+            }
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!accept(field.getKey(), lineNumber) || field.getValue().isNull()) {
+                    continue;
+                }
+                if (!field.getValue().isValueNode()) {
+                    throw new IllegalArgumentException(field.getKey() + ": expected a value");
+                }
+                fields.put(field.getKey(), field.getValue().asText());
+            }
+            return fields;
+        }
+    }
+
+    private static final class CsvRowParser extends AbstractRowParser {
+
+        private String[] columns;
+
+        CsvRowParser(ProductImportReportDTO report) {
+            super(report);
+        }
+
+        @Override
+        public Map<String, String> parse(String line, long lineNumber) {
+            List<String> values = split(line);
+            if (columns == null) {
+                columns = new String[values.size()];
+                for (int i = 0; i < columns.length; i++) {
+                    String field = toCamelCase(values.get(i).trim());
+                    columns[i] = accept(field, lineNumber) ? field : null;
+                }
+                return null;
+            }
+            if (values.size() != columns.length) {
+                throw new IllegalArgumentException("Expected " + columns.length + " values but found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null && !values.get(i).isEmpty()) {
+                    fields.put(columns[i], values.get(i));
+                }
+            }
+            return fields;
+        }
+
+        @Override
+        public boolean opensOrClosesQuotedValue(String line) {
+            // Any quote opens or closes a value, and an escaped quote is a pair of them
+            int quotes = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == '"') {
+                    quotes++;
+                }
+            }
+            return quotes % 2 != 0;
+        }
+
+        /**
+         * Split a row on the separator; values may be enclosed in double quotes, with {@code ""} for a quote, and
+         * may then span several lines.
+         */
+        private static List<String> split(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        value.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == CSV_SEPARATOR) {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else {
+                    value.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted value");
+            }
+            values.add(value.toString());
+            return values;
+        }
+
+        private static String toCamelCase(String column) {
+            StringBuilder field = new StringBuilder(column.length());
+            boolean upper = false;
+            for (char c : column.toCharArray()) {
+                if (c == '_') {
+                    upper = true;
+                } else {
+                    field.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                }
+            }
+            return field.toString();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.walgreens.rxi.inventory.service;
+
+import com.walgreens.rxi.inventory.domain.*; // for static metamodels
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.criteria.ProductCriteria;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Service for executing complex queries for {@link Product} entities in the database.
+ * The main input is a {@link ProductCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * It returns a {@link List} of {@link ProductSummaryDTO} or a {@link Page} of {@link ProductSummaryDTO} which fulfills the criteria.
+ * <p>
+ * Summaries are selected with a constructor expression, so no entity, relationship or image is loaded.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductQueryService extends QueryService<Product> {
+
+    private final Logger log = LoggerFactory.getLogger(ProductQueryService.class);
+
+    private final ProductRepository productRepository;
+
+    private final EntityManager entityManager;
+
+    public ProductQueryService(ProductRepository productRepository, EntityManager entityManager) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Return a {@link List} of {@link ProductSummaryDTO} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSummaryDTO> findByCriteria(ProductCriteria criteria) {
+        log.debug("find by criteria : {}", criteria);
+        return entityManager.createQuery(createSummaryQuery(createSpecification(criteria), Sort.unsorted())).getResultList();
+    }
+
+    /**
+     * Return a {@link Page} of {@link ProductSummaryDTO} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryDTO> findByCriteria(ProductCriteria criteria, Pageable page) {
+        log.debug("find by criteria : {}, page: {}", criteria, page);
+        TypedQuery<ProductSummaryDTO> query = entityManager.createQuery(createSummaryQuery(createSpecification(criteria), page.getSort()));
+        if (page.isPaged()) {
+            query.setFirstResult((int) page.getOffset());
+            query.setMaxResults(page.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), page, () -> countByCriteria(criteria));
+    }
+
+    /**
+     * Return a keyset {@link Slice} of {@link ProductSummaryDTO}, ordered by id, which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId the id of the last product of the previous page, or {@code null} for the first page.
+     * @param size the maximum number of products to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductSummaryDTO> findByCriteriaAfter(ProductCriteria criteria, Long afterId, int size) {
+        log.debug("find by criteria : {}, after: {}", criteria, afterId);
+        Specification<Product> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and(greaterThan(root -> root.get(Product_.id), afterId));
+        }
+        // One extra row tells whether there is a next page without counting
+        List<ProductSummaryDTO> content = entityManager
+            .createQuery(createSummaryQuery(specification, Sort.by(Product_.ID)))
+            .setMaxResults(size + 1)
+            .getResultList();
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Return the ids, in ascending order, of the entities which match the criteria, for keyset iteration.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId the last id of the previous chunk, or {@code null} for the first chunk.
+     * @param size the maximum number of ids to return.
+     * @return the ids of the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findIdsByCriteriaAfter(ProductCriteria criteria, Long afterId, int size) {
+        log.debug("find ids by criteria : {}, after: {}", criteria, afterId);
+        Specification<Product> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and(greaterThan(root -> root.get(Product_.id), afterId));
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(root.get(Product_.id));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get(Product_.id)));
+        return entityManager.createQuery(query).setMaxResults(size).getResultList();
+    }
+
+    /**
+     * Return the number of matching entities in the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(ProductCriteria criteria) {
+        log.debug("count by criteria : {}", criteria);
+        final Specification<Product> specification = createSpecification(criteria);
+        return productRepository.count(specification);
+    }
+
+    private CriteriaQuery<ProductSummaryDTO> createSummaryQuery(Specification<Product> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryDTO> query = cb.createQuery(ProductSummaryDTO.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(
+            cb.construct(
+                ProductSummaryDTO.class,
+                root.get(Product_.id),
+                root.get(Product_.name),
+                root.get(Product_.description),
+                root.get(Product_.company),
+                root.get(Product_.type),
+                root.get(Product_.storageType),
+                root.get(Product_.price),
+                root.get(Product_.salesUnit),
+                root.get(Product_.salesQuantity),
+                root.get(Product_.imageContentType),
+                root.get(Product_.imageHash),
+                root.get(Product_.status),
+                root.get(Product_.productCode).get(ProductCode_.id),
+                root.get(Product_.category).get(Category_.id),
+                root.get(Product_.packaging).get(Packaging_.id)
+            )
+        );
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return query;
+    }
+
+    /**
+     * Function to convert {@link ProductCriteria} to a {@link Specification}
+     * <p>
+     * Relationships are filtered on their foreign key column, without joining the related table.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Product> createSpecification(ProductCriteria criteria) {
+        Specification<Product> specification = Specification.where(null);
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getId(), Product_.id));
+            }
+            if (criteria.getName() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getName(), Product_.name));
+            }
+            if (criteria.getDescription() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getDescription(), Product_.description));
+            }
+            if (criteria.getCompany() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getCompany(), Product_.company));
+            }
+            if (criteria.getType() != null) {
+                specification = specification.and(buildSpecification(criteria.getType(), Product_.type));
+            }
+            if (criteria.getStorageType() != null) {
+                specification = specification.and(buildSpecification(criteria.getStorageType(), Product_.storageType));
+            }
+            if (criteria.getPrice() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getPrice(), Product_.price));
+            }
+            if (criteria.getSalesUnit() != null) {
+                specification = specification.and(buildSpecification(criteria.getSalesUnit(), Product_.salesUnit));
+            }
+            if (criteria.getSalesQuantity() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getSalesQuantity(), Product_.salesQuantity));
+            }
+            if (criteria.getImageContentType() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getImageContentType(), Product_.imageContentType));
+            }
+            if (criteria.getStatus() != null) {
+                specification = specification.and(buildSpecification(criteria.getStatus(), Product_.status));
+            }
+            if (criteria.getProductCodeId() != null) {
+                specification =
+                    specification.and(
+                        buildSpecification(criteria.getProductCodeId(), root -> root.get(Product_.productCode).get(ProductCode_.id))
+                    );
+            }
+            if (criteria.getCategoryId() != null) {
+                specification =
+                    specification.and(buildSpecification(criteria.getCategoryId(), root -> root.get(Product_.category).get(Category_.id)));
+            }
+            if (criteria.getPackagingId() != null) {
+                specification =
+                    specification.and(
+                        buildSpecification(criteria.getPackagingId(), root -> root.get(Product_.packaging).get(Packaging_.id))
+                    );
+            }
+        }
+        return specification;
+    }
+}
@@ -1,13 +1,32 @@
 package com.walgreens.rxi.inventory.service;
 
 import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.domain.Product_;
 import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus;
+import com.walgreens.rxi.inventory.service.dto.ProductBulkUpdateDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductBulkUpdateResultDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductImageDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import com.walgreens.rxi.inventory.service.outbox.OutboxService;
+import com.walgreens.rxi.inventory.service.readmodel.ProductCounters;
+import com.walgreens.rxi.inventory.service.readmodel.ProductReadModel;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -17,23 +36,102 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class ProductService {
 
+    /**
+     * Maximum number of ids in the {@code IN} list of a bulk {@code UPDATE} statement.
+     */
+    private static final int BULK_UPDATE_CHUNK_SIZE = 1000;
+
+    private static final String CLEAR_LEGACY_IMAGE_SQL = "update product set image = null where id = ? and image is not null";
+
     private final Logger log = LoggerFactory.getLogger(ProductService.class);
 
     private final ProductRepository productRepository;
 
-    public ProductService(ProductRepository productRepository) {
+    private final ProductCodeService productCodeService;
+
+    private final ImageStoreService imageStoreService;
+
+    private final ProductReadModel productReadModel;
+
+    private final ProductQueryService productQueryService;
+
+    private final CatalogChangeService catalogChangeService;
+
+    private final ProductCounters productCounters;
+
+    private final OutboxService outboxService;
+
+    private final EntityManager entityManager;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductService(
+        ProductRepository productRepository,
+        ProductCodeService productCodeService,
+        ImageStoreService imageStoreService,
+        ProductReadModel productReadModel,
+        ProductQueryService productQueryService,
+        CatalogChangeService catalogChangeService,
+        ProductCounters productCounters,
+        OutboxService outboxService,
+        EntityManager entityManager,
+        CacheInvalidationBus cacheInvalidationBus,
+        JdbcTemplate jdbcTemplate
+    ) {
         this.productRepository = productRepository;
+        this.productCodeService = productCodeService;
+        this.imageStoreService = imageStoreService;
+        this.productReadModel = productReadModel;
+        this.productQueryService = productQueryService;
+        this.catalogChangeService = catalogChangeService;
+        this.productCounters = productCounters;
+        this.outboxService = outboxService;
+        this.entityManager = entityManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
      * Save a product.
+     * <p>
+     * Image bytes sent with the product are written to the image store. An update without image bytes keeps
+     * the stored image as long as its content type is still set; replacing or removing the image also drops the
+     * blob that the product may still hold in the legacy {@code image} column. An update increments the version of
+     * the catalogs that contain the product. The change is recorded in the outbox.
      *
      * @param product the entity to save.
      * @return the persisted entity.
      */
     public Product save(Product product) {
         log.debug("Request to save Product : {}", product);
-        return productRepository.save(product);
+        boolean imageChanged = false;
+        if (product.getImage() != null) {
+            product.setImageHash(imageStoreService.store(product.getImage()));
+            imageChanged = true;
+        } else if (product.getId() != null && product.getImageContentType() != null && product.getImageHash() == null) {
+            product.setImageHash(productRepository.findImageHashById(product.getId()).orElse(null));
+        } else if (product.getImageContentType() == null) {
+            product.setImageHash(null);
+            imageChanged = true;
+        }
+        boolean update = product.getId() != null;
+        // Loads the product that the merge below would load anyway
+        ProductCounters.Key previous = update
+            ? productRepository.findById(product.getId()).map(ProductCounters.Key::of).orElse(null)
+            : null;
+        Product result = productRepository.save(product);
+        if (update && imageChanged) {
+            clearLegacyImage(result.getId());
+        }
+        if (update) {
+            catalogChangeService.recordProductUpdates(List.of(result.getId()));
+        }
+        outboxService.recordProductSaved(result, !update);
+        productCounters.replace(previous, ProductCounters.Key.of(result));
+        productReadModel.put(result);
+        return result;
     }
 
     /**
@@ -49,6 +147,7 @@ public class ProductService {
             .findById(product.getId())
             .map(
                 existingProduct -> {
+                    ProductCounters.Key previous = ProductCounters.Key.of(existingProduct);
                     if (product.getName() != null) {
                         existingProduct.setName(product.getName());
                     }
@@ -75,6 +174,8 @@ public class ProductService {
                     }
                     if (product.getImage() != null) {
                         existingProduct.setImage(product.getImage());
+                        existingProduct.setImageHash(imageStoreService.store(product.getImage()));
+                        clearLegacyImage(existingProduct.getId());
                     }
                     if (product.getImageContentType() != null) {
                         existingProduct.setImageContentType(product.getImageContentType());
@@ -82,23 +183,108 @@ public class ProductService {
                     if (product.getStatus() != null) {
                         existingProduct.setStatus(product.getStatus());
                     }
+                    productCounters.replace(previous, ProductCounters.Key.of(existingProduct));
 
                     return existingProduct;
                 }
             )
-            .map(productRepository::save);
+            .map(productRepository::save)
+            .map(
+                savedProduct -> {
+                    catalogChangeService.recordProductUpdates(List.of(savedProduct.getId()));
+                    outboxService.recordProductSaved(savedProduct, false);
+                    productReadModel.put(savedProduct);
+                    return savedProduct;
+                }
+            );
+    }
+
+    /**
+     * Update the price and/or the status of many products with set-based {@code UPDATE} statements.
+     * <p>
+     * No product is loaded: the ids are de-duplicated and updated in chunks of {@value #BULK_UPDATE_CHUNK_SIZE},
+     * skipping those of no product, and a filter is resolved chunk by chunk in id order. Hibernate evicts the
+     * Product cache region on bulk statements, and the persistence context is cleared as its products are stale.
+     * The catalogs that contain the products get a new version, and the update of each product is recorded in the
+     * outbox.
+     *
+     * @param bulkUpdate the products to update, by filter or by ids, and their new values.
+     * @return the number of updated rows, and the number of {@code UPDATE} statements.
+     */
+    public ProductBulkUpdateResultDTO bulkUpdate(ProductBulkUpdateDTO bulkUpdate) {
+        log.debug("Request to bulk update Products : {}", bulkUpdate);
+        entityManager.flush();
+        List<Long> updatedIds = new ArrayList<>();
+        long updated = 0;
+        int statements = 0;
+        if (bulkUpdate.getIds() != null) {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(bulkUpdate.getIds()));
+            for (int from = 0; from < ids.size(); from += BULK_UPDATE_CHUNK_SIZE) {
+                // Only the products that exist are updated, evicted and recorded
+                List<Long> chunk = productRepository.findIdsByIdIn(ids.subList(from, Math.min(from + BULK_UPDATE_CHUNK_SIZE, ids.size())));
+                if (!chunk.isEmpty()) {
+                    updated += updateChunk(chunk, bulkUpdate);
+                    statements++;
+                    updatedIds.addAll(chunk);
+                }
+            }
+        } else {
+            List<Long> chunk = productQueryService.findIdsByCriteriaAfter(bulkUpdate.getFilter(), null, BULK_UPDATE_CHUNK_SIZE);
+            while (!chunk.isEmpty()) {
+                updated += updateChunk(chunk, bulkUpdate);
+                statements++;
+                updatedIds.addAll(chunk);
+                if (chunk.size() < BULK_UPDATE_CHUNK_SIZE) {
+                    break;
+                }
+                Long lastId = chunk.get(chunk.size() - 1);
+                chunk = productQueryService.findIdsByCriteriaAfter(bulkUpdate.getFilter(), lastId, BULK_UPDATE_CHUNK_SIZE);
+            }
+        }
+        entityManager.clear();
+        // The other nodes only evict the updated products
+        updatedIds.forEach(id -> cacheInvalidationBus.broadcastEviction(Product.class.getName(), id));
+        catalogChangeService.recordProductUpdates(updatedIds);
+        outboxService.recordProductsUpdated(updatedIds, bulkUpdate.getPrice(), bulkUpdate.getStatus());
+        productReadModel.updatePriceAndStatus(updatedIds, bulkUpdate.getPrice(), bulkUpdate.getStatus());
+        log.debug("Bulk updated {} Products with {} statements", updated, statements);
+        return new ProductBulkUpdateResultDTO(updated, statements);
+    }
+
+    private int updateChunk(List<Long> ids, ProductBulkUpdateDTO bulkUpdate) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> root = update.from(Product.class);
+        if (bulkUpdate.getPrice() != null) {
+            update.set(root.get(Product_.price), bulkUpdate.getPrice());
+        }
+        if (bulkUpdate.getStatus() != null) {
+            update.set(root.get(Product_.status), bulkUpdate.getStatus());
+            productCounters.updateStatus(ids, bulkUpdate.getStatus());
+        }
+        update.where(root.get(Product_.id).in(ids));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Drop the blob not yet moved out of the unmapped {@code image} column, which {@link ProductImageMigrationService}
+     * would otherwise store over the image the product has now. The statement runs through JDBC so that Hibernate
+     * does not evict its caches as it does for a native query.
+     */
+    private void clearLegacyImage(Long id) {
+        jdbcTemplate.update(CLEAR_LEGACY_IMAGE_SQL, id);
     }
 
     /**
-     * Get all the products.
+     * Get all the products, without their image.
      *
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the list of summaries.
      */
     @Transactional(readOnly = true)
-    public Page<Product> findAll(Pageable pageable) {
+    public Page<ProductSummaryDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Products");
-        return productRepository.findAll(pageable);
+        return productRepository.findAllSummaries(pageable);
     }
 
     /**
@@ -113,6 +299,47 @@ public class ProductService {
         return productRepository.findById(id);
     }
 
+    /**
+     * Get the summary of the "id" product, from the read model once it is loaded.
+     * <p>
+     * No transaction is started, so that reads served by the read model do not touch the persistence context.
+     *
+     * @param id the id of the entity.
+     * @return the summary.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<ProductSummaryDTO> findSummary(Long id) {
+        log.debug("Request to get the summary of Product : {}", id);
+        if (productReadModel.isLoaded()) {
+            return productReadModel.findSummary(id);
+        }
+        return productRepository.findSummaryById(id);
+    }
+
+    /**
+     * Get the product of a product code, by UPC.
+     *
+     * @param upc the UPC of the product code.
+     * @return the product, empty if the code is unknown or has no product.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Product> findOneByUpc(String upc) {
+        log.debug("Request to get Product by UPC : {}", upc);
+        return productCodeService.findOneByUpc(upc).map(ProductCode::getProduct);
+    }
+
+    /**
+     * Get the image of the "id" product.
+     *
+     * @param id the id of the entity.
+     * @return the image, empty if the product does not exist or has no image.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductImageDTO> findImage(Long id) {
+        log.debug("Request to get the image of Product : {}", id);
+        return productRepository.findImageById(id);
+    }
+
     /**
      * Delete the product by id.
      *
@@ -120,6 +347,9 @@ public class ProductService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Product : {}", id);
+        productRepository.findById(id).ifPresent(product -> productCounters.replace(ProductCounters.Key.of(product), null));
         productRepository.deleteById(id);
+        outboxService.recordProductDeleted(id);
+        productReadModel.remove(id);
     }
 }
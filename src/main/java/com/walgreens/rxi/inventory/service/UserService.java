@@ -6,6 +6,7 @@ import com.walgreens.rxi.inventory.domain.User;
 import com.walgreens.rxi.inventory.repository.AuthorityRepository;
 import com.walgreens.rxi.inventory.repository.UserRepository;
 import com.walgreens.rxi.inventory.security.SecurityUtils;
+import com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus;
 import com.walgreens.rxi.inventory.service.dto.AdminUserDTO;
 import com.walgreens.rxi.inventory.service.dto.UserDTO;
 import java.time.Instant;
@@ -38,10 +39,18 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public UserService(
+        UserRepository userRepository,
+        AuthorityRepository authorityRepository,
+        CacheManager cacheManager,
+        CacheInvalidationBus cacheInvalidationBus
+    ) {
         this.userRepository = userRepository;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     /**
@@ -220,8 +229,10 @@ public class UserService {
 
     private void clearUserCaches(User user) {
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        cacheInvalidationBus.broadcastEviction(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
         if (user.getEmail() != null) {
             Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            cacheInvalidationBus.broadcastEviction(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail());
         }
     }
 }
@@ -0,0 +1,374 @@
+package com.walgreens.rxi.inventory.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.config.KafkaProperties;
+import com.walgreens.rxi.inventory.service.dto.CacheInvalidationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Broadcast of the cache evictions of this node to the other nodes of the cluster, over Kafka topic
+ * {@code application.cache-invalidation.topic}, so that every node can cache entities for long.
+ * <p>
+ * The entity and collection regions that Hibernate changes are broadcast by a {@link HibernateEvictionListener};
+ * the code that writes rows or caches behind Hibernate's back broadcasts its own evictions. The evictions of a
+ * transaction are broadcast once it has committed. They are coalesced for {@code flush-interval}, and published
+ * in messages of at most {@code max-batch-size} ids, keyed by the node that published them. Every node consumes
+ * every partition of the topic and evicts the entries that the other nodes broadcast.
+ * <p>
+ * Delivery is best effort: a node that misses evictions, while Kafka is unavailable, serves stale entries until
+ * they expire, so the time-to-live of the caches still bounds their staleness. The consumer retries its failures;
+ * the {@code cache-invalidation.consumer.live} gauge is 1 while it consumes, and
+ * {@code cache-invalidation.consumer.failures} counts its failures. Should its thread end otherwise than by
+ * {@link #stop()}, the bus stops, and can be started again.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final ApplicationProperties.CacheInvalidation properties;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final KafkaProperties kafkaProperties;
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final Object pendingLock = new Object();
+
+    // Guarded by pendingLock
+    private Evictions pending = new Evictions();
+
+    private volatile boolean running;
+
+    private Producer<String, String> producer;
+
+    private ScheduledExecutorService publisher;
+
+    private volatile CacheInvalidationConsumer consumer;
+
+    private final Counter consumerFailures;
+
+    public CacheInvalidationBus(
+        KafkaProperties kafkaProperties,
+        ApplicationProperties applicationProperties,
+        EntityManagerFactory entityManagerFactory,
+        CacheManager cacheManager,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry
+    ) {
+        this.kafkaProperties = kafkaProperties;
+        this.properties = applicationProperties.getCacheInvalidation();
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        Gauge
+            .builder("cache-invalidation.consumer.live", this, bus -> bus.isConsuming() ? 1 : 0)
+            .description("Whether this node evicts the cache entries that the other nodes broadcast")
+            .register(meterRegistry);
+        this.consumerFailures =
+            Counter
+                .builder("cache-invalidation.consumer.failures")
+                .description("Failures of the cache invalidation consumer, retried after a backoff")
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Object> invalidationConsumerProps(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.getConsumerProps();
+        // Assigned every partition: no group, no committed offsets
+        props.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return props;
+    }
+
+    @PostConstruct
+    public void registerHibernateListener() {
+        HibernateEvictionListener listener = new HibernateEvictionListener(this);
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (properties.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Start broadcasting the evictions of this node, and evicting those of the other nodes.
+     */
+    public void start() {
+        start(new KafkaProducer<>(kafkaProperties.getProducerProps()), new KafkaConsumer<>(invalidationConsumerProps(kafkaProperties)));
+    }
+
+    synchronized void start(Producer<String, String> producer, Consumer<String, String> consumer) {
+        if (running) {
+            return;
+        }
+        synchronized (pendingLock) {
+            // Drop the evictions of the transactions that committed after the last stop
+            pending = new Evictions();
+        }
+        this.producer = producer;
+        this.consumer =
+            new CacheInvalidationConsumer(
+                properties.getTopic(),
+                consumer,
+                objectMapper.readerFor(CacheInvalidationDTO.class),
+                this,
+                consumerFailures
+            );
+        Thread thread = new Thread(this.consumer, "cache-invalidation-consumer");
+        thread.setDaemon(true);
+        thread.start();
+        publisher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("cache-invalidation-publisher-"));
+        long interval = properties.getFlushInterval().toMillis();
+        publisher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Broadcasting cache evictions on Kafka topic {} as node {}", properties.getTopic(), origin);
+    }
+
+    /**
+     * Stop, publishing the evictions still pending.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        consumer.stop();
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(properties.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        producer.close();
+    }
+
+    /**
+     * Stop when the consumer thread ended otherwise than by {@link #stop()}, so that {@link #start()} starts a new one.
+     */
+    synchronized void consumerEnded(CacheInvalidationConsumer ended) {
+        if (running && consumer == ended) {
+            log.error("Cache invalidation consumer ended, the caches of this node expire by their TTL only until the bus restarts");
+            stop();
+        }
+    }
+
+    /**
+     * @return whether the bus is running and its consumer polls the topic.
+     */
+    boolean isConsuming() {
+        CacheInvalidationConsumer current = consumer;
+        return running && current != null && current.isLive();
+    }
+
+    String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Broadcast the eviction of an entry once the current transaction has committed, or now outside a
+     * transaction. The caller evicts the entry from the caches of this node.
+     *
+     * @param region the name of an entity, the role of a collection, or the name of a Spring cache.
+     * @param id the id of the entity, the id of the owner of the collection, or the key of the Spring cache.
+     */
+    public void broadcastEviction(String region, Object id) {
+        if (running) {
+            Evictions evictions = transactionEvictions();
+            if (evictions != null) {
+                evictions.add(region, id);
+            } else {
+                synchronized (pendingLock) {
+                    pending.add(region, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Broadcast the eviction of every entry of a region once the current transaction has committed, or now
+     * outside a transaction. The caller evicts the region from the caches of this node.
+     *
+     * @param region the name of an entity, the role of a collection, or the name of a Spring cache.
+     */
+    public void broadcastRegionEviction(String region) {
+        if (running) {
+            Evictions evictions = transactionEvictions();
+            if (evictions != null) {
+                evictions.addRegion(region);
+            } else {
+                synchronized (pendingLock) {
+                    pending.addRegion(region);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the evictions of the current transaction, or {@code null} outside a transaction.
+     */
+    private Evictions transactionEvictions() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Evictions evictions = (Evictions) TransactionSynchronizationManager.getResource(this);
+        if (evictions == null) {
+            Evictions transaction = new Evictions();
+            TransactionSynchronizationManager.bindResource(this, transaction);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        synchronized (pendingLock) {
+                            pending.addAll(transaction);
+                        }
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationBus.this);
+                    }
+                }
+            );
+            evictions = transaction;
+        }
+        return evictions;
+    }
+
+    /**
+     * Publish the pending evictions.
+     */
+    void flush() {
+        Evictions evictions;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            evictions = pending;
+            pending = new Evictions();
+        }
+        List<CacheInvalidationDTO> messages = evictions.toMessages(origin, properties.getMaxBatchSize());
+        try {
+            for (CacheInvalidationDTO message : messages) {
+                producer.send(
+                    new ProducerRecord<>(properties.getTopic(), origin, objectMapper.writeValueAsString(message)),
+                    (metadata, exception) -> {
+                        if (exception != null) {
+                            log.warn("Could not broadcast cache evictions: {}", exception.getMessage());
+                        }
+                    }
+                );
+            }
+        } catch (JsonProcessingException | KafkaException e) {
+            log.warn("Could not broadcast cache evictions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Evict the entries that another node broadcast from the caches of this node.
+     */
+    void evictLocally(CacheInvalidationDTO invalidation) {
+        log.debug("Evicting the cache entries of node {}: {}", invalidation.getOrigin(), invalidation);
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (String region : invalidation.getRegions()) {
+            evict(sessionFactory, region, null);
+        }
+        for (Map.Entry<String, List<Object>> entry : invalidation.getEntries().entrySet()) {
+            evict(sessionFactory, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Evict ids from a region, or the whole region if {@code ids} is {@code null}.
+     */
+    private void evict(SessionFactoryImplementor sessionFactory, String region, List<Object> ids) {
+        MetamodelImplementor metamodel = sessionFactory.getMetamodel();
+        Cache cache = sessionFactory.getCache();
+        try {
+            EntityPersister entityPersister = metamodel.entityPersisters().get(region);
+            if (entityPersister != null) {
+                Class<?> idType = entityPersister.getIdentifierType().getReturnedClass();
+                if (ids == null) {
+                    cache.evictEntityData(region);
+                } else {
+                    ids.forEach(id -> cache.evictEntityData(region, (Serializable) objectMapper.convertValue(id, idType)));
+                }
+                return;
+            }
+            CollectionPersister collectionPersister = metamodel.collectionPersisters().get(region);
+            if (collectionPersister != null) {
+                Class<?> ownerIdType = collectionPersister.getKeyType().getReturnedClass();
+                if (ids == null) {
+                    cache.evictCollectionData(region);
+                } else {
+                    ids.forEach(id -> cache.evictCollectionData(region, (Serializable) objectMapper.convertValue(id, ownerIdType)));
+                }
+                return;
+            }
+            org.springframework.cache.Cache springCache = cacheManager.getCache(region);
+            if (springCache == null) {
+                log.debug("Ignoring the evictions of unknown cache region {}", region);
+            } else if (ids == null) {
+                springCache.clear();
+            } else {
+                ids.forEach(springCache::evict);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Could not evict from cache region {}: {}", region, e.getMessage());
+        }
+    }
+}
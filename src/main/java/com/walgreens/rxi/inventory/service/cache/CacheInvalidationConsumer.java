@@ -0,0 +1,170 @@
+package com.walgreens.rxi.inventory.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.walgreens.rxi.inventory.service.dto.CacheInvalidationDTO;
+import io.micrometer.core.instrument.Counter;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The consumer of the invalidation topic of a {@link CacheInvalidationBus}, on its own thread.
+ * <p>
+ * Like the consumers of the fan-out, it is assigned every partition of the topic instead of joining a consumer
+ * group, so that every node gets every message, and commits nothing. It starts at the end of the topic: a node
+ * that starts has nothing cached yet.
+ * <p>
+ * A failure, of the broker for instance, is retried with an exponential backoff of up to
+ * {@value #MAX_RETRY_BACKOFF_MILLIS} ms, resuming from the position of each partition; the consumer is not
+ * {@linkplain #isLive() live} meanwhile.
+ */
+class CacheInvalidationConsumer implements Runnable {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final long PARTITIONS_REFRESH_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 60_000;
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationConsumer.class);
+
+    private final String topic;
+
+    private final Consumer<String, String> consumer;
+
+    private final ObjectReader reader;
+
+    private final CacheInvalidationBus bus;
+
+    private final Counter failures;
+
+    private volatile boolean running = true;
+
+    private volatile boolean live;
+
+    CacheInvalidationConsumer(
+        String topic,
+        Consumer<String, String> consumer,
+        ObjectReader reader,
+        CacheInvalidationBus bus,
+        Counter failures
+    ) {
+        this.topic = topic;
+        this.consumer = consumer;
+        this.reader = reader;
+        this.bus = bus;
+        this.failures = failures;
+    }
+
+    void stop() {
+        running = false;
+        consumer.wakeup();
+    }
+
+    /**
+     * @return whether the last poll of the consumer succeeded.
+     */
+    boolean isLive() {
+        return live;
+    }
+
+    @Override
+    public void run() {
+        try {
+            int partitions = 0;
+            long nextRefresh = System.nanoTime() + PARTITIONS_REFRESH_INTERVAL_NANOS;
+            long backoffMillis = RETRY_BACKOFF_MILLIS;
+            while (running) {
+                try {
+                    if (partitions == 0) {
+                        partitions = assign();
+                        if (partitions == 0) {
+                            // The topic does not exist yet
+                            Thread.sleep(POLL_TIMEOUT.toMillis());
+                        }
+                    }
+                    if (partitions > 0) {
+                        consumer.poll(POLL_TIMEOUT).forEach(this::apply);
+                    }
+                    long now = System.nanoTime();
+                    if (now - nextRefresh >= 0) {
+                        nextRefresh = now + PARTITIONS_REFRESH_INTERVAL_NANOS;
+                        // Partitions added to the topic show up with the metadata refreshes of the consumer
+                        if (partitions > 0 && consumer.partitionsFor(topic).size() != partitions) {
+                            partitions = assign();
+                        }
+                    }
+                    live = true;
+                    backoffMillis = RETRY_BACKOFF_MILLIS;
+                } catch (WakeupException | InterruptException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    live = false;
+                    failures.increment();
+                    log.error(
+                        "Cache invalidation consumer failed, the caches of this node expire by their TTL only until it recovers, " +
+                        "retrying in {} ms: {}",
+                        backoffMillis,
+                        e.getMessage(),
+                        e
+                    );
+                    // The partitions are assigned again: those already assigned keep their position
+                    partitions = 0;
+                    backOff(backoffMillis);
+                    backoffMillis = Math.min(backoffMillis * 2, MAX_RETRY_BACKOFF_MILLIS);
+                }
+            }
+        } catch (WakeupException | InterruptException | InterruptedException e) {
+            // Stopped
+        } finally {
+            live = false;
+            consumer.close();
+            if (running) {
+                // Ended otherwise than by stop(), by an interrupt or an error
+                bus.consumerEnded(this);
+            }
+        }
+    }
+
+    private void backOff(long millis) throws InterruptedException {
+        // Sleep in slices of a poll, so that stop() ends the consumer without waiting for a long backoff
+        for (long slept = 0; running && slept < millis; slept += POLL_TIMEOUT.toMillis()) {
+            Thread.sleep(Math.min(millis - slept, POLL_TIMEOUT.toMillis()));
+        }
+    }
+
+    private int assign() {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null || infos.isEmpty()) {
+            return 0;
+        }
+        consumer.assign(infos.stream().map(info -> new TopicPartition(topic, info.partition())).collect(Collectors.toList()));
+        return infos.size();
+    }
+
+    private void apply(ConsumerRecord<String, String> record) {
+        CacheInvalidationDTO invalidation;
+        try {
+            invalidation = record.value() != null ? reader.readValue(record.value()) : null;
+        } catch (IOException e) {
+            log.debug("Invalid cache invalidation: {}", e.getMessage());
+            invalidation = null;
+        }
+        if (invalidation == null) {
+            log.warn("Skipping the invalid cache invalidation at offset {} of partition {}", record.offset(), record.partition());
+        } else if (!bus.getOrigin().equals(invalidation.getOrigin())) {
+            bus.evictLocally(invalidation);
+        }
+    }
+}
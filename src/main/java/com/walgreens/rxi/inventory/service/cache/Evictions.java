@@ -0,0 +1,63 @@
+package com.walgreens.rxi.inventory.service.cache;
+
+import com.walgreens.rxi.inventory.service.dto.CacheInvalidationDTO;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evictions waiting to be broadcast, coalesced: an id evicted twice is broadcast once, and the ids of a region
+ * evicted as a whole are not broadcast at all. Not thread-safe.
+ */
+final class Evictions {
+
+    private final Map<String, Set<Object>> entries = new LinkedHashMap<>();
+
+    private final Set<String> regions = new LinkedHashSet<>();
+
+    void add(String region, Object id) {
+        if (!regions.contains(region)) {
+            entries.computeIfAbsent(region, key -> new LinkedHashSet<>()).add(id);
+        }
+    }
+
+    void addRegion(String region) {
+        regions.add(region);
+        entries.remove(region);
+    }
+
+    void addAll(Evictions evictions) {
+        evictions.regions.forEach(this::addRegion);
+        evictions.entries.forEach((region, ids) -> ids.forEach(id -> add(region, id)));
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty() && regions.isEmpty();
+    }
+
+    /**
+     * Split the evictions into messages of at most {@code maxBatchSize} ids, the first one with the regions.
+     */
+    List<CacheInvalidationDTO> toMessages(String origin, int maxBatchSize) {
+        List<CacheInvalidationDTO> messages = new ArrayList<>();
+        CacheInvalidationDTO message = new CacheInvalidationDTO(origin);
+        message.getRegions().addAll(regions);
+        int size = 0;
+        for (Map.Entry<String, Set<Object>> entry : entries.entrySet()) {
+            for (Object id : entry.getValue()) {
+                if (size == maxBatchSize) {
+                    messages.add(message);
+                    message = new CacheInvalidationDTO(origin);
+                    size = 0;
+                }
+                message.getEntries().computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(id);
+                size++;
+            }
+        }
+        messages.add(message);
+        return messages;
+    }
+}
@@ -0,0 +1,86 @@
+package com.walgreens.rxi.inventory.service.cache;
+
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Broadcasts the second-level cache entries that Hibernate changes on this node: the cached entities updated or
+ * deleted, and the cached collections updated or removed. Inserted entities and their collections are in no cache
+ * yet, and a collection replaced by another one is removed first.
+ */
+class HibernateEvictionListener
+    implements
+        PostUpdateEventListener,
+        PostDeleteEventListener,
+        PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient CacheInvalidationBus bus;
+
+    HibernateEvictionListener(CacheInvalidationBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        broadcastEntity(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        broadcastEntity(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        // The bus defers the broadcast until the commit
+        return false;
+    }
+
+    /**
+     * @deprecated abstract in Hibernate 5.4, superseded by {@link #requiresPostCommitHandling(EntityPersister)}.
+     */
+    @Deprecated
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        broadcastCollection(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        broadcastCollection(event);
+    }
+
+    private void broadcastEntity(EntityPersister persister, Object id) {
+        if (persister.canWriteToCache()) {
+            bus.broadcastEviction(persister.getEntityName(), id);
+        }
+    }
+
+    private void broadcastCollection(AbstractCollectionEvent event) {
+        String role = event.getCollection().getRole();
+        if (role == null || event.getAffectedOwnerIdOrNull() == null) {
+            return;
+        }
+        CollectionPersister persister = event.getSession().getFactory().getMetamodel().collectionPersister(role);
+        if (persister.hasCache()) {
+            bus.broadcastEviction(role, event.getAffectedOwnerIdOrNull());
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Invalidation of the caches of the other nodes of the cluster, over Kafka.
+ */
+package com.walgreens.rxi.inventory.service.cache;
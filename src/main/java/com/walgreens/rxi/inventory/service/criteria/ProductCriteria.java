@@ -0,0 +1,425 @@
+package com.walgreens.rxi.inventory.service.criteria;
+
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import java.io.Serializable;
+import java.util.Objects;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.BigDecimalFilter;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Criteria class for the {@link com.walgreens.rxi.inventory.domain.Product} entity. This class is used
+ * in {@link com.walgreens.rxi.inventory.web.rest.ProductResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /products?status.in=ONSALE,LOCKED&categoryId.equals=5&price.lessThan=20}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+public class ProductCriteria implements Serializable, Criteria {
+
+    /**
+     * Class for filtering ProductType
+     */
+    public static class ProductTypeFilter extends Filter<ProductType> {
+
+        public ProductTypeFilter() {}
+
+        public ProductTypeFilter(ProductTypeFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public ProductTypeFilter copy() {
+            return new ProductTypeFilter(this);
+        }
+    }
+
+    /**
+     * Class for filtering StorageType
+     */
+    public static class StorageTypeFilter extends Filter<StorageType> {
+
+        public StorageTypeFilter() {}
+
+        public StorageTypeFilter(StorageTypeFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public StorageTypeFilter copy() {
+            return new StorageTypeFilter(this);
+        }
+    }
+
+    /**
+     * Class for filtering UnitOfMeasurement
+     */
+    public static class UnitOfMeasurementFilter extends Filter<UnitOfMeasurement> {
+
+        public UnitOfMeasurementFilter() {}
+
+        public UnitOfMeasurementFilter(UnitOfMeasurementFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public UnitOfMeasurementFilter copy() {
+            return new UnitOfMeasurementFilter(this);
+        }
+    }
+
+    /**
+     * Class for filtering ProductStatus
+     */
+    public static class ProductStatusFilter extends Filter<ProductStatus> {
+
+        public ProductStatusFilter() {}
+
+        public ProductStatusFilter(ProductStatusFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public ProductStatusFilter copy() {
+            return new ProductStatusFilter(this);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private StringFilter name;
+
+    private StringFilter description;
+
+    private StringFilter company;
+
+    private ProductTypeFilter type;
+
+    private StorageTypeFilter storageType;
+
+    private BigDecimalFilter price;
+
+    private UnitOfMeasurementFilter salesUnit;
+
+    private BigDecimalFilter salesQuantity;
+
+    private StringFilter imageContentType;
+
+    private ProductStatusFilter status;
+
+    private LongFilter productCodeId;
+
+    private LongFilter categoryId;
+
+    private LongFilter packagingId;
+
+    public ProductCriteria() {}
+
+    public ProductCriteria(ProductCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.name = other.name == null ? null : other.name.copy();
+        this.description = other.description == null ? null : other.description.copy();
+        this.company = other.company == null ? null : other.company.copy();
+        this.type = other.type == null ? null : other.type.copy();
+        this.storageType = other.storageType == null ? null : other.storageType.copy();
+        this.price = other.price == null ? null : other.price.copy();
+        this.salesUnit = other.salesUnit == null ? null : other.salesUnit.copy();
+        this.salesQuantity = other.salesQuantity == null ? null : other.salesQuantity.copy();
+        this.imageContentType = other.imageContentType == null ? null : other.imageContentType.copy();
+        this.status = other.status == null ? null : other.status.copy();
+        this.productCodeId = other.productCodeId == null ? null : other.productCodeId.copy();
+        this.categoryId = other.categoryId == null ? null : other.categoryId.copy();
+        this.packagingId = other.packagingId == null ? null : other.packagingId.copy();
+    }
+
+    @Override
+    public ProductCriteria copy() {
+        return new ProductCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getName() {
+        return name;
+    }
+
+    public StringFilter name() {
+        if (name == null) {
+            name = new StringFilter();
+        }
+        return name;
+    }
+
+    public void setName(StringFilter name) {
+        this.name = name;
+    }
+
+    public StringFilter getDescription() {
+        return description;
+    }
+
+    public StringFilter description() {
+        if (description == null) {
+            description = new StringFilter();
+        }
+        return description;
+    }
+
+    public void setDescription(StringFilter description) {
+        this.description = description;
+    }
+
+    public StringFilter getCompany() {
+        return company;
+    }
+
+    public StringFilter company() {
+        if (company == null) {
+            company = new StringFilter();
+        }
+        return company;
+    }
+
+    public void setCompany(StringFilter company) {
+        this.company = company;
+    }
+
+    public ProductTypeFilter getType() {
+        return type;
+    }
+
+    public ProductTypeFilter type() {
+        if (type == null) {
+            type = new ProductTypeFilter();
+        }
+        return type;
+    }
+
+    public void setType(ProductTypeFilter type) {
+        this.type = type;
+    }
+
+    public StorageTypeFilter getStorageType() {
+        return storageType;
+    }
+
+    public StorageTypeFilter storageType() {
+        if (storageType == null) {
+            storageType = new StorageTypeFilter();
+        }
+        return storageType;
+    }
+
+    public void setStorageType(StorageTypeFilter storageType) {
+        this.storageType = storageType;
+    }
+
+    public BigDecimalFilter getPrice() {
+        return price;
+    }
+
+    public BigDecimalFilter price() {
+        if (price == null) {
+            price = new BigDecimalFilter();
+        }
+        return price;
+    }
+
+    public void setPrice(BigDecimalFilter price) {
+        this.price = price;
+    }
+
+    public UnitOfMeasurementFilter getSalesUnit() {
+        return salesUnit;
+    }
+
+    public UnitOfMeasurementFilter salesUnit() {
+        if (salesUnit == null) {
+            salesUnit = new UnitOfMeasurementFilter();
+        }
+        return salesUnit;
+    }
+
+    public void setSalesUnit(UnitOfMeasurementFilter salesUnit) {
+        this.salesUnit = salesUnit;
+    }
+
+    public BigDecimalFilter getSalesQuantity() {
+        return salesQuantity;
+    }
+
+    public BigDecimalFilter salesQuantity() {
+        if (salesQuantity == null) {
+            salesQuantity = new BigDecimalFilter();
+        }
+        return salesQuantity;
+    }
+
+    public void setSalesQuantity(BigDecimalFilter salesQuantity) {
+        this.salesQuantity = salesQuantity;
+    }
+
+    public StringFilter getImageContentType() {
+        return imageContentType;
+    }
+
+    public StringFilter imageContentType() {
+        if (imageContentType == null) {
+            imageContentType = new StringFilter();
+        }
+        return imageContentType;
+    }
+
+    public void setImageContentType(StringFilter imageContentType) {
+        this.imageContentType = imageContentType;
+    }
+
+    public ProductStatusFilter getStatus() {
+        return status;
+    }
+
+    public ProductStatusFilter status() {
+        if (status == null) {
+            status = new ProductStatusFilter();
+        }
+        return status;
+    }
+
+    public void setStatus(ProductStatusFilter status) {
+        this.status = status;
+    }
+
+    public LongFilter getProductCodeId() {
+        return productCodeId;
+    }
+
+    public LongFilter productCodeId() {
+        if (productCodeId == null) {
+            productCodeId = new LongFilter();
+        }
+        return productCodeId;
+    }
+
+    public void setProductCodeId(LongFilter productCodeId) {
+        this.productCodeId = productCodeId;
+    }
+
+    public LongFilter getCategoryId() {
+        return categoryId;
+    }
+
+    public LongFilter categoryId() {
+        if (categoryId == null) {
+            categoryId = new LongFilter();
+        }
+        return categoryId;
+    }
+
+    public void setCategoryId(LongFilter categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public LongFilter getPackagingId() {
+        return packagingId;
+    }
+
+    public LongFilter packagingId() {
+        if (packagingId == null) {
+            packagingId = new LongFilter();
+        }
+        return packagingId;
+    }
+
+    public void setPackagingId(LongFilter packagingId) {
+        this.packagingId = packagingId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ProductCriteria that = (ProductCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(name, that.name) &&
+            Objects.equals(description, that.description) &&
+            Objects.equals(company, that.company) &&
+            Objects.equals(type, that.type) &&
+            Objects.equals(storageType, that.storageType) &&
+            Objects.equals(price, that.price) &&
+            Objects.equals(salesUnit, that.salesUnit) &&
+            Objects.equals(salesQuantity, that.salesQuantity) &&
+            Objects.equals(imageContentType, that.imageContentType) &&
+            Objects.equals(status, that.status) &&
+            Objects.equals(productCodeId, that.productCodeId) &&
+            Objects.equals(categoryId, that.categoryId) &&
+            Objects.equals(packagingId, that.packagingId)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            id,
+            name,
+            description,
+            company,
+            type,
+            storageType,
+            price,
+            salesUnit,
+            salesQuantity,
+            imageContentType,
+            status,
+            productCodeId,
+            categoryId,
+            packagingId
+        );
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (name != null ? "name=" + name + ", " : "") +
+            (description != null ? "description=" + description + ", " : "") +
+            (company != null ? "company=" + company + ", " : "") +
+            (type != null ? "type=" + type + ", " : "") +
+            (storageType != null ? "storageType=" + storageType + ", " : "") +
+            (price != null ? "price=" + price + ", " : "") +
+            (salesUnit != null ? "salesUnit=" + salesUnit + ", " : "") +
+            (salesQuantity != null ? "salesQuantity=" + salesQuantity + ", " : "") +
+            (imageContentType != null ? "imageContentType=" + imageContentType + ", " : "") +
+            (status != null ? "status=" + status + ", " : "") +
+            (productCodeId != null ? "productCodeId=" + productCodeId + ", " : "") +
+            (categoryId != null ? "categoryId=" + categoryId + ", " : "") +
+            (packagingId != null ? "packagingId=" + packagingId + ", " : "") +
+            "}";
+    }
+}
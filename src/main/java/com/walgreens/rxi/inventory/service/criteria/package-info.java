@@ -0,0 +1,4 @@
+/**
+ * Criteria classes used to filter entities from request parameters.
+ */
+package com.walgreens.rxi.inventory.service.criteria;
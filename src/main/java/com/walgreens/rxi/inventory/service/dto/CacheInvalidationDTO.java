@@ -0,0 +1,63 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO for a batch of cache evictions broadcast by a node to the others. A region is the name of an entity, the
+ * role of a collection, or the name of a Spring cache: {@code entries} maps regions to the ids or keys evicted from
+ * them, and {@code regions} lists the regions evicted as a whole.
+ */
+public class CacheInvalidationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String origin;
+
+    private Map<String, List<Object>> entries = new LinkedHashMap<>();
+
+    private List<String> regions = new ArrayList<>();
+
+    public CacheInvalidationDTO() {}
+
+    public CacheInvalidationDTO(String origin) {
+        this.origin = origin;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public Map<String, List<Object>> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(Map<String, List<Object>> entries) {
+        this.entries = entries;
+    }
+
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<String> regions) {
+        this.regions = regions;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CacheInvalidationDTO{" +
+            "origin='" + getOrigin() + "'" +
+            ", entries=" + getEntries() +
+            ", regions=" + getRegions() +
+            "}";
+    }
+}
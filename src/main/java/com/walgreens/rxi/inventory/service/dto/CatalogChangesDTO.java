@@ -0,0 +1,102 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO for the changes of a {@link com.walgreens.rxi.inventory.domain.Catalog} since a version.
+ * <p>
+ * A delta lists the products added to or updated in the catalog, and the ids of the products removed from it.
+ * A snapshot lists all the products of the catalog: it replaces whatever the client holds.
+ */
+public class CatalogChangesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String code;
+
+    private final CatalogStatus status;
+
+    private final long version;
+
+    private final boolean snapshot;
+
+    private final List<ProductSummaryDTO> products;
+
+    private final List<Long> removedProductIds;
+
+    public CatalogChangesDTO(
+        Long id,
+        String code,
+        CatalogStatus status,
+        long version,
+        boolean snapshot,
+        List<ProductSummaryDTO> products,
+        List<Long> removedProductIds
+    ) {
+        this.id = id;
+        this.code = code;
+        this.status = status;
+        this.version = version;
+        this.snapshot = snapshot;
+        this.products = products;
+        this.removedProductIds = removedProductIds;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public CatalogStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the version of the catalog the changes lead to, to be sent back as {@code since} by the next sync.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return whether {@link #getProducts()} holds all the products of the catalog rather than a delta.
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the products added or updated since the requested version, or all the products of a snapshot.
+     */
+    public List<ProductSummaryDTO> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return the ids of the products removed since the requested version, empty for a snapshot.
+     */
+    public List<Long> getRemovedProductIds() {
+        return removedProductIds;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CatalogChangesDTO{" +
+            "id=" + getId() +
+            ", code='" + getCode() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", version=" + getVersion() +
+            ", snapshot=" + isSnapshot() +
+            ", products=" + getProducts().size() +
+            ", removedProductIds=" + getRemovedProductIds().size() +
+            "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A DTO for the {@link com.walgreens.rxi.inventory.domain.Catalog} entity, as returned by the REST API.
+ * <p>
+ * Its products are given without relationships.
+ */
+public class CatalogDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String code;
+
+    private final CatalogStatus status;
+
+    private final Set<ProductDTO> productCodes;
+
+    public CatalogDTO(Long id, String code, CatalogStatus status, Set<ProductDTO> productCodes) {
+        this.id = id;
+        this.code = code;
+        this.status = status;
+        this.productCodes = productCodes;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public CatalogStatus getStatus() {
+        return status;
+    }
+
+    public Set<ProductDTO> getProductCodes() {
+        return productCodes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CatalogDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((CatalogDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CatalogDTO{" +
+            "id=" + getId() +
+            ", code='" + getCode() + "'" +
+            ", status='" + getStatus() + "'" +
+            "}";
+    }
+}
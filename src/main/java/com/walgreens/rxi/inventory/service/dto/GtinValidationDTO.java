@@ -0,0 +1,81 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.service.gtin.GtinError;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO reporting the validation of a batch of product codes as GTINs: one result per code, in the order of the
+ * batch.
+ */
+public class GtinValidationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int valid;
+
+    private final int invalid;
+
+    private final List<Result> results;
+
+    public GtinValidationDTO(int valid, int invalid, List<Result> results) {
+        this.valid = valid;
+        this.invalid = invalid;
+        this.results = results;
+    }
+
+    public int getValid() {
+        return valid;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "GtinValidationDTO{" +
+            "valid=" + getValid() +
+            ", invalid=" + getInvalid() +
+            "}";
+    }
+
+    /**
+     * The validation of one code: its normalized GTIN-14 form if it is a GTIN, why it is not one otherwise.
+     */
+    public static class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String gtin;
+
+        private final GtinError error;
+
+        public Result(String gtin, GtinError error) {
+            this.gtin = gtin;
+            this.error = error;
+        }
+
+        public String getGtin() {
+            return gtin;
+        }
+
+        public GtinError getError() {
+            return error;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Result{" +
+                "gtin='" + getGtin() + "'" +
+                ", error=" + getError() +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.walgreens.rxi.inventory.domain.Packaging} entity, as returned by the REST API.
+ */
+public class PackagingDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String name;
+
+    private final Integer quantity;
+
+    private final Double grosWeight;
+
+    private final Double netWeight;
+
+    private final Double length;
+
+    private final Double width;
+
+    private final Double height;
+
+    public PackagingDTO(
+        Long id,
+        String name,
+        Integer quantity,
+        Double grosWeight,
+        Double netWeight,
+        Double length,
+        Double width,
+        Double height
+    ) {
+        this.id = id;
+        this.name = name;
+        this.quantity = quantity;
+        this.grosWeight = grosWeight;
+        this.netWeight = netWeight;
+        this.length = length;
+        this.width = width;
+        this.height = height;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Double getGrosWeight() {
+        return grosWeight;
+    }
+
+    public Double getNetWeight() {
+        return netWeight;
+    }
+
+    public Double getLength() {
+        return length;
+    }
+
+    public Double getWidth() {
+        return width;
+    }
+
+    public Double getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PackagingDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((PackagingDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PackagingDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", quantity=" + getQuantity() +
+            ", grosWeight=" + getGrosWeight() +
+            ", netWeight=" + getNetWeight() +
+            ", length=" + getLength() +
+            ", width=" + getWidth() +
+            ", height=" + getHeight() +
+            "}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the dimensions of the {@link com.walgreens.rxi.inventory.domain.Packaging} of a
+ * {@link com.walgreens.rxi.inventory.domain.Product}, as the packing plans need them.
+ */
+public class PackagingDimensionsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long productId;
+
+    private final Long packagingId;
+
+    private final Double length;
+
+    private final Double width;
+
+    private final Double height;
+
+    private final Double grossWeight;
+
+    private final Integer quantity;
+
+    public PackagingDimensionsDTO(
+        Long productId,
+        Long packagingId,
+        Double length,
+        Double width,
+        Double height,
+        Double grossWeight,
+        Integer quantity
+    ) {
+        this.productId = productId;
+        this.packagingId = packagingId;
+        this.length = length;
+        this.width = width;
+        this.height = height;
+        this.grossWeight = grossWeight;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getPackagingId() {
+        return packagingId;
+    }
+
+    public Double getLength() {
+        return length;
+    }
+
+    public Double getWidth() {
+        return width;
+    }
+
+    public Double getHeight() {
+        return height;
+    }
+
+    public Double getGrossWeight() {
+        return grossWeight;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PackagingDimensionsDTO{" +
+            "productId=" + getProductId() +
+            ", packagingId=" + getPackagingId() +
+            ", length=" + getLength() +
+            ", width=" + getWidth() +
+            ", height=" + getHeight() +
+            ", grossWeight=" + getGrossWeight() +
+            ", quantity=" + getQuantity() +
+            "}";
+    }
+}
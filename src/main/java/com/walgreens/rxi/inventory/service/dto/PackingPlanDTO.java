@@ -0,0 +1,231 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO representing the plan of a packing of {@link com.walgreens.rxi.inventory.domain.Product} packagings into
+ * containers.
+ * <p>
+ * The packagings are stacked in columns standing on the container floor. Coordinates start at a corner of the
+ * floor, {@code x} along the length of the container and {@code y} across its width.
+ */
+public class PackingPlanDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int containerCount;
+
+    private final double volumeUtilisation;
+
+    private final List<ContainerPlan> containers;
+
+    private final List<Long> unpackedProductIds;
+
+    public PackingPlanDTO(int containerCount, double volumeUtilisation, List<ContainerPlan> containers, List<Long> unpackedProductIds) {
+        this.containerCount = containerCount;
+        this.volumeUtilisation = volumeUtilisation;
+        this.containers = containers;
+        this.unpackedProductIds = unpackedProductIds;
+    }
+
+    public int getContainerCount() {
+        return containerCount;
+    }
+
+    /**
+     * @return the share of the volume of all the containers taken by packagings, between 0 and 1.
+     */
+    public double getVolumeUtilisation() {
+        return volumeUtilisation;
+    }
+
+    public List<ContainerPlan> getContainers() {
+        return containers;
+    }
+
+    /**
+     * @return the ids of the products that were not packed: unknown, without packaging dimensions, or whose
+     * packaging does not fit in the container.
+     */
+    public List<Long> getUnpackedProductIds() {
+        return unpackedProductIds;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PackingPlanDTO{" +
+            "containerCount=" + getContainerCount() +
+            ", volumeUtilisation=" + getVolumeUtilisation() +
+            ", unpackedProductIds=" + getUnpackedProductIds() +
+            "}";
+    }
+
+    /**
+     * The packagings placed in one container.
+     */
+    public static class ContainerPlan implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private final double volumeUtilisation;
+
+        private final double weight;
+
+        private final List<Placement> placements;
+
+        public ContainerPlan(int index, double volumeUtilisation, double weight, List<Placement> placements) {
+            this.index = index;
+            this.volumeUtilisation = volumeUtilisation;
+            this.weight = weight;
+            this.placements = placements;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public double getVolumeUtilisation() {
+            return volumeUtilisation;
+        }
+
+        /**
+         * @return the gross weight of the packagings, not counting those of unknown weight.
+         */
+        public double getWeight() {
+            return weight;
+        }
+
+        public List<Placement> getPlacements() {
+            return placements;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "ContainerPlan{" +
+                "index=" + getIndex() +
+                ", volumeUtilisation=" + getVolumeUtilisation() +
+                ", weight=" + getWeight() +
+                ", placements=" + getPlacements().size() +
+                "}";
+        }
+    }
+
+    /**
+     * A run of columns of packagings of one product, side by side across the container from {@code (x, y)}.
+     * All the columns hold {@code packagesPerColumn} packagings, but the last one, which holds the rest.
+     */
+    public static class Placement implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Long productId;
+
+        private final Long packagingId;
+
+        private final double x;
+
+        private final double y;
+
+        private final double depth;
+
+        private final double width;
+
+        private final double height;
+
+        private final int columns;
+
+        private final int packagesPerColumn;
+
+        private final int packages;
+
+        public Placement(
+            Long productId,
+            Long packagingId,
+            double x,
+            double y,
+            double depth,
+            double width,
+            double height,
+            int columns,
+            int packagesPerColumn,
+            int packages
+        ) {
+            this.productId = productId;
+            this.packagingId = packagingId;
+            this.x = x;
+            this.y = y;
+            this.depth = depth;
+            this.width = width;
+            this.height = height;
+            this.columns = columns;
+            this.packagesPerColumn = packagesPerColumn;
+            this.packages = packages;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public Long getPackagingId() {
+            return packagingId;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * @return the size of a packaging as it is placed, along the length of the container.
+         */
+        public double getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return the size of a packaging as it is placed, across the container.
+         */
+        public double getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the size of a packaging as it is placed, upwards.
+         */
+        public double getHeight() {
+            return height;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public int getPackagesPerColumn() {
+            return packagesPerColumn;
+        }
+
+        public int getPackages() {
+            return packages;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Placement{" +
+                "productId=" + getProductId() +
+                ", x=" + getX() +
+                ", y=" + getY() +
+                ", columns=" + getColumns() +
+                ", packages=" + getPackages() +
+                "}";
+        }
+    }
+}
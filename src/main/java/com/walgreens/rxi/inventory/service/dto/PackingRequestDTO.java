@@ -0,0 +1,169 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+
+/**
+ * A DTO requesting a packing plan: the quantities of {@link com.walgreens.rxi.inventory.domain.Product} entities to
+ * pack, and the containers, all alike, to pack their packagings into.
+ */
+public class PackingRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of lines of a request.
+     */
+    public static final int MAX_LINES = 20_000;
+
+    @NotNull
+    @Valid
+    private Container container;
+
+    @NotEmpty
+    @Size(max = MAX_LINES)
+    @Valid
+    private List<Line> lines;
+
+    public Container getContainer() {
+        return container;
+    }
+
+    public void setContainer(Container container) {
+        this.container = container;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PackingRequestDTO{" +
+            "container=" + getContainer() +
+            ", lines=" + (getLines() != null ? getLines().size() : null) +
+            "}";
+    }
+
+    /**
+     * The inner dimensions of a shelf, drawer, refrigerator or pallet, in the units of the packaging dimensions.
+     */
+    public static class Container implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @NotNull
+        @Positive
+        private Double length;
+
+        @NotNull
+        @Positive
+        private Double width;
+
+        @NotNull
+        @Positive
+        private Double height;
+
+        @Positive
+        private Double maxWeight;
+
+        public Double getLength() {
+            return length;
+        }
+
+        public void setLength(Double length) {
+            this.length = length;
+        }
+
+        public Double getWidth() {
+            return width;
+        }
+
+        public void setWidth(Double width) {
+            this.width = width;
+        }
+
+        public Double getHeight() {
+            return height;
+        }
+
+        public void setHeight(Double height) {
+            this.height = height;
+        }
+
+        /**
+         * @return the maximum gross weight of the packagings of a container, {@code null} for no limit.
+         */
+        public Double getMaxWeight() {
+            return maxWeight;
+        }
+
+        public void setMaxWeight(Double maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Container{" +
+                "length=" + getLength() +
+                ", width=" + getWidth() +
+                ", height=" + getHeight() +
+                ", maxWeight=" + getMaxWeight() +
+                "}";
+        }
+    }
+
+    /**
+     * A quantity of a product, in units: it is packed in as many packagings of the product as it fills.
+     */
+    public static class Line implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @NotNull
+        private Long productId;
+
+        @NotNull
+        @Min(value = 1)
+        @Max(value = 1_000_000)
+        private Integer quantity;
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Line{" +
+                "productId=" + getProductId() +
+                ", quantity=" + getQuantity() +
+                "}";
+        }
+    }
+}
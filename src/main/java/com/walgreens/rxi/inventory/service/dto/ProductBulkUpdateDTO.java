@@ -0,0 +1,71 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.service.criteria.ProductCriteria;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Size;
+
+/**
+ * A DTO for the bulk update of {@link com.walgreens.rxi.inventory.domain.Product} entities: the products to update,
+ * given either by a {@link ProductCriteria} or by their ids, and the new values of the changed fields.
+ */
+public class ProductBulkUpdateDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private ProductCriteria filter;
+
+    @Size(max = 10000)
+    private List<Long> ids;
+
+    @DecimalMin(value = "0")
+    private BigDecimal price;
+
+    private ProductStatus status;
+
+    public ProductCriteria getFilter() {
+        return filter;
+    }
+
+    public void setFilter(ProductCriteria filter) {
+        this.filter = filter;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public ProductStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ProductStatus status) {
+        this.status = status;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductBulkUpdateDTO{" +
+            "filter=" + getFilter() +
+            ", ids=" + (getIds() != null ? getIds().size() : null) +
+            ", price=" + getPrice() +
+            ", status='" + getStatus() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,44 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO reporting the outcome of a bulk update of {@link com.walgreens.rxi.inventory.domain.Product} entities.
+ */
+public class ProductBulkUpdateResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long updated;
+
+    private final int statements;
+
+    public ProductBulkUpdateResultDTO(long updated, int statements) {
+        this.updated = updated;
+        this.statements = statements;
+    }
+
+    /**
+     * @return the number of updated rows.
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return the number of {@code UPDATE} statements executed, one per chunk of products. The queries that select
+     * the products of a chunk, and the one that recounts them when their status changes, are not counted.
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductBulkUpdateResultDTO{" +
+            "updated=" + getUpdated() +
+            ", statements=" + getStatements() +
+            "}";
+    }
+}
@@ -0,0 +1,71 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.walgreens.rxi.inventory.domain.ProductCode} entity, as returned by the REST API.
+ * <p>
+ * Its product is given without relationships; it is {@code null} when the code is nested in its product.
+ */
+public class ProductCodeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String upc;
+
+    private final String barcode;
+
+    private final ProductDTO product;
+
+    public ProductCodeDTO(Long id, String upc, String barcode, ProductDTO product) {
+        this.id = id;
+        this.upc = upc;
+        this.barcode = barcode;
+        this.product = product;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUpc() {
+        return upc;
+    }
+
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public ProductDTO getProduct() {
+        return product;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductCodeDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((ProductCodeDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductCodeDTO{" +
+            "id=" + getId() +
+            ", upc='" + getUpc() + "'" +
+            ", barcode='" + getBarcode() + "'" +
+            "}";
+    }
+}
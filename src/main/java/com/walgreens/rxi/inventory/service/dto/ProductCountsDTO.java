@@ -0,0 +1,68 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * A DTO counting the {@link com.walgreens.rxi.inventory.domain.Product} entities of a category or a packaging.
+ */
+public class ProductCountsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final long total;
+
+    private final Map<ProductStatus, Long> byStatus;
+
+    private final Map<ProductType, Long> byType;
+
+    public ProductCountsDTO(Long id, long total, Map<ProductStatus, Long> byStatus, Map<ProductType, Long> byType) {
+        this.id = id;
+        this.total = total;
+        this.byStatus = byStatus;
+        this.byType = byType;
+    }
+
+    /**
+     * @return the id of the category or packaging.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the number of products, including those without a status.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the number of products of each status, without the statuses that no product has.
+     */
+    public Map<ProductStatus, Long> getByStatus() {
+        return byStatus;
+    }
+
+    /**
+     * @return the number of products of each type, without the types that no product has.
+     */
+    public Map<ProductType, Long> getByType() {
+        return byType;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductCountsDTO{" +
+            "id=" + getId() +
+            ", total=" + getTotal() +
+            ", byStatus=" + getByStatus() +
+            ", byType=" + getByType() +
+            "}";
+    }
+}
@@ -0,0 +1,179 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A DTO for the {@link com.walgreens.rxi.inventory.domain.Product} entity, as returned by the REST API.
+ * <p>
+ * The relationships are {@code null} when the product is nested in a product code or a catalog.
+ * Catalogs are not included: they are listed by {@code GET /api/catalogs}.
+ */
+public class ProductDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String name;
+
+    private final String description;
+
+    private final String company;
+
+    private final ProductType type;
+
+    private final StorageType storageType;
+
+    private final BigDecimal price;
+
+    private final UnitOfMeasurement salesUnit;
+
+    private final BigDecimal salesQuantity;
+
+    private final String imageContentType;
+
+    private final String imageHash;
+
+    private final ProductStatus status;
+
+    private final ProductCodeDTO productCode;
+
+    private final CategoryDTO category;
+
+    private final PackagingDTO packaging;
+
+    public ProductDTO(
+        Long id,
+        String name,
+        String description,
+        String company,
+        ProductType type,
+        StorageType storageType,
+        BigDecimal price,
+        UnitOfMeasurement salesUnit,
+        BigDecimal salesQuantity,
+        String imageContentType,
+        String imageHash,
+        ProductStatus status,
+        ProductCodeDTO productCode,
+        CategoryDTO category,
+        PackagingDTO packaging
+    ) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.company = company;
+        this.type = type;
+        this.storageType = storageType;
+        this.price = price;
+        this.salesUnit = salesUnit;
+        this.salesQuantity = salesQuantity;
+        this.imageContentType = imageContentType;
+        this.imageHash = imageHash;
+        this.status = status;
+        this.productCode = productCode;
+        this.category = category;
+        this.packaging = packaging;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public ProductType getType() {
+        return type;
+    }
+
+    public StorageType getStorageType() {
+        return storageType;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public UnitOfMeasurement getSalesUnit() {
+        return salesUnit;
+    }
+
+    public BigDecimal getSalesQuantity() {
+        return salesQuantity;
+    }
+
+    public String getImageContentType() {
+        return imageContentType;
+    }
+
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    public ProductStatus getStatus() {
+        return status;
+    }
+
+    public ProductCodeDTO getProductCode() {
+        return productCode;
+    }
+
+    public CategoryDTO getCategory() {
+        return category;
+    }
+
+    public PackagingDTO getPackaging() {
+        return packaging;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((ProductDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", company='" + getCompany() + "'" +
+            ", type='" + getType() + "'" +
+            ", storageType='" + getStorageType() + "'" +
+            ", price=" + getPrice() +
+            ", salesUnit='" + getSalesUnit() + "'" +
+            ", salesQuantity=" + getSalesQuantity() +
+            ", imageContentType='" + getImageContentType() + "'" +
+            ", imageHash='" + getImageHash() + "'" +
+            ", status='" + getStatus() + "'" +
+            "}";
+    }
+}
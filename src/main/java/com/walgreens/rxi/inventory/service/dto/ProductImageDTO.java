@@ -0,0 +1,37 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO locating the image of a {@link com.walgreens.rxi.inventory.domain.Product} in the image store.
+ */
+public class ProductImageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String imageHash;
+
+    private final String imageContentType;
+
+    public ProductImageDTO(String imageHash, String imageContentType) {
+        this.imageHash = imageHash;
+        this.imageContentType = imageContentType;
+    }
+
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    public String getImageContentType() {
+        return imageContentType;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductImageDTO{" +
+            "imageHash='" + getImageHash() + "'" +
+            ", imageContentType='" + getImageContentType() + "'" +
+            "}";
+    }
+}
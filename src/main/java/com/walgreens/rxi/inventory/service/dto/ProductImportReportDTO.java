@@ -0,0 +1,150 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO reporting the outcome of a bulk {@link com.walgreens.rxi.inventory.domain.Product} import: the rows that
+ * could not be imported, and the throughput of the import.
+ * <p>
+ * At most {@code maxReportedErrors} errors are listed, so that the report of a bad feed stays small; the others
+ * are only counted in {@link #getFailed()}.
+ */
+public class ProductImportReportDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxReportedErrors;
+
+    private long rows;
+
+    private long imported;
+
+    private long failed;
+
+    private long elapsedMillis;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+
+    public ProductImportReportDTO(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public void rowRead() {
+        rows++;
+    }
+
+    public void rowsImported(int count) {
+        imported += count;
+    }
+
+    /**
+     * Record a row that was not imported.
+     *
+     * @param line the line of the row in the import body, starting at 1.
+     * @param message why the row was rejected.
+     */
+    public void rowFailed(long line, String message) {
+        failed++;
+        addError(line, message);
+    }
+
+    /**
+     * Record a problem that did not prevent the rows from being imported, such as an unknown column.
+     *
+     * @param line the line of the problem in the import body, starting at 1.
+     * @param message the problem.
+     */
+    public void warning(long line, String message) {
+        addError(line, message);
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    private void addError(long line, String message) {
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductImportReportDTO{" +
+            "rows=" + getRows() +
+            ", imported=" + getImported() +
+            ", failed=" + getFailed() +
+            ", elapsedMillis=" + getElapsedMillis() +
+            ", errors=" + getErrors().size() +
+            "}";
+    }
+
+    /**
+     * A row rejected by the import.
+     */
+    public static class RowError implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "RowError{" +
+                "line=" + getLine() +
+                ", message='" + getMessage() + "'" +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A DTO representing a {@link com.walgreens.rxi.inventory.domain.Product} in lists, without its image.
+ * <p>
+ * It is built directly from a JPQL constructor expression. The image itself is served by
+ * {@code GET /api/products/:id/image}, which is what {@link #getImageUrl()} points to; the URL is versioned
+ * with the image hash so that it can be cached for a long time.
+ */
+public class ProductSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String IMAGE_URL_TEMPLATE = "/api/products/%d/image?v=%s";
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private String company;
+
+    private ProductType type;
+
+    private StorageType storageType;
+
+    private BigDecimal price;
+
+    private UnitOfMeasurement salesUnit;
+
+    private BigDecimal salesQuantity;
+
+    private String imageContentType;
+
+    private String imageUrl;
+
+    private ProductStatus status;
+
+    private Long productCodeId;
+
+    private Long categoryId;
+
+    private Long packagingId;
+
+    public ProductSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductSummaryDTO(
+        Long id,
+        String name,
+        String description,
+        String company,
+        ProductType type,
+        StorageType storageType,
+        BigDecimal price,
+        UnitOfMeasurement salesUnit,
+        BigDecimal salesQuantity,
+        String imageContentType,
+        String imageHash,
+        ProductStatus status,
+        Long productCodeId,
+        Long categoryId,
+        Long packagingId
+    ) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.company = company;
+        this.type = type;
+        this.storageType = storageType;
+        this.price = price;
+        this.salesUnit = salesUnit;
+        this.salesQuantity = salesQuantity;
+        this.imageContentType = imageContentType;
+        this.imageUrl = imageHash != null ? String.format(IMAGE_URL_TEMPLATE, id, imageHash) : null;
+        this.status = status;
+        this.productCodeId = productCodeId;
+        this.categoryId = categoryId;
+        this.packagingId = packagingId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public void setCompany(String company) {
+        this.company = company;
+    }
+
+    public ProductType getType() {
+        return type;
+    }
+
+    public void setType(ProductType type) {
+        this.type = type;
+    }
+
+    public StorageType getStorageType() {
+        return storageType;
+    }
+
+    public void setStorageType(StorageType storageType) {
+        this.storageType = storageType;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public UnitOfMeasurement getSalesUnit() {
+        return salesUnit;
+    }
+
+    public void setSalesUnit(UnitOfMeasurement salesUnit) {
+        this.salesUnit = salesUnit;
+    }
+
+    public BigDecimal getSalesQuantity() {
+        return salesQuantity;
+    }
+
+    public void setSalesQuantity(BigDecimal salesQuantity) {
+        this.salesQuantity = salesQuantity;
+    }
+
+    public String getImageContentType() {
+        return imageContentType;
+    }
+
+    public void setImageContentType(String imageContentType) {
+        this.imageContentType = imageContentType;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public ProductStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ProductStatus status) {
+        this.status = status;
+    }
+
+    public Long getProductCodeId() {
+        return productCodeId;
+    }
+
+    public void setProductCodeId(Long productCodeId) {
+        this.productCodeId = productCodeId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getPackagingId() {
+        return packagingId;
+    }
+
+    public void setPackagingId(Long packagingId) {
+        this.packagingId = packagingId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductSummaryDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((ProductSummaryDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductSummaryDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", company='" + getCompany() + "'" +
+            ", type='" + getType() + "'" +
+            ", storageType='" + getStorageType() + "'" +
+            ", price=" + getPrice() +
+            ", salesUnit='" + getSalesUnit() + "'" +
+            ", salesQuantity=" + getSalesQuantity() +
+            ", imageContentType='" + getImageContentType() + "'" +
+            ", imageUrl='" + getImageUrl() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", productCodeId=" + getProductCodeId() +
+            ", categoryId=" + getCategoryId() +
+            ", packagingId=" + getPackagingId() +
+            "}";
+    }
+}
@@ -0,0 +1,74 @@
+package com.walgreens.rxi.inventory.service.dto;
+
+import com.walgreens.rxi.inventory.domain.enumeration.StockMovementType;
+import java.io.Serializable;
+
+/**
+ * A DTO for a movement of the stock of a {@link com.walgreens.rxi.inventory.domain.Product}, as published on Kafka by
+ * the POS and warehouse systems: the quantity is positive, the type tells whether it adds to the stock or takes
+ * from it.
+ */
+public class StockMovementDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String eventId;
+
+    private Long productId;
+
+    private StockMovementType type;
+
+    private Long quantity;
+
+    public StockMovementDTO() {}
+
+    public StockMovementDTO(String eventId, Long productId, StockMovementType type, Long quantity) {
+        this.eventId = eventId;
+        this.productId = productId;
+        this.type = type;
+        this.quantity = quantity;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public StockMovementType getType() {
+        return type;
+    }
+
+    public void setType(StockMovementType type) {
+        this.type = type;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StockMovementDTO{" +
+            "eventId='" + getEventId() + "'" +
+            ", productId=" + getProductId() +
+            ", type='" + getType() + "'" +
+            ", quantity=" + getQuantity() +
+            "}";
+    }
+}
@@ -0,0 +1,226 @@
+package com.walgreens.rxi.inventory.service.fanout;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * A subscriber of {@link KafkaFanOut}: a bounded ring buffer of the values of the records of its topics, drained
+ * to its {@link Sink} by the sender threads of the fan-out, so that a slow client never holds a consumer.
+ * <p>
+ * When the buffer is full, a record replaces the buffered record of the same key, as a client that lags only needs
+ * the last value of each key; if no record has its key, the subscriber is dropped, and its client has to reconnect.
+ */
+public final class FanOutSubscriber {
+
+    /**
+     * The client of a subscriber, called by one sender thread at a time.
+     */
+    public interface Sink {
+        void send(String value) throws IOException;
+
+        /**
+         * Send a no-op, so that a closed connection is detected while its topics are idle.
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Complete the stream of a subscriber that the fan-out dropped.
+         *
+         * @param error the failure of its topics, or {@code null} if it was too slow.
+         */
+        void complete(Throwable error);
+    }
+
+    enum Offer {
+        BUFFERED,
+        COALESCED,
+        OVERFLOWED,
+    }
+
+    private final Set<String> topics;
+
+    private final Sink sink;
+
+    private final Executor sender;
+
+    private final Consumer<FanOutSubscriber> unsubscribe;
+
+    private final String[] keys;
+
+    private final String[] values;
+
+    /**
+     * The values being sent, only touched by the draining thread.
+     */
+    private final String[] sending;
+
+    // Guarded by this
+    private int head;
+
+    private int size;
+
+    private boolean heartbeat;
+
+    private boolean draining;
+
+    private boolean closed;
+
+    FanOutSubscriber(Set<String> topics, int capacity, Sink sink, Executor sender, Consumer<FanOutSubscriber> unsubscribe) {
+        this.topics = topics;
+        this.sink = sink;
+        this.sender = sender;
+        this.unsubscribe = unsubscribe;
+        this.keys = new String[capacity];
+        this.values = new String[capacity];
+        this.sending = new String[capacity];
+    }
+
+    Set<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Buffer the value of a record, and schedule the draining of the buffer.
+     */
+    Offer offer(String key, String value) {
+        Offer offer;
+        synchronized (this) {
+            if (closed) {
+                return Offer.BUFFERED;
+            }
+            if (size < values.length) {
+                int tail = (head + size++) % values.length;
+                keys[tail] = key;
+                values[tail] = value;
+                offer = Offer.BUFFERED;
+            } else if (key != null && coalesce(key, value)) {
+                offer = Offer.COALESCED;
+            } else {
+                return Offer.OVERFLOWED;
+            }
+            if (draining) {
+                return offer;
+            }
+            draining = true;
+        }
+        schedule();
+        return offer;
+    }
+
+    private boolean coalesce(String key, String value) {
+        for (int i = size - 1; i >= 0; i--) {
+            int index = (head + i) % values.length;
+            if (Objects.equals(key, keys[index])) {
+                values[index] = value;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Schedule a heartbeat, sent if nothing else is.
+     */
+    void heartbeat() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            heartbeat = true;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        schedule();
+    }
+
+    synchronized int depth() {
+        return size;
+    }
+
+    private void schedule() {
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The fan-out is shutting down
+            drop(e);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            int count;
+            boolean beat;
+            synchronized (this) {
+                count = size;
+                for (int i = 0; i < count; i++) {
+                    int index = (head + i) % values.length;
+                    sending[i] = values[index];
+                    keys[index] = null;
+                    values[index] = null;
+                }
+                head = (head + count) % values.length;
+                size = 0;
+                beat = heartbeat && count == 0;
+                heartbeat = false;
+                if (closed || (count == 0 && !beat)) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                for (int i = 0; i < count; i++) {
+                    sink.send(sending[i]);
+                    sending[i] = null;
+                }
+                if (beat) {
+                    sink.heartbeat();
+                }
+            } catch (IOException | RuntimeException e) {
+                // The client is gone
+                synchronized (this) {
+                    draining = false;
+                }
+                drop(e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Unsubscribe, when the client is gone.
+     */
+    public void close() {
+        if (markClosed()) {
+            unsubscribe.accept(this);
+        }
+    }
+
+    /**
+     * Unsubscribe, and complete the sink.
+     */
+    void drop(Throwable error) {
+        if (markClosed()) {
+            unsubscribe.accept(this);
+            sink.complete(error);
+        }
+    }
+
+    private synchronized boolean markClosed() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+        return true;
+    }
+}
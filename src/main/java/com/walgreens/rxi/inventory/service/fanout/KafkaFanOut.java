@@ -0,0 +1,136 @@
+package com.walgreens.rxi.inventory.service.fanout;
+
+import com.walgreens.rxi.inventory.config.KafkaProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fan-out of Kafka topics to streaming subscribers: one consumer per topic per node, started with its first
+ * subscriber and stopped with its last one, dispatches the records of the topic to the bounded buffers of its
+ * subscribers, which {@code kafka.fan-out.sender-threads} threads drain to their clients.
+ * <p>
+ * The fan-out reports, tagged by topic, the {@code kafka.fan-out.subscribers}, the {@code kafka.fan-out.lag} of the
+ * consumer, the {@code kafka.fan-out.buffer.depth} of the slowest subscriber, and the records
+ * {@code kafka.fan-out.coalesced} and subscribers {@code kafka.fan-out.dropped} because they were too slow.
+ */
+@Service
+public class KafkaFanOut {
+
+    private final Logger log = LoggerFactory.getLogger(KafkaFanOut.class);
+
+    private final KafkaProperties.FanOut properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Function<String, Consumer<String, String>> consumerFactory;
+
+    private final ExecutorService sender;
+
+    // Guarded by this
+    private final Map<String, TopicFanOut> topics = new HashMap<>();
+
+    @Autowired
+    public KafkaFanOut(KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        this(kafkaProperties, meterRegistry, topic -> new KafkaConsumer<>(fanOutConsumerProps(kafkaProperties, topic)));
+    }
+
+    KafkaFanOut(KafkaProperties kafkaProperties, MeterRegistry meterRegistry, Function<String, Consumer<String, String>> consumerFactory) {
+        this.properties = kafkaProperties.getFanOut();
+        this.meterRegistry = meterRegistry;
+        this.consumerFactory = consumerFactory;
+        this.sender = Executors.newFixedThreadPool(properties.getSenderThreads(), new CustomizableThreadFactory("kafka-fan-out-sender-"));
+    }
+
+    private static Map<String, Object> fanOutConsumerProps(KafkaProperties kafkaProperties, String topic) {
+        Map<String, Object> props = kafkaProperties.getConsumerProps();
+        // Assigned every partition: no group, no committed offsets
+        props.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        // Only for the partitions added to the topic later: the first assignment seeks to the end of the topic
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "fan-out-" + topic);
+        return props;
+    }
+
+    /**
+     * Subscribe to topics.
+     *
+     * @param topics the topics.
+     * @param sink the client, sent the values of the records of the topics from now on.
+     * @return the subscriber, to close when the client is gone.
+     */
+    public FanOutSubscriber subscribe(Collection<String> topics, FanOutSubscriber.Sink sink) {
+        FanOutSubscriber subscriber = new FanOutSubscriber(
+            new LinkedHashSet<>(topics),
+            properties.getBufferSize(),
+            sink,
+            sender,
+            this::unsubscribe
+        );
+        synchronized (this) {
+            for (String topic : subscriber.getTopics()) {
+                this.topics.computeIfAbsent(topic, this::start).add(subscriber);
+            }
+        }
+        return subscriber;
+    }
+
+    private TopicFanOut start(String topic) {
+        log.debug("Starting the fan-out of Kafka topic {}", topic);
+        Consumer<String, String> consumer = consumerFactory.apply(topic);
+        TopicFanOut topicFanOut = new TopicFanOut(topic, consumer, properties.getHeartbeatInterval(), this, meterRegistry);
+        topicFanOut.start();
+        return topicFanOut;
+    }
+
+    private synchronized void unsubscribe(FanOutSubscriber subscriber) {
+        for (String topic : subscriber.getTopics()) {
+            TopicFanOut topicFanOut = topics.get(topic);
+            if (topicFanOut != null && topicFanOut.remove(subscriber)) {
+                log.debug("Stopping the fan-out of Kafka topic {}", topic);
+                topics.remove(topic);
+                topicFanOut.stop();
+            }
+        }
+    }
+
+    /**
+     * Forget the consumer of a topic that failed: the next subscriber of the topic starts a new one.
+     */
+    synchronized void failed(TopicFanOut topicFanOut) {
+        topics.remove(topicFanOut.getTopic(), topicFanOut);
+        topicFanOut.stop();
+    }
+
+    /**
+     * @return the topics being consumed.
+     */
+    public synchronized Set<String> getTopics() {
+        return Set.copyOf(topics.keySet());
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            topics.values().forEach(TopicFanOut::stop);
+            topics.clear();
+        }
+        sender.shutdownNow();
+    }
+}
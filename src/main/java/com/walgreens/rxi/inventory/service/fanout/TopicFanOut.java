@@ -0,0 +1,232 @@
+package com.walgreens.rxi.inventory.service.fanout;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The consumer of a topic of {@link KafkaFanOut}, on its own thread, and its metrics.
+ * <p>
+ * The consumer is assigned every partition of the topic instead of joining a consumer group, so that subscribers
+ * coming and going never trigger a rebalance, and every node gets every record. It starts at the end of the topic,
+ * since subscribers are sent the records from now on, reads the partitions added to the topic later from their
+ * beginning, and commits nothing.
+ */
+class TopicFanOut implements Runnable {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final String RECORDS_LAG_METRIC = "records-lag";
+
+    private final Logger log = LoggerFactory.getLogger(TopicFanOut.class);
+
+    private final String topic;
+
+    private final Consumer<String, String> consumer;
+
+    private final long heartbeatIntervalNanos;
+
+    private final KafkaFanOut fanOut;
+
+    private final Set<FanOutSubscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final List<Meter> meters;
+
+    private final Counter coalesced;
+
+    private final Counter dropped;
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    private volatile double lag;
+
+    TopicFanOut(String topic, Consumer<String, String> consumer, Duration heartbeatInterval, KafkaFanOut fanOut, MeterRegistry registry) {
+        this.topic = topic;
+        this.consumer = consumer;
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        this.fanOut = fanOut;
+        this.meterRegistry = registry;
+        this.coalesced =
+            Counter
+                .builder("kafka.fan-out.coalesced")
+                .description("Records that replaced a buffered record of the same key of a slow subscriber")
+                .tag("topic", topic)
+                .register(registry);
+        this.dropped =
+            Counter
+                .builder("kafka.fan-out.dropped")
+                .description("Subscribers dropped as too slow")
+                .tag("topic", topic)
+                .register(registry);
+        this.meters =
+            List.of(
+                coalesced,
+                dropped,
+                Gauge
+                    .builder("kafka.fan-out.subscribers", subscribers, Set::size)
+                    .description("Subscribers of the topic")
+                    .tag("topic", topic)
+                    .register(registry),
+                Gauge
+                    .builder("kafka.fan-out.lag", this, topicFanOut -> topicFanOut.lag)
+                    .description("Records of the topic not consumed yet")
+                    .tag("topic", topic)
+                    .register(registry),
+                Gauge
+                    .builder("kafka.fan-out.buffer.depth", this, TopicFanOut::maxDepth)
+                    .description("Records buffered for the slowest subscriber")
+                    .tag("topic", topic)
+                    .register(registry)
+            );
+        this.thread = new Thread(this, "kafka-fan-out-" + topic);
+        this.thread.setDaemon(true);
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void add(FanOutSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * @return whether no subscriber is left.
+     */
+    boolean remove(FanOutSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        return subscribers.isEmpty();
+    }
+
+    /**
+     * Stop consuming, and remove the metrics, so that a new consumer of the topic can register them again.
+     */
+    void stop() {
+        if (running) {
+            running = false;
+            meters.forEach(meterRegistry::remove);
+            consumer.wakeup();
+        }
+    }
+
+    private double maxDepth() {
+        int depth = 0;
+        for (FanOutSubscriber subscriber : subscribers) {
+            depth = Math.max(depth, subscriber.depth());
+        }
+        return depth;
+    }
+
+    @Override
+    public void run() {
+        try {
+            int partitions = 0;
+            long nextHeartbeat = System.nanoTime() + heartbeatIntervalNanos;
+            while (running) {
+                if (partitions == 0) {
+                    partitions = assign();
+                    if (partitions == 0) {
+                        // The topic does not exist yet
+                        Thread.sleep(POLL_TIMEOUT.toMillis());
+                    }
+                }
+                if (partitions > 0) {
+                    dispatch(consumer.poll(POLL_TIMEOUT));
+                    lag = lag();
+                }
+                long now = System.nanoTime();
+                if (now - nextHeartbeat >= 0) {
+                    subscribers.forEach(FanOutSubscriber::heartbeat);
+                    nextHeartbeat = now + heartbeatIntervalNanos;
+                    // Partitions added to the topic show up with the metadata refreshes of the consumer
+                    if (partitions > 0 && consumer.partitionsFor(topic).size() != partitions) {
+                        partitions = assign();
+                    }
+                }
+            }
+        } catch (WakeupException | InterruptException | InterruptedException e) {
+            // Stopped
+        } catch (RuntimeException e) {
+            log.warn("Fan-out of Kafka topic {} failed: {}", topic, e.getMessage());
+            fanOut.failed(this);
+            subscribers.forEach(subscriber -> subscriber.drop(e));
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private int assign() {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null || infos.isEmpty()) {
+            return 0;
+        }
+        boolean first = consumer.assignment().isEmpty();
+        List<TopicPartition> partitions = infos
+            .stream()
+            .map(info -> new TopicPartition(topic, info.partition()))
+            .collect(Collectors.toList());
+        consumer.assign(partitions);
+        if (first) {
+            // Replaying the topic would only overflow the buffers of the subscribers
+            consumer.seekToEnd(partitions);
+        }
+        return infos.size();
+    }
+
+    private void dispatch(ConsumerRecords<String, String> records) {
+        for (ConsumerRecord<String, String> record : records) {
+            for (FanOutSubscriber subscriber : subscribers) {
+                FanOutSubscriber.Offer offer = subscriber.offer(record.key(), record.value());
+                if (offer == FanOutSubscriber.Offer.COALESCED) {
+                    coalesced.increment();
+                } else if (offer == FanOutSubscriber.Offer.OVERFLOWED) {
+                    log.debug("Dropping a subscriber of Kafka topic {} too slow to keep up", topic);
+                    dropped.increment();
+                    subscriber.drop(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the lags of the partitions, as last fetched by the consumer.
+     */
+    private double lag() {
+        double sum = 0;
+        for (Map.Entry<MetricName, ? extends Metric> metric : consumer.metrics().entrySet()) {
+            if (RECORDS_LAG_METRIC.equals(metric.getKey().name()) && metric.getKey().tags().containsKey("partition")) {
+                Object value = metric.getValue().metricValue();
+                if (value instanceof Double && !((Double) value).isNaN()) {
+                    sum += (Double) value;
+                }
+            }
+        }
+        return sum;
+    }
+}
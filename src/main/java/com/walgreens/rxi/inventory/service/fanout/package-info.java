@@ -0,0 +1,4 @@
+/**
+ * Fan-out of Kafka topics to streaming subscribers, with one consumer per topic per node.
+ */
+package com.walgreens.rxi.inventory.service.fanout;
@@ -0,0 +1,134 @@
+package com.walgreens.rxi.inventory.service.gtin;
+
+/**
+ * Validation and normalization of GTIN-8, GTIN-12 (UPC-A), GTIN-13 (EAN-13) and GTIN-14 codes.
+ * <p>
+ * A GTIN is normalized to its GTIN-14 form, left-padded with zeros, so that a product is found whatever the length
+ * its code was entered with. Codes of 9 to 11 digits are taken for GTINs whose leading zeros were dropped, as
+ * spreadsheets do: leading zeros do not change the check digit. The codes are parsed from a {@link CharSequence} or
+ * from ASCII bytes into a {@code long}, or a negative error: parsing allocates nothing, and costs one pass over
+ * the digits.
+ */
+public final class Gtin {
+
+    /**
+     * Length of the normalized form.
+     */
+    public static final int LENGTH = 14;
+
+    private static final int MIN_LENGTH = 8;
+
+    private static final GtinError[] ERRORS = GtinError.values();
+
+    private static final long INVALID_LENGTH = -1 - GtinError.INVALID_LENGTH.ordinal();
+
+    private static final long INVALID_CHARACTER = -1 - GtinError.INVALID_CHARACTER.ordinal();
+
+    private static final long INVALID_CHECK_DIGIT = -1 - GtinError.INVALID_CHECK_DIGIT.ordinal();
+
+    private Gtin() {}
+
+    /**
+     * Parse a code, ignoring surrounding whitespace.
+     *
+     * @param code the code.
+     * @return the GTIN, or a negative value if the code is not a GTIN: see {@link #error(long)}.
+     */
+    public static long parse(CharSequence code) {
+        int from = 0;
+        int to = code.length();
+        while (from < to && code.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && code.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (to - from < MIN_LENGTH || to - from > LENGTH) {
+            return INVALID_LENGTH;
+        }
+        long value = 0;
+        int sum = 0;
+        // Weights 1 and 3 alternate from the check digit leftwards: the weighted sum of a GTIN ends in 0
+        int weight = ((to - from) & 1) == 0 ? 3 : 1;
+        for (int i = from; i < to; i++) {
+            int digit = code.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_CHARACTER;
+            }
+            value = value * 10 + digit;
+            sum += digit * weight;
+            weight = 4 - weight;
+        }
+        return sum % 10 == 0 ? value : INVALID_CHECK_DIGIT;
+    }
+
+    /**
+     * Parse a code from ASCII bytes, ignoring surrounding whitespace.
+     *
+     * @param bytes the bytes.
+     * @param from the index of the first byte of the code.
+     * @param to the index after the last byte of the code.
+     * @return the GTIN, or a negative value if the code is not a GTIN: see {@link #error(long)}.
+     */
+    public static long parse(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        if (to - from < MIN_LENGTH || to - from > LENGTH) {
+            return INVALID_LENGTH;
+        }
+        long value = 0;
+        int sum = 0;
+        int weight = ((to - from) & 1) == 0 ? 3 : 1;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_CHARACTER;
+            }
+            value = value * 10 + digit;
+            sum += digit * weight;
+            weight = 4 - weight;
+        }
+        return sum % 10 == 0 ? value : INVALID_CHECK_DIGIT;
+    }
+
+    /**
+     * @param parsed the result of a parse.
+     * @return why the code is not a GTIN, or {@code null} if it is one.
+     */
+    public static GtinError error(long parsed) {
+        return parsed >= 0 ? null : ERRORS[(int) (-1 - parsed)];
+    }
+
+    /**
+     * @param gtin a parsed GTIN.
+     * @return its normalized form: its 14 digits.
+     */
+    public static String format(long gtin) {
+        char[] digits = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + gtin % 10);
+            gtin /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Normalize a code that must be a GTIN.
+     *
+     * @param field the name of the code, for the error message.
+     * @param code the code.
+     * @return its normalized form.
+     * @throws InvalidGtinException if the code is not a GTIN.
+     */
+    public static String normalize(String field, CharSequence code) {
+        long parsed = parse(code);
+        if (parsed < 0) {
+            throw new InvalidGtinException(field, code, error(parsed));
+        }
+        return format(parsed);
+    }
+}
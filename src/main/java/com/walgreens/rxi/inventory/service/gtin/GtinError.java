@@ -0,0 +1,19 @@
+package com.walgreens.rxi.inventory.service.gtin;
+
+/**
+ * Why a code is not a GTIN.
+ */
+public enum GtinError {
+    /**
+     * Fewer than 8 or more than 14 characters, once surrounding whitespace is trimmed.
+     */
+    INVALID_LENGTH,
+    /**
+     * A character other than a digit.
+     */
+    INVALID_CHARACTER,
+    /**
+     * The last digit does not match the check digit computed from the others.
+     */
+    INVALID_CHECK_DIGIT,
+}
@@ -0,0 +1,20 @@
+package com.walgreens.rxi.inventory.service.gtin;
+
+/**
+ * Thrown when a code that must be a GTIN is not one.
+ */
+public class InvalidGtinException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GtinError error;
+
+    public InvalidGtinException(String field, CharSequence code, GtinError error) {
+        super("Invalid " + field + " " + code + ": " + error);
+        this.error = error;
+    }
+
+    public GtinError getError() {
+        return error;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Validation and normalization of GTIN product codes.
+ */
+package com.walgreens.rxi.inventory.service.gtin;
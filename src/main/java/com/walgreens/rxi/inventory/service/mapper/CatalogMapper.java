@@ -0,0 +1,17 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.service.dto.CatalogDTO;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper for the entity {@link Catalog} and its DTO {@link CatalogDTO}.
+ */
+@Mapper(componentModel = "spring", uses = ProductMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface CatalogMapper extends EntityMapper<CatalogDTO, Catalog> {
+    @Override
+    @Mapping(target = "productCodes", qualifiedByName = "withoutRelationshipsSet")
+    CatalogDTO toDto(Catalog catalog);
+}
@@ -0,0 +1,11 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.service.dto.CategoryDTO;
+import org.mapstruct.Mapper;
+
+/**
+ * Mapper for the entity {@link Category} and its DTO {@link CategoryDTO}.
+ */
+@Mapper(componentModel = "spring")
+public interface CategoryMapper extends EntityMapper<CategoryDTO, Category> {}
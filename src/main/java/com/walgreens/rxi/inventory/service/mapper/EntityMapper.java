@@ -0,0 +1,15 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import java.util.List;
+
+/**
+ * Contract for a generic entity to response DTO mapper.
+ *
+ * @param <D> - DTO type parameter.
+ * @param <E> - Entity type parameter.
+ */
+public interface EntityMapper<D, E> {
+    D toDto(E entity);
+
+    List<D> toDto(List<E> entityList);
+}
@@ -0,0 +1,11 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.service.dto.PackagingDTO;
+import org.mapstruct.Mapper;
+
+/**
+ * Mapper for the entity {@link Packaging} and its DTO {@link PackagingDTO}.
+ */
+@Mapper(componentModel = "spring")
+public interface PackagingMapper extends EntityMapper<PackagingDTO, Packaging> {}
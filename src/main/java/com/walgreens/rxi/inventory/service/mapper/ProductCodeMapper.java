@@ -0,0 +1,17 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.service.dto.ProductCodeDTO;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper for the entity {@link ProductCode} and its DTO {@link ProductCodeDTO}.
+ */
+@Mapper(componentModel = "spring", uses = ProductMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface ProductCodeMapper extends EntityMapper<ProductCodeDTO, ProductCode> {
+    @Override
+    @Mapping(target = "product", qualifiedByName = "withoutRelationships")
+    ProductCodeDTO toDto(ProductCode productCode);
+}
@@ -0,0 +1,58 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.service.dto.ProductCodeDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductDTO;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.hibernate.Hibernate;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+
+/**
+ * Mapper for the entity {@link Product} and its DTO {@link ProductDTO}.
+ * <p>
+ * The lazy catalogs of the product are never read, and the product code of a product is mapped without its product.
+ */
+@Mapper(
+    componentModel = "spring",
+    uses = { CategoryMapper.class, PackagingMapper.class },
+    injectionStrategy = InjectionStrategy.CONSTRUCTOR
+)
+public interface ProductMapper extends EntityMapper<ProductDTO, Product> {
+    @Override
+    @Mapping(target = "productCode", qualifiedByName = "productCodeWithoutProduct")
+    ProductDTO toDto(Product product);
+
+    @Named("withoutRelationships")
+    @Mapping(target = "productCode", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "packaging", ignore = true)
+    ProductDTO toDtoWithoutRelationships(Product product);
+
+    /**
+     * Products of a lazy collection, or {@code null} if the collection was not fetched, as Jackson's Hibernate
+     * module does for entities.
+     */
+    @Named("withoutRelationshipsSet")
+    default Set<ProductDTO> toDtoWithoutRelationships(Set<Product> products) {
+        if (products == null || !Hibernate.isInitialized(products)) {
+            return null;
+        }
+        Set<ProductDTO> dtos = new LinkedHashSet<>();
+        for (Product product : products) {
+            dtos.add(toDtoWithoutRelationships(product));
+        }
+        return dtos;
+    }
+
+    /**
+     * The product code of a product, without the product itself.
+     */
+    @Named("productCodeWithoutProduct")
+    @Mapping(target = "product", ignore = true)
+    ProductCodeDTO toProductCodeDtoWithoutProduct(ProductCode productCode);
+}
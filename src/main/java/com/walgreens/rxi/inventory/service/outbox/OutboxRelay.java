@@ -0,0 +1,214 @@
+package com.walgreens.rxi.inventory.service.outbox;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.config.KafkaProperties;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Relay of the events of the {@link OutboxService} to Kafka, on topic {@code application.outbox.topic-prefix}
+ * followed by the entity type, keyed by entity id, with the event type and the outbox id of the event in the
+ * {@code event-type} and {@code event-id} headers. Deletions are published as tombstones.
+ * <p>
+ * The events are relayed shard by shard, in batches of {@code application.outbox.batch-size}, each in a
+ * transaction that locks the {@code outbox_shard} row of its shard, publishes the events in id order, waits for
+ * Kafka to acknowledge them all, then deletes them. On MySQL 8, PostgreSQL and MariaDB 10.6 the shard row is locked
+ * with {@code SKIP LOCKED}, so that the relays of several nodes share the shards instead of waiting for each other.
+ * The producer is idempotent, so the events of an entity, which all go to the same shard and partition, reach
+ * Kafka in order. Delivery is at least once: a batch that fails is published again, and consumers deduplicate
+ * on {@code event-id}.
+ */
+@Component
+public class OutboxRelay {
+
+    /**
+     * Maximum number of ids in the {@code IN} list of a statement.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String LOCK_SHARD_SQL = "select shard from outbox_shard where shard = ? for update";
+
+    private static final String SELECT_EVENTS_SQL =
+        "select id, aggregate_type, aggregate_id, event_type, payload from outbox_event where shard = ? order by id limit ?";
+
+    private static final String DELETE_EVENTS_SQL = "delete from outbox_event where id in (%s)";
+
+    static final String EVENT_TYPE_HEADER = "event-type";
+
+    static final String EVENT_ID_HEADER = "event-id";
+
+    private final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Producer<String, String> producer;
+
+    private final ApplicationProperties.Outbox properties;
+
+    private volatile String lockShardSql;
+
+    @Autowired
+    public OutboxRelay(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        KafkaProperties kafkaProperties,
+        ApplicationProperties applicationProperties
+    ) {
+        this(jdbcTemplate, transactionManager, new KafkaProducer<>(relayProducerProps(kafkaProperties)), applicationProperties);
+    }
+
+    OutboxRelay(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        Producer<String, String> producer,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.producer = producer;
+        this.properties = applicationProperties.getOutbox();
+    }
+
+    private static Map<String, Object> relayProducerProps(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.getProducerProps();
+        // Retries must neither reorder nor duplicate the events of a partition
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        return props;
+    }
+
+    /**
+     * Publish the pending events, logging the failure of a run: its events are published by the next one.
+     */
+    @Scheduled(cron = "${application.outbox.relay-cron}")
+    public void relay() {
+        try {
+            long relayed = relayAll();
+            if (relayed > 0) {
+                log.debug("Relayed {} outbox events", relayed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publish the pending events of every shard that no other relay is publishing.
+     *
+     * @return the number of published events.
+     */
+    public long relayAll() {
+        long relayed = 0;
+        for (int shard = 0; shard < OutboxService.SHARDS; shard++) {
+            int batch;
+            do {
+                int currentShard = shard;
+                batch = transactionTemplate.execute(status -> relayBatch(currentShard));
+                relayed += Math.max(batch, 0);
+            } while (batch == properties.getBatchSize());
+        }
+        return relayed;
+    }
+
+    /**
+     * @return the number of published events, or {@code -1} if another relay holds the shard.
+     */
+    private int relayBatch(int shard) {
+        if (jdbcTemplate.queryForList(lockShardSql(), Integer.class, shard).isEmpty()) {
+            return -1;
+        }
+        List<Long> ids = new ArrayList<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        jdbcTemplate.query(
+            SELECT_EVENTS_SQL,
+            resultSet -> {
+                long id = resultSet.getLong(1);
+                String topic = properties.getTopicPrefix() + resultSet.getString(2).toLowerCase(Locale.ROOT);
+                ProducerRecord<String, String> record = new ProducerRecord<>(topic, resultSet.getString(3), resultSet.getString(5));
+                record.headers().add(EVENT_TYPE_HEADER, resultSet.getString(4).getBytes(StandardCharsets.UTF_8));
+                record.headers().add(EVENT_ID_HEADER, Long.toString(id).getBytes(StandardCharsets.UTF_8));
+                producer.send(
+                    record,
+                    (metadata, exception) -> {
+                        if (exception != null) {
+                            error.compareAndSet(null, exception);
+                        }
+                    }
+                );
+                ids.add(id);
+            },
+            shard,
+            properties.getBatchSize()
+        );
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Sends the batch without waiting for linger.ms, and returns once every event is acknowledged or failed
+        producer.flush();
+        if (error.get() != null) {
+            // Rolls back: the events stay in the outbox
+            throw new KafkaException("Could not publish the outbox events of shard " + shard, error.get());
+        }
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update(String.format(DELETE_EVENTS_SQL, placeholders), chunk.toArray());
+        }
+        return ids.size();
+    }
+
+    private String lockShardSql() {
+        if (lockShardSql == null) {
+            ConnectionCallback<Boolean> skipLocked = connection -> supportsSkipLocked(connection.getMetaData());
+            lockShardSql = Boolean.TRUE.equals(jdbcTemplate.execute(skipLocked)) ? LOCK_SHARD_SQL + " skip locked" : LOCK_SHARD_SQL;
+        }
+        return lockShardSql;
+    }
+
+    private static boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+        String product = metaData.getDatabaseProductName();
+        String version = metaData.getDatabaseProductVersion();
+        int major = metaData.getDatabaseMajorVersion();
+        int minor = metaData.getDatabaseMinorVersion();
+        if ("MySQL".equals(product)) {
+            // MariaDB may report itself as MySQL
+            return version.contains("MariaDB") ? major > 10 || (major == 10 && minor >= 6) : major >= 8;
+        }
+        if ("MariaDB".equals(product)) {
+            return major > 10 || (major == 10 && minor >= 6);
+        }
+        if ("PostgreSQL".equals(product)) {
+            return major > 9 || (major == 9 && minor >= 5);
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void close() {
+        producer.close();
+    }
+}
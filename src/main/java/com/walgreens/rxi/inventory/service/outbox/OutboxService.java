@@ -0,0 +1,318 @@
+package com.walgreens.rxi.inventory.service.outbox;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.service.dto.CategoryDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Outbox of the inventory domain events, written in the transaction of the changes they describe, so that an
+ * event is published if and only if its change is committed; {@link OutboxRelay} publishes them to Kafka.
+ * <p>
+ * An event is keyed by the id of its entity. Its payload is the JSON of the entity after the change, but for
+ * the bulk update of products, which only carries the updated fields, and for deletions, which have none.
+ * <p>
+ * The pending changes of the persistence context are flushed before an event is inserted, so that the
+ * {@code UPDATE} or {@code DELETE} of its entity holds the row lock before the event takes its id: concurrent
+ * writes of an entity then get their event ids in the order they commit, the order {@link OutboxRelay} publishes.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    /**
+     * Number of shards the events are spread over, by entity id: the rows of the {@code outbox_shard} table.
+     */
+    static final int SHARDS = 16;
+
+    /**
+     * Maximum number of ids in the {@code IN} list of a statement.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_EVENT_SQL =
+        "insert into outbox_event (shard, aggregate_type, aggregate_id, event_type, payload, created_date) values (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PRODUCT_UPDATES_SQL =
+        "insert into outbox_event (shard, aggregate_type, aggregate_id, event_type, payload, created_date) " +
+        "select mod(product.id, " +
+        SHARDS +
+        "), 'PRODUCT', product.id, 'UPDATED', ?, ? from product product where product.id in (%s)";
+
+    private enum AggregateType {
+        PRODUCT,
+        CATALOG,
+        CATEGORY,
+    }
+
+    private enum EventType {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Record the creation or the update of a product.
+     *
+     * @param product the saved product.
+     * @param created whether the product was created.
+     */
+    public void recordProductSaved(Product product, boolean created) {
+        record(AggregateType.PRODUCT, product.getId(), created ? EventType.CREATED : EventType.UPDATED, toSummary(product));
+    }
+
+    /**
+     * Record the creation of products, in one JDBC batch.
+     *
+     * @param products the persisted products.
+     */
+    public void recordProductsCreated(Collection<Product> products) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(products.size());
+        for (Product product : products) {
+            rows.add(row(AggregateType.PRODUCT, product.getId(), EventType.CREATED, toJson(toSummary(product)), now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, rows);
+    }
+
+    /**
+     * Record the bulk update of the price and/or the status of products, with set-based {@code INSERT} statements:
+     * the ids of products that do not exist are ignored.
+     *
+     * @param productIds the ids of the updated products.
+     * @param price the new price, or {@code null} if it was not updated.
+     * @param status the new status, or {@code null} if it was not updated.
+     */
+    public void recordProductsUpdated(Collection<Long> productIds, BigDecimal price, ProductStatus status) {
+        List<Long> ids = productIds.stream().distinct().sorted().collect(Collectors.toList());
+        String payload = toJson(new ProductUpdate(price, status));
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            List<Object> parameters = new ArrayList<>(chunk.size() + 2);
+            parameters.add(payload);
+            parameters.add(now);
+            parameters.addAll(chunk);
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update(String.format(INSERT_PRODUCT_UPDATES_SQL, placeholders), parameters.toArray());
+        }
+    }
+
+    /**
+     * Record the deletion of a product.
+     *
+     * @param id the id of the deleted product.
+     */
+    public void recordProductDeleted(long id) {
+        record(AggregateType.PRODUCT, id, EventType.DELETED, null);
+    }
+
+    /**
+     * Record the creation or the update of a catalog.
+     *
+     * @param catalog the saved catalog.
+     * @param created whether the catalog was created.
+     * @param version the new version of the catalog.
+     * @param addedProductIds the ids of the products added to the catalog.
+     * @param removedProductIds the ids of the products removed from the catalog.
+     */
+    public void recordCatalogSaved(Catalog catalog, boolean created, long version, long[] addedProductIds, long[] removedProductIds) {
+        CatalogChange change = new CatalogChange(
+            catalog.getId(),
+            catalog.getCode(),
+            catalog.getStatus(),
+            version,
+            addedProductIds,
+            removedProductIds
+        );
+        record(AggregateType.CATALOG, catalog.getId(), created ? EventType.CREATED : EventType.UPDATED, change);
+    }
+
+    /**
+     * Record the products added to or removed from a catalog.
+     *
+     * @param catalogId the id of the catalog.
+     * @param version the new version of the catalog.
+     * @param addedProductIds the ids of the added products.
+     * @param removedProductIds the ids of the removed products.
+     */
+    public void recordCatalogProductsChanged(long catalogId, long version, long[] addedProductIds, long[] removedProductIds) {
+        CatalogChange change = new CatalogChange(catalogId, null, null, version, addedProductIds, removedProductIds);
+        record(AggregateType.CATALOG, catalogId, EventType.UPDATED, change);
+    }
+
+    /**
+     * Record the deletion of a catalog.
+     *
+     * @param id the id of the deleted catalog.
+     */
+    public void recordCatalogDeleted(long id) {
+        record(AggregateType.CATALOG, id, EventType.DELETED, null);
+    }
+
+    /**
+     * Record the creation or the update of a category.
+     *
+     * @param category the saved category.
+     * @param created whether the category was created.
+     */
+    public void recordCategorySaved(Category category, boolean created) {
+        CategoryDTO dto = new CategoryDTO(category.getId(), category.getName(), category.getDescription());
+        record(AggregateType.CATEGORY, category.getId(), created ? EventType.CREATED : EventType.UPDATED, dto);
+    }
+
+    /**
+     * Record the deletion of a category.
+     *
+     * @param id the id of the deleted category.
+     */
+    public void recordCategoryDeleted(long id) {
+        record(AggregateType.CATEGORY, id, EventType.DELETED, null);
+    }
+
+    private void record(AggregateType aggregateType, long id, EventType eventType, Object payload) {
+        entityManager.flush();
+        String json = payload != null ? toJson(payload) : null;
+        jdbcTemplate.update(INSERT_EVENT_SQL, row(aggregateType, id, eventType, json, Timestamp.from(Instant.now())));
+    }
+
+    private static Object[] row(AggregateType aggregateType, long id, EventType eventType, String payload, Timestamp now) {
+        return new Object[] { (int) Math.floorMod(id, (long) SHARDS), aggregateType.name(), id, eventType.name(), payload, now };
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Could not serialize event payload", e);
+        }
+    }
+
+    private static ProductSummaryDTO toSummary(Product product) {
+        return new ProductSummaryDTO(
+            product.getId(),
+            product.getName(),
+            product.getDescription(),
+            product.getCompany(),
+            product.getType(),
+            product.getStorageType(),
+            product.getPrice(),
+            product.getSalesUnit(),
+            product.getSalesQuantity(),
+            product.getImageContentType(),
+            product.getImageHash(),
+            product.getStatus(),
+            product.getProductCode() != null ? product.getProductCode().getId() : null,
+            product.getCategory() != null ? product.getCategory().getId() : null,
+            product.getPackaging() != null ? product.getPackaging().getId() : null
+        );
+    }
+
+    /**
+     * Payload of the bulk update of products: the updated fields only.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class ProductUpdate {
+
+        private final BigDecimal price;
+
+        private final ProductStatus status;
+
+        ProductUpdate(BigDecimal price, ProductStatus status) {
+            this.price = price;
+            this.status = status;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public ProductStatus getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Payload of the change of a catalog: its code and status are left out when only its products changed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class CatalogChange {
+
+        private final long id;
+
+        private final String code;
+
+        private final CatalogStatus status;
+
+        private final long version;
+
+        private final long[] addedProductIds;
+
+        private final long[] removedProductIds;
+
+        CatalogChange(long id, String code, CatalogStatus status, long version, long[] addedProductIds, long[] removedProductIds) {
+            this.id = id;
+            this.code = code;
+            this.status = status;
+            this.version = version;
+            this.addedProductIds = addedProductIds;
+            this.removedProductIds = removedProductIds;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public CatalogStatus getStatus() {
+            return status;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long[] getAddedProductIds() {
+            return addedProductIds;
+        }
+
+        public long[] getRemovedProductIds() {
+            return removedProductIds;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Transactional outbox of the inventory domain events, and its relay to Kafka.
+ */
+package com.walgreens.rxi.inventory.service.outbox;
@@ -0,0 +1,87 @@
+package com.walgreens.rxi.inventory.service.packing;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of containers, each with free room and free load, answering which is the first to have room and
+ * load enough for a box.
+ * <p>
+ * A segment tree of maxima: the leaves are the containers, each inner node holds the largest room and the largest
+ * load found below it, so that the subtrees that have neither are skipped.
+ */
+final class FirstFitTree {
+
+    private double[] room;
+
+    private double[] load;
+
+    private int capacity;
+
+    FirstFitTree() {
+        capacity = 16;
+        room = newNodes(capacity);
+        load = newNodes(capacity);
+    }
+
+    /**
+     * @param index the index of the container, possibly beyond the current ones.
+     * @param freeRoom the free room of the container.
+     * @param freeLoad the load the container can still take.
+     */
+    void set(int index, double freeRoom, double freeLoad) {
+        while (index >= capacity) {
+            grow();
+        }
+        int node = index + capacity;
+        room[node] = freeRoom;
+        load[node] = freeLoad;
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            update(node);
+        }
+    }
+
+    /**
+     * @param minRoom the room needed.
+     * @param minLoad the load needed.
+     * @return the index of the first container with both, or {@code -1} if none.
+     */
+    int first(double minRoom, double minLoad) {
+        return first(1, 0, capacity, minRoom, minLoad);
+    }
+
+    private int first(int node, int low, int high, double minRoom, double minLoad) {
+        if (room[node] < minRoom || load[node] < minLoad) {
+            return -1;
+        }
+        if (high - low == 1) {
+            return low;
+        }
+        int middle = (low + high) >>> 1;
+        int left = first(2 * node, low, middle, minRoom, minLoad);
+        return left >= 0 ? left : first(2 * node + 1, middle, high, minRoom, minLoad);
+    }
+
+    private void update(int node) {
+        room[node] = Math.max(room[2 * node], room[2 * node + 1]);
+        load[node] = Math.max(load[2 * node], load[2 * node + 1]);
+    }
+
+    private void grow() {
+        double[] grownRoom = newNodes(2 * capacity);
+        double[] grownLoad = newNodes(2 * capacity);
+        System.arraycopy(room, capacity, grownRoom, 2 * capacity, capacity);
+        System.arraycopy(load, capacity, grownLoad, 2 * capacity, capacity);
+        capacity *= 2;
+        room = grownRoom;
+        load = grownLoad;
+        for (int node = capacity - 1; node > 0; node--) {
+            update(node);
+        }
+    }
+
+    private static double[] newNodes(int capacity) {
+        double[] nodes = new double[2 * capacity];
+        Arrays.fill(nodes, Double.NEGATIVE_INFINITY);
+        return nodes;
+    }
+}
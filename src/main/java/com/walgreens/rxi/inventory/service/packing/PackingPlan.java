@@ -0,0 +1,164 @@
+package com.walgreens.rxi.inventory.service.packing;
+
+import java.util.Arrays;
+
+/**
+ * A plan computed by the {@link PackingPlanner}.
+ * <p>
+ * The boxes of a line are placed in one or more runs of columns, each run lying on the floor of a container,
+ * across its width from {@code (x, y)}. All the columns of a run hold the same number of boxes, but the last one,
+ * and all the boxes of a line share the same orientation. Lines and containers are referred to by index.
+ */
+public final class PackingPlan {
+
+    private final PackingPlanner.Columns columns;
+
+    private final double containerVolume;
+
+    private final int containerCount;
+
+    private final double[] containerWeight;
+
+    private final double[] containerPackedVolume;
+
+    private final int placementCount;
+
+    private final int[] placementLine;
+
+    private final int[] placementContainer;
+
+    private final double[] placementX;
+
+    private final double[] placementY;
+
+    private final int[] placementColumns;
+
+    private final int[] placementPackages;
+
+    private final int[] unpackedLines;
+
+    PackingPlan(
+        PackingPlanner.Columns columns,
+        double containerVolume,
+        int containerCount,
+        double[] containerWeight,
+        double[] containerPackedVolume,
+        int placementCount,
+        int[] placementLine,
+        int[] placementContainer,
+        double[] placementX,
+        double[] placementY,
+        int[] placementColumns,
+        int[] placementPackages,
+        int[] unpackedLines
+    ) {
+        this.columns = columns;
+        this.containerVolume = containerVolume;
+        this.containerCount = containerCount;
+        this.containerWeight = containerWeight;
+        this.containerPackedVolume = containerPackedVolume;
+        this.placementCount = placementCount;
+        this.placementLine = placementLine;
+        this.placementContainer = placementContainer;
+        this.placementX = placementX;
+        this.placementY = placementY;
+        this.placementColumns = placementColumns;
+        this.placementPackages = placementPackages;
+        this.unpackedLines = unpackedLines;
+    }
+
+    public int getContainerCount() {
+        return containerCount;
+    }
+
+    /**
+     * @param container the index of the container.
+     * @return the share of the volume of the container taken by boxes, between 0 and 1.
+     */
+    public double getVolumeUtilisation(int container) {
+        return containerPackedVolume[container] / containerVolume;
+    }
+
+    /**
+     * @return the share of the volume of all the containers taken by boxes, between 0 and 1.
+     */
+    public double getVolumeUtilisation() {
+        return containerCount == 0 ? 0 : Arrays.stream(containerPackedVolume).sum() / (containerVolume * containerCount);
+    }
+
+    /**
+     * @param container the index of the container.
+     * @return the weight of the boxes of the container, not counting those of unknown weight.
+     */
+    public double getWeight(int container) {
+        return containerWeight[container];
+    }
+
+    /**
+     * @param line the index of the line.
+     * @return the depth of its boxes as they are placed, along the length of the container.
+     */
+    public double getDepth(int line) {
+        return columns.depth[line];
+    }
+
+    /**
+     * @param line the index of the line.
+     * @return the width of its boxes as they are placed, across the container.
+     */
+    public double getWidth(int line) {
+        return columns.width[line];
+    }
+
+    /**
+     * @param line the index of the line.
+     * @return the height of its boxes as they are placed.
+     */
+    public double getHeight(int line) {
+        return columns.height[line];
+    }
+
+    /**
+     * @param line the index of the line.
+     * @return the number of its boxes in a full column.
+     */
+    public int getPackagesPerColumn(int line) {
+        return columns.perColumn[line];
+    }
+
+    public int getPlacementCount() {
+        return placementCount;
+    }
+
+    public int getPlacementLine(int placement) {
+        return placementLine[placement];
+    }
+
+    public int getPlacementContainer(int placement) {
+        return placementContainer[placement];
+    }
+
+    public double getPlacementX(int placement) {
+        return placementX[placement];
+    }
+
+    public double getPlacementY(int placement) {
+        return placementY[placement];
+    }
+
+    public int getPlacementColumns(int placement) {
+        return placementColumns[placement];
+    }
+
+    public int getPlacementPackages(int placement) {
+        return placementPackages[placement];
+    }
+
+    /**
+     * @return the indexes of the lines whose boxes do not fit in the container in any orientation, or are heavier
+     * than its maximum load.
+     */
+    public int[] getUnpackedLines() {
+        return unpackedLines.clone();
+    }
+}
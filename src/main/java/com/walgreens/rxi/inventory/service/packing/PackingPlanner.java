@@ -0,0 +1,359 @@
+package com.walgreens.rxi.inventory.service.packing;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Heuristic 3D packing of boxes into identical containers, such as shelves, drawers or pallets.
+ * <p>
+ * The boxes of each line are stacked into columns as high as the container allows, in the orientation that needs
+ * the least floor area. The column footprints are then laid out on the container floors in shelves, first fit by
+ * decreasing depth, a run of identical columns being placed at once: the layout costs per line rather than per
+ * box, and the first container with room and load enough is found in a {@link FirstFitTree}. The orientations are
+ * chosen in parallel, and the layout is computed in parallel for several orders of the lines, keeping the plan
+ * with the fewest containers. The state is held in primitive arrays indexed by line.
+ */
+public final class PackingPlanner {
+
+    /**
+     * Tolerance of the comparisons of dimensions, so that boxes that exactly fit are not rejected by rounding.
+     */
+    private static final double EPSILON = 1e-9;
+
+    private final double containerLength;
+
+    private final double containerWidth;
+
+    private final double containerHeight;
+
+    private final double maxWeight;
+
+    /**
+     * @param containerLength the inner length of the containers.
+     * @param containerWidth the inner width of the containers.
+     * @param containerHeight the inner height of the containers.
+     * @param maxWeight the maximum load of a container, {@code 0} for no limit.
+     */
+    public PackingPlanner(double containerLength, double containerWidth, double containerHeight, double maxWeight) {
+        this.containerLength = containerLength;
+        this.containerWidth = containerWidth;
+        this.containerHeight = containerHeight;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Pack the boxes of several lines.
+     *
+     * @param length the length of the boxes of each line.
+     * @param width the width of the boxes of each line.
+     * @param height the height of the boxes of each line.
+     * @param weight the weight of the boxes of each line, {@code 0} if unknown.
+     * @param count the number of boxes of each line.
+     * @return the plan.
+     */
+    public PackingPlan plan(double[] length, double[] width, double[] height, double[] weight, int[] count) {
+        int lines = count.length;
+        Columns columns = new Columns(lines);
+        IntStream
+            .range(0, lines)
+            .parallel()
+            .forEach(line -> orient(columns, line, length[line], width[line], height[line], weight[line], count[line]));
+
+        int[] packable = IntStream.range(0, lines).filter(line -> columns.perColumn[line] > 0).toArray();
+        int[] unpacked = IntStream.range(0, lines).filter(line -> count[line] > 0 && columns.perColumn[line] == 0).toArray();
+        // Decreasing depth keeps every shelf deep enough for the lines laid out after it opened; ties are broken
+        // by decreasing width, or by decreasing floor area
+        Comparator<Integer> byDepth = Comparator.comparingDouble(line -> -columns.depth[line]);
+        List<int[]> orders = List.of(
+            sort(packable, byDepth.thenComparingDouble(line -> -columns.width[line])),
+            sort(packable, byDepth.thenComparingDouble(line -> -columns.footprint(line, count[line])))
+        );
+        return orders
+            .parallelStream()
+            .map(order -> layout(columns, order, weight, count, unpacked))
+            .min(Comparator.comparingInt(PackingPlan::getContainerCount))
+            .orElseThrow();
+    }
+
+    /**
+     * Choose the orientation of the boxes of a line that needs the least floor area once they are stacked.
+     */
+    private void orient(Columns columns, int line, double length, double width, double height, double weight, int count) {
+        if (count <= 0) {
+            return;
+        }
+        double[] sides = { length, width, height };
+        double bestArea = Double.MAX_VALUE;
+        for (int vertical = 0; vertical < 3; vertical++) {
+            for (int lengthwise = 0; lengthwise < 3; lengthwise++) {
+                if (lengthwise == vertical) {
+                    continue;
+                }
+                double depth = sides[lengthwise];
+                double across = sides[3 - vertical - lengthwise];
+                double up = sides[vertical];
+                if (depth > containerLength + EPSILON || across > containerWidth + EPSILON || up > containerHeight + EPSILON) {
+                    continue;
+                }
+                int perColumn = (int) Math.min(count, Math.floor((containerHeight + EPSILON) / up));
+                if (maxWeight > 0 && weight > 0) {
+                    perColumn = (int) Math.min(perColumn, Math.floor((maxWeight + EPSILON) / weight));
+                }
+                if (perColumn == 0) {
+                    continue;
+                }
+                double area = ((count + perColumn - 1) / perColumn) * depth * across;
+                if (area < bestArea - EPSILON) {
+                    bestArea = area;
+                    columns.depth[line] = depth;
+                    columns.width[line] = across;
+                    columns.height[line] = up;
+                    columns.perColumn[line] = perColumn;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lay the columns of the lines out on the container floors, in the given order of the lines.
+     */
+    private PackingPlan layout(Columns columns, int[] order, double[] weight, int[] count, int[] unpacked) {
+        Layout layout = new Layout(order.length);
+        for (int line : order) {
+            double depth = columns.depth[line];
+            double width = columns.width[line];
+            int perColumn = columns.perColumn[line];
+            double boxVolume = depth * width * columns.height[line];
+            double minLoad = weight[line] > 0 ? weight[line] - EPSILON : Double.NEGATIVE_INFINITY;
+            int remaining = count[line];
+            while (remaining > 0) {
+                int shelf = findShelf(layout, depth, width, minLoad);
+                if (shelf < 0) {
+                    int container = layout.shelfRooms.first(depth - EPSILON, minLoad);
+                    shelf = layout.openShelf(container >= 0 ? container : layout.openContainer(), depth);
+                }
+                int container = layout.shelfContainer[shelf];
+                long fitting = (long) Math.floor((layout.freeWidth(shelf) + EPSILON) / width) * perColumn;
+                if (maxWeight > 0 && weight[line] > 0) {
+                    fitting = Math.min(fitting, (long) Math.floor((layout.freeLoad(container) + EPSILON) / weight[line]));
+                }
+                int packages = (int) Math.min(remaining, fitting);
+                int placedColumns = (packages + perColumn - 1) / perColumn;
+                layout.place(line, container, layout.shelfX[shelf], layout.shelfUsedWidth[shelf], placedColumns, packages);
+                layout.shelfUsedWidth[shelf] += placedColumns * width;
+                layout.containerWeight[container] += packages * weight[line];
+                layout.containerPackedVolume[container] += packages * boxVolume;
+                layout.refresh(container);
+                remaining -= packages;
+            }
+        }
+        return layout.toPlan(columns, unpacked, containerLength * containerWidth * containerHeight);
+    }
+
+    /**
+     * Find the first shelf wide and deep enough for a column, in a container that can take the load of a box.
+     */
+    private static int findShelf(Layout layout, double depth, double width, double minLoad) {
+        int container = layout.columnRooms.first(width - EPSILON, minLoad);
+        if (container < 0) {
+            return -1;
+        }
+        for (int shelf = layout.firstShelf[container]; shelf >= 0; shelf = layout.nextShelf[shelf]) {
+            if (layout.freeWidth(shelf) + EPSILON >= width && layout.shelfDepth[shelf] + EPSILON >= depth) {
+                return shelf;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] sort(int[] lines, Comparator<Integer> comparator) {
+        return Arrays.stream(lines).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The orientation of the boxes of each line, and the number of boxes stacked in each column; {@code 0} boxes
+     * per column when the boxes do not fit in the container.
+     */
+    static final class Columns {
+
+        final double[] depth;
+
+        final double[] width;
+
+        final double[] height;
+
+        final int[] perColumn;
+
+        Columns(int lines) {
+            depth = new double[lines];
+            width = new double[lines];
+            height = new double[lines];
+            perColumn = new int[lines];
+        }
+
+        double footprint(int line, int count) {
+            return ((count + perColumn[line] - 1) / perColumn[line]) * depth[line] * width[line];
+        }
+    }
+
+    /**
+     * The shelves, containers and placements of a layout, in growable arrays. The shelves of a container are
+     * linked in the order they were opened.
+     */
+    private final class Layout {
+
+        /**
+         * For each container, the widest free space on its shelves, and its free load.
+         */
+        final FirstFitTree columnRooms = new FirstFitTree();
+
+        /**
+         * For each container, the free length for new shelves, and its free load.
+         */
+        final FirstFitTree shelfRooms = new FirstFitTree();
+
+        int shelfCount;
+
+        int[] shelfContainer = new int[16];
+
+        int[] nextShelf = new int[16];
+
+        double[] shelfX = new double[16];
+
+        double[] shelfDepth = new double[16];
+
+        double[] shelfUsedWidth = new double[16];
+
+        int containerCount;
+
+        int[] firstShelf = new int[4];
+
+        int[] lastShelf = new int[4];
+
+        double[] containerUsedLength = new double[4];
+
+        double[] containerWeight = new double[4];
+
+        double[] containerPackedVolume = new double[4];
+
+        int placementCount;
+
+        int[] placementLine;
+
+        int[] placementContainer;
+
+        double[] placementX;
+
+        double[] placementY;
+
+        int[] placementColumns;
+
+        int[] placementPackages;
+
+        Layout(int lines) {
+            int capacity = Math.max(16, lines);
+            placementLine = new int[capacity];
+            placementContainer = new int[capacity];
+            placementX = new double[capacity];
+            placementY = new double[capacity];
+            placementColumns = new int[capacity];
+            placementPackages = new int[capacity];
+        }
+
+        double freeWidth(int shelf) {
+            return containerWidth - shelfUsedWidth[shelf];
+        }
+
+        double freeLoad(int container) {
+            return maxWeight > 0 ? maxWeight - containerWeight[container] : Double.POSITIVE_INFINITY;
+        }
+
+        int openContainer() {
+            if (containerCount == containerUsedLength.length) {
+                int capacity = containerCount * 2;
+                firstShelf = Arrays.copyOf(firstShelf, capacity);
+                lastShelf = Arrays.copyOf(lastShelf, capacity);
+                containerUsedLength = Arrays.copyOf(containerUsedLength, capacity);
+                containerWeight = Arrays.copyOf(containerWeight, capacity);
+                containerPackedVolume = Arrays.copyOf(containerPackedVolume, capacity);
+            }
+            firstShelf[containerCount] = -1;
+            lastShelf[containerCount] = -1;
+            return containerCount++;
+        }
+
+        int openShelf(int container, double depth) {
+            if (shelfCount == shelfContainer.length) {
+                int capacity = shelfCount * 2;
+                shelfContainer = Arrays.copyOf(shelfContainer, capacity);
+                nextShelf = Arrays.copyOf(nextShelf, capacity);
+                shelfX = Arrays.copyOf(shelfX, capacity);
+                shelfDepth = Arrays.copyOf(shelfDepth, capacity);
+                shelfUsedWidth = Arrays.copyOf(shelfUsedWidth, capacity);
+            }
+            shelfContainer[shelfCount] = container;
+            nextShelf[shelfCount] = -1;
+            shelfX[shelfCount] = containerUsedLength[container];
+            shelfDepth[shelfCount] = depth;
+            if (lastShelf[container] < 0) {
+                firstShelf[container] = shelfCount;
+            } else {
+                nextShelf[lastShelf[container]] = shelfCount;
+            }
+            lastShelf[container] = shelfCount;
+            containerUsedLength[container] += depth;
+            return shelfCount++;
+        }
+
+        /**
+         * Update the free spaces of a container in the trees, after a shelf was opened or columns placed in it.
+         */
+        void refresh(int container) {
+            double widest = Double.NEGATIVE_INFINITY;
+            for (int shelf = firstShelf[container]; shelf >= 0; shelf = nextShelf[shelf]) {
+                widest = Math.max(widest, freeWidth(shelf));
+            }
+            columnRooms.set(container, widest, freeLoad(container));
+            shelfRooms.set(container, containerLength - containerUsedLength[container], freeLoad(container));
+        }
+
+        void place(int line, int container, double x, double y, int columns, int packages) {
+            if (placementCount == placementLine.length) {
+                int capacity = placementCount * 2;
+                placementLine = Arrays.copyOf(placementLine, capacity);
+                placementContainer = Arrays.copyOf(placementContainer, capacity);
+                placementX = Arrays.copyOf(placementX, capacity);
+                placementY = Arrays.copyOf(placementY, capacity);
+                placementColumns = Arrays.copyOf(placementColumns, capacity);
+                placementPackages = Arrays.copyOf(placementPackages, capacity);
+            }
+            placementLine[placementCount] = line;
+            placementContainer[placementCount] = container;
+            placementX[placementCount] = x;
+            placementY[placementCount] = y;
+            placementColumns[placementCount] = columns;
+            placementPackages[placementCount] = packages;
+            placementCount++;
+        }
+
+        PackingPlan toPlan(Columns columns, int[] unpacked, double containerVolume) {
+            return new PackingPlan(
+                columns,
+                containerVolume,
+                containerCount,
+                Arrays.copyOf(containerWeight, containerCount),
+                Arrays.copyOf(containerPackedVolume, containerCount),
+                placementCount,
+                placementLine,
+                placementContainer,
+                placementX,
+                placementY,
+                placementColumns,
+                placementPackages,
+                unpacked
+            );
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Packing of products into containers.
+ */
+package com.walgreens.rxi.inventory.service.packing;
@@ -0,0 +1,37 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers the updates of the read models and caches until the transaction that caused them has committed, so that
+ * readers never see a change that could still be rolled back.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * Run {@code update} after the current transaction has committed, or now outside a transaction.
+     * <p>
+     * The update runs once the synchronizations of the transaction are cleared, so that what it defers to the end
+     * of a transaction in turn, such as a {@link com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus}
+     * broadcast, happens at once instead of being lost.
+     */
+    public static void run(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        update.run();
+                    }
+                }
+            }
+        );
+    }
+}
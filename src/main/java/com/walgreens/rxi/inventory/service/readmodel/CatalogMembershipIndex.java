@@ -0,0 +1,287 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory index of the products of each catalog, as one {@link ProductIdBitmap} per catalog.
+ * <p>
+ * Membership checks, cardinalities and set operations between catalogs are answered from the bitmaps, without
+ * loading the {@code rel_catalog__product_code} rows or hydrating any entity. The index is loaded from the
+ * database on first use; catalog writes then replace or amend the bitmap of their catalog once their transaction
+ * has committed. As in {@link ProductReadModel}, the map of bitmaps is published through a single volatile field
+ * and replaced, never modified, and it is reloaded on {@code application.read-model.reconcile-cron} to catch up
+ * with the catalog writes of the other nodes.
+ */
+@Service
+public class CatalogMembershipIndex {
+
+    /**
+     * Set operations between the products of catalogs.
+     */
+    public enum SetOperation {
+        /**
+         * The products of all the catalogs.
+         */
+        INTERSECTION,
+        /**
+         * The products of any of the catalogs.
+         */
+        UNION,
+        /**
+         * The products of the first catalog that are in none of the others.
+         */
+        DIFFERENCE,
+    }
+
+    private static final String SELECT_ALL_SQL =
+        "select catalog.id, rel.product_code_id from catalog catalog " +
+        "left join rel_catalog__product_code rel on rel.catalog_id = catalog.id order by catalog.id";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(CatalogMembershipIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Object refreshLock = new Object();
+
+    private final Object writeLock = new Object();
+
+    private volatile Map<Long, ProductIdBitmap> bitmaps;
+
+    // Guarded by writeLock: the changes applied since the running reload started, null outside a reload
+    private List<Consumer<Map<Long, ProductIdBitmap>>> changesDuringRefresh;
+
+    public CatalogMembershipIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(cron = "${application.read-model.reconcile-cron}")
+    public void reconcile() {
+        if (bitmaps != null) {
+            refresh();
+        }
+    }
+
+    /**
+     * @param catalogId the id of the catalog.
+     * @return the products of the catalog, empty if the catalog does not exist.
+     */
+    public Optional<ProductIdBitmap> findProducts(long catalogId) {
+        return Optional.ofNullable(bitmaps().get(catalogId));
+    }
+
+    /**
+     * @param productId the id of the product.
+     * @return the ids of the catalogs that contain the product, in increasing order.
+     */
+    public List<Long> findCatalogIdsContaining(long productId) {
+        List<Long> catalogIds = new ArrayList<>();
+        for (Map.Entry<Long, ProductIdBitmap> entry : bitmaps().entrySet()) {
+            if (entry.getValue().contains(productId)) {
+                catalogIds.add(entry.getKey());
+            }
+        }
+        Collections.sort(catalogIds);
+        return catalogIds;
+    }
+
+    /**
+     * @param operation the set operation.
+     * @param catalogIds the ids of the catalogs, at least one; for a difference, the first one is the minuend.
+     * @return the result of the operation, empty if one of the catalogs does not exist.
+     */
+    public Optional<ProductIdBitmap> combine(SetOperation operation, List<Long> catalogIds) {
+        Map<Long, ProductIdBitmap> current = bitmaps();
+        ProductIdBitmap result = null;
+        for (Long catalogId : catalogIds) {
+            ProductIdBitmap products = current.get(catalogId);
+            if (products == null) {
+                return Optional.empty();
+            }
+            if (result == null) {
+                result = products;
+            } else if (operation == SetOperation.INTERSECTION) {
+                result = result.and(products);
+            } else if (operation == SetOperation.UNION) {
+                result = result.or(products);
+            } else {
+                result = result.andNot(products);
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Publish the products of a saved catalog once the current transaction has committed.
+     *
+     * @param catalogId the id of the saved catalog.
+     * @param productIds the ids of all the products of the catalog.
+     */
+    public void put(long catalogId, long[] productIds) {
+        ProductIdBitmap products = ProductIdBitmap.of(productIds);
+        AfterCommit.run(() -> update(catalogId, current -> products));
+    }
+
+    /**
+     * Add products to a catalog once the current transaction has committed.
+     *
+     * @param catalogId the id of the catalog.
+     * @param productIds the ids of the added products.
+     */
+    public void addProducts(long catalogId, long[] productIds) {
+        ProductIdBitmap added = ProductIdBitmap.of(productIds);
+        // A catalog missing from the index has been deleted meanwhile
+        AfterCommit.run(() -> update(catalogId, current -> current != null ? current.or(added) : null));
+    }
+
+    /**
+     * Remove products from a catalog once the current transaction has committed.
+     *
+     * @param catalogId the id of the catalog.
+     * @param productIds the ids of the removed products.
+     */
+    public void removeProducts(long catalogId, long[] productIds) {
+        ProductIdBitmap removed = ProductIdBitmap.of(productIds);
+        AfterCommit.run(() -> update(catalogId, current -> current != null ? current.andNot(removed) : null));
+    }
+
+    /**
+     * Remove a deleted catalog once the current transaction has committed.
+     *
+     * @param catalogId the id of the deleted catalog.
+     */
+    public void remove(long catalogId) {
+        AfterCommit.run(() -> update(catalogId, current -> null));
+    }
+
+    /**
+     * Reload the products of all the catalogs from the database.
+     */
+    public void refresh() {
+        log.debug("Request to refresh the Catalog membership index");
+        synchronized (refreshLock) {
+            synchronized (writeLock) {
+                changesDuringRefresh = new ArrayList<>();
+            }
+            try {
+                Loader loader = new Loader();
+                jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL);
+                        statement.setFetchSize(FETCH_SIZE);
+                        return statement;
+                    },
+                    loader::add
+                );
+                Map<Long, ProductIdBitmap> loaded = loader.finish();
+                synchronized (writeLock) {
+                    // The changes are idempotent: replaying those the reload already read is harmless
+                    changesDuringRefresh.forEach(change -> change.accept(loaded));
+                    bitmaps = Collections.unmodifiableMap(loaded);
+                }
+                log.info("Loaded the products of {} Catalogs in the membership index", loaded.size());
+            } finally {
+                synchronized (writeLock) {
+                    changesDuringRefresh = null;
+                }
+            }
+        }
+    }
+
+    private Map<Long, ProductIdBitmap> bitmaps() {
+        Map<Long, ProductIdBitmap> current = bitmaps;
+        if (current == null) {
+            synchronized (refreshLock) {
+                if (bitmaps == null) {
+                    refresh();
+                }
+                current = bitmaps;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Replace the products of a catalog by the result of a function of its current products, {@code null}
+     * for a catalog that is not in the index; a {@code null} result removes the catalog.
+     */
+    private void update(long catalogId, UnaryOperator<ProductIdBitmap> function) {
+        Consumer<Map<Long, ProductIdBitmap>> change = current -> {
+            ProductIdBitmap products = function.apply(current.get(catalogId));
+            if (products != null) {
+                current.put(catalogId, products);
+            } else {
+                current.remove(catalogId);
+            }
+        };
+        synchronized (writeLock) {
+            if (bitmaps != null) {
+                Map<Long, ProductIdBitmap> updated = new HashMap<>(bitmaps);
+                change.accept(updated);
+                bitmaps = Collections.unmodifiableMap(updated);
+            }
+            if (changesDuringRefresh != null) {
+                changesDuringRefresh.add(change);
+            }
+        }
+    }
+
+    /**
+     * Groups the rows of {@link #SELECT_ALL_SQL}, ordered by catalog, into one bitmap per catalog.
+     */
+    private static final class Loader {
+
+        private final Map<Long, ProductIdBitmap> bitmaps = new HashMap<>();
+
+        private Long catalogId;
+
+        private long[] productIds = new long[64];
+
+        private int size;
+
+        void add(ResultSet resultSet) throws SQLException {
+            long id = resultSet.getLong(1);
+            if (catalogId == null || catalogId != id) {
+                flush();
+                catalogId = id;
+            }
+            long productId = resultSet.getLong(2);
+            // A catalog without products comes as a single row with a null product
+            if (!resultSet.wasNull()) {
+                if (size == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, size * 2);
+                }
+                productIds[size++] = productId;
+            }
+        }
+
+        Map<Long, ProductIdBitmap> finish() {
+            flush();
+            return bitmaps;
+        }
+
+        private void flush() {
+            if (catalogId != null) {
+                bitmaps.put(catalogId, ProductIdBitmap.of(Arrays.copyOf(productIds, size)));
+                size = 0;
+            }
+        }
+    }
+}
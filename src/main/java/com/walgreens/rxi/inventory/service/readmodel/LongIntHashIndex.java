@@ -0,0 +1,188 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Immutable open-addressing map from a {@code long} key to an {@code int} value, with linear probing.
+ * <p>
+ * Keys and values live in primitive arrays split into chunks of {@value #CHUNK_SIZE} slots, so a lookup neither
+ * boxes nor allocates. {@link #with(long, int)} and {@link #without(long)} return a copy that shares every chunk
+ * but the few they write; the table is only rebuilt when it doubles.
+ */
+final class LongIntHashIndex {
+
+    /**
+     * Value returned by {@link #get(long)} for an absent key.
+     */
+    static final int NOT_FOUND = -1;
+
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private static final int CHUNK_SHIFT = 10;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long[][] keys;
+
+    /**
+     * Values shifted by one, so that {@code 0} marks an empty slot whatever the key.
+     */
+    private final int[][] values;
+
+    private final int size;
+
+    private final int shift;
+
+    private final int mask;
+
+    /**
+     * Index {@code size} keys, each mapped to its position.
+     *
+     * @param keys the key at each position, all distinct.
+     * @param size the number of keys to index.
+     */
+    LongIntHashIndex(IntToLongFunction keys, int size) {
+        this(size);
+        for (int i = 0; i < size; i++) {
+            insert(keys.applyAsLong(i), i + 1);
+        }
+    }
+
+    /**
+     * An empty table, with room for {@code size} keys at a load factor of at most one half.
+     */
+    private LongIntHashIndex(int size) {
+        int bits = Math.max(1, 64 - Long.numberOfLeadingZeros(Math.max(1, size * 2L - 1)));
+        int capacity = 1 << bits;
+        int chunks = Math.max(1, capacity >>> CHUNK_SHIFT);
+        this.keys = new long[chunks][Math.min(capacity, CHUNK_SIZE)];
+        this.values = new int[chunks][Math.min(capacity, CHUNK_SIZE)];
+        this.size = size;
+        this.shift = 64 - bits;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * A copy of {@code index} that shares its chunks until {@link #set} writes them.
+     */
+    private LongIntHashIndex(LongIntHashIndex index, int size) {
+        this.keys = index.keys.clone();
+        this.values = index.values.clone();
+        this.size = size;
+        this.shift = index.shift;
+        this.mask = index.mask;
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return the position of the key, or {@link #NOT_FOUND}.
+     */
+    int get(long key) {
+        // An empty slot holds 0, which is NOT_FOUND once shifted back
+        return value(find(key)) - 1;
+    }
+
+    /**
+     * @param key the key to add or replace.
+     * @param value its position.
+     * @return a copy of this index with the key.
+     */
+    LongIntHashIndex with(long key, int value) {
+        int slot = find(key);
+        if (value(slot) != 0) {
+            LongIntHashIndex index = new LongIntHashIndex(this, size);
+            index.set(this, slot, key, value + 1);
+            return index;
+        }
+        if ((size + 1) * 2L > mask + 1) {
+            LongIntHashIndex index = new LongIntHashIndex(size + 1);
+            for (int chunk = 0; chunk < values.length; chunk++) {
+                for (int i = 0; i < values[chunk].length; i++) {
+                    if (values[chunk][i] != 0) {
+                        index.insert(keys[chunk][i], values[chunk][i]);
+                    }
+                }
+            }
+            index.insert(key, value + 1);
+            return index;
+        }
+        LongIntHashIndex index = new LongIntHashIndex(this, size + 1);
+        index.set(this, slot, key, value + 1);
+        return index;
+    }
+
+    /**
+     * @param key the key to remove.
+     * @return a copy of this index without the key, or this index if it does not hold the key.
+     */
+    LongIntHashIndex without(long key) {
+        int gap = find(key);
+        if (value(gap) == 0) {
+            return this;
+        }
+        LongIntHashIndex index = new LongIntHashIndex(this, size - 1);
+        // Backward shift: move back the following keys of the run that would no longer be found across the gap
+        int next = gap;
+        while (true) {
+            next = (next + 1) & mask;
+            int value = index.value(next);
+            if (value == 0) {
+                break;
+            }
+            long nextKey = index.key(next);
+            if (((next - slot(nextKey)) & mask) >= ((next - gap) & mask)) {
+                index.set(this, gap, nextKey, value);
+                gap = next;
+            }
+        }
+        index.set(this, gap, 0L, 0);
+        return index;
+    }
+
+    /**
+     * @return the slot of the key, or the empty slot that ends its probe sequence.
+     */
+    private int find(long key) {
+        int slot = slot(key);
+        while (value(slot) != 0 && key(slot) != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(long key, int shiftedValue) {
+        int slot = slot(key);
+        while (value(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        set(null, slot, key, shiftedValue);
+    }
+
+    /**
+     * Write a slot, copying its chunks first if they are still shared with {@code source}.
+     */
+    private void set(LongIntHashIndex source, int slot, long key, int shiftedValue) {
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (source != null && values[chunk] == source.values[chunk]) {
+            keys[chunk] = keys[chunk].clone();
+            values[chunk] = values[chunk].clone();
+        }
+        keys[chunk][slot & CHUNK_MASK] = key;
+        values[chunk][slot & CHUNK_MASK] = shiftedValue;
+    }
+
+    private long key(int slot) {
+        return keys[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    private int value(int slot) {
+        return values[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads sequential ids over the whole table
+        return (int) ((key * PHI) >>> shift);
+    }
+}
@@ -0,0 +1,330 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.service.dto.ProductCountsDTO;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory counts of the products of each category and of each packaging, by status and by type.
+ * <p>
+ * The counts are seeded from a single {@code GROUP BY} query at startup, then moved by the product writes once
+ * their transaction has committed: no product collection is ever loaded to count it. Each count is a
+ * {@link LongAdder}, so concurrent writes to the same category do not contend. A write that commits while the
+ * counts are reseeded may be counted twice or missed; the periodic reconciliation with the database, driven by
+ * {@code application.product-counters.reconcile-cron}, bounds the time such a drift lasts.
+ */
+@Service
+public class ProductCounters {
+
+    private static final String GROUP_BY = " group by category_id, packaging_id, status, type";
+
+    private static final String SELECT_COUNTS_SQL = "select category_id, packaging_id, status, type, count(*) from product" + GROUP_BY;
+
+    private static final String SELECT_COUNTS_BY_IDS_SQL =
+        "select category_id, packaging_id, status, type, count(*) from product where id in (%s)" + GROUP_BY;
+
+    private static final int CELLS_PER_STATUS = ProductType.values().length + 1;
+
+    private static final int CELLS = (ProductStatus.values().length + 1) * CELLS_PER_STATUS;
+
+    private final Logger log = LoggerFactory.getLogger(ProductCounters.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Object loadLock = new Object();
+
+    private volatile Counts counts;
+
+    public ProductCounters(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        counts();
+    }
+
+    @Scheduled(cron = "${application.product-counters.reconcile-cron}")
+    public void reconcile() {
+        refresh();
+    }
+
+    /**
+     * @return the counts of the products of each category that has products, by category id.
+     */
+    public List<ProductCountsDTO> findCategoryCounts() {
+        return counts().byCategory.toDtos();
+    }
+
+    /**
+     * @return the counts of the products of each packaging that has products, by packaging id.
+     */
+    public List<ProductCountsDTO> findPackagingCounts() {
+        return counts().byPackaging.toDtos();
+    }
+
+    /**
+     * Move a product between counts once the current transaction has committed.
+     *
+     * @param previous the counted attributes of the product before the write, {@code null} for a new product.
+     * @param current the counted attributes of the product after the write, {@code null} for a deleted product.
+     */
+    public void replace(Key previous, Key current) {
+        if (previous != null && previous.equals(current)) {
+            return;
+        }
+        AfterCommit.run(
+            () -> {
+                Counts loaded = counts;
+                if (loaded != null) {
+                    if (previous != null) {
+                        loaded.add(previous, -1);
+                    }
+                    if (current != null) {
+                        loaded.add(current, 1);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Move products to a new status once the current transaction has committed.
+     * <p>
+     * Must be called before the products are updated: their current counts are read in one {@code GROUP BY}
+     * query, without loading them.
+     *
+     * @param ids the ids of the products, at most as many as an {@code IN} list takes.
+     * @param status the new status.
+     */
+    public void updateStatus(Collection<Long> ids, ProductStatus status) {
+        String sql = String.format(SELECT_COUNTS_BY_IDS_SQL, String.join(", ", Collections.nCopies(ids.size(), "?")));
+        Map<Key, Long> deltas = new HashMap<>();
+        jdbcTemplate.query(
+            sql,
+            resultSet -> {
+                Key previous = toKey(resultSet);
+                Key current = new Key(previous.categoryId, previous.packagingId, status, previous.type);
+                if (!previous.equals(current)) {
+                    long count = resultSet.getLong(5);
+                    deltas.merge(previous, -count, Long::sum);
+                    deltas.merge(current, count, Long::sum);
+                }
+            },
+            ids.toArray()
+        );
+        if (deltas.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(
+            () -> {
+                Counts loaded = counts;
+                if (loaded != null) {
+                    deltas.forEach(loaded::add);
+                }
+            }
+        );
+    }
+
+    /**
+     * Recount the products from the database.
+     */
+    public void refresh() {
+        log.debug("Request to refresh the Product counters");
+        Counts loaded = new Counts();
+        jdbcTemplate.query(
+            SELECT_COUNTS_SQL,
+            resultSet -> {
+                loaded.add(toKey(resultSet), resultSet.getLong(5));
+            }
+        );
+        counts = loaded;
+        log.info("Counted the Products of {} Categories and {} Packagings", loaded.byCategory.size(), loaded.byPackaging.size());
+    }
+
+    private Counts counts() {
+        Counts current = counts;
+        if (current == null) {
+            synchronized (loadLock) {
+                if (counts == null) {
+                    refresh();
+                }
+                current = counts;
+            }
+        }
+        return current;
+    }
+
+    private static Key toKey(ResultSet resultSet) throws SQLException {
+        long categoryId = resultSet.getLong(1);
+        Long category = resultSet.wasNull() ? null : categoryId;
+        long packagingId = resultSet.getLong(2);
+        Long packaging = resultSet.wasNull() ? null : packagingId;
+        String status = resultSet.getString(3);
+        String type = resultSet.getString(4);
+        return new Key(
+            category,
+            packaging,
+            status != null ? ProductStatus.valueOf(status) : null,
+            type != null ? ProductType.valueOf(type) : null
+        );
+    }
+
+    /**
+     * The attributes of a product that decide where it is counted.
+     */
+    public static final class Key {
+
+        private final Long categoryId;
+
+        private final Long packagingId;
+
+        private final ProductStatus status;
+
+        private final ProductType type;
+
+        Key(Long categoryId, Long packagingId, ProductStatus status, ProductType type) {
+            this.categoryId = categoryId;
+            this.packagingId = packagingId;
+            this.status = status;
+            this.type = type;
+        }
+
+        /**
+         * @param product the product, whose category and packaging are not initialized.
+         * @return the counted attributes of the product.
+         */
+        public static Key of(Product product) {
+            return new Key(
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getPackaging() != null ? product.getPackaging().getId() : null,
+                product.getStatus(),
+                product.getType()
+            );
+        }
+
+        private int cell() {
+            return (status != null ? status.ordinal() : ProductStatus.values().length) * CELLS_PER_STATUS +
+            (type != null ? type.ordinal() : ProductType.values().length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return (
+                Objects.equals(categoryId, key.categoryId) &&
+                Objects.equals(packagingId, key.packagingId) &&
+                status == key.status &&
+                type == key.type
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryId, packagingId, status, type);
+        }
+    }
+
+    /**
+     * The counts of the products by category and by packaging.
+     */
+    private static final class Counts {
+
+        private final Tally byCategory = new Tally();
+
+        private final Tally byPackaging = new Tally();
+
+        void add(Key key, long delta) {
+            if (key.categoryId != null) {
+                byCategory.add(key.categoryId, key.cell(), delta);
+            }
+            if (key.packagingId != null) {
+                byPackaging.add(key.packagingId, key.cell(), delta);
+            }
+        }
+    }
+
+    /**
+     * One count per status and type, including a missing one, for each id.
+     */
+    private static final class Tally {
+
+        private final Map<Long, LongAdder[]> cells = new ConcurrentHashMap<>();
+
+        void add(long id, int cell, long delta) {
+            cells.computeIfAbsent(id, key -> newCells())[cell].add(delta);
+        }
+
+        int size() {
+            return cells.size();
+        }
+
+        List<ProductCountsDTO> toDtos() {
+            List<ProductCountsDTO> dtos = new ArrayList<>(cells.size());
+            cells.forEach(
+                (id, counts) -> {
+                    long total = 0;
+                    Map<ProductStatus, Long> byStatus = new EnumMap<>(ProductStatus.class);
+                    Map<ProductType, Long> byType = new EnumMap<>(ProductType.class);
+                    for (int cell = 0; cell < CELLS; cell++) {
+                        long count = counts[cell].sum();
+                        if (count == 0) {
+                            continue;
+                        }
+                        total += count;
+                        int status = cell / CELLS_PER_STATUS;
+                        int type = cell % CELLS_PER_STATUS;
+                        if (status < ProductStatus.values().length) {
+                            byStatus.merge(ProductStatus.values()[status], count, Long::sum);
+                        }
+                        if (type < ProductType.values().length) {
+                            byType.merge(ProductType.values()[type], count, Long::sum);
+                        }
+                    }
+                    if (total != 0) {
+                        dtos.add(new ProductCountsDTO(id, total, byStatus, byType));
+                    }
+                }
+            );
+            dtos.sort(Comparator.comparing(ProductCountsDTO::getId));
+            return dtos;
+        }
+
+        private static LongAdder[] newCells() {
+            LongAdder[] counts = new LongAdder[CELLS];
+            for (int cell = 0; cell < CELLS; cell++) {
+                counts[cell] = new LongAdder();
+            }
+            return counts;
+        }
+    }
+}
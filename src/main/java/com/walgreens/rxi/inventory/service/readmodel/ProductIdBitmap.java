@@ -0,0 +1,492 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed set of product ids, laid out as a roaring bitmap.
+ * <p>
+ * An id is split into its high and low 16 bits. Ids sharing their high bits go to one container: a sorted
+ * {@code char[]} while it holds at most {@value #ARRAY_MAX_CARDINALITY} ids, a 65536-bit {@code long[]} bitmap
+ * above. Sparse sets thus cost two bytes per id and dense ones one bit per id, and set operations work a
+ * container, often a 64-bit word, at a time. Ids must lie in {@code [0, 2^32)}.
+ * <p>
+ * Containers are never modified once built, so the results of set operations share the containers they
+ * did not need to change. Results computed word by word stay bitmaps even when they hold few ids: they are
+ * short-lived, and converting them to arrays would cost more than the operation itself.
+ */
+public final class ProductIdBitmap {
+
+    private static final int ARRAY_MAX_CARDINALITY = 4096;
+
+    private static final long MAX_ID = 0xFFFF_FFFFL;
+
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private static final ProductIdBitmap EMPTY = new ProductIdBitmap(new char[0], new Container[0], 0);
+
+    /**
+     * High 16 bits of the ids of each container, in increasing order.
+     */
+    private final char[] keys;
+
+    private final Container[] containers;
+
+    private final long cardinality;
+
+    private ProductIdBitmap(char[] keys, Container[] containers, long cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static ProductIdBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param ids the ids, in any order and possibly repeated; the array is not modified.
+     * @return the set of the ids.
+     * @throws IllegalArgumentException if an id is negative or does not fit in 32 bits.
+     */
+    public static ProductIdBitmap of(long... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] < 0 || sorted[sorted.length - 1] > MAX_ID) {
+            throw new IllegalArgumentException("Product ids must lie in [0, 2^32)");
+        }
+        char[] keys = new char[(int) ((sorted[sorted.length - 1] >>> 16) - (sorted[0] >>> 16)) + 1];
+        Container[] containers = new Container[keys.length];
+        char[] lows = new char[Math.min(sorted.length, 1 << 16)];
+        int size = 0;
+        long cardinality = 0;
+        int i = 0;
+        while (i < sorted.length) {
+            long high = sorted[i] >>> 16;
+            int count = 0;
+            for (; i < sorted.length && sorted[i] >>> 16 == high; i++) {
+                char low = (char) sorted[i];
+                if (count == 0 || lows[count - 1] != low) {
+                    lows[count++] = low;
+                }
+            }
+            keys[size] = (char) high;
+            containers[size] = Container.ofSorted(lows, count);
+            cardinality += count;
+            size++;
+        }
+        return new ProductIdBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), cardinality);
+    }
+
+    /**
+     * @return the number of ids in the set.
+     */
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, (char) (id >>> 16));
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    /**
+     * Copy the ids greater than {@code afterId}, in increasing order, into {@code destination}.
+     *
+     * @param afterId the id to start after, {@code -1} for the first id.
+     * @param destination the array to fill, whose length bounds the number of copied ids.
+     * @return the number of copied ids.
+     */
+    public int copyIdsAfter(long afterId, long[] destination) {
+        long from = Math.max(afterId + 1, 0);
+        if (from > MAX_ID) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(keys, (char) (from >>> 16));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        int count = 0;
+        for (; index < keys.length && count < destination.length; index++) {
+            long base = (long) keys[index] << 16;
+            int fromLow = base < from ? (int) (from - base) : 0;
+            count = containers[index].copyTo(base, fromLow, destination, count);
+        }
+        return count;
+    }
+
+    /**
+     * @return the ids of both sets.
+     */
+    public ProductIdBitmap and(ProductIdBitmap other) {
+        Builder builder = new Builder(Math.min(keys.length, other.keys.length));
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                builder.add(keys[i], containers[i++].and(other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the ids of either set.
+     */
+    public ProductIdBitmap or(ProductIdBitmap other) {
+        Builder builder = new Builder(keys.length + other.keys.length);
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                builder.add(keys[i], containers[i++]);
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                builder.add(other.keys[j], other.containers[j++]);
+            } else {
+                builder.add(keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the ids of this set that are not in {@code other}.
+     */
+    public ProductIdBitmap andNot(ProductIdBitmap other) {
+        Builder builder = new Builder(keys.length);
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                builder.add(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                builder.add(keys[i], containers[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductIdBitmap)) {
+            return false;
+        }
+        ProductIdBitmap other = (ProductIdBitmap) o;
+        if (cardinality != other.cardinality || !Arrays.equals(keys, other.keys)) {
+            return false;
+        }
+        for (int i = 0; i < containers.length; i++) {
+            // Same cardinalities: no id missing from the other container means the same ids
+            if (containers[i].cardinality() != other.containers[i].cardinality() || containers[i].andNot(other.containers[i]) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cardinality) * 31 + Arrays.hashCode(keys);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductIdBitmap{" +
+            "cardinality=" + cardinality +
+            ", containers=" + containers.length +
+            "}";
+    }
+
+    /**
+     * Collects the non-empty containers of a set operation, in key order.
+     */
+    private static final class Builder {
+
+        private final char[] keys;
+
+        private final Container[] containers;
+
+        private int size;
+
+        private long cardinality;
+
+        Builder(int capacity) {
+            this.keys = new char[capacity];
+            this.containers = new Container[capacity];
+        }
+
+        void add(char key, Container container) {
+            if (container != null) {
+                keys[size] = key;
+                containers[size++] = container;
+                cardinality += container.cardinality();
+            }
+        }
+
+        ProductIdBitmap build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new ProductIdBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), cardinality);
+        }
+    }
+
+    /**
+     * The low 16 bits of the ids sharing the same high 16 bits. Set operations return {@code null} rather than
+     * an empty container.
+     */
+    private abstract static class Container {
+
+        static Container ofSorted(char[] values, int count) {
+            if (count <= ARRAY_MAX_CARDINALITY) {
+                return new ArrayContainer(Arrays.copyOf(values, count));
+            }
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < count; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, count);
+        }
+
+        /**
+         * @return a bitmap container holding the bits of {@code words}, or {@code null} if none is set.
+         */
+        static Container ofWords(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count == 0 ? null : new BitmapContainer(words, count);
+        }
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        /**
+         * Copy the ids of the container from {@code fromLow} on, until {@code destination} is full.
+         *
+         * @return the new number of ids in {@code destination}.
+         */
+        abstract int copyTo(long base, int fromLow, long[] destination, int count);
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private final char[] values;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                char[] others = ((ArrayContainer) other).values;
+                char[] result = new char[Math.min(values.length, others.length)];
+                int size = 0;
+                int i = 0;
+                int j = 0;
+                while (i < values.length && j < others.length) {
+                    if (values[i] < others[j]) {
+                        i++;
+                    } else if (values[i] > others[j]) {
+                        j++;
+                    } else {
+                        result[size++] = values[i++];
+                        j++;
+                    }
+                }
+                return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+            }
+            return filter(other, true);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            char[] others = ((ArrayContainer) other).values;
+            if (values.length + others.length > ARRAY_MAX_CARDINALITY) {
+                long[] words = new long[BITMAP_WORDS];
+                setBits(words);
+                ((ArrayContainer) other).setBits(words);
+                return ofWords(words);
+            }
+            char[] result = new char[values.length + others.length];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < others.length) {
+                if (j == others.length || (i < values.length && values[i] < others[j])) {
+                    result[size++] = values[i++];
+                } else if (i == values.length || values[i] > others[j]) {
+                    result[size++] = others[j++];
+                } else {
+                    result[size++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(Arrays.copyOf(result, size));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            return filter(other, false);
+        }
+
+        @Override
+        int copyTo(long base, int fromLow, long[] destination, int count) {
+            int i = Arrays.binarySearch(values, (char) fromLow);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (; i < values.length && count < destination.length; i++) {
+                destination[count++] = base | values[i];
+            }
+            return count;
+        }
+
+        void setBits(long[] words) {
+            for (char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+        }
+
+        /**
+         * @return the values that are, or are not, in {@code other}.
+         */
+        private Container filter(Container other, boolean keepContained) {
+            char[] result = new char[values.length];
+            int size = 0;
+            for (char value : values) {
+                if (other.contains(value) == keepContained) {
+                    result[size++] = value;
+                }
+            }
+            if (size == values.length) {
+                return this;
+            }
+            return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+
+        private final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                result[w] = words[w] & others[w];
+            }
+            return ofWords(result);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ((ArrayContainer) other).setBits(result);
+            } else {
+                long[] others = ((BitmapContainer) other).words;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    result[w] |= others[w];
+                }
+            }
+            return ofWords(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    result[value >>> 6] &= ~(1L << value);
+                }
+            } else {
+                long[] others = ((BitmapContainer) other).words;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    result[w] &= ~others[w];
+                }
+            }
+            return ofWords(result);
+        }
+
+        @Override
+        int copyTo(long base, int fromLow, long[] destination, int count) {
+            int w = fromLow >>> 6;
+            // Drop the bits below fromLow in its word
+            long word = words[w] & (-1L << fromLow);
+            while (count < destination.length) {
+                if (word != 0) {
+                    destination[count++] = base | ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                } else if (++w < BITMAP_WORDS) {
+                    word = words[w];
+                } else {
+                    break;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process read model of the products, for the read-mostly endpoints.
+ * <p>
+ * The products are held in a {@link ProductSnapshot} published through a single volatile field: readers never
+ * lock, and writers replace the snapshot with an updated copy once their transaction has committed. A reload
+ * reads the database without blocking the writers: their changes are applied to the new snapshot before it is
+ * published.
+ * The model is loaded at startup when {@code application.read-model.enabled} is set; until then it is empty
+ * and {@link #isLoaded()} tells callers to read from the database. Only the writes of this node reach the
+ * model: it is reloaded on {@code application.read-model.reconcile-cron}, which bounds how long the writes of
+ * the other nodes are missing from it.
+ */
+@Service
+public class ProductReadModel {
+
+    private static final String SELECT_ALL_SQL =
+        "select id, name, description, company, type, storage_type, price, sales_unit, sales_quantity, " +
+        "image_content_type, image_hash, status, product_code_id, category_id, packaging_id from product";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(ProductReadModel.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Object refreshLock = new Object();
+
+    private final Object writeLock = new Object();
+
+    private volatile ProductSnapshot snapshot;
+
+    // Guarded by writeLock: the changes applied since the running reload started, null outside a reload
+    private List<UnaryOperator<ProductSnapshot>> changesDuringRefresh;
+
+    public ProductReadModel(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (applicationProperties.getReadModel().isEnabled()) {
+            refresh();
+        }
+    }
+
+    @Scheduled(cron = "${application.read-model.reconcile-cron}")
+    public void reconcile() {
+        if (isLoaded()) {
+            refresh();
+        }
+    }
+
+    /**
+     * @return whether the model holds all the products.
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return the current snapshot, empty if the model is not loaded.
+     */
+    public ProductSnapshot snapshot() {
+        ProductSnapshot current = snapshot;
+        return current != null ? current : ProductSnapshot.empty();
+    }
+
+    /**
+     * @param id the id of the product.
+     * @return the summary of the product, empty if it does not exist or the model is not loaded.
+     */
+    public Optional<ProductSummaryDTO> findSummary(long id) {
+        ProductSnapshot current = snapshot();
+        int row = current.indexOf(id);
+        return row == ProductSnapshot.NOT_FOUND ? Optional.empty() : Optional.of(current.toSummary(row));
+    }
+
+    /**
+     * Reload all the products from the database and publish them as a new snapshot.
+     */
+    public void refresh() {
+        log.debug("Request to refresh the Product read model");
+        synchronized (refreshLock) {
+            synchronized (writeLock) {
+                changesDuringRefresh = new ArrayList<>();
+            }
+            try {
+                ProductSnapshot.Builder builder = new ProductSnapshot.Builder(snapshot().size());
+                jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL);
+                        statement.setFetchSize(FETCH_SIZE);
+                        return statement;
+                    },
+                    resultSet -> {
+                        builder.add(toProduct(resultSet));
+                    }
+                );
+                ProductSnapshot loaded = builder.build();
+                synchronized (writeLock) {
+                    // The changes are idempotent: replaying those the reload already read is harmless
+                    for (UnaryOperator<ProductSnapshot> change : changesDuringRefresh) {
+                        loaded = change.apply(loaded);
+                    }
+                    snapshot = loaded;
+                }
+                log.info("Loaded {} Products in the read model", loaded.size());
+            } finally {
+                synchronized (writeLock) {
+                    changesDuringRefresh = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publish a saved product once the current transaction has committed.
+     *
+     * @param product the saved product.
+     */
+    public void put(Product product) {
+        AfterCommit.run(() -> apply(current -> current.with(product)));
+    }
+
+    /**
+     * Remove a deleted product once the current transaction has committed.
+     *
+     * @param id the id of the deleted product.
+     */
+    public void remove(long id) {
+        AfterCommit.run(() -> apply(current -> current.without(id)));
+    }
+
+    /**
+     * Apply a bulk update of price and status once the current transaction has committed.
+     *
+     * @param ids the ids of the updated products.
+     * @param price the new price, or {@code null} if it was not changed.
+     * @param status the new status, or {@code null} if it was not changed.
+     */
+    public void updatePriceAndStatus(Collection<Long> ids, BigDecimal price, ProductStatus status) {
+        AfterCommit.run(() -> apply(current -> current.withPriceAndStatus(ids, price, status)));
+    }
+
+    /**
+     * Apply a change to the published snapshot, and record it for the reload in progress if any.
+     */
+    private void apply(UnaryOperator<ProductSnapshot> change) {
+        synchronized (writeLock) {
+            if (snapshot != null) {
+                snapshot = change.apply(snapshot);
+            }
+            if (changesDuringRefresh != null) {
+                changesDuringRefresh.add(change);
+            }
+        }
+    }
+
+    private static Product toProduct(ResultSet resultSet) throws SQLException {
+        Product product = new Product()
+            .id(resultSet.getLong("id"))
+            .name(resultSet.getString("name"))
+            .description(resultSet.getString("description"))
+            .company(resultSet.getString("company"))
+            .type(toEnum(ProductType.class, resultSet.getString("type")))
+            .storageType(toEnum(StorageType.class, resultSet.getString("storage_type")))
+            .price(resultSet.getBigDecimal("price"))
+            .salesUnit(toEnum(UnitOfMeasurement.class, resultSet.getString("sales_unit")))
+            .salesQuantity(resultSet.getBigDecimal("sales_quantity"))
+            .imageContentType(resultSet.getString("image_content_type"))
+            .imageHash(resultSet.getString("image_hash"))
+            .status(toEnum(ProductStatus.class, resultSet.getString("status")));
+        long productCodeId = resultSet.getLong("product_code_id");
+        if (!resultSet.wasNull()) {
+            product.setProductCode(new ProductCode().id(productCodeId));
+        }
+        long categoryId = resultSet.getLong("category_id");
+        if (!resultSet.wasNull()) {
+            product.setCategory(new Category().id(categoryId));
+        }
+        long packagingId = resultSet.getLong("packaging_id");
+        if (!resultSet.wasNull()) {
+            product.setPackaging(new Packaging().id(packagingId));
+        }
+        return product;
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String value) {
+        return value == null ? null : Enum.valueOf(type, value);
+    }
+}
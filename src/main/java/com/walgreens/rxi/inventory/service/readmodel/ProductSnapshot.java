@@ -0,0 +1,594 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented copy of the product table.
+ * <p>
+ * Each column is a primitive array indexed by row: enums are stored as {@code byte} ordinals, decimal amounts
+ * as {@code long} hundredths and relationships as the {@code long} id of the related entity. The few amounts
+ * too large for a {@code long} of hundredths are kept as they are, by product id, next to the columns. Rows are
+ * found through a {@link LongIntHashIndex} on the product id, so that reading a row is a few array accesses.
+ * <p>
+ * A snapshot is never modified once built: {@link #with(Product)} and {@link #without(long)} return a copy. The
+ * columns are split into chunks of {@value #CHUNK_SIZE} rows, and a copy shares every chunk but the ones holding
+ * the rows it changes, so that a write costs a few chunks whatever the number of products.
+ */
+public final class ProductSnapshot {
+
+    /**
+     * Row returned by {@link #indexOf(long)} for an unknown product.
+     */
+    public static final int NOT_FOUND = LongIntHashIndex.NOT_FOUND;
+
+    private static final int CHUNK_SHIFT = 10;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final byte NULL_ORDINAL = -1;
+
+    private static final long NULL_AMOUNT = Long.MIN_VALUE;
+
+    private static final long LARGE_AMOUNT = Long.MIN_VALUE + 1;
+
+    private static final long NULL_ID = 0L;
+
+    private static final ProductType[] TYPES = ProductType.values();
+
+    private static final StorageType[] STORAGE_TYPES = StorageType.values();
+
+    private static final UnitOfMeasurement[] UNITS = UnitOfMeasurement.values();
+
+    private static final ProductStatus[] STATUSES = ProductStatus.values();
+
+    private static final ProductSnapshot EMPTY = new Builder(0).build();
+
+    private final int size;
+
+    private final long[][] ids;
+
+    private final String[][] names;
+
+    private final String[][] descriptions;
+
+    private final String[][] companies;
+
+    private final byte[][] types;
+
+    private final byte[][] storageTypes;
+
+    private final long[][] prices;
+
+    private final byte[][] salesUnits;
+
+    private final long[][] salesQuantities;
+
+    private final String[][] imageContentTypes;
+
+    private final String[][] imageHashes;
+
+    private final byte[][] statuses;
+
+    private final long[][] productCodeIds;
+
+    private final long[][] categoryIds;
+
+    private final long[][] packagingIds;
+
+    private final Map<Long, BigDecimal> largePrices;
+
+    private final Map<Long, BigDecimal> largeSalesQuantities;
+
+    private final LongIntHashIndex index;
+
+    private ProductSnapshot(Builder builder, LongIntHashIndex index) {
+        this.size = builder.size;
+        this.ids = builder.ids;
+        this.names = builder.names;
+        this.descriptions = builder.descriptions;
+        this.companies = builder.companies;
+        this.types = builder.types;
+        this.storageTypes = builder.storageTypes;
+        this.prices = builder.prices;
+        this.salesUnits = builder.salesUnits;
+        this.salesQuantities = builder.salesQuantities;
+        this.imageContentTypes = builder.imageContentTypes;
+        this.imageHashes = builder.imageHashes;
+        this.statuses = builder.statuses;
+        this.productCodeIds = builder.productCodeIds;
+        this.categoryIds = builder.categoryIds;
+        this.packagingIds = builder.packagingIds;
+        this.largePrices = builder.largePrices;
+        this.largeSalesQuantities = builder.largeSalesQuantities;
+        long[][] builderIds = builder.ids;
+        this.index = index != null ? index : new LongIntHashIndex(row -> builderIds[row >>> CHUNK_SHIFT][row & CHUNK_MASK], size);
+    }
+
+    private ProductSnapshot(ProductSnapshot snapshot, long[][] prices, Map<Long, BigDecimal> largePrices, byte[][] statuses) {
+        this.size = snapshot.size;
+        this.ids = snapshot.ids;
+        this.names = snapshot.names;
+        this.descriptions = snapshot.descriptions;
+        this.companies = snapshot.companies;
+        this.types = snapshot.types;
+        this.storageTypes = snapshot.storageTypes;
+        this.prices = prices;
+        this.salesUnits = snapshot.salesUnits;
+        this.salesQuantities = snapshot.salesQuantities;
+        this.imageContentTypes = snapshot.imageContentTypes;
+        this.imageHashes = snapshot.imageHashes;
+        this.statuses = statuses;
+        this.productCodeIds = snapshot.productCodeIds;
+        this.categoryIds = snapshot.categoryIds;
+        this.packagingIds = snapshot.packagingIds;
+        this.largePrices = largePrices;
+        this.largeSalesQuantities = snapshot.largeSalesQuantities;
+        this.index = snapshot.index;
+    }
+
+    public static ProductSnapshot empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param id the id of a product.
+     * @return the row of the product, or {@link #NOT_FOUND}.
+     */
+    public int indexOf(long id) {
+        return index.get(id);
+    }
+
+    public long id(int row) {
+        return ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public String name(int row) {
+        return names[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public String description(int row) {
+        return descriptions[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public String company(int row) {
+        return companies[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public ProductType type(int row) {
+        return fromOrdinal(TYPES, types[row >>> CHUNK_SHIFT][row & CHUNK_MASK]);
+    }
+
+    public StorageType storageType(int row) {
+        return fromOrdinal(STORAGE_TYPES, storageTypes[row >>> CHUNK_SHIFT][row & CHUNK_MASK]);
+    }
+
+    /**
+     * @param row the row of the product.
+     * @return the price in cents, {@link Long#MAX_VALUE} if it is larger.
+     */
+    public long priceCents(int row) {
+        long price = prices[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+        return price == LARGE_AMOUNT ? Long.MAX_VALUE : price;
+    }
+
+    public UnitOfMeasurement salesUnit(int row) {
+        return fromOrdinal(UNITS, salesUnits[row >>> CHUNK_SHIFT][row & CHUNK_MASK]);
+    }
+
+    public String imageContentType(int row) {
+        return imageContentTypes[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public String imageHash(int row) {
+        return imageHashes[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public ProductStatus status(int row) {
+        return fromOrdinal(STATUSES, statuses[row >>> CHUNK_SHIFT][row & CHUNK_MASK]);
+    }
+
+    public long categoryId(int row) {
+        return categoryIds[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    public long packagingId(int row) {
+        return packagingIds[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    /**
+     * Materialize a row as the summary returned by the REST API.
+     *
+     * @param row the row of the product.
+     * @return the summary.
+     */
+    public ProductSummaryDTO toSummary(int row) {
+        int chunk = row >>> CHUNK_SHIFT;
+        int i = row & CHUNK_MASK;
+        long id = ids[chunk][i];
+        return new ProductSummaryDTO(
+            id,
+            names[chunk][i],
+            descriptions[chunk][i],
+            companies[chunk][i],
+            type(row),
+            storageType(row),
+            toDecimal(prices[chunk][i], largePrices, id),
+            salesUnit(row),
+            toDecimal(salesQuantities[chunk][i], largeSalesQuantities, id),
+            imageContentTypes[chunk][i],
+            imageHashes[chunk][i],
+            status(row),
+            toId(productCodeIds[chunk][i]),
+            toId(categoryIds[chunk][i]),
+            toId(packagingIds[chunk][i])
+        );
+    }
+
+    /**
+     * @param product a saved product.
+     * @return a copy of this snapshot where the product is added or replaced.
+     */
+    public ProductSnapshot with(Product product) {
+        int row = indexOf(product.getId());
+        Builder builder = new Builder(this);
+        if (row == NOT_FOUND) {
+            builder.add(product);
+            return builder.build(index.with(product.getId(), size));
+        }
+        builder.set(row, product);
+        // The ids did not move, so the index can be shared
+        return builder.build(index);
+    }
+
+    /**
+     * @param id the id of a deleted product.
+     * @return a copy of this snapshot without the product.
+     */
+    public ProductSnapshot without(long id) {
+        int row = indexOf(id);
+        if (row == NOT_FOUND) {
+            return this;
+        }
+        Builder builder = new Builder(this);
+        builder.remove(row);
+        LongIntHashIndex newIndex = index.without(id);
+        int last = size - 1;
+        if (row != last) {
+            // The last row moved into the removed one
+            newIndex = newIndex.with(id(last), row);
+        }
+        return builder.build(newIndex);
+    }
+
+    /**
+     * @param ids the ids of bulk updated products; unknown ids are ignored.
+     * @param price the new price of the products, or {@code null} if it was not changed.
+     * @param status the new status of the products, or {@code null} if it was not changed.
+     * @return a copy of this snapshot with the new values; only the chunks of the changed columns that hold the
+     * products are copied.
+     */
+    public ProductSnapshot withPriceAndStatus(Collection<Long> ids, BigDecimal price, ProductStatus status) {
+        long[][] newPrices = price != null ? prices.clone() : prices;
+        Map<Long, BigDecimal> newLargePrices = price != null ? new HashMap<>(largePrices) : largePrices;
+        byte[][] newStatuses = status != null ? statuses.clone() : statuses;
+        long priceHundredths = Builder.toHundredths(price);
+        byte statusOrdinal = Builder.toOrdinal(status);
+        for (long id : ids) {
+            int row = indexOf(id);
+            if (row == NOT_FOUND) {
+                continue;
+            }
+            int chunk = row >>> CHUNK_SHIFT;
+            if (price != null) {
+                if (newPrices[chunk] == prices[chunk]) {
+                    newPrices[chunk] = prices[chunk].clone();
+                }
+                newPrices[chunk][row & CHUNK_MASK] = Builder.putLargeAmount(newLargePrices, id, price, priceHundredths);
+            }
+            if (status != null) {
+                if (newStatuses[chunk] == statuses[chunk]) {
+                    newStatuses[chunk] = statuses[chunk].clone();
+                }
+                newStatuses[chunk][row & CHUNK_MASK] = statusOrdinal;
+            }
+        }
+        return new ProductSnapshot(this, newPrices, newLargePrices, newStatuses);
+    }
+
+    private static <E extends Enum<E>> E fromOrdinal(E[] values, byte ordinal) {
+        return ordinal == NULL_ORDINAL ? null : values[ordinal];
+    }
+
+    private static BigDecimal toDecimal(long hundredths, Map<Long, BigDecimal> largeAmounts, long id) {
+        if (hundredths == LARGE_AMOUNT) {
+            return largeAmounts.get(id);
+        }
+        return hundredths == NULL_AMOUNT ? null : BigDecimal.valueOf(hundredths, 2);
+    }
+
+    private static Long toId(long id) {
+        return id == NULL_ID ? null : id;
+    }
+
+    /**
+     * @return the number of chunks that hold {@code rows} rows.
+     */
+    private static int chunks(int rows) {
+        return (rows + CHUNK_MASK) >>> CHUNK_SHIFT;
+    }
+
+    /**
+     * Accumulates rows into chunked columns, for the initial load of a snapshot and for its copies.
+     */
+    public static final class Builder {
+
+        /**
+         * The snapshot whose chunks this builder shares until it writes them, or {@code null} for a load.
+         */
+        private final ProductSnapshot source;
+
+        private int size;
+
+        private long[][] ids;
+
+        private String[][] names;
+
+        private String[][] descriptions;
+
+        private String[][] companies;
+
+        private byte[][] types;
+
+        private byte[][] storageTypes;
+
+        private long[][] prices;
+
+        private byte[][] salesUnits;
+
+        private long[][] salesQuantities;
+
+        private String[][] imageContentTypes;
+
+        private String[][] imageHashes;
+
+        private byte[][] statuses;
+
+        private long[][] productCodeIds;
+
+        private long[][] categoryIds;
+
+        private long[][] packagingIds;
+
+        private Map<Long, BigDecimal> largePrices = new HashMap<>();
+
+        private Map<Long, BigDecimal> largeSalesQuantities = new HashMap<>();
+
+        public Builder(int capacity) {
+            source = null;
+            resize(chunks(capacity));
+        }
+
+        private Builder(ProductSnapshot snapshot) {
+            source = snapshot;
+            size = snapshot.size;
+            ids = snapshot.ids.clone();
+            names = snapshot.names.clone();
+            descriptions = snapshot.descriptions.clone();
+            companies = snapshot.companies.clone();
+            types = snapshot.types.clone();
+            storageTypes = snapshot.storageTypes.clone();
+            prices = snapshot.prices.clone();
+            salesUnits = snapshot.salesUnits.clone();
+            salesQuantities = snapshot.salesQuantities.clone();
+            imageContentTypes = snapshot.imageContentTypes.clone();
+            imageHashes = snapshot.imageHashes.clone();
+            statuses = snapshot.statuses.clone();
+            productCodeIds = snapshot.productCodeIds.clone();
+            categoryIds = snapshot.categoryIds.clone();
+            packagingIds = snapshot.packagingIds.clone();
+            largePrices = new HashMap<>(snapshot.largePrices);
+            largeSalesQuantities = new HashMap<>(snapshot.largeSalesQuantities);
+        }
+
+        /**
+         * Append a product, which must not have been added yet.
+         *
+         * @param product the product, with at least the id of its relationships.
+         * @return this builder.
+         */
+        public Builder add(Product product) {
+            set(size++, product);
+            return this;
+        }
+
+        public ProductSnapshot build() {
+            return build(null);
+        }
+
+        /**
+         * @param index the index of the built rows, or {@code null} to index them.
+         */
+        private ProductSnapshot build(LongIntHashIndex index) {
+            if (chunks(size) != ids.length) {
+                resize(chunks(size));
+            }
+            return new ProductSnapshot(this, index);
+        }
+
+        private void set(int row, Product product) {
+            int chunk = row >>> CHUNK_SHIFT;
+            int i = row & CHUNK_MASK;
+            writable(chunk);
+            ids[chunk][i] = product.getId();
+            names[chunk][i] = product.getName();
+            descriptions[chunk][i] = product.getDescription();
+            // Few distinct values, shared by most rows
+            companies[chunk][i] = intern(product.getCompany());
+            types[chunk][i] = toOrdinal(product.getType());
+            storageTypes[chunk][i] = toOrdinal(product.getStorageType());
+            prices[chunk][i] = putLargeAmount(largePrices, product.getId(), product.getPrice(), toHundredths(product.getPrice()));
+            salesUnits[chunk][i] = toOrdinal(product.getSalesUnit());
+            salesQuantities[chunk][i] =
+                putLargeAmount(largeSalesQuantities, product.getId(), product.getSalesQuantity(), toHundredths(product.getSalesQuantity()));
+            imageContentTypes[chunk][i] = intern(product.getImageContentType());
+            imageHashes[chunk][i] = product.getImageHash();
+            statuses[chunk][i] = toOrdinal(product.getStatus());
+            ProductCode productCode = product.getProductCode();
+            productCodeIds[chunk][i] = productCode != null ? productCode.getId() : NULL_ID;
+            Category category = product.getCategory();
+            categoryIds[chunk][i] = category != null ? category.getId() : NULL_ID;
+            Packaging packaging = product.getPackaging();
+            packagingIds[chunk][i] = packaging != null ? packaging.getId() : NULL_ID;
+        }
+
+        /**
+         * Remove a row by moving the last row into its place.
+         */
+        private void remove(int row) {
+            int chunk = row >>> CHUNK_SHIFT;
+            int i = row & CHUNK_MASK;
+            largePrices.remove(ids[chunk][i]);
+            largeSalesQuantities.remove(ids[chunk][i]);
+            int last = --size;
+            if (row == last) {
+                return;
+            }
+            // The last row is only read: its chunk stays shared
+            int lastChunk = last >>> CHUNK_SHIFT;
+            int l = last & CHUNK_MASK;
+            writable(chunk);
+            ids[chunk][i] = ids[lastChunk][l];
+            names[chunk][i] = names[lastChunk][l];
+            descriptions[chunk][i] = descriptions[lastChunk][l];
+            companies[chunk][i] = companies[lastChunk][l];
+            types[chunk][i] = types[lastChunk][l];
+            storageTypes[chunk][i] = storageTypes[lastChunk][l];
+            prices[chunk][i] = prices[lastChunk][l];
+            salesUnits[chunk][i] = salesUnits[lastChunk][l];
+            salesQuantities[chunk][i] = salesQuantities[lastChunk][l];
+            imageContentTypes[chunk][i] = imageContentTypes[lastChunk][l];
+            imageHashes[chunk][i] = imageHashes[lastChunk][l];
+            statuses[chunk][i] = statuses[lastChunk][l];
+            productCodeIds[chunk][i] = productCodeIds[lastChunk][l];
+            categoryIds[chunk][i] = categoryIds[lastChunk][l];
+            packagingIds[chunk][i] = packagingIds[lastChunk][l];
+        }
+
+        /**
+         * Make a chunk writable: allocate it if it is new, or copy it if it is still shared with the source.
+         */
+        private void writable(int chunk) {
+            if (chunk >= ids.length) {
+                resize(Math.max(chunk + 1, ids.length + (ids.length >> 1)));
+            }
+            if (ids[chunk] == null) {
+                ids[chunk] = new long[CHUNK_SIZE];
+                names[chunk] = new String[CHUNK_SIZE];
+                descriptions[chunk] = new String[CHUNK_SIZE];
+                companies[chunk] = new String[CHUNK_SIZE];
+                types[chunk] = new byte[CHUNK_SIZE];
+                storageTypes[chunk] = new byte[CHUNK_SIZE];
+                prices[chunk] = new long[CHUNK_SIZE];
+                salesUnits[chunk] = new byte[CHUNK_SIZE];
+                salesQuantities[chunk] = new long[CHUNK_SIZE];
+                imageContentTypes[chunk] = new String[CHUNK_SIZE];
+                imageHashes[chunk] = new String[CHUNK_SIZE];
+                statuses[chunk] = new byte[CHUNK_SIZE];
+                productCodeIds[chunk] = new long[CHUNK_SIZE];
+                categoryIds[chunk] = new long[CHUNK_SIZE];
+                packagingIds[chunk] = new long[CHUNK_SIZE];
+            } else if (source != null && chunk < source.ids.length && ids[chunk] == source.ids[chunk]) {
+                ids[chunk] = ids[chunk].clone();
+                names[chunk] = names[chunk].clone();
+                descriptions[chunk] = descriptions[chunk].clone();
+                companies[chunk] = companies[chunk].clone();
+                types[chunk] = types[chunk].clone();
+                storageTypes[chunk] = storageTypes[chunk].clone();
+                prices[chunk] = prices[chunk].clone();
+                salesUnits[chunk] = salesUnits[chunk].clone();
+                salesQuantities[chunk] = salesQuantities[chunk].clone();
+                imageContentTypes[chunk] = imageContentTypes[chunk].clone();
+                imageHashes[chunk] = imageHashes[chunk].clone();
+                statuses[chunk] = statuses[chunk].clone();
+                productCodeIds[chunk] = productCodeIds[chunk].clone();
+                categoryIds[chunk] = categoryIds[chunk].clone();
+                packagingIds[chunk] = packagingIds[chunk].clone();
+            }
+        }
+
+        /**
+         * Resize the lists of chunks of the columns, not the chunks themselves.
+         */
+        private void resize(int chunks) {
+            ids = ids == null ? new long[chunks][] : Arrays.copyOf(ids, chunks);
+            names = names == null ? new String[chunks][] : Arrays.copyOf(names, chunks);
+            descriptions = descriptions == null ? new String[chunks][] : Arrays.copyOf(descriptions, chunks);
+            companies = companies == null ? new String[chunks][] : Arrays.copyOf(companies, chunks);
+            types = types == null ? new byte[chunks][] : Arrays.copyOf(types, chunks);
+            storageTypes = storageTypes == null ? new byte[chunks][] : Arrays.copyOf(storageTypes, chunks);
+            prices = prices == null ? new long[chunks][] : Arrays.copyOf(prices, chunks);
+            salesUnits = salesUnits == null ? new byte[chunks][] : Arrays.copyOf(salesUnits, chunks);
+            salesQuantities = salesQuantities == null ? new long[chunks][] : Arrays.copyOf(salesQuantities, chunks);
+            imageContentTypes = imageContentTypes == null ? new String[chunks][] : Arrays.copyOf(imageContentTypes, chunks);
+            imageHashes = imageHashes == null ? new String[chunks][] : Arrays.copyOf(imageHashes, chunks);
+            statuses = statuses == null ? new byte[chunks][] : Arrays.copyOf(statuses, chunks);
+            productCodeIds = productCodeIds == null ? new long[chunks][] : Arrays.copyOf(productCodeIds, chunks);
+            categoryIds = categoryIds == null ? new long[chunks][] : Arrays.copyOf(categoryIds, chunks);
+            packagingIds = packagingIds == null ? new long[chunks][] : Arrays.copyOf(packagingIds, chunks);
+        }
+
+        private static byte toOrdinal(Enum<?> value) {
+            return value == null ? NULL_ORDINAL : (byte) value.ordinal();
+        }
+
+        /**
+         * @return the amount in hundredths, or {@link #LARGE_AMOUNT} if it does not fit in a {@code long}.
+         */
+        private static long toHundredths(BigDecimal value) {
+            if (value == null) {
+                return NULL_AMOUNT;
+            }
+            BigInteger hundredths = value.setScale(2, RoundingMode.HALF_UP).unscaledValue();
+            return hundredths.bitLength() < Long.SIZE && hundredths.longValue() > LARGE_AMOUNT ? hundredths.longValue() : LARGE_AMOUNT;
+        }
+
+        /**
+         * Keep the amount of a product by its id if it is too large for its column, and forget any previous one.
+         *
+         * @return the hundredths to store in the column.
+         */
+        private static long putLargeAmount(Map<Long, BigDecimal> largeAmounts, long id, BigDecimal value, long hundredths) {
+            if (hundredths == LARGE_AMOUNT) {
+                largeAmounts.put(id, value);
+            } else if (!largeAmounts.isEmpty()) {
+                largeAmounts.remove(id);
+            }
+            return hundredths;
+        }
+
+        private static String intern(String value) {
+            return value == null ? null : value.intern();
+        }
+    }
+}
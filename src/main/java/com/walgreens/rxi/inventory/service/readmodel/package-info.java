@@ -0,0 +1,4 @@
+/**
+ * In-memory read models.
+ */
+package com.walgreens.rxi.inventory.service.readmodel;
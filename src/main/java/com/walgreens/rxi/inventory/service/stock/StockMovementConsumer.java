@@ -0,0 +1,292 @@
+package com.walgreens.rxi.inventory.service.stock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.config.KafkaProperties;
+import com.walgreens.rxi.inventory.service.dto.StockMovementDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consumer of the stock movements published on {@code application.stock-movements.topic}, keyed by product id.
+ * <p>
+ * Each of the {@code application.stock-movements.consumers} consumers of the group polls up to
+ * {@code application.stock-movements.max-poll-records} movements, applies them with one call of
+ * {@link StockMovementService#apply}, and commits their offsets once the transaction has committed. When the
+ * transaction fails, the consumer seeks back to the first movement of the batch and polls it again. Movements are
+ * therefore applied at least once, and the service ignores those it already applied. Messages that are not
+ * movements are logged and skipped.
+ * <p>
+ * Any other failure of a consumer, of the broker for instance, is retried with an exponential backoff of up to
+ * {@value #MAX_RETRY_BACKOFF_MILLIS} ms, from the last committed offsets. The {@code stock-movements.consumers.live}
+ * gauge counts the consumers still running, and {@code stock-movements.consumer.failures} counts their failures.
+ */
+@Component
+public class StockMovementConsumer {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 60_000;
+
+    private final Logger log = LoggerFactory.getLogger(StockMovementConsumer.class);
+
+    private final ApplicationProperties.StockMovements properties;
+
+    private final StockMovementService stockMovementService;
+
+    private final ObjectReader reader;
+
+    private final Supplier<Consumer<String, String>> consumerFactory;
+
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+
+    private final Counter failures;
+
+    private volatile boolean running;
+
+    @Autowired
+    public StockMovementConsumer(
+        KafkaProperties kafkaProperties,
+        ApplicationProperties applicationProperties,
+        StockMovementService stockMovementService,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry
+    ) {
+        this(
+            applicationProperties,
+            stockMovementService,
+            objectMapper,
+            meterRegistry,
+            () -> new KafkaConsumer<>(consumerProps(kafkaProperties, applicationProperties.getStockMovements()))
+        );
+    }
+
+    StockMovementConsumer(
+        ApplicationProperties applicationProperties,
+        StockMovementService stockMovementService,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        Supplier<Consumer<String, String>> consumerFactory
+    ) {
+        this.properties = applicationProperties.getStockMovements();
+        this.stockMovementService = stockMovementService;
+        this.reader = objectMapper.readerFor(StockMovementDTO.class);
+        this.consumerFactory = consumerFactory;
+        Gauge
+            .builder("stock-movements.consumers.live", workers, StockMovementConsumer::countLive)
+            .description("Stock movement consumers whose thread is running")
+            .register(meterRegistry);
+        this.failures =
+            Counter
+                .builder("stock-movements.consumer.failures")
+                .description("Failures of the stock movement consumers, retried after a backoff")
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Object> consumerProps(KafkaProperties kafkaProperties, ApplicationProperties.StockMovements properties) {
+        Map<String, Object> props = kafkaProperties.getConsumerProps();
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, properties.getGroupId());
+        // Offsets are committed after the transaction of their batch
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.getMaxPollRecords());
+        return props;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (properties.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Start the consumers of the group on their threads.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < properties.getConsumers(); i++) {
+            Worker worker = new Worker(consumerFactory.get());
+            Thread thread = new Thread(worker, "stock-movement-consumer-" + i);
+            worker.thread = thread;
+            workers.add(worker);
+            thread.start();
+        }
+        log.info("Consuming stock movements from Kafka topic {} with {} consumers", properties.getTopic(), workers.size());
+    }
+
+    /**
+     * Stop the consumers, waiting for the batches being applied.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        for (Worker worker : workers) {
+            worker.consumer.wakeup();
+        }
+        try {
+            for (Worker worker : workers) {
+                worker.thread.join(POLL_TIMEOUT.toMillis() * 10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.clear();
+    }
+
+    private static long countLive(List<Worker> workers) {
+        return workers.stream().filter(worker -> worker.thread.isAlive()).count();
+    }
+
+    private class Worker implements Runnable {
+
+        private final Consumer<String, String> consumer;
+
+        private Thread thread;
+
+        private Worker(Consumer<String, String> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                consumer.subscribe(List.of(properties.getTopic()));
+                long backoffMillis = RETRY_BACKOFF_MILLIS;
+                boolean failed = false;
+                while (running) {
+                    try {
+                        if (failed) {
+                            rewindToCommitted();
+                            failed = false;
+                        }
+                        ConsumerRecords<String, String> records = consumer.poll(POLL_TIMEOUT);
+                        if (!records.isEmpty()) {
+                            process(records);
+                        }
+                        backoffMillis = RETRY_BACKOFF_MILLIS;
+                    } catch (WakeupException | InterruptException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        failures.increment();
+                        log.error("Stock movement consumer failed, retrying in {} ms: {}", backoffMillis, e.getMessage(), e);
+                        failed = true;
+                        backOff(backoffMillis);
+                        backoffMillis = Math.min(backoffMillis * 2, MAX_RETRY_BACKOFF_MILLIS);
+                    }
+                }
+            } catch (WakeupException | InterruptException e) {
+                // Stopped
+            } catch (RuntimeException e) {
+                log.error("Stock movement consumer failed: {}", e.getMessage(), e);
+            } finally {
+                consumer.close();
+            }
+        }
+
+        private void process(ConsumerRecords<String, String> records) {
+            List<StockMovementDTO> movements = new ArrayList<>(records.count());
+            for (ConsumerRecord<String, String> record : records) {
+                StockMovementDTO movement = null;
+                try {
+                    movement = record.value() != null ? reader.readValue(record.value()) : null;
+                } catch (IOException e) {
+                    log.debug("Invalid stock movement: {}", e.getMessage());
+                }
+                if (movement != null) {
+                    movements.add(movement);
+                } else {
+                    log.warn("Skipping the invalid stock movement at offset {} of partition {}", record.offset(), record.partition());
+                }
+            }
+            try {
+                stockMovementService.apply(movements);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {} stock movements, will retry: {}", movements.size(), e.getMessage());
+                rewind(records);
+                backOff(RETRY_BACKOFF_MILLIS);
+                return;
+            }
+            try {
+                consumer.commitSync(nextOffsets(records));
+            } catch (CommitFailedException e) {
+                // The partitions were reassigned: their new consumer polls the batch again, and ignores its movements
+                log.warn("Could not commit the offsets of {} stock movements: {}", movements.size(), e.getMessage());
+            }
+        }
+
+        private void rewind(ConsumerRecords<String, String> records) {
+            for (TopicPartition partition : records.partitions()) {
+                consumer.seek(partition, records.records(partition).get(0).offset());
+            }
+        }
+
+        /**
+         * Seek back to the committed offsets, as the failure may have happened between a poll and the commit of its
+         * batch.
+         */
+        private void rewindToCommitted() {
+            Set<TopicPartition> assignment = consumer.assignment();
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(assignment);
+            for (TopicPartition partition : assignment) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset != null) {
+                    consumer.seek(partition, offset.offset());
+                }
+            }
+        }
+
+        private void backOff(long millis) {
+            try {
+                // Sleep in slices of a poll, so that stop() does not wait for a long backoff
+                for (long slept = 0; running && slept < millis; slept += POLL_TIMEOUT.toMillis()) {
+                    Thread.sleep(Math.min(millis - slept, POLL_TIMEOUT.toMillis()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptException(e);
+            }
+        }
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> nextOffsets(ConsumerRecords<String, String> records) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, String>> partitionRecords = records.records(partition);
+            offsets.put(partition, new OffsetAndMetadata(partitionRecords.get(partitionRecords.size() - 1).offset() + 1));
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,256 @@
+package com.walgreens.rxi.inventory.service.stock;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.service.dto.StockMovementDTO;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stock of the {@link com.walgreens.rxi.inventory.domain.Product} entities, maintained from their movements.
+ * <p>
+ * A batch of movements is applied in one transaction: the movements whose event id was already applied are
+ * ignored, the others are recorded in {@code stock_movement}, and the stock of each product is changed once by
+ * the sum of its movements, with one JDBC batch of updates and one of inserts for the products without stock yet.
+ * The stock rows are updated in product id order, so that concurrent batches cannot deadlock. The ids of the
+ * applied movements are kept for {@code application.stock-movements.retention}.
+ */
+@Service
+@Transactional
+public class StockMovementService {
+
+    /**
+     * Maximum number of ids in the {@code IN} list of a statement.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final int MAX_EVENT_ID_LENGTH = 64;
+
+    private static final String SELECT_APPLIED_SQL = "select event_id from stock_movement where event_id in (%s)";
+
+    private static final String SELECT_PRODUCT_STOCKS_SQL =
+        "select product.id, product_stock.product_id from product product " +
+        "left join product_stock product_stock on product_stock.product_id = product.id where product.id in (%s)";
+
+    private static final String INSERT_MOVEMENT_SQL =
+        "insert into stock_movement (event_id, product_id, movement_type, quantity, created_date) values (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_STOCK_SQL =
+        "update product_stock set quantity = quantity + ?, last_modified_date = ? where product_id = ?";
+
+    private static final String INSERT_STOCK_SQL = "insert into product_stock (product_id, quantity, last_modified_date) values (?, ?, ?)";
+
+    private static final String SELECT_STOCK_SQL = "select quantity from product_stock where product_id = ?";
+
+    private static final String DELETE_MOVEMENTS_SQL = "delete from stock_movement where created_date < ?";
+
+    private final Logger log = LoggerFactory.getLogger(StockMovementService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    public StockMovementService(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Apply a batch of movements, ignoring those already applied, those of unknown products, and the invalid ones.
+     *
+     * @param movements the movements.
+     * @return the number of applied movements.
+     */
+    public int apply(Collection<StockMovementDTO> movements) {
+        Map<String, StockMovementDTO> byEventId = new LinkedHashMap<>();
+        int invalid = 0;
+        for (StockMovementDTO movement : movements) {
+            if (isValid(movement)) {
+                byEventId.putIfAbsent(movement.getEventId(), movement);
+            } else {
+                invalid++;
+            }
+        }
+        inChunks(
+            new ArrayList<>(byEventId.keySet()),
+            chunk -> jdbcTemplate.queryForList(sql(SELECT_APPLIED_SQL, chunk), String.class, chunk.toArray()).forEach(byEventId::remove)
+        );
+
+        // The change of the stock of each product, in product id order
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (StockMovementDTO movement : byEventId.values()) {
+            deltas.merge(movement.getProductId(), movement.getType().getSign() * movement.getQuantity(), Long::sum);
+        }
+        Set<Long> products = new HashSet<>();
+        Set<Long> stocked = new HashSet<>();
+        inChunks(
+            new ArrayList<>(deltas.keySet()),
+            chunk ->
+                jdbcTemplate.query(
+                    sql(SELECT_PRODUCT_STOCKS_SQL, chunk),
+                    resultSet -> {
+                        products.add(resultSet.getLong(1));
+                        if (resultSet.getObject(2) != null) {
+                            stocked.add(resultSet.getLong(1));
+                        }
+                    },
+                    chunk.toArray()
+                )
+        );
+        List<StockMovementDTO> applied = new ArrayList<>(byEventId.size());
+        for (StockMovementDTO movement : byEventId.values()) {
+            if (products.contains(movement.getProductId())) {
+                applied.add(movement);
+            }
+        }
+        deltas.keySet().retainAll(products);
+        int unknown = byEventId.size() - applied.size();
+        if (invalid > 0 || unknown > 0) {
+            log.warn("Ignoring {} invalid stock movements and {} stock movements of unknown products", invalid, unknown);
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        insertMovements(applied, now);
+        List<Map.Entry<Long, Long>> updates = new ArrayList<>();
+        List<Map.Entry<Long, Long>> inserts = new ArrayList<>();
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            (stocked.contains(delta.getKey()) ? updates : inserts).add(delta);
+        }
+        updateStocks(updates, now);
+        insertStocks(inserts, now);
+        log.debug("Applied {} stock movements to {} products", applied.size(), deltas.size());
+        return applied.size();
+    }
+
+    private static boolean isValid(StockMovementDTO movement) {
+        return (
+            movement.getEventId() != null &&
+            !movement.getEventId().isEmpty() &&
+            movement.getEventId().length() <= MAX_EVENT_ID_LENGTH &&
+            movement.getProductId() != null &&
+            movement.getType() != null &&
+            movement.getQuantity() != null &&
+            movement.getQuantity() > 0
+        );
+    }
+
+    private void insertMovements(List<StockMovementDTO> movements, Timestamp now) {
+        jdbcTemplate.batchUpdate(
+            INSERT_MOVEMENT_SQL,
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    StockMovementDTO movement = movements.get(i);
+                    statement.setString(1, movement.getEventId());
+                    statement.setLong(2, movement.getProductId());
+                    statement.setString(3, movement.getType().name());
+                    statement.setLong(4, movement.getQuantity());
+                    statement.setTimestamp(5, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return movements.size();
+                }
+            }
+        );
+    }
+
+    private void updateStocks(List<Map.Entry<Long, Long>> deltas, Timestamp now) {
+        jdbcTemplate.batchUpdate(
+            UPDATE_STOCK_SQL,
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setLong(1, deltas.get(i).getValue());
+                    statement.setTimestamp(2, now);
+                    statement.setLong(3, deltas.get(i).getKey());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return deltas.size();
+                }
+            }
+        );
+    }
+
+    private void insertStocks(List<Map.Entry<Long, Long>> deltas, Timestamp now) {
+        jdbcTemplate.batchUpdate(
+            INSERT_STOCK_SQL,
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setLong(1, deltas.get(i).getKey());
+                    statement.setLong(2, deltas.get(i).getValue());
+                    statement.setTimestamp(3, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return deltas.size();
+                }
+            }
+        );
+    }
+
+    private static <T> void inChunks(List<T> values, Consumer<List<T>> action) {
+        for (int from = 0; from < values.size(); from += CHUNK_SIZE) {
+            action.accept(values.subList(from, Math.min(from + CHUNK_SIZE, values.size())));
+        }
+    }
+
+    private static String sql(String template, List<?> chunk) {
+        return String.format(template, String.join(", ", Collections.nCopies(chunk.size(), "?")));
+    }
+
+    /**
+     * Get the stock of a product.
+     *
+     * @param productId the id of the product.
+     * @return its stock, or empty if no movement of the product was applied.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findStock(long productId) {
+        return jdbcTemplate.queryForList(SELECT_STOCK_SQL, Long.class, productId).stream().findFirst();
+    }
+
+    /**
+     * Delete the ids of the movements applied before {@code application.stock-movements.retention}.
+     */
+    @Scheduled(cron = "${application.stock-movements.purge-cron}")
+    public void purgeMovements() {
+        purgeMovementsBefore(Instant.now().minus(applicationProperties.getStockMovements().getRetention()));
+    }
+
+    /**
+     * Delete the ids of the movements applied before an instant: their replays would be applied again.
+     *
+     * @param before the instant.
+     * @return the number of deleted movements.
+     */
+    public int purgeMovementsBefore(Instant before) {
+        int deleted = jdbcTemplate.update(DELETE_MOVEMENTS_SQL, Timestamp.from(before));
+        log.info("Purged {} stock movements", deleted);
+        return deleted;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Stock of the products, maintained from the stock movements consumed from Kafka.
+ */
+package com.walgreens.rxi.inventory.service.stock;
@@ -2,11 +2,20 @@ package com.walgreens.rxi.inventory.web.rest;
 
 import com.walgreens.rxi.inventory.domain.Catalog;
 import com.walgreens.rxi.inventory.repository.CatalogRepository;
+import com.walgreens.rxi.inventory.service.CatalogChangeService;
 import com.walgreens.rxi.inventory.service.CatalogService;
+import com.walgreens.rxi.inventory.service.dto.CatalogChangesDTO;
+import com.walgreens.rxi.inventory.service.dto.CatalogDTO;
+import com.walgreens.rxi.inventory.service.mapper.CatalogMapper;
+import com.walgreens.rxi.inventory.service.readmodel.CatalogMembershipIndex;
+import com.walgreens.rxi.inventory.service.readmodel.ProductIdBitmap;
 import com.walgreens.rxi.inventory.web.rest.errors.BadRequestAlertException;
+import com.walgreens.rxi.inventory.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import javax.validation.Valid;
@@ -14,9 +23,16 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
 /**
@@ -30,16 +46,33 @@ public class CatalogResource {
 
     private static final String ENTITY_NAME = "inventoryCatalog";
 
+    private static final int MAX_PRODUCT_IDS_PAGE_SIZE = 10000;
+
+    private static final int MAX_PRODUCT_IDS_BATCH_SIZE = 10000;
+
+    private static final String INCLUDE_MEMBERS = "members";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final CatalogService catalogService;
 
+    private final CatalogChangeService catalogChangeService;
+
     private final CatalogRepository catalogRepository;
 
-    public CatalogResource(CatalogService catalogService, CatalogRepository catalogRepository) {
+    private final CatalogMapper catalogMapper;
+
+    public CatalogResource(
+        CatalogService catalogService,
+        CatalogChangeService catalogChangeService,
+        CatalogRepository catalogRepository,
+        CatalogMapper catalogMapper
+    ) {
         this.catalogService = catalogService;
+        this.catalogChangeService = catalogChangeService;
         this.catalogRepository = catalogRepository;
+        this.catalogMapper = catalogMapper;
     }
 
     /**
@@ -50,7 +83,7 @@ public class CatalogResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/catalogs")
-    public ResponseEntity<Catalog> createCatalog(@Valid @RequestBody Catalog catalog) throws URISyntaxException {
+    public ResponseEntity<CatalogDTO> createCatalog(@Valid @RequestBody Catalog catalog) throws URISyntaxException {
         log.debug("REST request to save Catalog : {}", catalog);
         if (catalog.getId() != null) {
             throw new BadRequestAlertException("A new catalog cannot already have an ID", ENTITY_NAME, "idexists");
@@ -59,7 +92,7 @@ public class CatalogResource {
         return ResponseEntity
             .created(new URI("/api/catalogs/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+            .body(catalogMapper.toDto(result));
     }
 
     /**
@@ -73,7 +106,7 @@ public class CatalogResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/catalogs/{id}")
-    public ResponseEntity<Catalog> updateCatalog(
+    public ResponseEntity<CatalogDTO> updateCatalog(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody Catalog catalog
     ) throws URISyntaxException {
@@ -93,7 +126,7 @@ public class CatalogResource {
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, catalog.getId().toString()))
-            .body(result);
+            .body(catalogMapper.toDto(result));
     }
 
     /**
@@ -108,7 +141,7 @@ public class CatalogResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/catalogs/{id}", consumes = "application/merge-patch+json")
-    public ResponseEntity<Catalog> partialUpdateCatalog(
+    public ResponseEntity<CatalogDTO> partialUpdateCatalog(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody Catalog catalog
     ) throws URISyntaxException {
@@ -127,7 +160,7 @@ public class CatalogResource {
         Optional<Catalog> result = catalogService.partialUpdate(catalog);
 
         return ResponseUtil.wrapOrNotFound(
-            result,
+            result.map(catalogMapper::toDto),
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, catalog.getId().toString())
         );
     }
@@ -135,13 +168,21 @@ public class CatalogResource {
     /**
      * {@code GET  /catalogs} : get all the catalogs.
      *
-     * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param pageable the pagination information.
+     * @param include {@code members} to include the products of the catalogs, which are otherwise {@code null}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of catalogs in body.
      */
     @GetMapping("/catalogs")
-    public List<Catalog> getAllCatalogs(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
-        log.debug("REST request to get all Catalogs");
-        return catalogService.findAll();
+    public ResponseEntity<List<CatalogDTO>> getAllCatalogs(
+        Pageable pageable,
+        @RequestParam(value = "include", required = false) String include
+    ) {
+        log.debug("REST request to get a page of Catalogs, including : {}", include);
+        Page<Catalog> page = INCLUDE_MEMBERS.equals(include)
+            ? catalogService.findAllWithEagerRelationships(pageable)
+            : catalogService.findAll(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(catalogMapper.toDto(page.getContent()));
     }
 
     /**
@@ -151,10 +192,184 @@ public class CatalogResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the catalog, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/catalogs/{id}")
-    public ResponseEntity<Catalog> getCatalog(@PathVariable Long id) {
+    public ResponseEntity<CatalogDTO> getCatalog(@PathVariable Long id) {
         log.debug("REST request to get Catalog : {}", id);
         Optional<Catalog> catalog = catalogService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(catalog);
+        return ResponseUtil.wrapOrNotFound(catalog.map(catalogMapper::toDto));
+    }
+
+    /**
+     * {@code POST  /catalogs/:id/products} : add a batch of products to the "id" catalog.
+     * <p>
+     * Unlike {@code PUT /catalogs/:id}, only the memberships of the given products are written. Products that do not
+     * exist or are already in the catalog are ignored.
+     *
+     * @param id the id of the catalog.
+     * @param productIds the ids of the products to add.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of added products in body,
+     * or with status {@code 400 (Bad Request)} if the batch is empty, too large or contains a null id,
+     * or with status {@code 404 (Not Found)} if the catalog does not exist.
+     */
+    @PostMapping("/catalogs/{id}/products")
+    public ResponseEntity<Integer> addProducts(@PathVariable Long id, @RequestBody List<Long> productIds) {
+        log.debug("REST request to add Products : {} to Catalog : {}", productIds, id);
+        validateProductIdsBatch(productIds);
+        Integer added = catalogService
+            .addProducts(id, productIds)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()))
+            .body(added);
+    }
+
+    /**
+     * {@code DELETE  /catalogs/:id/products} : remove a batch of products from the "id" catalog.
+     * <p>
+     * Only the memberships of the given products are deleted. Products that are not in the catalog are ignored.
+     *
+     * @param id the id of the catalog.
+     * @param productIds the ids of the products to remove.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of removed products in body,
+     * or with status {@code 400 (Bad Request)} if the batch is empty, too large or contains a null id,
+     * or with status {@code 404 (Not Found)} if the catalog does not exist.
+     */
+    @DeleteMapping("/catalogs/{id}/products")
+    public ResponseEntity<Integer> removeProducts(@PathVariable Long id, @RequestBody List<Long> productIds) {
+        log.debug("REST request to remove Products : {} from Catalog : {}", productIds, id);
+        validateProductIdsBatch(productIds);
+        Integer removed = catalogService
+            .removeProducts(id, productIds)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()))
+            .body(removed);
+    }
+
+    /**
+     * {@code GET  /catalogs/:id/changes?since=:version} : get the changes of the "id" catalog since a version.
+     * <p>
+     * The products added or updated since the version, and the ids of the removed ones, are returned with the
+     * current version, which the client sends back on its next sync. Without a version, or when the changes that
+     * follow it are no longer kept, all the products of the catalog are returned as a snapshot instead.
+     *
+     * @param id the id of the catalog.
+     * @param since the version held by the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the changes in body,
+     * or with status {@code 400 (Bad Request)} if the version is negative,
+     * or with status {@code 404 (Not Found)} if the catalog does not exist.
+     */
+    @GetMapping("/catalogs/{id}/changes")
+    public ResponseEntity<CatalogChangesDTO> getCatalogChanges(
+        @PathVariable Long id,
+        @RequestParam(value = "since", required = false) Long since
+    ) {
+        log.debug("REST request to get the changes of Catalog : {} since version : {}", id, since);
+        if (since != null && since < 0) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "versioninvalid");
+        }
+        return ResponseUtil.wrapOrNotFound(catalogChangeService.findChanges(id, since));
+    }
+
+    /**
+     * {@code GET  /catalogs/:id/products/:productId} : check whether the "id" catalog contains the "productId" product.
+     *
+     * @param id the id of the catalog.
+     * @param productId the id of the product.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and whether the catalog contains the product in body,
+     * or with status {@code 404 (Not Found)} if the catalog does not exist.
+     */
+    @GetMapping("/catalogs/{id}/products/{productId}")
+    public ResponseEntity<Boolean> containsProduct(@PathVariable Long id, @PathVariable Long productId) {
+        log.debug("REST request to check whether Catalog : {} contains Product : {}", id, productId);
+        return ResponseUtil.wrapOrNotFound(catalogService.findProductIds(id).map(productIds -> productIds.contains(productId)));
+    }
+
+    /**
+     * {@code GET  /catalogs/:id/products/count} : count the products of the "id" catalog.
+     *
+     * @param id the id of the catalog.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body,
+     * or with status {@code 404 (Not Found)} if the catalog does not exist.
+     */
+    @GetMapping("/catalogs/{id}/products/count")
+    public ResponseEntity<Long> countProducts(@PathVariable Long id) {
+        log.debug("REST request to count the Products of Catalog : {}", id);
+        return ResponseUtil.wrapOrNotFound(catalogService.findProductIds(id).map(ProductIdBitmap::cardinality));
+    }
+
+    /**
+     * {@code GET  /catalogs/by-product/:productId} : get the ids of the catalogs that contain the "productId" product.
+     *
+     * @param productId the id of the product.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ids of the catalogs in body.
+     */
+    @GetMapping("/catalogs/by-product/{productId}")
+    public ResponseEntity<List<Long>> getCatalogIdsContainingProduct(@PathVariable Long productId) {
+        log.debug("REST request to get the Catalogs containing Product : {}", productId);
+        return ResponseEntity.ok().body(catalogService.findIdsContainingProduct(productId));
+    }
+
+    /**
+     * {@code GET  /catalogs/product-ids?operation=intersection|union|difference&catalogIds=&after=:cursor} : get a keyset
+     * page of the ids of the products in all, any, or the first but none of the other given catalogs.
+     * <p>
+     * The ids are in increasing order. The total number of ids is always returned in the {@code X-Total-Count} header,
+     * and the cursor of the next page in the {@code X-Next-Cursor} and {@code Link} headers.
+     *
+     * @param operation the set operation.
+     * @param catalogIds the ids of the catalogs.
+     * @param after the opaque cursor returned with the previous page, empty or absent for the first page.
+     * @param size the page size.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ids of the products in body,
+     * or with status {@code 400 (Bad Request)} if a parameter is invalid,
+     * or with status {@code 404 (Not Found)} if one of the catalogs does not exist.
+     */
+    @GetMapping("/catalogs/product-ids")
+    public ResponseEntity<List<Long>> getCombinedProductIds(
+        @RequestParam("operation") String operation,
+        @RequestParam("catalogIds") List<Long> catalogIds,
+        @RequestParam(value = "after", required = false) String after,
+        @RequestParam(value = "size", defaultValue = "1000") int size
+    ) {
+        log.debug("REST request to get the {} of the Product ids of Catalogs : {}, after : {}", operation, catalogIds, after);
+        CatalogMembershipIndex.SetOperation setOperation;
+        try {
+            setOperation = CatalogMembershipIndex.SetOperation.valueOf(operation.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid set operation", ENTITY_NAME, "operationinvalid");
+        }
+        if (catalogIds.isEmpty() || catalogIds.contains(null)) {
+            throw new BadRequestAlertException("Invalid catalog ids", ENTITY_NAME, "catalogidsinvalid");
+        }
+        if (size < 1 || size > MAX_PRODUCT_IDS_PAGE_SIZE) {
+            throw new BadRequestAlertException("Invalid page size", ENTITY_NAME, "sizeinvalid");
+        }
+        Long afterId;
+        try {
+            afterId = KeysetPaginationUtil.decodeCursor(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        ProductIdBitmap productIds = catalogService
+            .combineProductIds(setOperation, catalogIds)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        // One more id than requested tells whether there is a next page
+        long[] page = new long[size + 1];
+        int count = productIds.copyIdsAfter(afterId != null ? afterId : -1, page);
+        List<Long> content = new ArrayList<>(Math.min(count, size));
+        for (int i = 0; i < count && i < size; i++) {
+            content.add(page[i]);
+        }
+        String nextCursor = count > size ? KeysetPaginationUtil.encodeCursor(page[size - 1]) : null;
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            size,
+            productIds.cardinality()
+        );
+        return ResponseEntity.ok().headers(headers).body(content);
     }
 
     /**
@@ -172,4 +387,10 @@ public class CatalogResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    private static void validateProductIdsBatch(List<Long> productIds) {
+        if (productIds.isEmpty() || productIds.size() > MAX_PRODUCT_IDS_BATCH_SIZE || productIds.contains(null)) {
+            throw new BadRequestAlertException("Invalid product ids", ENTITY_NAME, "productidsinvalid");
+        }
+    }
 }
@@ -3,6 +3,9 @@ package com.walgreens.rxi.inventory.web.rest;
 import com.walgreens.rxi.inventory.domain.Category;
 import com.walgreens.rxi.inventory.repository.CategoryRepository;
 import com.walgreens.rxi.inventory.service.CategoryService;
+import com.walgreens.rxi.inventory.service.dto.CategoryDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductCountsDTO;
+import com.walgreens.rxi.inventory.service.mapper.CategoryMapper;
 import com.walgreens.rxi.inventory.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -37,9 +40,12 @@ public class CategoryResource {
 
     private final CategoryRepository categoryRepository;
 
-    public CategoryResource(CategoryService categoryService, CategoryRepository categoryRepository) {
+    private final CategoryMapper categoryMapper;
+
+    public CategoryResource(CategoryService categoryService, CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
         this.categoryService = categoryService;
         this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
     }
 
     /**
@@ -50,7 +56,7 @@ public class CategoryResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/categories")
-    public ResponseEntity<Category> createCategory(@Valid @RequestBody Category category) throws URISyntaxException {
+    public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody Category category) throws URISyntaxException {
         log.debug("REST request to save Category : {}", category);
         if (category.getId() != null) {
             throw new BadRequestAlertException("A new category cannot already have an ID", ENTITY_NAME, "idexists");
@@ -59,7 +65,7 @@ public class CategoryResource {
         return ResponseEntity
             .created(new URI("/api/categories/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+            .body(categoryMapper.toDto(result));
     }
 
     /**
@@ -73,7 +79,7 @@ public class CategoryResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/categories/{id}")
-    public ResponseEntity<Category> updateCategory(
+    public ResponseEntity<CategoryDTO> updateCategory(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody Category category
     ) throws URISyntaxException {
@@ -93,7 +99,7 @@ public class CategoryResource {
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, category.getId().toString()))
-            .body(result);
+            .body(categoryMapper.toDto(result));
     }
 
     /**
@@ -108,7 +114,7 @@ public class CategoryResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/categories/{id}", consumes = "application/merge-patch+json")
-    public ResponseEntity<Category> partialUpdateCategory(
+    public ResponseEntity<CategoryDTO> partialUpdateCategory(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody Category category
     ) throws URISyntaxException {
@@ -127,7 +133,7 @@ public class CategoryResource {
         Optional<Category> result = categoryService.partialUpdate(category);
 
         return ResponseUtil.wrapOrNotFound(
-            result,
+            result.map(categoryMapper::toDto),
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, category.getId().toString())
         );
     }
@@ -138,9 +144,22 @@ public class CategoryResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of categories in body.
      */
     @GetMapping("/categories")
-    public List<Category> getAllCategories() {
+    public List<CategoryDTO> getAllCategories() {
         log.debug("REST request to get all Categories");
-        return categoryService.findAll();
+        return categoryMapper.toDto(categoryService.findAll());
+    }
+
+    /**
+     * {@code GET  /categories/stats} : get the number of products of each category, by status and by type.
+     * <p>
+     * The counts are kept in memory, so no product is loaded. Categories without products are left out.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the counts in body.
+     */
+    @GetMapping("/categories/stats")
+    public List<ProductCountsDTO> getCategoryStats() {
+        log.debug("REST request to get the Product counts of all Categories");
+        return categoryService.findProductCounts();
     }
 
     /**
@@ -150,10 +169,10 @@ public class CategoryResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the category, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/categories/{id}")
-    public ResponseEntity<Category> getCategory(@PathVariable Long id) {
+    public ResponseEntity<CategoryDTO> getCategory(@PathVariable Long id) {
         log.debug("REST request to get Category : {}", id);
         Optional<Category> category = categoryService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(category);
+        return ResponseUtil.wrapOrNotFound(category.map(categoryMapper::toDto));
     }
 
     /**
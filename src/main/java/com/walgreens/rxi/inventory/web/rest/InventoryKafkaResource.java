@@ -1,37 +1,43 @@
 package com.walgreens.rxi.inventory.web.rest;
 
 import com.walgreens.rxi.inventory.config.KafkaProperties;
-import java.time.Duration;
+import com.walgreens.rxi.inventory.service.fanout.FanOutSubscriber;
+import com.walgreens.rxi.inventory.service.fanout.KafkaFanOut;
+import java.io.IOException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/inventory-kafka")
 public class InventoryKafkaResource {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final Logger log = LoggerFactory.getLogger(InventoryKafkaResource.class);
 
-    private final KafkaProperties kafkaProperties;
+    private final KafkaFanOut kafkaFanOut;
     private KafkaProducer<String, String> producer;
-    private ExecutorService sseExecutorService = Executors.newCachedThreadPool();
+    private final Semaphore inFlightMessages;
 
-    public InventoryKafkaResource(KafkaProperties kafkaProperties) {
-        this.kafkaProperties = kafkaProperties;
+    public InventoryKafkaResource(KafkaProperties kafkaProperties, KafkaFanOut kafkaFanOut) {
+        this.kafkaFanOut = kafkaFanOut;
         this.producer = new KafkaProducer<>(kafkaProperties.getProducerProps());
+        this.inFlightMessages = new Semaphore(kafkaProperties.getMaxInFlightMessages());
     }
 
     @PostMapping("/publish/{topic}")
@@ -42,37 +48,62 @@ public class InventoryKafkaResource {
         return new PublishResult(metadata.topic(), metadata.partition(), metadata.offset(), Instant.ofEpochMilli(metadata.timestamp()));
     }
 
+    /**
+     * Publish a batch of messages without holding the request thread: the messages are handed to the producer, which
+     * batches them as its {@code linger.ms} and {@code batch.size} allow, and the response is written when the last
+     * of them is acknowledged. When more than {@code kafka.max-in-flight-messages} messages would await their
+     * acknowledgement, the batch is refused with a {@code 429 (Too Many Requests)}.
+     *
+     * @param topic the topic.
+     * @param messages the messages, at most {@value #MAX_BATCH_SIZE}.
+     * @return the result of each message, in the order of the batch.
+     */
+    @PostMapping(value = "/publish/{topic}/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<List<PublishResult>> publishBatch(@PathVariable String topic, @RequestBody List<PublishMessage> messages) {
+        log.debug("REST request to send to Kafka topic {} a batch of {} messages", topic, messages.size());
+        if (messages.isEmpty() || messages.size() > MAX_BATCH_SIZE || messages.stream().anyMatch(m -> m == null || m.message == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_BATCH_SIZE + " messages are required");
+        }
+        if (!inFlightMessages.tryAcquire(messages.size())) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many messages awaiting their acknowledgement");
+        }
+        BatchPublication publication = new BatchPublication(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            PublishMessage message = messages.get(i);
+            int index = i;
+            try {
+                producer.send(
+                    new ProducerRecord<>(topic, message.key, message.message),
+                    (metadata, exception) -> {
+                        inFlightMessages.release();
+                        publication.acknowledge(index, metadata, exception);
+                    }
+                );
+            } catch (RuntimeException e) {
+                // Neither this message nor the next ones were handed to the producer
+                inFlightMessages.release(messages.size() - i);
+                publication.result.completeExceptionally(e);
+                break;
+            }
+        }
+        return publication.result;
+    }
+
+    /**
+     * Stream the values of the records of topics as server-sent events, from the shared consumer of each topic of
+     * this node: a client too slow to keep up gets only the last value of each key, or is disconnected.
+     *
+     * @param topics the topics.
+     * @return the stream.
+     */
     @GetMapping("/consume")
-    public SseEmitter consume(@RequestParam("topic") List<String> topics, @RequestParam Map<String, String> consumerParams) {
+    public SseEmitter consume(@RequestParam("topic") List<String> topics) {
         log.debug("REST request to consume records from Kafka topics {}", topics);
-        Map<String, Object> consumerProps = kafkaProperties.getConsumerProps();
-        consumerProps.putAll(consumerParams);
-        consumerProps.remove("topic");
-
         SseEmitter emitter = new SseEmitter(0L);
-        sseExecutorService.execute(
-            () -> {
-                KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProps);
-                emitter.onCompletion(consumer::close);
-                consumer.subscribe(topics);
-                boolean exitLoop = false;
-                while (!exitLoop) {
-                    try {
-                        ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(5));
-                        for (ConsumerRecord<String, String> record : records) {
-                            emitter.send(record.value());
-                        }
-                        emitter.send(SseEmitter.event().comment(""));
-                    } catch (Exception ex) {
-                        log.trace("Complete with error {}", ex.getMessage(), ex);
-                        emitter.completeWithError(ex);
-                        exitLoop = true;
-                    }
-                }
-                consumer.close();
-                emitter.complete();
-            }
-        );
+        FanOutSubscriber subscriber = kafkaFanOut.subscribe(topics, new EmitterSink(emitter));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
         return emitter;
     }
 
@@ -90,4 +121,67 @@ public class InventoryKafkaResource {
             this.timestamp = timestamp;
         }
     }
+
+    private static class PublishMessage {
+
+        public String key;
+        public String message;
+    }
+
+    /**
+     * The acknowledgements of a batch: completed by the producer I/O thread with the last of them, or with the
+     * first error.
+     */
+    private static class BatchPublication {
+
+        private final PublishResult[] results;
+        private final AtomicInteger pending;
+        private final CompletableFuture<List<PublishResult>> result = new CompletableFuture<>();
+
+        private BatchPublication(int size) {
+            this.results = new PublishResult[size];
+            this.pending = new AtomicInteger(size);
+        }
+
+        private void acknowledge(int index, RecordMetadata metadata, Exception exception) {
+            if (exception != null) {
+                result.completeExceptionally(exception);
+                return;
+            }
+            results[index] =
+                new PublishResult(metadata.topic(), metadata.partition(), metadata.offset(), Instant.ofEpochMilli(metadata.timestamp()));
+            if (pending.decrementAndGet() == 0) {
+                result.complete(Arrays.asList(results));
+            }
+        }
+    }
+
+    private static class EmitterSink implements FanOutSubscriber.Sink {
+
+        private final SseEmitter emitter;
+
+        private EmitterSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(String value) throws IOException {
+            emitter.send(value);
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment(""));
+        }
+
+        @Override
+        public void complete(Throwable error) {
+            if (error != null) {
+                emitter.completeWithError(error);
+            } else {
+                // The client reconnects, and resumes from the records consumed from then on
+                emitter.complete();
+            }
+        }
+    }
 }
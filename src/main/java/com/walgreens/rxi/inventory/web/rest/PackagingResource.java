@@ -3,6 +3,12 @@ package com.walgreens.rxi.inventory.web.rest;
 import com.walgreens.rxi.inventory.domain.Packaging;
 import com.walgreens.rxi.inventory.repository.PackagingRepository;
 import com.walgreens.rxi.inventory.service.PackagingService;
+import com.walgreens.rxi.inventory.service.PackingService;
+import com.walgreens.rxi.inventory.service.dto.PackagingDTO;
+import com.walgreens.rxi.inventory.service.dto.PackingPlanDTO;
+import com.walgreens.rxi.inventory.service.dto.PackingRequestDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductCountsDTO;
+import com.walgreens.rxi.inventory.service.mapper.PackagingMapper;
 import com.walgreens.rxi.inventory.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -14,6 +20,7 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
@@ -37,9 +44,20 @@ public class PackagingResource {
 
     private final PackagingRepository packagingRepository;
 
-    public PackagingResource(PackagingService packagingService, PackagingRepository packagingRepository) {
+    private final PackagingMapper packagingMapper;
+
+    private final PackingService packingService;
+
+    public PackagingResource(
+        PackagingService packagingService,
+        PackagingRepository packagingRepository,
+        PackagingMapper packagingMapper,
+        PackingService packingService
+    ) {
         this.packagingService = packagingService;
         this.packagingRepository = packagingRepository;
+        this.packagingMapper = packagingMapper;
+        this.packingService = packingService;
     }
 
     /**
@@ -50,7 +68,7 @@ public class PackagingResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/packagings")
-    public ResponseEntity<Packaging> createPackaging(@Valid @RequestBody Packaging packaging) throws URISyntaxException {
+    public ResponseEntity<PackagingDTO> createPackaging(@Valid @RequestBody Packaging packaging) throws URISyntaxException {
         log.debug("REST request to save Packaging : {}", packaging);
         if (packaging.getId() != null) {
             throw new BadRequestAlertException("A new packaging cannot already have an ID", ENTITY_NAME, "idexists");
@@ -59,7 +77,7 @@ public class PackagingResource {
         return ResponseEntity
             .created(new URI("/api/packagings/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+            .body(packagingMapper.toDto(result));
     }
 
     /**
@@ -73,7 +91,7 @@ public class PackagingResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/packagings/{id}")
-    public ResponseEntity<Packaging> updatePackaging(
+    public ResponseEntity<PackagingDTO> updatePackaging(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody Packaging packaging
     ) throws URISyntaxException {
@@ -93,7 +111,7 @@ public class PackagingResource {
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, packaging.getId().toString()))
-            .body(result);
+            .body(packagingMapper.toDto(result));
     }
 
     /**
@@ -108,7 +126,7 @@ public class PackagingResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/packagings/{id}", consumes = "application/merge-patch+json")
-    public ResponseEntity<Packaging> partialUpdatePackaging(
+    public ResponseEntity<PackagingDTO> partialUpdatePackaging(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody Packaging packaging
     ) throws URISyntaxException {
@@ -127,7 +145,7 @@ public class PackagingResource {
         Optional<Packaging> result = packagingService.partialUpdate(packaging);
 
         return ResponseUtil.wrapOrNotFound(
-            result,
+            result.map(packagingMapper::toDto),
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, packaging.getId().toString())
         );
     }
@@ -138,9 +156,36 @@ public class PackagingResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of packagings in body.
      */
     @GetMapping("/packagings")
-    public List<Packaging> getAllPackagings() {
+    public List<PackagingDTO> getAllPackagings() {
         log.debug("REST request to get all Packagings");
-        return packagingService.findAll();
+        return packagingMapper.toDto(packagingService.findAll());
+    }
+
+    /**
+     * {@code GET  /packagings/stats} : get the number of products of each packaging, by status and by type.
+     * <p>
+     * The counts are kept in memory, so no product is loaded. Packagings without products are left out.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the counts in body.
+     */
+    @GetMapping("/packagings/stats")
+    public List<ProductCountsDTO> getPackagingStats() {
+        log.debug("REST request to get the Product counts of all Packagings");
+        return packagingService.findProductCounts();
+    }
+
+    /**
+     * {@code POST  /packagings/packing-plan} : plan the packing of quantities of products into identical containers,
+     * such as shelves, drawers, refrigerators or pallets.
+     *
+     * @param request the lines to pack, at most {@link PackingRequestDTO#MAX_LINES}, and the inner dimensions of the container.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the plan,
+     * or with status {@code 400 (Bad Request)} if the request is not valid.
+     */
+    @PostMapping(value = "/packagings/packing-plan", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PackingPlanDTO> planPacking(@Valid @RequestBody PackingRequestDTO request) {
+        log.debug("REST request to plan a packing : {}", request);
+        return ResponseEntity.ok().body(packingService.plan(request));
     }
 
     /**
@@ -150,10 +195,10 @@ public class PackagingResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the packaging, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/packagings/{id}")
-    public ResponseEntity<Packaging> getPackaging(@PathVariable Long id) {
+    public ResponseEntity<PackagingDTO> getPackaging(@PathVariable Long id) {
         log.debug("REST request to get Packaging : {}", id);
         Optional<Packaging> packaging = packagingService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(packaging);
+        return ResponseUtil.wrapOrNotFound(packaging.map(packagingMapper::toDto));
     }
 
     /**
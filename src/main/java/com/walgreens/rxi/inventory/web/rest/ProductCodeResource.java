@@ -3,6 +3,10 @@ package com.walgreens.rxi.inventory.web.rest;
 import com.walgreens.rxi.inventory.domain.ProductCode;
 import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
 import com.walgreens.rxi.inventory.service.ProductCodeService;
+import com.walgreens.rxi.inventory.service.dto.GtinValidationDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductCodeDTO;
+import com.walgreens.rxi.inventory.service.gtin.InvalidGtinException;
+import com.walgreens.rxi.inventory.service.mapper.ProductCodeMapper;
 import com.walgreens.rxi.inventory.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -15,9 +19,16 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
 /**
@@ -31,6 +42,8 @@ public class ProductCodeResource {
 
     private static final String ENTITY_NAME = "inventoryProductCode";
 
+    static final int MAX_CODES_BATCH_SIZE = 100_000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -38,29 +51,37 @@ public class ProductCodeResource {
 
     private final ProductCodeRepository productCodeRepository;
 
-    public ProductCodeResource(ProductCodeService productCodeService, ProductCodeRepository productCodeRepository) {
+    private final ProductCodeMapper productCodeMapper;
+
+    public ProductCodeResource(
+        ProductCodeService productCodeService,
+        ProductCodeRepository productCodeRepository,
+        ProductCodeMapper productCodeMapper
+    ) {
         this.productCodeService = productCodeService;
         this.productCodeRepository = productCodeRepository;
+        this.productCodeMapper = productCodeMapper;
     }
 
     /**
      * {@code POST  /product-codes} : Create a new productCode.
      *
      * @param productCode the productCode to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new productCode, or with status {@code 400 (Bad Request)} if the productCode has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new productCode, or with status {@code 400 (Bad Request)} if the productCode has already an ID,
+     * or if its UPC is not a GTIN.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/product-codes")
-    public ResponseEntity<ProductCode> createProductCode(@Valid @RequestBody ProductCode productCode) throws URISyntaxException {
+    public ResponseEntity<ProductCodeDTO> createProductCode(@Valid @RequestBody ProductCode productCode) throws URISyntaxException {
         log.debug("REST request to save ProductCode : {}", productCode);
         if (productCode.getId() != null) {
             throw new BadRequestAlertException("A new productCode cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        ProductCode result = productCodeService.save(productCode);
+        ProductCode result = save(productCode);
         return ResponseEntity
             .created(new URI("/api/product-codes/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+            .body(productCodeMapper.toDto(result));
     }
 
     /**
@@ -74,7 +95,7 @@ public class ProductCodeResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/product-codes/{id}")
-    public ResponseEntity<ProductCode> updateProductCode(
+    public ResponseEntity<ProductCodeDTO> updateProductCode(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody ProductCode productCode
     ) throws URISyntaxException {
@@ -90,11 +111,11 @@ public class ProductCodeResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
-        ProductCode result = productCodeService.save(productCode);
+        ProductCode result = save(productCode);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, productCode.getId().toString()))
-            .body(result);
+            .body(productCodeMapper.toDto(result));
     }
 
     /**
@@ -109,7 +130,7 @@ public class ProductCodeResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/product-codes/{id}", consumes = "application/merge-patch+json")
-    public ResponseEntity<ProductCode> partialUpdateProductCode(
+    public ResponseEntity<ProductCodeDTO> partialUpdateProductCode(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody ProductCode productCode
     ) throws URISyntaxException {
@@ -125,28 +146,95 @@ public class ProductCodeResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
-        Optional<ProductCode> result = productCodeService.partialUpdate(productCode);
+        Optional<ProductCode> result;
+        try {
+            result = productCodeService.partialUpdate(productCode);
+        } catch (InvalidGtinException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "codeinvalid");
+        }
 
         return ResponseUtil.wrapOrNotFound(
-            result,
+            result.map(productCodeMapper::toDto),
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, productCode.getId().toString())
         );
     }
 
+    /**
+     * {@code POST  /product-codes/validate} : Validate and normalize a batch of codes as GTINs, from a JSON array of
+     * strings.
+     *
+     * @param codes the codes, at most {@value #MAX_CODES_BATCH_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each code,
+     * or with status {@code 400 (Bad Request)} if the batch is empty or too large.
+     */
+    @PostMapping(value = "/product-codes/validate", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<GtinValidationDTO> validateProductCodes(@RequestBody List<String> codes) {
+        log.debug("REST request to validate {} codes", codes.size());
+        checkBatchSize(codes.size());
+        return ResponseEntity.ok().body(productCodeService.validateCodes(codes));
+    }
+
+    /**
+     * {@code POST  /product-codes/validate} : Validate and normalize a batch of codes as GTINs, from a plain text
+     * body of one code per line; the codes are parsed from its bytes, without a string per line, once the lines
+     * are counted.
+     *
+     * @param lines the codes, at most {@value #MAX_CODES_BATCH_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each line,
+     * or with status {@code 400 (Bad Request)} if the batch is empty or too large.
+     */
+    @PostMapping(value = "/product-codes/validate", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<GtinValidationDTO> validateProductCodeLines(@RequestBody byte[] lines) {
+        log.debug("REST request to validate {} bytes of codes", lines.length);
+        checkBatchSize(countLines(lines));
+        return ResponseEntity.ok().body(productCodeService.validateCodes(lines));
+    }
+
     /**
      * {@code GET  /product-codes} : get all the productCodes.
+     * <p>
+     * With the {@code product-is-null} filter, only the codes without product are returned, a page at a time.
      *
      * @param filter the filter of the request.
+     * @param pageable the pagination information, for the codes without product.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productCodes in body.
      */
     @GetMapping("/product-codes")
-    public List<ProductCode> getAllProductCodes(@RequestParam(required = false) String filter) {
+    public ResponseEntity<List<ProductCodeDTO>> getAllProductCodes(
+        @RequestParam(required = false) String filter,
+        @SortDefault("id") Pageable pageable
+    ) {
         if ("product-is-null".equals(filter)) {
-            log.debug("REST request to get all ProductCodes where product is null");
-            return productCodeService.findAllWhereProductIsNull();
+            log.debug("REST request to get a page of ProductCodes where product is null");
+            Page<ProductCode> page = productCodeService.findAllWhereProductIsNull(pageable);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+            return ResponseEntity.ok().headers(headers).body(productCodeMapper.toDto(page.getContent()));
         }
         log.debug("REST request to get all ProductCodes");
-        return productCodeService.findAll();
+        return ResponseEntity.ok(productCodeMapper.toDto(productCodeService.findAll()));
+    }
+
+    /**
+     * {@code GET  /product-codes/lookup?upc=|barcode=} : get the productCode with the given UPC or barcode.
+     *
+     * @param upc the UPC of the productCode to retrieve.
+     * @param barcode the barcode of the productCode to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productCode, or with status {@code 404 (Not Found)},
+     * or with status {@code 400 (Bad Request)} unless exactly one of the codes is given.
+     */
+    @GetMapping("/product-codes/lookup")
+    public ResponseEntity<ProductCodeDTO> lookupProductCode(
+        @RequestParam(value = "upc", required = false) String upc,
+        @RequestParam(value = "barcode", required = false) String barcode
+    ) {
+        log.debug("REST request to look up ProductCode by UPC : {} or barcode : {}", upc, barcode);
+        if ((upc == null) == (barcode == null)) {
+            throw new BadRequestAlertException("Exactly one of upc and barcode is required", ENTITY_NAME, "lookupinvalid");
+        }
+        Optional<ProductCode> productCode = upc != null
+            ? productCodeService.findOneByUpc(upc)
+            : productCodeService.findOneByBarcode(barcode);
+        return ResponseUtil.wrapOrNotFound(productCode.map(productCodeMapper::toDto));
     }
 
     /**
@@ -156,10 +244,10 @@ public class ProductCodeResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productCode, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/product-codes/{id}")
-    public ResponseEntity<ProductCode> getProductCode(@PathVariable Long id) {
+    public ResponseEntity<ProductCodeDTO> getProductCode(@PathVariable Long id) {
         log.debug("REST request to get ProductCode : {}", id);
         Optional<ProductCode> productCode = productCodeService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(productCode);
+        return ResponseUtil.wrapOrNotFound(productCode.map(productCodeMapper::toDto));
     }
 
     /**
@@ -177,4 +265,36 @@ public class ProductCodeResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    private ProductCode save(ProductCode productCode) {
+        try {
+            return productCodeService.save(productCode);
+        } catch (InvalidGtinException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "codeinvalid");
+        }
+    }
+
+    /**
+     * @return the number of lines, but a last empty one, as {@link ProductCodeService#validateCodes(byte[])} gives
+     * a result for each; the count stops past {@value #MAX_CODES_BATCH_SIZE}.
+     */
+    private static int countLines(byte[] lines) {
+        int count = 0;
+        for (int i = 0; i < lines.length && count <= MAX_CODES_BATCH_SIZE; i++) {
+            if (lines[i] == '\n' || i == lines.length - 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void checkBatchSize(int size) {
+        if (size < 1 || size > MAX_CODES_BATCH_SIZE) {
+            throw new BadRequestAlertException(
+                "Between 1 and " + MAX_CODES_BATCH_SIZE + " codes are required",
+                ENTITY_NAME,
+                "codesinvalid"
+            );
+        }
+    }
 }
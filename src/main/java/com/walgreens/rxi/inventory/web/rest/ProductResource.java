@@ -1,14 +1,46 @@
 package com.walgreens.rxi.inventory.web.rest;
 
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
 import com.walgreens.rxi.inventory.domain.Product;
 import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.ImageStoreService;
+import com.walgreens.rxi.inventory.service.ProductExportService;
+import com.walgreens.rxi.inventory.service.ProductFileFormat;
+import com.walgreens.rxi.inventory.service.ProductImportService;
+import com.walgreens.rxi.inventory.service.ProductQueryService;
 import com.walgreens.rxi.inventory.service.ProductService;
+import com.walgreens.rxi.inventory.service.criteria.ProductCriteria;
+import com.walgreens.rxi.inventory.service.dto.ProductBulkUpdateDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductBulkUpdateResultDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductImageDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductImportReportDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import com.walgreens.rxi.inventory.service.mapper.ProductMapper;
 import com.walgreens.rxi.inventory.web.rest.errors.BadRequestAlertException;
+import com.walgreens.rxi.inventory.web.rest.util.KeysetPaginationUtil;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -16,10 +48,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -36,6 +76,12 @@ public class ProductResource {
 
     private static final String ENTITY_NAME = "inventoryProduct";
 
+    private static final int MAX_KEYSET_PAGE_SIZE = 2000;
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -43,9 +89,36 @@ public class ProductResource {
 
     private final ProductRepository productRepository;
 
-    public ProductResource(ProductService productService, ProductRepository productRepository) {
+    private final ProductQueryService productQueryService;
+
+    private final ProductImportService productImportService;
+
+    private final ProductExportService productExportService;
+
+    private final ImageStoreService imageStoreService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ProductMapper productMapper;
+
+    public ProductResource(
+        ProductService productService,
+        ProductRepository productRepository,
+        ProductQueryService productQueryService,
+        ProductImportService productImportService,
+        ProductExportService productExportService,
+        ImageStoreService imageStoreService,
+        ApplicationProperties applicationProperties,
+        ProductMapper productMapper
+    ) {
         this.productService = productService;
         this.productRepository = productRepository;
+        this.productQueryService = productQueryService;
+        this.productImportService = productImportService;
+        this.productExportService = productExportService;
+        this.imageStoreService = imageStoreService;
+        this.applicationProperties = applicationProperties;
+        this.productMapper = productMapper;
     }
 
     /**
@@ -56,7 +129,7 @@ public class ProductResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/products")
-    public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) throws URISyntaxException {
+    public ResponseEntity<ProductDTO> createProduct(@Valid @RequestBody Product product) throws URISyntaxException {
         log.debug("REST request to save Product : {}", product);
         if (product.getId() != null) {
             throw new BadRequestAlertException("A new product cannot already have an ID", ENTITY_NAME, "idexists");
@@ -65,7 +138,30 @@ public class ProductResource {
         return ResponseEntity
             .created(new URI("/api/products/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+            .body(productMapper.toDto(result));
+    }
+
+    /**
+     * {@code POST  /products/import} : Import products in bulk from an NDJSON or a {@code ;}-separated CSV body.
+     * <p>
+     * The body is streamed: rows are validated and persisted in batches while it is being read. Rows that cannot
+     * be imported are listed in the report, the others are imported.
+     *
+     * @param request the current request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import report.
+     * @throws IOException if the body cannot be read.
+     */
+    @PostMapping(value = "/products/import", consumes = { NDJSON_VALUE, "text/csv" })
+    public ResponseEntity<ProductImportReportDTO> importProducts(HttpServletRequest request) throws IOException {
+        log.debug("REST request to import Products");
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        ProductFileFormat format = MediaType.parseMediaType(NDJSON_VALUE).includes(contentType)
+            ? ProductFileFormat.NDJSON
+            : ProductFileFormat.CSV;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            return ResponseEntity.ok().body(productImportService.importProducts(reader, format));
+        }
     }
 
     /**
@@ -79,7 +175,7 @@ public class ProductResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/products/{id}")
-    public ResponseEntity<Product> updateProduct(
+    public ResponseEntity<ProductDTO> updateProduct(
         @PathVariable(value = "id", required = false) final Long id,
         @Valid @RequestBody Product product
     ) throws URISyntaxException {
@@ -99,7 +195,7 @@ public class ProductResource {
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, product.getId().toString()))
-            .body(result);
+            .body(productMapper.toDto(result));
     }
 
     /**
@@ -114,7 +210,7 @@ public class ProductResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/products/{id}", consumes = "application/merge-patch+json")
-    public ResponseEntity<Product> partialUpdateProduct(
+    public ResponseEntity<ProductDTO> partialUpdateProduct(
         @PathVariable(value = "id", required = false) final Long id,
         @NotNull @RequestBody Product product
     ) throws URISyntaxException {
@@ -133,25 +229,156 @@ public class ProductResource {
         Optional<Product> result = productService.partialUpdate(product);
 
         return ResponseUtil.wrapOrNotFound(
-            result,
+            result.map(productMapper::toDto),
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, product.getId().toString())
         );
     }
 
     /**
-     * {@code GET  /products} : get all the products.
+     * {@code PATCH  /products/bulk} : Updates the price and/or the status of the products matching a filter or
+     * given by their ids, with set-based updates.
+     *
+     * @param bulkUpdate the products to update and their new values.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of updated products,
+     * or with status {@code 400 (Bad Request)} unless exactly one of filter and ids, and at least one value, are given.
+     */
+    @PatchMapping(value = "/products/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductBulkUpdateResultDTO> bulkUpdateProducts(@Valid @RequestBody ProductBulkUpdateDTO bulkUpdate) {
+        log.debug("REST request to bulk update Products : {}", bulkUpdate);
+        if ((bulkUpdate.getFilter() == null) == (bulkUpdate.getIds() == null)) {
+            throw new BadRequestAlertException("Exactly one of filter and ids is required", ENTITY_NAME, "bulkselectioninvalid");
+        }
+        if (bulkUpdate.getPrice() == null && bulkUpdate.getStatus() == null) {
+            throw new BadRequestAlertException("At least one of price and status is required", ENTITY_NAME, "bulkvaluesinvalid");
+        }
+        ProductBulkUpdateResultDTO result = productService.bulkUpdate(bulkUpdate);
+        String message = applicationName + "." + ENTITY_NAME + ".bulkUpdated";
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, message, String.valueOf(result.getUpdated())))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /products} : get all the products, without their image.
      *
      * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
      */
     @GetMapping("/products")
-    public ResponseEntity<List<Product>> getAllProducts(Pageable pageable) {
-        log.debug("REST request to get a page of Products");
-        Page<Product> page = productService.findAll(pageable);
+    public ResponseEntity<List<ProductSummaryDTO>> getAllProducts(ProductCriteria criteria, Pageable pageable) {
+        log.debug("REST request to get Products by criteria: {}", criteria);
+        Page<ProductSummaryDTO> page = productQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /products?after=:cursor} : get a keyset page of products, ordered by id, without their image.
+     * <p>
+     * An empty {@code after} starts from the first product; the cursor of the next page is returned in the
+     * {@code X-Next-Cursor} header and a {@code Link} header, both absent on the last page.
+     *
+     * @param after the opaque cursor returned with the previous page.
+     * @param size the page size.
+     * @param count whether to also compute the {@code X-Total-Count} header.
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the size is invalid.
+     */
+    @GetMapping(value = "/products", params = "after")
+    public ResponseEntity<List<ProductSummaryDTO>> getAllProductsAfter(
+        @RequestParam("after") String after,
+        @RequestParam(value = "size", defaultValue = "20") int size,
+        @RequestParam(value = "count", defaultValue = "false") boolean count,
+        ProductCriteria criteria
+    ) {
+        log.debug("REST request to get a keyset page of Products by criteria: {}, after : {}", criteria, after);
+        if (size < 1 || size > MAX_KEYSET_PAGE_SIZE) {
+            throw new BadRequestAlertException("Invalid page size", ENTITY_NAME, "sizeinvalid");
+        }
+        Long afterId;
+        try {
+            afterId = KeysetPaginationUtil.decodeCursor(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<ProductSummaryDTO> slice = productQueryService.findByCriteriaAfter(criteria, afterId, size);
+        List<ProductSummaryDTO> content = slice.getContent();
+        String nextCursor = slice.hasNext() ? KeysetPaginationUtil.encodeCursor(content.get(content.size() - 1).getId()) : null;
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            size,
+            count ? productQueryService.countByCriteria(criteria) : null
+        );
+        return ResponseEntity.ok().headers(headers).body(content);
+    }
+
+    /**
+     * {@code GET  /products/export?format=ndjson|csv} : export all the products, without their image.
+     * <p>
+     * The export is streamed from a database cursor while it is being written, and gzip-compressed on the fly
+     * when the client accepts it.
+     *
+     * @param format the format of the export, {@code ndjson} by default.
+     * @param acceptEncoding the encodings accepted by the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the export in body,
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     */
+    @GetMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+        @RequestParam(value = "format", defaultValue = "ndjson") String format,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        log.debug("REST request to export Products : {}", format);
+        ProductFileFormat fileFormat;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            fileFormat = ProductFileFormat.NDJSON;
+        } else if ("csv".equalsIgnoreCase(format)) {
+            fileFormat = ProductFileFormat.CSV;
+        } else {
+            throw new BadRequestAlertException("Unsupported export format", ENTITY_NAME, "formatinvalid");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(
+            fileFormat == ProductFileFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8)
+        );
+        headers.setContentDisposition(
+            ContentDisposition.attachment().filename("products." + fileFormat.name().toLowerCase(Locale.ROOT)).build()
+        );
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+            productExportService.exportProducts(writer, fileFormat);
+            if (gzip) {
+                ((GZIPOutputStream) out).finish();
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * {@code GET  /products/count} : count all the products.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/products/count")
+    public ResponseEntity<Long> countProducts(ProductCriteria criteria) {
+        log.debug("REST request to count Products by criteria: {}", criteria);
+        return ResponseEntity.ok().body(productQueryService.countByCriteria(criteria));
+    }
+
     /**
      * {@code GET  /products/:id} : get the "id" product.
      *
@@ -159,10 +386,106 @@ public class ProductResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/products/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id) {
         log.debug("REST request to get Product : {}", id);
         Optional<Product> product = productService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(product);
+        return ResponseUtil.wrapOrNotFound(product.map(productMapper::toDto));
+    }
+
+    /**
+     * {@code GET  /products/by-upc/:upc} : get the product of the "upc" product code.
+     *
+     * @param upc the UPC of the product to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/products/by-upc/{upc}")
+    public ResponseEntity<ProductDTO> getProductByUpc(@PathVariable String upc) {
+        log.debug("REST request to get Product by UPC : {}", upc);
+        return ResponseUtil.wrapOrNotFound(productService.findOneByUpc(upc).map(productMapper::toDto));
+    }
+
+    /**
+     * {@code GET  /products/:id/summary} : get the "id" product, without its image and relationships.
+     * <p>
+     * This is the lightweight representation of the product list, served from the in-memory read model when it
+     * is enabled.
+     *
+     * @param id the id of the product to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/products/{id}/summary")
+    public ResponseEntity<ProductSummaryDTO> getProductSummary(@PathVariable Long id) {
+        log.debug("REST request to get the summary of Product : {}", id);
+        return ResponseUtil.wrapOrNotFound(productService.findSummary(id));
+    }
+
+    /**
+     * {@code GET  /products/:id/image} : get the image of the "id" product.
+     * <p>
+     * The image is streamed from the image store with a strong {@code ETag} (its SHA-256 hash) and supports
+     * single {@code Range} requests. When the request carries the current hash as {@code v}, as the
+     * {@code imageUrl} of the product list does, the response can be cached for a long time.
+     *
+     * @param id the id of the product whose image to retrieve.
+     * @param version the expected image hash, if any.
+     * @param webRequest the current request.
+     * @throws IOException if the image cannot be written to the response.
+     */
+    @GetMapping("/products/{id}/image")
+    public void getProductImage(
+        @PathVariable Long id,
+        @RequestParam(value = "v", required = false) String version,
+        ServletWebRequest webRequest
+    ) throws IOException {
+        log.debug("REST request to get the image of Product : {}", id);
+        ProductImageDTO image = productService.findImage(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Path file = imageStoreService.find(image.getImageHash()).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        HttpServletRequest request = webRequest.getRequest();
+        HttpServletResponse response = webRequest.getResponse();
+        String etag = "\"" + image.getImageHash() + "\"";
+        CacheControl cacheControl = image.getImageHash().equals(version)
+            ? CacheControl.maxAge(applicationProperties.getImageStore().getCacheMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic()
+            : CacheControl.noCache();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges = parseRanges(range);
+            // Malformed and multiple ranges are legitimately answered with the whole image
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        response.setContentType(
+            image.getImageContentType() != null ? image.getImageContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE
+        );
+        response.setContentLengthLong(end - start + 1);
+        imageStoreService.transferTo(file, start, end - start + 1, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
     }
 
     /**
@@ -0,0 +1,85 @@
+package com.walgreens.rxi.inventory.web.rest.util;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ * <p>
+ * Cursors are opaque to clients: they carry the id of the last row of the current page, encoded
+ * so that clients do not start relying on their content. The next page is then read with an
+ * indexed {@code id > :after} seek instead of an {@code OFFSET}, so deep pages cost the same as the first one.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+    public static final String HEADER_TOTAL_COUNT = "X-Total-Count";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Encode the id of the last row of a page as an opaque cursor.
+     *
+     * @param lastId the id of the last row returned.
+     * @return the cursor.
+     */
+    public static String encodeCursor(long lastId) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(lastId).array());
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encodeCursor(long)}.
+     *
+     * @param cursor the cursor, an empty value meaning the first page.
+     * @return the id to seek after, or {@code null} for the first page.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        byte[] bytes = DECODER.decode(cursor);
+        if (bytes.length != Long.BYTES) {
+            throw new IllegalArgumentException("Invalid cursor length");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    /**
+     * Generate the keyset pagination headers: a {@code Link} and an {@value #HEADER_NEXT_CURSOR} header when
+     * there is a next page, and an {@value #HEADER_TOTAL_COUNT} header only when a total was computed.
+     *
+     * @param uriBuilder the current request uri builder.
+     * @param nextCursor the cursor of the next page, or {@code null} if this is the last page.
+     * @param size the page size.
+     * @param totalCount the total number of rows, or {@code null} if it was not requested.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        String nextCursor,
+        int size,
+        Long totalCount
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.add(HEADER_NEXT_CURSOR, nextCursor);
+            String link = uriBuilder
+                .replaceQueryParam("after", nextCursor)
+                .replaceQueryParam("size", size)
+                .toUriString()
+                .replace(",", "%2C")
+                .replace(";", "%3B");
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        if (totalCount != null) {
+            headers.add(HEADER_TOTAL_COUNT, Long.toString(totalCount));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Helpers for REST controllers.
+ */
+package com.walgreens.rxi.inventory.web.rest.util;
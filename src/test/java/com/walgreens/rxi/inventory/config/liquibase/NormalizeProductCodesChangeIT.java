@@ -0,0 +1,87 @@
+package com.walgreens.rxi.inventory.config.liquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for {@link NormalizeProductCodesChange}.
+ */
+@IntegrationTest
+class NormalizeProductCodesChangeIT {
+
+    @Autowired
+    private ProductCodeRepository productCodeRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<Long> productCodeIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        productCodeRepository.deleteAll(productCodeRepository.findAllById(productCodeIds));
+    }
+
+    @Test
+    void normalizesTheGtins() throws Exception {
+        // Saved through the repository, as before the service normalized the codes
+        Long gtins = save("036000291452", "4006381333931");
+        Long others = save("Not a GTIN", "Code 128 label");
+
+        execute();
+
+        assertThat(productCodeRepository.findById(gtins).orElseThrow())
+            .extracting(ProductCode::getUpc, ProductCode::getBarcode)
+            .containsExactly("00036000291452", "04006381333931");
+        assertThat(productCodeRepository.findById(others).orElseThrow())
+            .extracting(ProductCode::getUpc, ProductCode::getBarcode)
+            .containsExactly("Not a GTIN", "Code 128 label");
+    }
+
+    @Test
+    void reportsTheCodesThatCollideOnceNormalized() throws Exception {
+        Long first = save("036000291452", null);
+        Long second = save("00036000291452", null);
+
+        assertThatThrownBy(this::execute)
+            .isInstanceOf(CustomChangeException.class)
+            .hasMessageContaining("upc 00036000291452 of product codes " + first + " and " + second);
+
+        assertThat(productCodeRepository.findById(first).orElseThrow().getUpc()).isEqualTo("036000291452");
+    }
+
+    private Long save(String upc, String barcode) {
+        Long id = productCodeRepository.saveAndFlush(new ProductCode().upc(upc).barcode(barcode)).getId();
+        productCodeIds.add(id);
+        return id;
+    }
+
+    private void execute() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            try {
+                new NormalizeProductCodesChange().execute(database);
+                // The pool does not auto-commit
+                connection.commit();
+            } catch (CustomChangeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+}
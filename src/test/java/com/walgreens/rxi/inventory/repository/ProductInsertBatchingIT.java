@@ -0,0 +1,86 @@
+package com.walgreens.rxi.inventory.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration benchmark of {@link Product} inserts, with and without JDBC batching.
+ * <p>
+ * The entities use a pooled-lo sequence, so Hibernate can group the inserts of a flush into batches of
+ * {@code hibernate.jdbc.batch_size} statements.
+ */
+@IntegrationTest
+@Transactional
+class ProductInsertBatchingIT {
+
+    private static final int PRODUCTS = 1000;
+
+    private static final int BATCH_SIZE = 25;
+
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final Logger log = LoggerFactory.getLogger(ProductInsertBatchingIT.class);
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void insertsAreBatched() {
+        Session session = em.unwrap(Session.class);
+        Statistics statistics = session.getSessionFactory().getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            long unbatchedNanos = insertProducts(session, 1);
+            long unbatchedStatements = statistics.getPrepareStatementCount();
+
+            statistics.clear();
+            long batchedNanos = insertProducts(session, BATCH_SIZE);
+            long batchedStatements = statistics.getPrepareStatementCount();
+
+            log.info(
+                "Inserted {} Products: {} statements, {} rows/s without batching; {} statements, {} rows/s with batches of {}",
+                PRODUCTS,
+                unbatchedStatements,
+                PRODUCTS * TimeUnit.SECONDS.toNanos(1) / unbatchedNanos,
+                batchedStatements,
+                PRODUCTS * TimeUnit.SECONDS.toNanos(1) / batchedNanos,
+                BATCH_SIZE
+            );
+            // One insert per batch, plus one sequence call per allocation
+            assertThat(unbatchedStatements).isGreaterThanOrEqualTo(PRODUCTS);
+            assertThat(batchedStatements).isLessThanOrEqualTo(PRODUCTS / BATCH_SIZE + PRODUCTS / ID_ALLOCATION_SIZE + 1);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private long insertProducts(Session session, int batchSize) {
+        session.setJdbcBatchSize(batchSize);
+        long start = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i++) {
+            session.persist(
+                new Product().name("product-" + i).type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE)
+            );
+        }
+        session.flush();
+        long elapsed = System.nanoTime() - start;
+        session.clear();
+        session.setJdbcBatchSize(null);
+        return elapsed;
+    }
+}
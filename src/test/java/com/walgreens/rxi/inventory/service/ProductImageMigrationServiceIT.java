@@ -0,0 +1,152 @@
+package com.walgreens.rxi.inventory.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.cache.CacheInvalidationBus;
+import com.walgreens.rxi.inventory.service.readmodel.ProductReadModel;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link ProductImageMigrationService}.
+ */
+@IntegrationTest
+@Transactional
+class ProductImageMigrationServiceIT {
+
+    private static final byte[] IMAGE = { 1, 2, 3, 4, 5 };
+
+    @Autowired
+    private ProductImageMigrationService productImageMigrationService;
+
+    @Autowired
+    private ImageStoreService imageStoreService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductReadModel productReadModel;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Test
+    void assertThatImagesAreMovedToTheImageStore() throws Exception {
+        Product product = productRepository.saveAndFlush(
+            new Product().name("AAAAAAAAAA").type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE)
+        );
+        jdbcTemplate.update("update product set image = ? where id = ?", IMAGE, product.getId());
+        em.clear();
+
+        assertThat(productImageMigrationService.migrate()).isEqualTo(1);
+
+        Product migrated = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(migrated.getImageHash()).isNotNull();
+        Path image = imageStoreService.find(migrated.getImageHash()).orElseThrow();
+        assertThat(Files.readAllBytes(image)).isEqualTo(IMAGE);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from product where image is not null", Long.class)).isZero();
+
+        // Nothing is left to migrate
+        assertThat(productImageMigrationService.migrate()).isZero();
+    }
+
+    @Test
+    void assertThatAnImageReplacedDuringTheMigrationIsKept() throws Exception {
+        Product product = productRepository.saveAndFlush(
+            new Product().name("AAAAAAAAAA").type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE)
+        );
+        jdbcTemplate.update("update product set image = ? where id = ?", IMAGE, product.getId());
+        em.clear();
+        String newImageHash = imageStoreService.store(new byte[] { 6, 7, 8 });
+        ImageStoreService replacingImageStoreService = new ImageStoreService(applicationProperties) {
+            @Override
+            public String store(InputStream content) {
+                // A product update stores its new image between the read of the old blob and its migration
+                jdbcTemplate.update("update product set image_hash = ?, image = null where id = ?", newImageHash, product.getId());
+                return super.store(content);
+            }
+        };
+        ProductImageMigrationService migrationService = new ProductImageMigrationService(
+            jdbcTemplate,
+            transactionManager,
+            replacingImageStoreService,
+            entityManagerFactory,
+            productReadModel,
+            applicationProperties,
+            cacheInvalidationBus
+        );
+
+        assertThat(migrationService.migrate()).isZero();
+
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getImageHash()).isEqualTo(newImageHash);
+    }
+
+    @Test
+    void assertThatARemovedImageIsNotMigratedBack() throws Exception {
+        Product product = productRepository.saveAndFlush(
+            new Product().name("AAAAAAAAAA").type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE)
+        );
+        jdbcTemplate.update("update product set image = ? where id = ?", IMAGE, product.getId());
+        em.clear();
+
+        Product updated = productRepository.findById(product.getId()).orElseThrow();
+        productService.save(updated.imageContentType(null));
+        em.flush();
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from product where image is not null", Long.class)).isZero();
+        assertThat(productImageMigrationService.migrate()).isZero();
+    }
+
+    @Test
+    void assertThatAReplacedImageIsNotOverwrittenByTheMigration() throws Exception {
+        Product product = productRepository.saveAndFlush(
+            new Product().name("AAAAAAAAAA").type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE)
+        );
+        jdbcTemplate.update("update product set image = ? where id = ?", IMAGE, product.getId());
+        em.clear();
+
+        byte[] newImage = { 6, 7, 8 };
+        productService.partialUpdate(new Product().id(product.getId()).image(newImage).imageContentType("image/png"));
+        em.flush();
+        em.clear();
+
+        assertThat(productImageMigrationService.migrate()).isZero();
+        Product migrated = productRepository.findById(product.getId()).orElseThrow();
+        Path image = imageStoreService.find(migrated.getImageHash()).orElseThrow();
+        assertThat(Files.readAllBytes(image)).isEqualTo(newImage);
+    }
+}
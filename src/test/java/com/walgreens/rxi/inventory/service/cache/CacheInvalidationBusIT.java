@@ -0,0 +1,273 @@
+package com.walgreens.rxi.inventory.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
+import com.walgreens.rxi.inventory.service.ProductCodeService;
+import com.walgreens.rxi.inventory.service.dto.CacheInvalidationDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link CacheInvalidationBus}, publishing to a {@link MockProducer} and consuming from a
+ * {@link MockConsumer}. The second-level cache is disabled in tests: the evictions are checked on a Spring cache.
+ */
+@IntegrationTest
+class CacheInvalidationBusIT {
+
+    private static final String TOPIC = "inventory.cache-invalidations";
+
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private static final String PRODUCT_REGION = Product.class.getName();
+
+    private static final String UPC = "00012345678905";
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductCodeService productCodeService;
+
+    @Autowired
+    private ProductCodeRepository productCodeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+
+    private MockProducer<String, String> producer;
+
+    private MockConsumer<String, String> consumer;
+
+    private long offset;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+        cacheInvalidationBus.start(producer, consumer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheInvalidationBus.stop();
+        Objects.requireNonNull(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE)).clear();
+    }
+
+    @Test
+    void broadcastsTheEvictionsOfCommittedTransactionsOnly() throws Exception {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                cacheInvalidationBus.broadcastEviction(PRODUCT_REGION, 1L);
+                status.setRollbackOnly();
+            }
+        );
+        transactionTemplate.executeWithoutResult(status -> cacheInvalidationBus.broadcastEviction(PRODUCT_REGION, 2L));
+        cacheInvalidationBus.broadcastEviction(PRODUCT_REGION, 3L);
+
+        await(() -> broadcastIds(PRODUCT_REGION).containsAll(List.of(2L, 3L)));
+        assertThat(broadcastIds(PRODUCT_REGION)).doesNotContain(1L);
+        assertThat(producer.history()).allMatch(record -> record.key().equals(cacheInvalidationBus.getOrigin()));
+    }
+
+    @Test
+    void evictsTheEntriesBroadcastByOtherNodes() throws Exception {
+        Cache upcCache = Objects.requireNonNull(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE));
+        upcCache.put("012345678905", "own");
+        upcCache.put("036000291452", "other");
+        upcCache.put("042100005264", "region");
+        await(() -> !consumer.assignment().isEmpty());
+
+        // This node already evicted the entries it broadcast
+        CacheInvalidationDTO own = new CacheInvalidationDTO(cacheInvalidationBus.getOrigin());
+        own.getEntries().put(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE, List.of("012345678905"));
+        addRecord(own);
+        CacheInvalidationDTO other = new CacheInvalidationDTO("other-node");
+        other.getEntries().put(PRODUCT_REGION, List.of(1));
+        other.getEntries().put(Product.class.getName() + ".catalogs", List.of(1));
+        other.getEntries().put("unknown", List.of(1));
+        other.getEntries().put(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE, List.of("036000291452"));
+        addRecord(other);
+
+        await(() -> upcCache.get("036000291452") == null);
+        assertThat(upcCache.get("012345678905")).isNotNull();
+        assertThat(upcCache.get("042100005264")).isNotNull();
+
+        CacheInvalidationDTO region = new CacheInvalidationDTO("other-node");
+        region.getRegions().add(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE);
+        addRecord(region);
+
+        await(() -> upcCache.get("042100005264") == null);
+    }
+
+    @Test
+    void coalescesTheEvictionsOfATransactionInBatches() throws Exception {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                for (long id = 1; id <= 1500; id++) {
+                    cacheInvalidationBus.broadcastEviction(PRODUCT_REGION, id);
+                    cacheInvalidationBus.broadcastEviction(PRODUCT_REGION, id);
+                }
+                cacheInvalidationBus.broadcastEviction(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE, "012345678905");
+                cacheInvalidationBus.broadcastRegionEviction(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE);
+            }
+        );
+
+        await(() -> broadcastIds(PRODUCT_REGION).size() == 1500);
+        List<CacheInvalidationDTO> messages = messages();
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).getEntries().get(PRODUCT_REGION)).hasSize(1000);
+        assertThat(messages.get(0).getRegions()).containsExactly(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE);
+        assertThat(messages.get(1).getEntries().get(PRODUCT_REGION)).hasSize(500);
+        assertThat(messages.get(1).getEntries()).doesNotContainKey(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE);
+    }
+
+    @Test
+    void broadcastsTheEvictionsDeferredUntilTheCommit() throws Exception {
+        Cache upcCache = Objects.requireNonNull(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE));
+        upcCache.put(UPC, "cached");
+        ProductCode productCode = transactionTemplate.execute(
+            status -> {
+                // Bound to the transaction before the deferred eviction
+                cacheInvalidationBus.broadcastEviction(PRODUCT_REGION, 1L);
+                ProductCode saved = productCodeService.save(new ProductCode().upc(UPC));
+                assertThat(upcCache.get(UPC)).isNotNull();
+                return saved;
+            }
+        );
+        try {
+            assertThat(upcCache.get(UPC)).isNull();
+            await(() -> broadcastKeys(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).size() == 1);
+            assertThat(broadcastIds(PRODUCT_REGION)).containsExactly(1L);
+
+            // Nothing bound to the transaction before the deferred eviction
+            producer.clear();
+            transactionTemplate.executeWithoutResult(status -> productCodeService.delete(Objects.requireNonNull(productCode).getId()));
+
+            await(() -> broadcastKeys(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).size() == 1);
+            assertThat(broadcastKeys(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE)).containsExactly(UPC);
+        } finally {
+            productCodeRepository.findIdByUpc(UPC).ifPresent(productCodeRepository::deleteById);
+        }
+    }
+
+    @Test
+    void retriesTheFailuresOfTheConsumer() throws Exception {
+        cacheInvalidationBus.stop();
+        double failures = meterRegistry.get("cache-invalidation.consumer.failures").counter().count();
+        AtomicBoolean brokerAvailable = new AtomicBoolean();
+        consumer =
+            new MockConsumer<>(OffsetResetStrategy.LATEST) {
+                @Override
+                public synchronized List<PartitionInfo> partitionsFor(String topic) {
+                    if (!brokerAvailable.get()) {
+                        throw new TimeoutException("Timeout expired while fetching topic metadata");
+                    }
+                    return super.partitionsFor(topic);
+                }
+            };
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+        cacheInvalidationBus.start(producer, consumer);
+
+        await(() -> meterRegistry.get("cache-invalidation.consumer.failures").counter().count() > failures);
+        assertThat(meterRegistry.get("cache-invalidation.consumer.live").gauge().value()).isZero();
+        brokerAvailable.set(true);
+        await(() -> meterRegistry.get("cache-invalidation.consumer.live").gauge().value() == 1);
+
+        // A failed poll resumes from the position of the partition
+        Cache upcCache = Objects.requireNonNull(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE));
+        upcCache.put("036000291452", "other");
+        consumer.setPollException(new KafkaException("Broker unavailable"));
+        CacheInvalidationDTO other = new CacheInvalidationDTO("other-node");
+        other.getEntries().put(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE, List.of("036000291452"));
+        addRecord(other);
+
+        await(() -> upcCache.get("036000291452") == null);
+        assertThat(meterRegistry.get("cache-invalidation.consumer.failures").counter().count()).isGreaterThan(failures + 1);
+        assertThat(cacheInvalidationBus.isConsuming()).isTrue();
+    }
+
+    private void addRecord(CacheInvalidationDTO invalidation) throws Exception {
+        String value = objectMapper.writeValueAsString(invalidation);
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset++, invalidation.getOrigin(), value));
+    }
+
+    private List<CacheInvalidationDTO> messages() throws Exception {
+        List<CacheInvalidationDTO> messages = new ArrayList<>();
+        for (ProducerRecord<String, String> record : producer.history()) {
+            messages.add(objectMapper.readValue(record.value(), CacheInvalidationDTO.class));
+        }
+        return messages;
+    }
+
+    private List<Long> broadcastIds(String region) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (CacheInvalidationDTO message : messages()) {
+                message.getEntries().getOrDefault(region, List.of()).forEach(id -> ids.add(((Number) id).longValue()));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return ids;
+    }
+
+    private List<Object> broadcastKeys(String region) {
+        List<Object> keys = new ArrayList<>();
+        try {
+            messages().forEach(message -> keys.addAll(message.getEntries().getOrDefault(region, List.of())));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return keys;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
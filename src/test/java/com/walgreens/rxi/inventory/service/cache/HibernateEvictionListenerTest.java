@@ -0,0 +1,87 @@
+package com.walgreens.rxi.inventory.service.cache;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link HibernateEvictionListener}.
+ */
+class HibernateEvictionListenerTest {
+
+    private static final String ENTITY = "com.walgreens.rxi.inventory.domain.Product";
+
+    private static final String ROLE = ENTITY + ".catalogs";
+
+    private CacheInvalidationBus bus;
+
+    private EventSource session;
+
+    private HibernateEvictionListener listener;
+
+    @BeforeEach
+    void setUp() {
+        bus = mock(CacheInvalidationBus.class);
+        session = mock(EventSource.class, RETURNS_DEEP_STUBS);
+        listener = new HibernateEvictionListener(bus);
+    }
+
+    @Test
+    void broadcastsTheUpdatedAndDeletedEntitiesOfCachedRegions() {
+        EntityPersister persister = entityPersister(true);
+
+        listener.onPostUpdate(new PostUpdateEvent(new Object(), 1L, null, null, null, persister, session));
+        listener.onPostDelete(new PostDeleteEvent(new Object(), 2L, null, persister, session));
+
+        verify(bus).broadcastEviction(ENTITY, 1L);
+        verify(bus).broadcastEviction(ENTITY, 2L);
+    }
+
+    @Test
+    void ignoresTheEntitiesOfUncachedRegions() {
+        listener.onPostUpdate(new PostUpdateEvent(new Object(), 1L, null, null, null, entityPersister(false), session));
+
+        verifyNoInteractions(bus);
+    }
+
+    @Test
+    void broadcastsTheOwnersOfTheUpdatedCollectionsOfCachedRegions() {
+        PersistentCollection collection = mock(PersistentCollection.class);
+        when(collection.getRole()).thenReturn(ROLE);
+        when(session.getPersistenceContextInternal().getLoadedCollectionOwnerIdOrNull(collection)).thenReturn(3L);
+        CollectionPersister persister = mock(CollectionPersister.class);
+        when(persister.hasCache()).thenReturn(true);
+        EntityPersister ownerPersister = entityPersister(true);
+        when(persister.getOwnerEntityPersister()).thenReturn(ownerPersister);
+        MetamodelImplementor metamodel = mock(MetamodelImplementor.class);
+        when(metamodel.collectionPersister(ROLE)).thenReturn(persister);
+        SessionFactoryImplementor factory = mock(SessionFactoryImplementor.class);
+        when(factory.getMetamodel()).thenReturn(metamodel);
+        when(session.getFactory()).thenReturn(factory);
+
+        listener.onPostUpdateCollection(new PostCollectionUpdateEvent(persister, collection, session));
+
+        verify(bus).broadcastEviction(ROLE, 3L);
+    }
+
+    private static EntityPersister entityPersister(boolean cached) {
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.canWriteToCache()).thenReturn(cached);
+        when(persister.getEntityName()).thenReturn(ENTITY);
+        return persister;
+    }
+}
@@ -0,0 +1,208 @@
+package com.walgreens.rxi.inventory.service.fanout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.walgreens.rxi.inventory.config.KafkaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link KafkaFanOut}, consuming from a {@link MockConsumer}.
+ */
+class KafkaFanOutTest {
+
+    private static final String TOPIC = "inventory.product";
+
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final AtomicInteger consumers = new AtomicInteger();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MockConsumer<String, String> consumer;
+
+    private KafkaFanOut fanOut;
+
+    private long offset;
+
+    @BeforeEach
+    void setUp() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.getFanOut().setBufferSize(2);
+        kafkaProperties.getFanOut().setHeartbeatInterval(Duration.ofHours(1));
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+        fanOut =
+            new KafkaFanOut(
+                kafkaProperties,
+                meterRegistry,
+                topic -> {
+                    consumers.incrementAndGet();
+                    return consumer;
+                }
+            );
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOut.close();
+    }
+
+    @Test
+    void fansOutTheRecordsOfATopicFromOneConsumer() throws Exception {
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        fanOut.subscribe(List.of(TOPIC), first);
+        fanOut.subscribe(List.of(TOPIC), second);
+        await(() -> !consumer.assignment().isEmpty());
+
+        addRecord("1", "a");
+        addRecord("2", "b");
+
+        assertThat(first.take(2)).containsExactly("a", "b");
+        assertThat(second.take(2)).containsExactly("a", "b");
+        assertThat(consumers.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.fan-out.subscribers").tag("topic", TOPIC).gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void startsAtTheEndOfTheTopic() throws Exception {
+        // Records produced before the first subscriber
+        offset = 3;
+        consumer.updateEndOffsets(Map.of(PARTITION, offset));
+        RecordingSink sink = new RecordingSink();
+        fanOut.subscribe(List.of(TOPIC), sink);
+        await(() -> !consumer.assignment().isEmpty());
+
+        for (long existing = 0; existing < 3; existing++) {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, existing, "0", "old"));
+        }
+        addRecord("1", "a");
+
+        assertThat(sink.take(1)).containsExactly("a");
+        assertThat(meterRegistry.get("kafka.fan-out.coalesced").tag("topic", TOPIC).counter().count()).isZero();
+    }
+
+    @Test
+    void coalescesThenDropsTheSlowSubscribers() throws Exception {
+        RecordingSink fast = new RecordingSink();
+        BlockingSink slow = new BlockingSink();
+        fanOut.subscribe(List.of(TOPIC), fast);
+        fanOut.subscribe(List.of(TOPIC), slow);
+        await(() -> !consumer.assignment().isEmpty());
+
+        // The slow subscriber is stuck sending the first record while the next ones fill its buffer of 2
+        addRecord("0", "a");
+        assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.take(1)).containsExactly("a");
+        for (String[] record : new String[][] { { "1", "b" }, { "2", "c" }, { "1", "d" } }) {
+            addRecord(record[0], record[1]);
+            assertThat(fast.take(1)).containsExactly(record[1]);
+        }
+        assertThat(meterRegistry.get("kafka.fan-out.coalesced").tag("topic", TOPIC).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.fan-out.buffer.depth").tag("topic", TOPIC).gauge().value()).isEqualTo(2);
+
+        // No buffered record has the key of the next one
+        addRecord("3", "e");
+        await(() -> slow.completed.get() != null);
+        assertThat(fast.take(1)).containsExactly("e");
+        assertThat(meterRegistry.get("kafka.fan-out.dropped").tag("topic", TOPIC).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.fan-out.subscribers").tag("topic", TOPIC).gauge().value()).isEqualTo(1);
+        slow.release.countDown();
+    }
+
+    @Test
+    void stopsTheConsumerWithTheLastSubscriber() throws Exception {
+        FanOutSubscriber subscriber = fanOut.subscribe(List.of(TOPIC), new RecordingSink());
+        await(() -> !consumer.assignment().isEmpty());
+        assertThat(fanOut.getTopics()).containsExactly(TOPIC);
+
+        subscriber.close();
+
+        assertThat(fanOut.getTopics()).isEmpty();
+        assertThat(meterRegistry.find("kafka.fan-out.subscribers").gauge()).isNull();
+        await(consumer::closed);
+    }
+
+    private void addRecord(String key, String value) {
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset++, key, value));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static class RecordingSink implements FanOutSubscriber.Sink {
+
+        private final BlockingQueue<String> values = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(String value) {
+            values.add(value);
+        }
+
+        @Override
+        public void heartbeat() {}
+
+        @Override
+        public void complete(Throwable error) {}
+
+        private List<String> take(int count) throws InterruptedException {
+            String[] taken = new String[count];
+            for (int i = 0; i < count; i++) {
+                taken[i] = values.poll(5, TimeUnit.SECONDS);
+            }
+            return Arrays.asList(taken);
+        }
+    }
+
+    private static class BlockingSink implements FanOutSubscriber.Sink {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final AtomicReference<String> completed = new AtomicReference<>();
+
+        @Override
+        public void send(String value) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void heartbeat() {}
+
+        @Override
+        public void complete(Throwable error) {
+            completed.set(String.valueOf(error));
+        }
+    }
+}
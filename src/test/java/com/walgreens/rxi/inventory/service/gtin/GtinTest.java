@@ -0,0 +1,63 @@
+package com.walgreens.rxi.inventory.service.gtin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Gtin}.
+ */
+class GtinTest {
+
+    @Test
+    void normalizesEveryGtinLength() {
+        assertThat(Gtin.normalize("code", "96385074")).isEqualTo("00000096385074");
+        assertThat(Gtin.normalize("code", "012345678905")).isEqualTo("00012345678905");
+        assertThat(Gtin.normalize("code", "12345678905")).isEqualTo("00012345678905");
+        assertThat(Gtin.normalize("code", "4006381333931")).isEqualTo("04006381333931");
+        assertThat(Gtin.normalize("code", "10012345678902")).isEqualTo("10012345678902");
+        assertThat(Gtin.normalize("code", "\t 10012345678902\r")).isEqualTo("10012345678902");
+    }
+
+    @Test
+    void reportsWhyACodeIsNotAGtin() {
+        assertThat(Gtin.error(Gtin.parse("4006381333931"))).isNull();
+        assertThat(Gtin.error(Gtin.parse("4006381333930"))).isEqualTo(GtinError.INVALID_CHECK_DIGIT);
+        assertThat(Gtin.error(Gtin.parse("40063813339-1"))).isEqualTo(GtinError.INVALID_CHARACTER);
+        assertThat(Gtin.error(Gtin.parse("1234567"))).isEqualTo(GtinError.INVALID_LENGTH);
+        assertThat(Gtin.error(Gtin.parse("123456789012345"))).isEqualTo(GtinError.INVALID_LENGTH);
+        assertThat(Gtin.error(Gtin.parse("   "))).isEqualTo(GtinError.INVALID_LENGTH);
+        assertThatThrownBy(() -> Gtin.normalize("UPC", "012345678906"))
+            .isInstanceOf(InvalidGtinException.class)
+            .hasMessage("Invalid UPC 012345678906: INVALID_CHECK_DIGIT");
+    }
+
+    @Test
+    void parsesBytesAsCharacters() {
+        Random random = new Random(42);
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            code.setLength(0);
+            int length = 6 + random.nextInt(11);
+            for (int j = 0; j < length; j++) {
+                code.append(random.nextInt(20) == 0 ? 'x' : (char) ('0' + random.nextInt(10)));
+            }
+            byte[] bytes = (" " + code + "\r").getBytes(StandardCharsets.US_ASCII);
+            assertThat(Gtin.parse(bytes, 0, bytes.length)).isEqualTo(Gtin.parse(code));
+        }
+    }
+
+    @Test
+    void acceptsExactlyOneCheckDigit() {
+        int valid = 0;
+        for (int check = 0; check < 10; check++) {
+            if (Gtin.parse("400638133393" + check) >= 0) {
+                valid++;
+            }
+        }
+        assertThat(valid).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.walgreens.rxi.inventory.service.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
+import com.walgreens.rxi.inventory.service.dto.CatalogDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductCodeDTO;
+import com.walgreens.rxi.inventory.service.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProductMapper} and the mappers that use it.
+ */
+class ProductMapperTest {
+
+    private ProductMapper productMapper;
+
+    private Product product;
+
+    @BeforeEach
+    public void init() {
+        productMapper = new ProductMapperImpl(new CategoryMapperImpl(), new PackagingMapperImpl());
+        ProductCode productCode = new ProductCode().id(2L).upc("012345678905").barcode("barcode");
+        product = new Product().id(1L).name("name").productCode(productCode).category(new Category().id(3L).name("category"));
+        productCode.setProduct(product);
+    }
+
+    @Test
+    void productCodeIsMappedWithoutItsProduct() {
+        ProductDTO dto = productMapper.toDto(product);
+
+        assertThat(dto.getName()).isEqualTo("name");
+        assertThat(dto.getCategory().getName()).isEqualTo("category");
+        assertThat(dto.getProductCode().getUpc()).isEqualTo("012345678905");
+        assertThat(dto.getProductCode().getProduct()).isNull();
+    }
+
+    @Test
+    void productOfAProductCodeIsMappedWithoutRelationships() {
+        ProductCodeDTO dto = new ProductCodeMapperImpl(productMapper).toDto(product.getProductCode());
+
+        assertThat(dto.getProduct().getId()).isEqualTo(1L);
+        assertThat(dto.getProduct().getProductCode()).isNull();
+        assertThat(dto.getProduct().getCategory()).isNull();
+    }
+
+    @Test
+    void productsOfACatalogAreMappedWithoutRelationships() {
+        Catalog catalog = new Catalog().id(4L).code("code").addProductCode(product);
+
+        CatalogDTO dto = new CatalogMapperImpl(productMapper).toDto(catalog);
+
+        assertThat(dto.getProductCodes()).singleElement().satisfies(p -> assertThat(p.getCategory()).isNull());
+    }
+}
@@ -0,0 +1,254 @@
+package com.walgreens.rxi.inventory.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.service.CategoryService;
+import com.walgreens.rxi.inventory.service.ProductService;
+import com.walgreens.rxi.inventory.service.dto.ProductBulkUpdateDTO;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link OutboxService} and {@link OutboxRelay}, publishing to a {@link MockProducer}.
+ */
+@IntegrationTest
+class OutboxRelayIT {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private MockProducer<String, String> producer;
+
+    private ApplicationProperties applicationProperties;
+
+    private OutboxRelay outboxRelay;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    private final List<Long> categoryIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        deleteEvents();
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        applicationProperties = new ApplicationProperties();
+        outboxRelay = new OutboxRelay(jdbcTemplate, transactionManager, producer, applicationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productIds.forEach(productService::delete);
+        categoryIds.forEach(categoryService::delete);
+        deleteEvents();
+    }
+
+    @Test
+    void relaysTheEventsOfAnEntityInOrder() {
+        Category category = categoryService.save(new Category().name("AAAAAAAAAA"));
+        categoryService.partialUpdate(new Category().id(category.getId()).name("BBBBBBBBBB"));
+        categoryService.delete(category.getId());
+
+        assertThat(outboxRelay.relayAll()).isEqualTo(3);
+
+        List<ProducerRecord<String, String>> records = producer.history();
+        assertThat(records).extracting(ProducerRecord::topic).containsOnly("inventory.category");
+        assertThat(records).extracting(ProducerRecord::key).containsOnly(category.getId().toString());
+        assertThat(records).extracting(OutboxRelayIT::eventType).containsExactly("CREATED", "UPDATED", "DELETED");
+        assertThat(records.get(0).value()).contains("\"name\":\"AAAAAAAAAA\"");
+        assertThat(records.get(1).value()).contains("\"name\":\"BBBBBBBBBB\"");
+        assertThat(records.get(2).value()).isNull();
+        assertThat(countEvents()).isZero();
+
+        // Nothing is left to relay
+        assertThat(outboxRelay.relayAll()).isZero();
+    }
+
+    @Test
+    void recordsNoEventWhenTheChangeRollsBack() {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                categoryService.save(new Category().name("AAAAAAAAAA"));
+                status.setRollbackOnly();
+            }
+        );
+
+        assertThat(countEvents()).isZero();
+    }
+
+    @Test
+    void relaysBulkUpdatesWithTheUpdatedFieldsOnly() {
+        for (int i = 0; i < 3; i++) {
+            productIds.add(productService.save(newProduct()).getId());
+        }
+        ProductBulkUpdateDTO bulkUpdate = new ProductBulkUpdateDTO();
+        List<Long> ids = new ArrayList<>(productIds);
+        // An unknown product gets no event
+        ids.add(Long.MAX_VALUE);
+        bulkUpdate.setIds(ids);
+        bulkUpdate.setPrice(new BigDecimal("2.5"));
+        productService.bulkUpdate(bulkUpdate);
+
+        assertThat(outboxRelay.relayAll()).isEqualTo(6);
+
+        Map<String, List<String>> valuesByKey = producer
+            .history()
+            .stream()
+            .collect(Collectors.groupingBy(ProducerRecord::key, Collectors.mapping(ProducerRecord::value, Collectors.toList())));
+        assertThat(valuesByKey).hasSize(3);
+        for (Long id : productIds) {
+            List<String> values = valuesByKey.get(id.toString());
+            assertThat(values).hasSize(2);
+            assertThat(values.get(0)).contains("\"id\":" + id, "\"price\":1");
+            assertThat(values.get(1)).isEqualTo("{\"price\":2.5}");
+        }
+    }
+
+    @Test
+    void relaysConcurrentWritesOfAProductInTheOrderTheyCommit() throws Exception {
+        Long id = productService.save(newProduct()).getId();
+        productIds.add(id);
+        CountDownLatch firstRecorded = new CountDownLatch(1);
+        Thread second = new Thread(
+            () -> {
+                awaitUninterruptibly(firstRecorded);
+                transactionTemplate.executeWithoutResult(status -> productService.partialUpdate(new Product().id(id).name("SECOND")));
+            }
+        );
+        second.start();
+
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                productService.partialUpdate(new Product().id(id).name("FIRST"));
+                firstRecorded.countDown();
+                // Commit only once the second write has been waiting for a while, for the row lock, or is done if it does not
+                int waiting = 0;
+                for (int i = 0; i < 500 && waiting < 20 && second.isAlive(); i++) {
+                    waiting = second.getState() == Thread.State.TIMED_WAITING ? waiting + 1 : 0;
+                    sleepUninterruptibly(10);
+                }
+            }
+        );
+        second.join(TimeUnit.SECONDS.toMillis(10));
+
+        outboxRelay.relayAll();
+        List<ProducerRecord<String, String>> records = producer.history();
+        String name = jdbcTemplate.queryForObject("select name from product where id = ?", String.class, id);
+        assertThat(records.get(records.size() - 1).value()).contains("\"name\":\"" + name + "\"");
+        assertThat(name).isEqualTo("SECOND");
+    }
+
+    @Test
+    void relaysManyEventsInBatchesAcrossShards() {
+        applicationProperties.getOutbox().setBatchSize(500);
+        int entities = 2000;
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                List<Product> products = new ArrayList<>();
+                for (long id = 1; id <= entities; id++) {
+                    products.add(new Product().id(id).name("P" + id).status(ProductStatus.ONSALE));
+                }
+                outboxService.recordProductsCreated(products);
+                for (long id = 1; id <= entities; id++) {
+                    outboxService.recordProductDeleted(id);
+                }
+            }
+        );
+
+        assertThat(outboxRelay.relayAll()).isEqualTo(2 * entities);
+
+        Map<String, List<String>> eventTypesByKey = new HashMap<>();
+        for (ProducerRecord<String, String> record : producer.history()) {
+            eventTypesByKey.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(eventType(record));
+        }
+        assertThat(eventTypesByKey).hasSize(entities);
+        assertThat(eventTypesByKey.values()).allSatisfy(eventTypes -> assertThat(eventTypes).containsExactly("CREATED", "DELETED"));
+        assertThat(countEvents()).isZero();
+    }
+
+    @Test
+    void keepsTheEventsThatKafkaDidNotAcknowledge() {
+        categoryIds.add(categoryService.save(new Category().name("AAAAAAAAAA")).getId());
+        producer.sendException = new KafkaException("Broker unavailable");
+
+        assertThatThrownBy(() -> outboxRelay.relayAll()).isInstanceOf(KafkaException.class);
+        assertThat(countEvents()).isEqualTo(1);
+
+        producer.sendException = null;
+        assertThat(outboxRelay.relayAll()).isEqualTo(1);
+        assertThat(countEvents()).isZero();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Product newProduct() {
+        return new Product().name("AAAAAAAAAA").type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE);
+    }
+
+    private void deleteEvents() {
+        // The pool does not auto-commit
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("delete from outbox_event"));
+    }
+
+    private long countEvents() {
+        return jdbcTemplate.queryForObject("select count(*) from outbox_event", Long.class);
+    }
+
+    private static String eventType(ProducerRecord<String, String> record) {
+        return new String(record.headers().lastHeader(OutboxRelay.EVENT_TYPE_HEADER).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,157 @@
+package com.walgreens.rxi.inventory.service.packing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PackingPlanner}.
+ */
+class PackingPlannerTest {
+
+    @Test
+    void fillsContainersWithBoxesThatExactlyFit() {
+        PackingPlanner planner = new PackingPlanner(100, 100, 100, 0);
+
+        PackingPlan full = planOne(planner, 50, 50, 50, 8);
+        assertThat(full.getContainerCount()).isEqualTo(1);
+        assertThat(full.getVolumeUtilisation()).isCloseTo(1, within(1e-9));
+        assertThat(full.getPackagesPerColumn(0)).isEqualTo(2);
+
+        PackingPlan overflowing = planOne(planner, 50, 50, 50, 9);
+        assertThat(overflowing.getContainerCount()).isEqualTo(2);
+        assertThat(overflowing.getVolumeUtilisation(1)).isCloseTo(0.125, within(1e-9));
+        assertValid(overflowing, 100, 100, 100, 0, new double[] { 0 }, new int[] { 9 });
+    }
+
+    @Test
+    void rotatesBoxesToFit() {
+        PackingPlanner planner = new PackingPlanner(10, 100, 30, 0);
+
+        PackingPlan plan = planOne(planner, 100, 10, 10, 3);
+
+        assertThat(plan.getUnpackedLines()).isEmpty();
+        assertThat(plan.getContainerCount()).isEqualTo(1);
+        assertThat(plan.getWidth(0)).isEqualTo(100);
+        assertThat(plan.getPackagesPerColumn(0)).isEqualTo(3);
+    }
+
+    @Test
+    void respectsTheMaximumWeight() {
+        PackingPlanner planner = new PackingPlanner(100, 100, 100, 10);
+        double[] weight = { 3, 0 };
+        int[] count = { 10, 5 };
+
+        PackingPlan plan = planner.plan(new double[] { 10, 10 }, new double[] { 10, 10 }, new double[] { 10, 10 }, weight, count);
+
+        assertThat(plan.getPackagesPerColumn(0)).isEqualTo(3);
+        assertThat(plan.getContainerCount()).isEqualTo(4);
+        for (int container = 0; container < plan.getContainerCount(); container++) {
+            assertThat(plan.getWeight(container)).isLessThanOrEqualTo(10);
+        }
+        assertValid(plan, 100, 100, 100, 10, weight, count);
+    }
+
+    @Test
+    void reportsBoxesThatDoNotFit() {
+        PackingPlanner planner = new PackingPlanner(100, 100, 100, 10);
+
+        PackingPlan plan = planner.plan(
+            new double[] { 101, 10, 10 },
+            new double[] { 10, 10, 10 },
+            new double[] { 10, 10, 10 },
+            new double[] { 1, 11, 1 },
+            new int[] { 1, 1, 1 }
+        );
+
+        assertThat(plan.getUnpackedLines()).containsExactly(0, 1);
+        assertThat(plan.getContainerCount()).isEqualTo(1);
+    }
+
+    @Test
+    void packsLargeOrdersWithoutOverlaps() {
+        Random random = new Random(42);
+        int lines = 10_000;
+        double[] length = new double[lines];
+        double[] width = new double[lines];
+        double[] height = new double[lines];
+        double[] weight = new double[lines];
+        int[] count = new int[lines];
+        for (int line = 0; line < lines; line++) {
+            length[line] = 5 + random.nextInt(60);
+            width[line] = 5 + random.nextInt(40);
+            height[line] = 2 + random.nextInt(50);
+            weight[line] = random.nextInt(4) == 0 ? 0 : 0.1 + random.nextInt(200) / 10.0;
+            count[line] = 1 + random.nextInt(40);
+        }
+
+        PackingPlan plan = new PackingPlanner(120, 80, 150, 1000).plan(length, width, height, weight, count);
+
+        assertThat(plan.getUnpackedLines()).isEmpty();
+        assertThat(plan.getVolumeUtilisation()).isGreaterThan(0.5);
+        assertValid(plan, 120, 80, 150, 1000, weight, count);
+    }
+
+    private static PackingPlan planOne(PackingPlanner planner, double length, double width, double height, int count) {
+        double[] weight = { 0 };
+        return planner.plan(new double[] { length }, new double[] { width }, new double[] { height }, weight, new int[] { count });
+    }
+
+    /**
+     * Assert that every box is placed once, inside a container, without overlaps and without overloading a container.
+     */
+    private static void assertValid(
+        PackingPlan plan,
+        double length,
+        double width,
+        double height,
+        double maxWeight,
+        double[] weight,
+        int[] count
+    ) {
+        int[] placed = new int[count.length];
+        double[] load = new double[plan.getContainerCount()];
+        List<List<double[]>> footprints = new ArrayList<>();
+        for (int container = 0; container < plan.getContainerCount(); container++) {
+            footprints.add(new ArrayList<>());
+        }
+        for (int placement = 0; placement < plan.getPlacementCount(); placement++) {
+            int line = plan.getPlacementLine(placement);
+            int packages = plan.getPlacementPackages(placement);
+            int columns = plan.getPlacementColumns(placement);
+            assertThat(packages).isPositive().isLessThanOrEqualTo(columns * plan.getPackagesPerColumn(line));
+            assertThat(packages).isGreaterThan((columns - 1) * plan.getPackagesPerColumn(line));
+            assertThat(plan.getPackagesPerColumn(line) * plan.getHeight(line)).isLessThanOrEqualTo(height + 1e-9);
+            double[] footprint = {
+                plan.getPlacementX(placement),
+                plan.getPlacementY(placement),
+                plan.getPlacementX(placement) + plan.getDepth(line),
+                plan.getPlacementY(placement) + columns * plan.getWidth(line),
+            };
+            assertThat(footprint[0]).isGreaterThanOrEqualTo(0);
+            assertThat(footprint[1]).isGreaterThanOrEqualTo(0);
+            assertThat(footprint[2]).isLessThanOrEqualTo(length + 1e-9);
+            assertThat(footprint[3]).isLessThanOrEqualTo(width + 1e-9);
+            footprints.get(plan.getPlacementContainer(placement)).add(footprint);
+            placed[line] += packages;
+            load[plan.getPlacementContainer(placement)] += packages * weight[line];
+        }
+        assertThat(placed).containsExactly(count);
+        for (int container = 0; container < plan.getContainerCount(); container++) {
+            assertThat(load[container]).isLessThanOrEqualTo(maxWeight > 0 ? maxWeight + 1e-9 : Double.MAX_VALUE);
+            List<double[]> containerFootprints = footprints.get(container);
+            for (int i = 0; i < containerFootprints.size(); i++) {
+                for (int j = i + 1; j < containerFootprints.size(); j++) {
+                    double[] a = containerFootprints.get(i);
+                    double[] b = containerFootprints.get(j);
+                    boolean overlap = a[0] < b[2] - 1e-9 && b[0] < a[2] - 1e-9 && a[1] < b[3] - 1e-9 && b[1] < a[3] - 1e-9;
+                    assertThat(overlap).as("overlap of placements in container %d", container).isFalse();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Unit tests for {@link CatalogMembershipIndex}, reloading from a mocked {@link JdbcTemplate}.
+ */
+class CatalogMembershipIndexTest {
+
+    @Test
+    void writesDuringAReloadAreNotBlockedNorLost() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CatalogMembershipIndex index = new CatalogMembershipIndex(jdbcTemplate);
+        doAnswer(
+                invocation -> {
+                    // The reload reads catalog 1 with product 10, as it was before the writes below
+                    ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getLong(anyInt())).thenReturn(1L, 10L);
+                    invocation.getArgument(1, RowCallbackHandler.class).processRow(resultSet);
+
+                    // Written by other threads, which do not wait for the reload
+                    Thread writer = new Thread(
+                        () -> {
+                            index.addProducts(1L, new long[] { 11L });
+                            index.put(2L, new long[] { 20L });
+                        }
+                    );
+                    writer.start();
+                    writer.join(TimeUnit.SECONDS.toMillis(10));
+                    assertThat(writer.isAlive()).isFalse();
+                    return null;
+                }
+            )
+            .when(jdbcTemplate)
+            .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index.refresh();
+
+        assertThat(index.findProducts(1L)).contains(ProductIdBitmap.of(10L, 11L));
+        assertThat(index.findProducts(2L)).contains(ProductIdBitmap.of(20L));
+    }
+
+    @Test
+    void reconcileReloadsALoadedIndexOnly() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CatalogMembershipIndex index = new CatalogMembershipIndex(jdbcTemplate);
+
+        index.reconcile();
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index.refresh();
+        index.reconcile();
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
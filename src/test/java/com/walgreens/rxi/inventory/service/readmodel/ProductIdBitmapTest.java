@@ -0,0 +1,111 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProductIdBitmap}.
+ */
+class ProductIdBitmapTest {
+
+    @Test
+    void setOperationsMatchThoseOfASortedSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 10; round++) {
+            // Mixes sparse and dense containers, and containers present in only one of the sets
+            long[] left = randomIds(random, 1 + random.nextInt(20_000));
+            long[] right = randomIds(random, 1 + random.nextInt(20_000));
+            ProductIdBitmap leftBitmap = ProductIdBitmap.of(left);
+            ProductIdBitmap rightBitmap = ProductIdBitmap.of(right);
+
+            TreeSet<Long> and = toSet(left);
+            and.retainAll(toSet(right));
+            TreeSet<Long> or = toSet(left);
+            or.addAll(toSet(right));
+            TreeSet<Long> andNot = toSet(left);
+            andNot.removeAll(toSet(right));
+
+            assertThat(leftBitmap.cardinality()).isEqualTo(toSet(left).size());
+            assertThat(ids(leftBitmap.and(rightBitmap))).containsExactlyElementsOf(and);
+            assertThat(ids(leftBitmap.or(rightBitmap))).containsExactlyElementsOf(or);
+            assertThat(ids(leftBitmap.andNot(rightBitmap))).containsExactlyElementsOf(andNot);
+            assertThat(leftBitmap.and(rightBitmap).cardinality()).isEqualTo(and.size());
+            assertThat(leftBitmap.or(rightBitmap).cardinality()).isEqualTo(or.size());
+            assertThat(leftBitmap.andNot(rightBitmap).cardinality()).isEqualTo(andNot.size());
+            for (long id : right) {
+                assertThat(leftBitmap.contains(id)).isEqualTo(and.contains(id));
+            }
+        }
+    }
+
+    @Test
+    void copiesIdsPageByPage() {
+        long[] ids = new long[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i * 7L + 65_530;
+        }
+        ProductIdBitmap bitmap = ProductIdBitmap.of(ids);
+
+        long[] page = new long[3];
+        assertThat(bitmap.copyIdsAfter(-1, page)).isEqualTo(3);
+        assertThat(page).containsExactly(65_530, 65_537, 65_544);
+        assertThat(bitmap.copyIdsAfter(65_533, page)).isEqualTo(3);
+        assertThat(page).containsExactly(65_537, 65_544, 65_551);
+        assertThat(bitmap.copyIdsAfter(ids[ids.length - 2], page)).isEqualTo(1);
+        assertThat(page[0]).isEqualTo(ids[ids.length - 1]);
+        assertThat(bitmap.copyIdsAfter(ids[ids.length - 1], page)).isZero();
+    }
+
+    @Test
+    void equalSetsAreEqualWhateverTheirContainers() {
+        long[] dense = new long[5000];
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = i;
+        }
+        ProductIdBitmap bitmap = ProductIdBitmap.of(dense);
+        // The difference is a bitmap container, the set built from the same ids a sorted array container
+        ProductIdBitmap difference = bitmap.andNot(ProductIdBitmap.of(Arrays.copyOfRange(dense, 4096, 5000)));
+
+        assertThat(difference).isEqualTo(ProductIdBitmap.of(Arrays.copyOf(dense, 4096)));
+        assertThat(difference).isNotEqualTo(ProductIdBitmap.of(Arrays.copyOf(dense, 4095)));
+        assertThat(bitmap.andNot(bitmap).isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsIdsBeyond32Bits() {
+        assertThat(ProductIdBitmap.of(0xFFFF_FFFFL).contains(0xFFFF_FFFFL)).isTrue();
+        assertThat(ProductIdBitmap.of(1L).contains(1L + (1L << 32))).isFalse();
+        assertThatThrownBy(() -> ProductIdBitmap.of(1L << 32)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductIdBitmap.of(-1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long[] randomIds(Random random, int count) {
+        // Ids spread over three containers, so that dense sets get bitmap containers
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = random.nextInt(3 * 65_536 / (1 + random.nextInt(8)));
+        }
+        return ids;
+    }
+
+    private static TreeSet<Long> toSet(long[] ids) {
+        TreeSet<Long> set = new TreeSet<>();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    private static List<Long> ids(ProductIdBitmap bitmap) {
+        long[] ids = new long[(int) bitmap.cardinality()];
+        assertThat(bitmap.copyIdsAfter(-1, ids)).isEqualTo(ids.length);
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+}
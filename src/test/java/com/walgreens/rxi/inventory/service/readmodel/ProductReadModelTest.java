@@ -0,0 +1,80 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Unit tests for {@link ProductReadModel}, reloading from a mocked {@link JdbcTemplate}.
+ */
+class ProductReadModelTest {
+
+    @Test
+    void writesDuringAReloadAreNotBlockedNorLost() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ProductReadModel readModel = new ProductReadModel(jdbcTemplate, new ApplicationProperties());
+        doAnswer(
+                invocation -> {
+                    // The reload reads product 1 as it was before the writes below
+                    ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getLong(anyString())).thenReturn(0L);
+                    when(resultSet.getLong("id")).thenReturn(1L);
+                    when(resultSet.getString("status")).thenReturn(ProductStatus.ONSALE.name());
+                    when(resultSet.wasNull()).thenReturn(true);
+                    invocation.getArgument(1, RowCallbackHandler.class).processRow(resultSet);
+
+                    // Written by other threads, which do not wait for the reload
+                    Thread writer = new Thread(
+                        () -> {
+                            readModel.put(new Product().id(2L).status(ProductStatus.ONSALE));
+                            readModel.updatePriceAndStatus(List.of(1L), new BigDecimal("9.99"), null);
+                        }
+                    );
+                    writer.start();
+                    writer.join(TimeUnit.SECONDS.toMillis(10));
+                    assertThat(writer.isAlive()).isFalse();
+                    return null;
+                }
+            )
+            .when(jdbcTemplate)
+            .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        readModel.refresh();
+
+        assertThat(readModel.isLoaded()).isTrue();
+        assertThat(readModel.snapshot().size()).isEqualTo(2);
+        assertThat(readModel.findSummary(1L).orElseThrow().getPrice()).isEqualByComparingTo("9.99");
+        assertThat(readModel.findSummary(2L)).isPresent();
+    }
+
+    @Test
+    void reconcileReloadsALoadedModelOnly() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ProductReadModel readModel = new ProductReadModel(jdbcTemplate, new ApplicationProperties());
+
+        readModel.reconcile();
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        readModel.refresh();
+        readModel.reconcile();
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,167 @@
+package com.walgreens.rxi.inventory.service.readmodel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.service.dto.ProductSummaryDTO;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProductSnapshot}.
+ */
+class ProductSnapshotTest {
+
+    @Test
+    void findsEveryLoadedProduct() {
+        ProductSnapshot.Builder builder = new ProductSnapshot.Builder(0);
+        for (long id = 1; id <= 1000; id++) {
+            builder.add(product(id));
+        }
+        ProductSnapshot snapshot = builder.build();
+
+        assertThat(snapshot.size()).isEqualTo(1000);
+        for (long id = 1; id <= 1000; id++) {
+            assertThat(snapshot.id(snapshot.indexOf(id))).isEqualTo(id);
+        }
+        assertThat(snapshot.indexOf(0)).isEqualTo(ProductSnapshot.NOT_FOUND);
+        assertThat(snapshot.indexOf(1001)).isEqualTo(ProductSnapshot.NOT_FOUND);
+    }
+
+    @Test
+    void materializesSummaries() {
+        ProductSnapshot snapshot = ProductSnapshot.empty().with(product(42L).category(new Category().id(7L)));
+
+        ProductSummaryDTO summary = snapshot.toSummary(snapshot.indexOf(42L));
+        assertThat(summary.getId()).isEqualTo(42L);
+        assertThat(summary.getName()).isEqualTo("name-42");
+        assertThat(summary.getType()).isEqualTo(ProductType.DRUG);
+        assertThat(summary.getStorageType()).isEqualTo(StorageType.SHELF);
+        assertThat(summary.getPrice()).isEqualByComparingTo("12.34");
+        assertThat(summary.getSalesUnit()).isNull();
+        assertThat(summary.getSalesQuantity()).isNull();
+        assertThat(summary.getStatus()).isEqualTo(ProductStatus.ONSALE);
+        assertThat(summary.getCategoryId()).isEqualTo(7L);
+        assertThat(summary.getPackagingId()).isNull();
+        assertThat(snapshot.priceCents(snapshot.indexOf(42L))).isEqualTo(1234L);
+    }
+
+    @Test
+    void updatesAreCopiedOnWrite() {
+        ProductSnapshot original = ProductSnapshot.empty().with(product(1L)).with(product(2L)).with(product(3L));
+
+        ProductSnapshot updated = original.with(product(2L).status(ProductStatus.LOCKED));
+        assertThat(updated.status(updated.indexOf(2L))).isEqualTo(ProductStatus.LOCKED);
+        assertThat(original.status(original.indexOf(2L))).isEqualTo(ProductStatus.ONSALE);
+
+        ProductSnapshot removed = updated.without(1L);
+        assertThat(removed.size()).isEqualTo(2);
+        assertThat(removed.indexOf(1L)).isEqualTo(ProductSnapshot.NOT_FOUND);
+        assertThat(removed.id(removed.indexOf(3L))).isEqualTo(3L);
+        assertThat(removed.status(removed.indexOf(2L))).isEqualTo(ProductStatus.LOCKED);
+        assertThat(updated.size()).isEqualTo(3);
+        assertThat(removed.without(1L)).isSameAs(removed);
+    }
+
+    @Test
+    void bulkUpdatesCopyOnlyTheChangedColumns() {
+        ProductSnapshot original = ProductSnapshot.empty().with(product(1L)).with(product(2L)).with(product(3L));
+
+        ProductSnapshot updated = original.withPriceAndStatus(List.of(1L, 3L, 99L), null, ProductStatus.LOCKED);
+        assertThat(updated.status(updated.indexOf(1L))).isEqualTo(ProductStatus.LOCKED);
+        assertThat(updated.status(updated.indexOf(2L))).isEqualTo(ProductStatus.ONSALE);
+        assertThat(updated.status(updated.indexOf(3L))).isEqualTo(ProductStatus.LOCKED);
+        assertThat(updated.priceCents(updated.indexOf(1L))).isEqualTo(1234L);
+        assertThat(original.status(original.indexOf(1L))).isEqualTo(ProductStatus.ONSALE);
+
+        ProductSnapshot repriced = updated.withPriceAndStatus(List.of(2L), new BigDecimal("9.99"), null);
+        assertThat(repriced.priceCents(repriced.indexOf(2L))).isEqualTo(999L);
+        assertThat(repriced.status(repriced.indexOf(1L))).isEqualTo(ProductStatus.LOCKED);
+        assertThat(updated.priceCents(updated.indexOf(2L))).isEqualTo(1234L);
+    }
+
+    @Test
+    void writesKeepEveryRowAcrossChunks() {
+        Random random = new Random(42);
+        Map<Long, ProductStatus> expected = new HashMap<>();
+        ProductSnapshot snapshot = ProductSnapshot.empty();
+        for (long id = 1; id <= 3000; id++) {
+            snapshot = snapshot.with(product(id));
+            expected.put(id, ProductStatus.ONSALE);
+        }
+        ProductSnapshot loaded = snapshot;
+        for (int i = 0; i < 5000; i++) {
+            long id = 1 + random.nextInt(4000);
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                snapshot = snapshot.without(id);
+                expected.remove(id);
+            } else if (operation == 1) {
+                snapshot = snapshot.with(product(id).status(ProductStatus.LOCKED));
+                expected.put(id, ProductStatus.LOCKED);
+            } else {
+                snapshot = snapshot.withPriceAndStatus(List.of(id), null, ProductStatus.INREPLENISHMENT);
+                expected.computeIfPresent(id, (key, status) -> ProductStatus.INREPLENISHMENT);
+            }
+        }
+
+        assertThat(snapshot.size()).isEqualTo(expected.size());
+        for (long id = 1; id <= 4000; id++) {
+            int row = snapshot.indexOf(id);
+            if (expected.containsKey(id)) {
+                assertThat(snapshot.id(row)).isEqualTo(id);
+                assertThat(snapshot.status(row)).isEqualTo(expected.get(id));
+            } else {
+                assertThat(row).isEqualTo(ProductSnapshot.NOT_FOUND);
+            }
+        }
+        // The snapshots that were copied are unchanged
+        assertThat(loaded.size()).isEqualTo(3000);
+        for (long id = 1; id <= 3000; id++) {
+            int row = loaded.indexOf(id);
+            assertThat(loaded.id(row)).isEqualTo(id);
+            assertThat(loaded.status(row)).isEqualTo(ProductStatus.ONSALE);
+        }
+    }
+
+    @Test
+    void keepsAmountsTooLargeForTheirColumn() {
+        BigDecimal large = new BigDecimal("1234567890123456789.01");
+        ProductSnapshot snapshot = ProductSnapshot.empty().with(product(1L).price(large).salesQuantity(large)).with(product(2L));
+
+        ProductSummaryDTO summary = snapshot.toSummary(snapshot.indexOf(1L));
+        assertThat(summary.getPrice()).isEqualByComparingTo(large);
+        assertThat(summary.getSalesQuantity()).isEqualByComparingTo(large);
+        assertThat(snapshot.priceCents(snapshot.indexOf(1L))).isEqualTo(Long.MAX_VALUE);
+
+        ProductSnapshot repriced = snapshot.withPriceAndStatus(List.of(1L, 2L), new BigDecimal("9.99"), null);
+        assertThat(repriced.toSummary(repriced.indexOf(1L)).getPrice()).isEqualByComparingTo("9.99");
+        assertThat(repriced.toSummary(repriced.indexOf(1L)).getSalesQuantity()).isEqualByComparingTo(large);
+
+        ProductSnapshot bulkPriced = snapshot.withPriceAndStatus(List.of(2L), large, null);
+        assertThat(bulkPriced.toSummary(bulkPriced.indexOf(2L)).getPrice()).isEqualByComparingTo(large);
+        assertThat(snapshot.toSummary(snapshot.indexOf(2L)).getPrice()).isEqualByComparingTo("12.34");
+
+        ProductSnapshot removed = snapshot.without(1L).with(product(1L));
+        assertThat(removed.toSummary(removed.indexOf(1L)).getPrice()).isEqualByComparingTo("12.34");
+        assertThat(removed.toSummary(removed.indexOf(1L)).getSalesQuantity()).isNull();
+    }
+
+    private static Product product(long id) {
+        return new Product()
+            .id(id)
+            .name("name-" + id)
+            .type(ProductType.DRUG)
+            .storageType(StorageType.SHELF)
+            .price(new BigDecimal("12.34"))
+            .status(ProductStatus.ONSALE);
+    }
+}
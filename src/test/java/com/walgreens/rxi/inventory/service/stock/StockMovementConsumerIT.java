@@ -0,0 +1,242 @@
+package com.walgreens.rxi.inventory.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.config.ApplicationProperties;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StockMovementType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.dto.StockMovementDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link StockMovementConsumer}, consuming from a {@link MockConsumer}.
+ */
+@IntegrationTest
+class StockMovementConsumerIT {
+
+    private static final String TOPIC = "inventory.stock-movements";
+
+    private static final int PARTITIONS = 4;
+
+    private static final int BATCH_SIZE = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(StockMovementConsumerIT.class);
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private MockConsumer<String, String> consumer;
+
+    private final List<TopicPartition> partitions = new ArrayList<>();
+
+    private final long[] offsets = new long[PARTITIONS];
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    private StockMovementConsumer stockMovementConsumer;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            partitions.add(new TopicPartition(TOPIC, partition));
+            beginningOffsets.put(partitions.get(partition), 0L);
+        }
+        consumer.updateBeginningOffsets(beginningOffsets);
+        consumer.schedulePollTask(() -> consumer.rebalance(partitions));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stockMovementConsumer != null) {
+            stockMovementConsumer.stop();
+        }
+        // The pool does not auto-commit
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                jdbcTemplate.update("delete from stock_movement");
+                productIds.forEach(productRepository::deleteById);
+            }
+        );
+    }
+
+    @Test
+    void appliesTheMovementsAndCommitsTheirOffsets() throws Exception {
+        createProducts(2);
+        List<ConsumerRecord<String, String>> records = List.of(
+            record(new StockMovementDTO("e1", productIds.get(0), StockMovementType.RECEIPT, 100L)),
+            record(new StockMovementDTO("e2", productIds.get(1), StockMovementType.RECEIPT, 50L)),
+            new ConsumerRecord<>(TOPIC, 0, offsets[0]++, null, "not a movement"),
+            record(new StockMovementDTO("e3", productIds.get(0), StockMovementType.SALE, 1L))
+        );
+        consumer.schedulePollTask(() -> records.forEach(consumer::addRecord));
+
+        start(stockMovementService);
+
+        awaitCommittedOffsets();
+        assertThat(stockMovementService.findStock(productIds.get(0))).contains(99L);
+        assertThat(stockMovementService.findStock(productIds.get(1))).contains(50L);
+    }
+
+    @Test
+    void pollsTheBatchAgainWhenItsTransactionFails() throws Exception {
+        createProducts(1);
+        ConsumerRecord<String, String> receipt = record(new StockMovementDTO("e1", productIds.get(0), StockMovementType.RECEIPT, 100L));
+        consumer.schedulePollTask(() -> consumer.addRecord(receipt));
+        StockMovementService failingOnce = mock(StockMovementService.class);
+        when(failingOnce.apply(any()))
+            .thenAnswer(
+                invocation -> {
+                    // The broker serves the batch again from the position the consumer seeks back to
+                    consumer.schedulePollTask(() -> consumer.addRecord(receipt));
+                    throw new DataAccessResourceFailureException("Database unavailable");
+                }
+            )
+            .thenAnswer(invocation -> stockMovementService.apply(invocation.getArgument(0)));
+
+        start(failingOnce);
+
+        awaitCommittedOffsets();
+        assertThat(stockMovementService.findStock(productIds.get(0))).contains(100L);
+    }
+
+    @Test
+    void keepsConsumingAfterAFailureOfTheBroker() throws Exception {
+        createProducts(1);
+        ConsumerRecord<String, String> receipt = record(new StockMovementDTO("e1", productIds.get(0), StockMovementType.RECEIPT, 100L));
+        consumer.schedulePollTask(() -> consumer.setPollException(new KafkaException("Broker unavailable")));
+        consumer.schedulePollTask(() -> consumer.addRecord(receipt));
+
+        start(stockMovementService);
+
+        awaitCommittedOffsets();
+        assertThat(stockMovementService.findStock(productIds.get(0))).contains(100L);
+        assertThat(meterRegistry.get("stock-movements.consumer.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("stock-movements.consumers.live").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void ingestsManyMovementsAcrossPartitions() throws Exception {
+        int products = 200;
+        int batches = 20;
+        createProducts(products);
+        long[] expected = new long[products];
+        for (int batch = 0; batch < batches; batch++) {
+            List<ConsumerRecord<String, String>> records = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                int product = (batch * BATCH_SIZE + i) % products;
+                StockMovementType type = i % 3 == 0 ? StockMovementType.SALE : StockMovementType.RECEIPT;
+                expected[product] += type.getSign() * 2L;
+                String eventId = batch + "-" + i;
+                records.add(record(new StockMovementDTO(eventId, productIds.get(product), type, 2L)));
+            }
+            consumer.schedulePollTask(() -> records.forEach(consumer::addRecord));
+        }
+
+        long start = System.nanoTime();
+        start(stockMovementService);
+        awaitCommittedOffsets();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("Ingested {} stock movements in {} ms", batches * BATCH_SIZE, elapsedMillis);
+        for (int product = 0; product < products; product++) {
+            assertThat(stockMovementService.findStock(productIds.get(product))).contains(expected[product]);
+        }
+        assertThat(jdbcTemplate.queryForObject("select count(*) from stock_movement", Long.class)).isEqualTo(batches * BATCH_SIZE);
+    }
+
+    private void start(StockMovementService service) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        stockMovementConsumer = new StockMovementConsumer(applicationProperties, service, objectMapper, meterRegistry, () -> consumer);
+        stockMovementConsumer.start();
+    }
+
+    private void createProducts(int count) {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                for (int i = 0; i < count; i++) {
+                    Product product = new Product()
+                        .name("AAAAAAAAAA")
+                        .type(ProductType.DRUG)
+                        .storageType(StorageType.SHELF)
+                        .price(BigDecimal.ONE);
+                    productIds.add(productRepository.save(product).getId());
+                }
+            }
+        );
+    }
+
+    private ConsumerRecord<String, String> record(StockMovementDTO movement) throws Exception {
+        int partition = (int) (movement.getProductId() % PARTITIONS);
+        String key = movement.getProductId().toString();
+        return new ConsumerRecord<>(TOPIC, partition, offsets[partition]++, key, objectMapper.writeValueAsString(movement));
+    }
+
+    private void awaitCommittedOffsets() throws InterruptedException {
+        for (int i = 0; i < 3000 && !committedEverything(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(committedEverything()).isTrue();
+    }
+
+    private boolean committedEverything() {
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions));
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            if (offsets[partition.partition()] > 0 && (offset == null || offset.offset() != offsets[partition.partition()])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package com.walgreens.rxi.inventory.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
+import com.walgreens.rxi.inventory.domain.enumeration.StockMovementType;
+import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.dto.StockMovementDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link StockMovementService}.
+ */
+@IntegrationTest
+@Transactional
+class StockMovementServiceIT {
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private long productId;
+
+    private long otherProductId;
+
+    @BeforeEach
+    void setUp() {
+        productId = productRepository.saveAndFlush(newProduct()).getId();
+        otherProductId = productRepository.saveAndFlush(newProduct()).getId();
+    }
+
+    @Test
+    void appliesTheSumOfTheMovementsOfEachProduct() {
+        int applied = stockMovementService.apply(
+            List.of(
+                new StockMovementDTO("e1", productId, StockMovementType.RECEIPT, 100L),
+                new StockMovementDTO("e2", productId, StockMovementType.SALE, 3L),
+                new StockMovementDTO("e3", otherProductId, StockMovementType.TRANSFER_IN, 10L),
+                new StockMovementDTO("e4", productId, StockMovementType.WRITE_OFF, 2L)
+            )
+        );
+
+        assertThat(applied).isEqualTo(4);
+        assertThat(stockMovementService.findStock(productId)).contains(95L);
+        assertThat(stockMovementService.findStock(otherProductId)).contains(10L);
+
+        // The stock rows exist now, and are updated
+        stockMovementService.apply(List.of(new StockMovementDTO("e5", otherProductId, StockMovementType.TRANSFER_OUT, 4L)));
+        assertThat(stockMovementService.findStock(otherProductId)).contains(6L);
+    }
+
+    @Test
+    void ignoresReplayedMovements() {
+        StockMovementDTO receipt = new StockMovementDTO("e1", productId, StockMovementType.RECEIPT, 100L);
+        StockMovementDTO sale = new StockMovementDTO("e2", productId, StockMovementType.SALE, 3L);
+        stockMovementService.apply(List.of(receipt));
+
+        // Replayed from an earlier offset, and twice in the batch
+        int applied = stockMovementService.apply(List.of(receipt, sale, sale));
+
+        assertThat(applied).isEqualTo(1);
+        assertThat(stockMovementService.findStock(productId)).contains(97L);
+    }
+
+    @Test
+    void ignoresTheMovementsOfUnknownProductsAndInvalidMovements() {
+        int applied = stockMovementService.apply(
+            List.of(
+                new StockMovementDTO("e1", productId, StockMovementType.RECEIPT, 100L),
+                new StockMovementDTO("e2", Long.MAX_VALUE, StockMovementType.RECEIPT, 100L),
+                new StockMovementDTO("e3", productId, StockMovementType.RECEIPT, -5L),
+                new StockMovementDTO(null, productId, StockMovementType.RECEIPT, 5L),
+                new StockMovementDTO("e4", productId, null, 5L)
+            )
+        );
+
+        assertThat(applied).isEqualTo(1);
+        assertThat(stockMovementService.findStock(productId)).contains(100L);
+        assertThat(stockMovementService.findStock(Long.MAX_VALUE)).isEmpty();
+        assertThat(stockMovementService.findStock(otherProductId)).isEmpty();
+    }
+
+    @Test
+    void appliesReplayedMovementsAgainOnceTheirIdsArePurged() {
+        StockMovementDTO receipt = new StockMovementDTO("e1", productId, StockMovementType.RECEIPT, 100L);
+        stockMovementService.apply(List.of(receipt));
+
+        assertThat(stockMovementService.purgeMovementsBefore(Instant.now().minus(1, ChronoUnit.DAYS))).isZero();
+        stockMovementService.apply(List.of(receipt));
+        assertThat(stockMovementService.findStock(productId)).contains(100L);
+
+        assertThat(stockMovementService.purgeMovementsBefore(Instant.now().plus(1, ChronoUnit.DAYS))).isEqualTo(1);
+        stockMovementService.apply(List.of(receipt));
+        assertThat(stockMovementService.findStock(productId)).contains(200L);
+    }
+
+    private static Product newProduct() {
+        return new Product().name("AAAAAAAAAA").type(ProductType.DRUG).storageType(StorageType.SHELF).price(BigDecimal.ONE);
+    }
+}
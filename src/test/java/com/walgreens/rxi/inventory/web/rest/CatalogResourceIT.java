@@ -1,6 +1,8 @@
 package com.walgreens.rxi.inventory.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -9,14 +11,23 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.walgreens.rxi.inventory.IntegrationTest;
 import com.walgreens.rxi.inventory.domain.Catalog;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
 import com.walgreens.rxi.inventory.domain.enumeration.CatalogStatus;
 import com.walgreens.rxi.inventory.repository.CatalogRepository;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.CatalogChangeService;
 import com.walgreens.rxi.inventory.service.CatalogService;
+import com.walgreens.rxi.inventory.service.ProductService;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -55,6 +66,18 @@ class CatalogResourceIT {
     @Autowired
     private CatalogRepository catalogRepository;
 
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
     @Mock
     private CatalogRepository catalogRepositoryMock;
 
@@ -205,18 +228,74 @@ class CatalogResourceIT {
     void getAllCatalogsWithEagerRelationshipsIsEnabled() throws Exception {
         when(catalogServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
 
-        restCatalogMockMvc.perform(get(ENTITY_API_URL + "?eagerload=true")).andExpect(status().isOk());
+        restCatalogMockMvc.perform(get(ENTITY_API_URL + "?include=members")).andExpect(status().isOk());
 
         verify(catalogServiceMock, times(1)).findAllWithEagerRelationships(any());
     }
 
     @SuppressWarnings({ "unchecked" })
     void getAllCatalogsWithEagerRelationshipsIsNotEnabled() throws Exception {
-        when(catalogServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
+        when(catalogServiceMock.findAll(any())).thenReturn(new PageImpl(new ArrayList<>()));
 
-        restCatalogMockMvc.perform(get(ENTITY_API_URL + "?eagerload=true")).andExpect(status().isOk());
+        restCatalogMockMvc.perform(get(ENTITY_API_URL)).andExpect(status().isOk());
 
-        verify(catalogServiceMock, times(1)).findAllWithEagerRelationships(any());
+        verify(catalogServiceMock, times(1)).findAll(any());
+    }
+
+    @Test
+    @Transactional
+    void getAllCatalogsQueriesAreBoundedByThePage() throws Exception {
+        // 300 catalogs of 10 products each, out of 100 products that all have a product code and a category
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ProductCode productCode = new ProductCode().upc("UPC-PAGE-" + i);
+            em.persist(productCode);
+            Product product = ProductResourceIT.createEntity(em).productCode(productCode).category(category);
+            em.persist(product);
+            products.add(product);
+        }
+        for (int i = 0; i < 300; i++) {
+            Catalog pageCatalog = createEntity(em);
+            for (int j = 0; j < 10; j++) {
+                pageCatalog.addProductCode(products.get((i + j * 7) % products.size()));
+            }
+            em.persist(pageCatalog);
+        }
+        em.flush();
+        em.clear();
+        long catalogCount = catalogRepository.count();
+
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=id,desc&size=20&include=members"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", String.valueOf(catalogCount)))
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[0].productCodes.length()").value(10))
+                .andExpect(jsonPath("$[19].productCodes.length()").value(10));
+            // The page, its count, and the products of its catalogs, with their product codes and categories
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+            // Only the entities of the page are loaded, whatever the number of catalogs
+            assertThat(statistics.getEntityStatistics(Catalog.class.getName()).getLoadCount()).isEqualTo(20);
+            assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isLessThanOrEqualTo(100);
+
+            em.clear();
+            statistics.clear();
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=id,desc&size=20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[0].productCodes").doesNotExist());
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+            assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isZero();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
     }
 
     @Test
@@ -475,4 +554,210 @@ class CatalogResourceIT {
         List<Catalog> catalogList = catalogRepository.findAll();
         assertThat(catalogList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void queryCatalogMembership() throws Exception {
+        // The membership index is only updated once catalog writes have committed
+        Product first = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Product second = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Product third = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Catalog left = catalogService.save(createEntity(em).addProductCode(first).addProductCode(second));
+        Catalog right = catalogService.save(createUpdatedEntity(em).addProductCode(second).addProductCode(third));
+        try {
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/{productId}", left.getId(), first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/{productId}", left.getId(), third.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("false"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/count", right.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL + "/by-product/{productId}", second.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(contains(left.getId().intValue(), right.getId().intValue())));
+
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL + "/product-ids?operation=intersection&catalogIds=" + left.getId() + "," + right.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(jsonPath("$").value(contains(second.getId().intValue())));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL + "/product-ids?operation=difference&catalogIds=" + left.getId() + "," + right.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(contains(first.getId().intValue())));
+            String nextCursor = restCatalogMockMvc
+                .perform(get(ENTITY_API_URL + "/product-ids?operation=union&size=2&catalogIds=" + left.getId() + "," + right.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$").value(contains(first.getId().intValue(), second.getId().intValue())))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+            restCatalogMockMvc
+                .perform(
+                    get(ENTITY_API_URL + "/product-ids?operation=union&size=2&catalogIds=" + left.getId() + "," + right.getId())
+                        .param("after", nextCursor)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$").value(contains(third.getId().intValue())));
+
+            // Writes replace the products of their catalog
+            catalogService.save(catalogRepository.findOneWithEagerRelationships(left.getId()).get().addProductCode(third));
+            catalogService.delete(right.getId());
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/{productId}", left.getId(), third.getId()))
+                .andExpect(content().string("true"));
+            restCatalogMockMvc.perform(get(ENTITY_API_URL_ID + "/products/count", right.getId())).andExpect(status().isNotFound());
+        } finally {
+            catalogRepository.deleteAll(catalogRepository.findAllById(List.of(left.getId(), right.getId())));
+            productRepository.deleteAll(productRepository.findAllById(List.of(first.getId(), second.getId(), third.getId())));
+        }
+    }
+
+    @Test
+    void addAndRemoveProducts() throws Exception {
+        Product first = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Product second = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Product third = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Catalog saved = catalogService.save(createEntity(em).addProductCode(first));
+        long unknownId = third.getId() + 1000;
+        try {
+            // Duplicates, unknown products and products already in the catalog are ignored
+            restCatalogMockMvc
+                .perform(
+                    post(ENTITY_API_URL_ID + "/products", saved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(
+                            TestUtil.convertObjectToJsonBytes(
+                                List.of(third.getId(), first.getId(), second.getId(), third.getId(), unknownId)
+                            )
+                        )
+                        .with(csrf())
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/count", saved.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+            restCatalogMockMvc
+                .perform(
+                    delete(ENTITY_API_URL_ID + "/products", saved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(List.of(first.getId(), unknownId)))
+                        .with(csrf())
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/{productId}", saved.getId(), first.getId()))
+                .andExpect(content().string("false"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products/count", saved.getId()))
+                .andExpect(content().string("2"));
+            restCatalogMockMvc
+                .perform(get(ENTITY_API_URL_ID, saved.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productCodes[*].id").value(containsInAnyOrder(second.getId().intValue(), third.getId().intValue())));
+
+            restCatalogMockMvc
+                .perform(
+                    post(ENTITY_API_URL_ID + "/products", saved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .with(csrf())
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("error.productidsinvalid"));
+            restCatalogMockMvc
+                .perform(
+                    delete(ENTITY_API_URL_ID + "/products", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(List.of(second.getId())))
+                        .with(csrf())
+                )
+                .andExpect(status().isNotFound());
+        } finally {
+            catalogRepository.deleteAll(catalogRepository.findAllById(List.of(saved.getId())));
+            productRepository.deleteAll(productRepository.findAllById(List.of(first.getId(), second.getId(), third.getId())));
+        }
+    }
+
+    @Test
+    @Transactional
+    void syncCatalogChanges() throws Exception {
+        Product first = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Product second = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Product third = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+        Catalog saved = catalogService.save(createEntity(em).addProductCode(first));
+
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/changes", saved.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(1))
+            .andExpect(jsonPath("$.snapshot").value(true))
+            .andExpect(jsonPath("$.products[*].id").value(contains(first.getId().intValue())));
+
+        catalogService.addProducts(saved.getId(), List.of(second.getId(), third.getId()));
+        productService.partialUpdate(new Product().id(second.getId()).name(UPDATED_CODE));
+        catalogService.removeProducts(saved.getId(), List.of(first.getId()));
+
+        // Only the products changed since the version held by the client
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/changes?since=2", saved.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(4))
+            .andExpect(jsonPath("$.snapshot").value(false))
+            .andExpect(jsonPath("$.code").value(DEFAULT_CODE))
+            .andExpect(jsonPath("$.products[*].id").value(contains(second.getId().intValue())))
+            .andExpect(jsonPath("$.products[0].name").value(UPDATED_CODE))
+            .andExpect(jsonPath("$.removedProductIds").value(contains(first.getId().intValue())));
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/changes?since=4", saved.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.snapshot").value(false))
+            .andExpect(jsonPath("$.products").isEmpty())
+            .andExpect(jsonPath("$.removedProductIds").isEmpty());
+
+        // Clients behind the compacted changes get a snapshot
+        assertThat(catalogChangeService.compactChangesBefore(Instant.now().plusSeconds(60))).isGreaterThanOrEqualTo(5);
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/changes?since=2", saved.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(4))
+            .andExpect(jsonPath("$.snapshot").value(true))
+            .andExpect(jsonPath("$.products[*].id").value(contains(second.getId().intValue(), third.getId().intValue())))
+            .andExpect(jsonPath("$.removedProductIds").isEmpty());
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/changes?since=4", saved.getId()))
+            .andExpect(jsonPath("$.snapshot").value(false))
+            .andExpect(jsonPath("$.products").isEmpty());
+
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/changes?since=-1", saved.getId()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.versioninvalid"));
+        restCatalogMockMvc.perform(get(ENTITY_API_URL_ID + "/changes", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void combineProductIdsWithInvalidParameters() throws Exception {
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL + "/product-ids?operation=xor&catalogIds=1"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.operationinvalid"));
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL + "/product-ids?operation=union&catalogIds=1&size=0"))
+            .andExpect(status().isBadRequest());
+        restCatalogMockMvc
+            .perform(get(ENTITY_API_URL + "/product-ids?operation=union&catalogIds=" + Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
 }
@@ -1,6 +1,7 @@
 package com.walgreens.rxi.inventory.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -8,7 +9,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.walgreens.rxi.inventory.IntegrationTest;
 import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
 import com.walgreens.rxi.inventory.repository.CategoryRepository;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.ProductService;
+import com.walgreens.rxi.inventory.service.dto.ProductBulkUpdateDTO;
+import com.walgreens.rxi.inventory.service.readmodel.ProductCounters;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -45,6 +52,15 @@ class CategoryResourceIT {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCounters productCounters;
+
     @Autowired
     private EntityManager em;
 
@@ -403,6 +419,52 @@ class CategoryResourceIT {
         assertThat(categoryList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    void getCategoryStats() throws Exception {
+        // The counters move once product writes have committed
+        Category saved = categoryRepository.saveAndFlush(category);
+        Product first = productService.save(ProductResourceIT.createEntity(em).category(saved));
+        Product second = productService.save(ProductResourceIT.createEntity(em).category(saved).status(ProductStatus.LOCKED));
+        String stats = "$[?(@.id == " + saved.getId() + ")]";
+        try {
+            restCategoryMockMvc
+                .perform(get(ENTITY_API_URL + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(stats + ".total").value(contains(2)))
+                .andExpect(jsonPath(stats + ".byStatus.ONSALE").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byStatus.LOCKED").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byType.DRUG").value(contains(2)));
+
+            productService.partialUpdate(new Product().id(second.getId()).status(ProductStatus.ONSALE));
+            restCategoryMockMvc
+                .perform(get(ENTITY_API_URL + "/stats"))
+                .andExpect(jsonPath(stats + ".byStatus.ONSALE").value(contains(2)))
+                .andExpect(jsonPath(stats + ".byStatus.LOCKED").isEmpty());
+
+            ProductBulkUpdateDTO bulkUpdate = new ProductBulkUpdateDTO();
+            bulkUpdate.setIds(List.of(first.getId(), second.getId()));
+            bulkUpdate.setStatus(ProductStatus.INREPLENISHMENT);
+            productService.bulkUpdate(bulkUpdate);
+            productService.delete(first.getId());
+            restCategoryMockMvc
+                .perform(get(ENTITY_API_URL + "/stats"))
+                .andExpect(jsonPath(stats + ".total").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byStatus.INREPLENISHMENT").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byStatus.ONSALE").isEmpty());
+
+            // A reconciliation with the database finds the same counts
+            productCounters.refresh();
+            restCategoryMockMvc
+                .perform(get(ENTITY_API_URL + "/stats"))
+                .andExpect(jsonPath(stats + ".total").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byStatus.INREPLENISHMENT").value(contains(1)));
+        } finally {
+            productRepository.deleteAll(productRepository.findAllById(List.of(first.getId(), second.getId())));
+            categoryRepository.deleteById(saved.getId());
+            productCounters.refresh();
+        }
+    }
+
     @Test
     @Transactional
     void deleteCategory() throws Exception {
@@ -2,13 +2,18 @@ package com.walgreens.rxi.inventory.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.walgreens.rxi.inventory.config.KafkaProperties;
+import com.walgreens.rxi.inventory.service.fanout.KafkaFanOut;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -57,7 +62,8 @@ class InventoryKafkaResourceIT {
         consumerProps.put("client.id", "default-client");
         kafkaProperties.setConsumer(consumerProps);
 
-        InventoryKafkaResource kafkaResource = new InventoryKafkaResource(kafkaProperties);
+        KafkaFanOut kafkaFanOut = new KafkaFanOut(kafkaProperties, new SimpleMeterRegistry());
+        InventoryKafkaResource kafkaResource = new InventoryKafkaResource(kafkaProperties, kafkaFanOut);
 
         restMockMvc = MockMvcBuilders.standaloneSetup(kafkaResource).build();
     }
@@ -79,6 +85,57 @@ class InventoryKafkaResourceIT {
         assertThat(record.value()).isEqualTo("value-produce");
     }
 
+    @Test
+    void producesBatchesOfMessages() throws Exception {
+        MvcResult mvcResult = restMockMvc
+            .perform(
+                post("/api/inventory-kafka/publish/topic-produce-batch/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"key\":\"k1\",\"message\":\"v1\"},{\"message\":\"v2\"},{\"key\":\"k3\",\"message\":\"v3\"}]")
+            )
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$[0].topic").value("topic-produce-batch"));
+
+        Map<String, Object> consumerProps = new HashMap<>(getConsumerProps("group-produce-batch"));
+        KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProps);
+        consumer.subscribe(Collections.singletonList("topic-produce-batch"));
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10 && values.size() < 3; i++) {
+            for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofSeconds(1))) {
+                values.add(record.key() + "=" + record.value());
+            }
+        }
+        consumer.close();
+
+        assertThat(values).containsExactlyInAnyOrder("k1=v1", "null=v2", "k3=v3");
+    }
+
+    @Test
+    void refusesBatchesBeyondTheMessagesInFlight() throws Exception {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setProducer(new HashMap<>(getProducerProps()));
+        kafkaProperties.setMaxInFlightMessages(2);
+        KafkaFanOut kafkaFanOut = new KafkaFanOut(kafkaProperties, new SimpleMeterRegistry());
+        MockMvc limitedMockMvc = MockMvcBuilders.standaloneSetup(new InventoryKafkaResource(kafkaProperties, kafkaFanOut)).build();
+
+        limitedMockMvc
+            .perform(
+                post("/api/inventory-kafka/publish/topic-produce-batch/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"message\":\"value-1\"},{\"message\":\"value-2\"},{\"message\":\"value-3\"}]")
+            )
+            .andExpect(status().isTooManyRequests());
+        limitedMockMvc
+            .perform(post("/api/inventory-kafka/publish/topic-produce-batch/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     void consumesMessages() throws Exception {
         Map<String, Object> producerProps = new HashMap<>(getProducerProps());
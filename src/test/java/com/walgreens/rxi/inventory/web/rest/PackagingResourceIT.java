@@ -1,6 +1,7 @@
 package com.walgreens.rxi.inventory.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -8,7 +9,11 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.walgreens.rxi.inventory.IntegrationTest;
 import com.walgreens.rxi.inventory.domain.Packaging;
+import com.walgreens.rxi.inventory.domain.Product;
 import com.walgreens.rxi.inventory.repository.PackagingRepository;
+import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.ProductService;
+import com.walgreens.rxi.inventory.service.dto.PackingRequestDTO;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -60,6 +65,12 @@ class PackagingResourceIT {
     @Autowired
     private PackagingRepository packagingRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
     @Autowired
     private EntityManager em;
 
@@ -500,6 +511,95 @@ class PackagingResourceIT {
         assertThat(packagingList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    void getPackagingStats() throws Exception {
+        // The counters move once product writes have committed
+        Packaging saved = packagingRepository.saveAndFlush(packaging);
+        Product product = productService.save(ProductResourceIT.createEntity(em).packaging(saved));
+        String stats = "$[?(@.id == " + saved.getId() + ")]";
+        try {
+            restPackagingMockMvc
+                .perform(get(ENTITY_API_URL + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(stats + ".total").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byStatus.ONSALE").value(contains(1)))
+                .andExpect(jsonPath(stats + ".byType.DRUG").value(contains(1)));
+
+            productService.delete(product.getId());
+            restPackagingMockMvc.perform(get(ENTITY_API_URL + "/stats")).andExpect(jsonPath(stats).isEmpty());
+        } finally {
+            productRepository.deleteAll(productRepository.findAllById(List.of(product.getId())));
+            packagingRepository.deleteById(saved.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void planPacking() throws Exception {
+        Packaging carton = packagingRepository.saveAndFlush(
+            new Packaging().name("carton").quantity(6).grosWeight(5D).length(40D).width(30D).height(20D)
+        );
+        Product packed = productRepository.saveAndFlush(ProductResourceIT.createEntity(em).packaging(carton));
+        Product unpacked = productRepository.saveAndFlush(ProductResourceIT.createEntity(em));
+
+        PackingRequestDTO.Container pallet = new PackingRequestDTO.Container();
+        pallet.setLength(120D);
+        pallet.setWidth(80D);
+        pallet.setHeight(100D);
+        pallet.setMaxWeight(1000D);
+        PackingRequestDTO request = new PackingRequestDTO();
+        request.setContainer(pallet);
+        request.setLines(List.of(packingLine(packed.getId(), 60), packingLine(unpacked.getId(), 1)));
+
+        // 10 cartons, in the 2 columns of 5 that take the least floor area
+        restPackagingMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/packing-plan")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(request))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.containerCount").value(1))
+            .andExpect(jsonPath("$.volumeUtilisation").value(10 * 40 * 30 * 20 / (120.0 * 80 * 100)))
+            .andExpect(jsonPath("$.unpackedProductIds").value(contains(unpacked.getId().intValue())))
+            .andExpect(jsonPath("$.containers[0].weight").value(50.0))
+            .andExpect(jsonPath("$.containers[0].placements[0].productId").value(packed.getId().intValue()))
+            .andExpect(jsonPath("$.containers[0].placements[0].packagingId").value(carton.getId().intValue()))
+            .andExpect(jsonPath("$.containers[0].placements[0].height").value(20.0))
+            .andExpect(jsonPath("$.containers[0].placements[0].columns").value(2))
+            .andExpect(jsonPath("$.containers[0].placements[0].packagesPerColumn").value(5))
+            .andExpect(jsonPath("$.containers[0].placements[0].packages").value(10));
+
+        request.setLines(List.of());
+        restPackagingMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/packing-plan")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(request))
+            )
+            .andExpect(status().isBadRequest());
+
+        request.setLines(List.of(packingLine(packed.getId(), 60)));
+        pallet.setHeight(null);
+        restPackagingMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/packing-plan")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(request))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    private static PackingRequestDTO.Line packingLine(Long productId, int quantity) {
+        PackingRequestDTO.Line line = new PackingRequestDTO.Line();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
     @Test
     @Transactional
     void deletePackaging() throws Exception {
@@ -7,16 +7,21 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.domain.Product;
 import com.walgreens.rxi.inventory.domain.ProductCode;
 import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -30,8 +35,8 @@ import org.springframework.transaction.annotation.Transactional;
 @WithMockUser
 class ProductCodeResourceIT {
 
-    private static final String DEFAULT_UPC = "AAAAAAAAAA";
-    private static final String UPDATED_UPC = "BBBBBBBBBB";
+    private static final String DEFAULT_UPC = "00012345678905";
+    private static final String UPDATED_UPC = "04006381333931";
 
     private static final String DEFAULT_BARCODE = "AAAAAAAAAA";
     private static final String UPDATED_BARCODE = "BBBBBBBBBB";
@@ -51,6 +56,9 @@ class ProductCodeResourceIT {
     @Autowired
     private MockMvc restProductCodeMockMvc;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     private ProductCode productCode;
 
     /**
@@ -77,6 +85,8 @@ class ProductCodeResourceIT {
 
     @BeforeEach
     public void initTest() {
+        cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).clear();
+        cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_BARCODE_CACHE).clear();
         productCode = createEntity(em);
     }
 
@@ -125,6 +135,121 @@ class ProductCodeResourceIT {
         assertThat(productCodeList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void createProductCodeNormalizesGtins() throws Exception {
+        // A UPC-A and an EAN-13 barcode, as scanned
+        productCode.upc(" 012345678905 ").barcode("4006381333931");
+
+        restProductCodeMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(productCode))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.upc").value("00012345678905"))
+            .andExpect(jsonPath("$.barcode").value("04006381333931"));
+
+        // Both are found whatever their length
+        restProductCodeMockMvc
+            .perform(get(ENTITY_API_URL + "/lookup?upc={upc}", "12345678905"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.upc").value("00012345678905"));
+        restProductCodeMockMvc
+            .perform(get(ENTITY_API_URL + "/lookup?barcode={barcode}", "04006381333931"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.barcode").value("04006381333931"));
+    }
+
+    @Test
+    @Transactional
+    void createProductCodeWithInvalidGtin() throws Exception {
+        int databaseSizeBeforeCreate = productCodeRepository.findAll().size();
+
+        // A UPC with a wrong check digit, then a UPC that is not a GTIN
+        for (String upc : new String[] { "012345678906", "UPC-12345" }) {
+            productCode.setUpc(upc);
+            restProductCodeMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(productCode))
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("error.codeinvalid"));
+        }
+
+        // A barcode of all digits with a wrong check digit is a mistyped GTIN
+        productCode.upc(DEFAULT_UPC).barcode("4006381333932");
+        restProductCodeMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(productCode))
+            )
+            .andExpect(status().isBadRequest());
+
+        List<ProductCode> productCodeList = productCodeRepository.findAll();
+        assertThat(productCodeList).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    void validateProductCodes() throws Exception {
+        restProductCodeMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/validate")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"96385074\", \"012345678905\", \"012345678906\", \"0123456789O5\", \"123\", null]")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.valid").value(2))
+            .andExpect(jsonPath("$.invalid").value(4))
+            .andExpect(jsonPath("$.results[0].gtin").value("00000096385074"))
+            .andExpect(jsonPath("$.results[1].gtin").value("00012345678905"))
+            .andExpect(jsonPath("$.results[2].error").value("INVALID_CHECK_DIGIT"))
+            .andExpect(jsonPath("$.results[3].error").value("INVALID_CHARACTER"))
+            .andExpect(jsonPath("$.results[4].error").value("INVALID_LENGTH"))
+            .andExpect(jsonPath("$.results[5].error").value("INVALID_LENGTH"));
+    }
+
+    @Test
+    void validateProductCodeLines() throws Exception {
+        restProductCodeMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/validate")
+                    .with(csrf())
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .content("4006381333931\r\n10012345678902\n\n4006381333930\n")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.valid").value(2))
+            .andExpect(jsonPath("$.invalid").value(2))
+            .andExpect(jsonPath("$.results[0].gtin").value("04006381333931"))
+            .andExpect(jsonPath("$.results[1].gtin").value("10012345678902"))
+            .andExpect(jsonPath("$.results[2].error").value("INVALID_LENGTH"))
+            .andExpect(jsonPath("$.results[3].error").value("INVALID_CHECK_DIGIT"));
+
+        // An empty batch is rejected
+        restProductCodeMockMvc
+            .perform(post(ENTITY_API_URL + "/validate").with(csrf()).contentType(MediaType.TEXT_PLAIN).content(""))
+            .andExpect(status().isBadRequest());
+
+        // So is a batch of too many lines, the last one without a line feed
+        String tooMany = "4006381333931\n".repeat(ProductCodeResource.MAX_CODES_BATCH_SIZE) + "4006381333931";
+        restProductCodeMockMvc
+            .perform(post(ENTITY_API_URL + "/validate").with(csrf()).contentType(MediaType.TEXT_PLAIN).content(tooMany))
+            .andExpect(status().isBadRequest());
+        restProductCodeMockMvc
+            .perform(post(ENTITY_API_URL + "/validate").with(csrf()).contentType(MediaType.TEXT_PLAIN).content(tooMany.substring(14)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.valid").value(ProductCodeResource.MAX_CODES_BATCH_SIZE));
+    }
+
     @Test
     @Transactional
     void checkUpcIsRequired() throws Exception {
@@ -163,6 +288,45 @@ class ProductCodeResourceIT {
             .andExpect(jsonPath("$.[*].barcode").value(hasItem(DEFAULT_BARCODE)));
     }
 
+    @Test
+    @Transactional
+    void getAllProductCodesWithoutProductInOneQueryAndItsCount() throws Exception {
+        // 60 codes, one in three of them without product
+        List<Long> unassignedIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ProductCode unassigned = new ProductCode().upc("UPC-FREE-" + i);
+            em.persist(unassigned);
+            if (i % 3 == 0) {
+                unassignedIds.add(unassigned.getId());
+            } else {
+                em.persist(ProductResourceIT.createEntity(em).productCode(unassigned));
+            }
+        }
+        em.flush();
+        em.clear();
+        long unassignedCount = productCodeRepository.findAll().stream().filter(code -> code.getProduct() == null).count();
+        em.clear();
+
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            restProductCodeMockMvc
+                .perform(get(ENTITY_API_URL + "?filter=product-is-null&sort=id,desc&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", String.valueOf(unassignedCount)))
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].id").value(unassignedIds.get(unassignedIds.size() - 1).intValue()))
+                .andExpect(jsonPath("$[4].id").value(unassignedIds.get(unassignedIds.size() - 5).intValue()))
+                .andExpect(jsonPath("$[0].product").doesNotExist());
+            // The page and its count, whatever the number of codes: no product is loaded one by one
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(statistics.getEntityStatistics(Product.class.getName()).getLoadCount()).isZero();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
     @Test
     @Transactional
     void getProductCode() throws Exception {
@@ -179,6 +343,76 @@ class ProductCodeResourceIT {
             .andExpect(jsonPath("$.barcode").value(DEFAULT_BARCODE));
     }
 
+    @Test
+    @Transactional
+    void lookupProductCode() throws Exception {
+        // Initialize the database
+        productCodeRepository.saveAndFlush(productCode);
+
+        // Look up the productCode by UPC and by barcode
+        restProductCodeMockMvc
+            .perform(get(ENTITY_API_URL + "/lookup?upc={upc}", DEFAULT_UPC))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(productCode.getId().intValue()))
+            .andExpect(jsonPath("$.upc").value(DEFAULT_UPC));
+        restProductCodeMockMvc
+            .perform(get(ENTITY_API_URL + "/lookup?barcode={barcode}", DEFAULT_BARCODE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(productCode.getId().intValue()));
+
+        // The result is cached
+        assertThat(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).get(DEFAULT_UPC)).isNotNull();
+    }
+
+    @Test
+    void lookupUnknownProductCodeIsCachedUntilCreated() throws Exception {
+        // Look up an unknown UPC: the miss is cached
+        restProductCodeMockMvc.perform(get(ENTITY_API_URL + "/lookup?upc={upc}", UPDATED_UPC)).andExpect(status().isNotFound());
+        assertThat(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).get(UPDATED_UPC)).isNotNull();
+
+        try {
+            // Creating the productCode evicts the cached miss once committed
+            restProductCodeMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(createUpdatedEntity(em)))
+                )
+                .andExpect(status().isCreated());
+            restProductCodeMockMvc.perform(get(ENTITY_API_URL + "/lookup?upc={upc}", UPDATED_UPC)).andExpect(status().isOk());
+        } finally {
+            productCodeRepository.findIdByUpc(UPDATED_UPC).ifPresent(productCodeRepository::deleteById);
+        }
+    }
+
+    @Test
+    @Transactional
+    void lookupIsNotEvictedByUncommittedWrites() throws Exception {
+        // Look up an unknown UPC: the miss is cached
+        restProductCodeMockMvc.perform(get(ENTITY_API_URL + "/lookup?upc={upc}", UPDATED_UPC)).andExpect(status().isNotFound());
+
+        // Creating the productCode in a transaction that is not committed keeps the miss
+        restProductCodeMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(createUpdatedEntity(em)))
+            )
+            .andExpect(status().isCreated());
+        assertThat(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).get(UPDATED_UPC)).isNotNull();
+    }
+
+    @Test
+    @Transactional
+    void lookupProductCodeRequiresExactlyOneCode() throws Exception {
+        restProductCodeMockMvc.perform(get(ENTITY_API_URL + "/lookup")).andExpect(status().isBadRequest());
+        restProductCodeMockMvc
+            .perform(get(ENTITY_API_URL + "/lookup?upc={upc}&barcode={barcode}", DEFAULT_UPC, DEFAULT_BARCODE))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getNonExistingProductCode() throws Exception {
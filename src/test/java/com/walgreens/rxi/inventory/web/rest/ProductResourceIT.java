@@ -2,32 +2,52 @@ package com.walgreens.rxi.inventory.web.rest;
 
 import static com.walgreens.rxi.inventory.web.rest.TestUtil.sameNumber;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.walgreens.rxi.inventory.IntegrationTest;
+import com.walgreens.rxi.inventory.domain.Category;
+import com.walgreens.rxi.inventory.domain.Packaging;
 import com.walgreens.rxi.inventory.domain.Product;
+import com.walgreens.rxi.inventory.domain.ProductCode;
 import com.walgreens.rxi.inventory.domain.enumeration.ProductStatus;
 import com.walgreens.rxi.inventory.domain.enumeration.ProductType;
 import com.walgreens.rxi.inventory.domain.enumeration.StorageType;
 import com.walgreens.rxi.inventory.domain.enumeration.UnitOfMeasurement;
+import com.walgreens.rxi.inventory.repository.ProductCodeRepository;
 import com.walgreens.rxi.inventory.repository.ProductRepository;
+import com.walgreens.rxi.inventory.service.ImageStoreService;
+import com.walgreens.rxi.inventory.web.rest.util.KeysetPaginationUtil;
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 
 /**
  * Integration tests for the {@link ProductResource} REST controller.
@@ -65,6 +85,8 @@ class ProductResourceIT {
     private static final byte[] UPDATED_IMAGE = TestUtil.createByteArray(1, "1");
     private static final String DEFAULT_IMAGE_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_IMAGE_CONTENT_TYPE = "image/png";
+    private static final String DEFAULT_IMAGE_HASH = sha256(DEFAULT_IMAGE);
+    private static final String UPDATED_IMAGE_HASH = sha256(UPDATED_IMAGE);
 
     private static final ProductStatus DEFAULT_STATUS = ProductStatus.ONSALE;
     private static final ProductStatus UPDATED_STATUS = ProductStatus.LOCKED;
@@ -78,12 +100,18 @@ class ProductResourceIT {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ImageStoreService imageStoreService;
+
     @Autowired
     private EntityManager em;
 
     @Autowired
     private MockMvc restProductMockMvc;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     private Product product;
 
     /**
@@ -104,6 +132,7 @@ class ProductResourceIT {
             .salesQuantity(DEFAULT_SALES_QUANTITY)
             .image(DEFAULT_IMAGE)
             .imageContentType(DEFAULT_IMAGE_CONTENT_TYPE)
+            .imageHash(DEFAULT_IMAGE_HASH)
             .status(DEFAULT_STATUS);
         return product;
     }
@@ -126,10 +155,23 @@ class ProductResourceIT {
             .salesQuantity(UPDATED_SALES_QUANTITY)
             .image(UPDATED_IMAGE)
             .imageContentType(UPDATED_IMAGE_CONTENT_TYPE)
+            .imageHash(UPDATED_IMAGE_HASH)
             .status(UPDATED_STATUS);
         return product;
     }
 
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hash = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @BeforeEach
     public void initTest() {
         product = createEntity(em);
@@ -161,7 +203,7 @@ class ProductResourceIT {
         assertThat(testProduct.getPrice()).isEqualByComparingTo(DEFAULT_PRICE);
         assertThat(testProduct.getSalesUnit()).isEqualTo(DEFAULT_SALES_UNIT);
         assertThat(testProduct.getSalesQuantity()).isEqualByComparingTo(DEFAULT_SALES_QUANTITY);
-        assertThat(testProduct.getImage()).isEqualTo(DEFAULT_IMAGE);
+        assertThat(testProduct.getImageHash()).isEqualTo(DEFAULT_IMAGE_HASH);
         assertThat(testProduct.getImageContentType()).isEqualTo(DEFAULT_IMAGE_CONTENT_TYPE);
         assertThat(testProduct.getStatus()).isEqualTo(DEFAULT_STATUS);
     }
@@ -189,6 +231,93 @@ class ProductResourceIT {
         assertThat(productList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void importProductsFromCsv() throws Exception {
+        int databaseSizeBeforeImport = productRepository.findAll().size();
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        em.flush();
+
+        String csv =
+            "id;name;description;company;type;storage_type;price;sales_unit;sales_quantity;image;image_content_type;status;category_id\n" +
+            "1;AAAAAAAAAA;Description;Company;DRUG;SHELF;12.50;PIECE;1;;;ONSALE;" + category.getId() + "\n" +
+            "2;BBBBBBBBBB;\"Quoted; description\";Company;MEDICINE;DRAWERS;3;;;;;;\n" +
+            "3;CCCCCCCCCC;;;UNKNOWN;SHELF;1;;;;;;\n" +
+            "4;;;;DRUG;SHELF;1;;;;;;\n" +
+            "5;DDDDDDDDDD;;;DRUG;SHELF;1;;;;;;" + Long.MAX_VALUE + "\n" +
+            "6;too;few;values\n";
+
+        restProductMockMvc
+            .perform(post(ENTITY_API_URL + "/import").with(csrf()).contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(6))
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.failed").value(4))
+            .andExpect(jsonPath("$.errors[*].line").value(contains(4, 5, 6, 7)))
+            .andExpect(jsonPath("$.errors[0].message").value("type: invalid value 'UNKNOWN'"))
+            .andExpect(jsonPath("$.errors[1].message").value("name: must not be null"));
+
+        List<Product> productList = productRepository.findAll();
+        assertThat(productList).hasSize(databaseSizeBeforeImport + 2);
+        Product imported = productList.stream().filter(p -> "AAAAAAAAAA".equals(p.getName())).findFirst().orElseThrow();
+        assertThat(imported.getPrice()).isEqualByComparingTo("12.50");
+        assertThat(imported.getCategory().getId()).isEqualTo(category.getId());
+        assertThat(productList).extracting(Product::getDescription).contains("Quoted; description");
+    }
+
+    @Test
+    @Transactional
+    void importProductsFromCsvWithAnUnterminatedQuote() throws Exception {
+        int databaseSizeBeforeImport = productRepository.findAll().size();
+
+        // More valid rows follow the unbalanced quote than a quoted value may span lines
+        int validRows = 150;
+        StringBuilder csv = new StringBuilder("name;description;type;storage_type;price\n");
+        csv.append("AAAAAAAAAA;\"Unterminated;DRUG;SHELF;1\n");
+        for (int i = 0; i < validRows; i++) {
+            csv.append("BBBBBBBBBB;\"Quoted; description\";DRUG;SHELF;1\n");
+        }
+
+        restProductMockMvc
+            .perform(post(ENTITY_API_URL + "/import").with(csrf()).contentType("text/csv").content(csv.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(validRows + 1))
+            .andExpect(jsonPath("$.imported").value(validRows))
+            .andExpect(jsonPath("$.failed").value(1))
+            .andExpect(jsonPath("$.errors[0].line").value(2))
+            .andExpect(jsonPath("$.errors[0].message").value("Unterminated quoted value"));
+
+        List<Product> productList = productRepository.findAll();
+        assertThat(productList).hasSize(databaseSizeBeforeImport + validRows);
+        assertThat(productList).extracting(Product::getName).doesNotContain("AAAAAAAAAA");
+    }
+
+    @Test
+    @Transactional
+    void importProductsFromNdjson() throws Exception {
+        int databaseSizeBeforeImport = productRepository.findAll().size();
+
+        String ndjson =
+            "{\"name\":\"AAAAAAAAAA\",\"type\":\"DRUG\",\"storageType\":\"SHELF\",\"price\":1.5,\"colour\":\"red\"}\n" +
+            "\n" +
+            "{\"name\":\"BBBBBBBBBB\",\"type\":\"DRUG\",\"storageType\":\"SHELF\"}\n" +
+            "not json\n";
+
+        restProductMockMvc
+            .perform(post(ENTITY_API_URL + "/import").with(csrf()).contentType("application/x-ndjson").content(ndjson))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(3))
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.errors[0].message").value("Unknown field 'colour' ignored"))
+            .andExpect(jsonPath("$.errors[1].line").value(3))
+            .andExpect(jsonPath("$.errors[1].message").value("price: must not be null"))
+            .andExpect(jsonPath("$.errors[2].line").value(4));
+
+        assertThat(productRepository.findAll()).hasSize(databaseSizeBeforeImport + 1);
+    }
+
     @Test
     @Transactional
     void checkNameIsRequired() throws Exception {
@@ -298,10 +427,72 @@ class ProductResourceIT {
             .andExpect(jsonPath("$.[*].salesUnit").value(hasItem(DEFAULT_SALES_UNIT.toString())))
             .andExpect(jsonPath("$.[*].salesQuantity").value(hasItem(sameNumber(DEFAULT_SALES_QUANTITY))))
             .andExpect(jsonPath("$.[*].imageContentType").value(hasItem(DEFAULT_IMAGE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].image").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGE))))
+            .andExpect(jsonPath("$.[*].imageUrl").value(hasItem("/api/products/" + product.getId() + "/image?v=" + DEFAULT_IMAGE_HASH)))
+            .andExpect(jsonPath("$.[*].image").doesNotExist())
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())));
     }
 
+    @Test
+    @Transactional
+    void getProductImage() throws Exception {
+        // Initialize the database and the image store
+        productRepository.saveAndFlush(product);
+        imageStoreService.store(DEFAULT_IMAGE);
+
+        // Get the image of the product
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_IMAGE_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + DEFAULT_IMAGE_HASH + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(content().bytes(DEFAULT_IMAGE));
+
+        // Get the image through its versioned url
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image?v={hash}", product.getId(), DEFAULT_IMAGE_HASH))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=")))
+            .andExpect(content().bytes(DEFAULT_IMAGE));
+
+        // Revalidate the image
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", product.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + DEFAULT_IMAGE_HASH + "\""))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @Transactional
+    void getProductImageRange() throws Exception {
+        // Initialize the database and the image store
+        byte[] image = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        productRepository.saveAndFlush(product.imageHash(imageStoreService.store(image)));
+
+        // Get a range of the image
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", product.getId()).header(HttpHeaders.RANGE, "bytes=4-7"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-7/16"))
+            .andExpect(content().bytes(Arrays.copyOfRange(image, 4, 8)));
+
+        // Get a range past the end of the image
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", product.getId()).header(HttpHeaders.RANGE, "bytes=16-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingProductImage() throws Exception {
+        // Get the image of a product without image
+        productRepository.saveAndFlush(product.image(null).imageContentType(null).imageHash(null));
+        restProductMockMvc.perform(get(ENTITY_API_URL_ID + "/image", product.getId())).andExpect(status().isNotFound());
+
+        // Get the image of a product that does not exist
+        restProductMockMvc.perform(get(ENTITY_API_URL_ID + "/image", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void getProduct() throws Exception {
@@ -323,10 +514,308 @@ class ProductResourceIT {
             .andExpect(jsonPath("$.salesUnit").value(DEFAULT_SALES_UNIT.toString()))
             .andExpect(jsonPath("$.salesQuantity").value(sameNumber(DEFAULT_SALES_QUANTITY)))
             .andExpect(jsonPath("$.imageContentType").value(DEFAULT_IMAGE_CONTENT_TYPE))
-            .andExpect(jsonPath("$.image").value(Base64Utils.encodeToString(DEFAULT_IMAGE)))
+            .andExpect(jsonPath("$.imageHash").value(DEFAULT_IMAGE_HASH))
             .andExpect(jsonPath("$.status").value(DEFAULT_STATUS.toString()));
     }
 
+    @Test
+    @Transactional
+    void getAllProductsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        Product first = productRepository.saveAndFlush(createEntity(em));
+        Product second = productRepository.saveAndFlush(createEntity(em));
+        Product third = productRepository.saveAndFlush(createEntity(em));
+
+        String cursor = KeysetPaginationUtil.encodeCursor(first.getId() - 1);
+
+        // Get the first keyset page, the total count is not computed unless asked for
+        String nextCursor = restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?after={after}&size=2", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andExpect(header().string(KeysetPaginationUtil.HEADER_NEXT_CURSOR, KeysetPaginationUtil.encodeCursor(second.getId())))
+            .andExpect(header().exists("Link"))
+            .andExpect(header().doesNotExist(KeysetPaginationUtil.HEADER_TOTAL_COUNT))
+            .andReturn()
+            .getResponse()
+            .getHeader(KeysetPaginationUtil.HEADER_NEXT_CURSOR);
+
+        // Get the last keyset page
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?after={after}&size=2&count=true", nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()))
+            .andExpect(header().doesNotExist(KeysetPaginationUtil.HEADER_NEXT_CURSOR))
+            .andExpect(header().string(KeysetPaginationUtil.HEADER_TOTAL_COUNT, String.valueOf(productRepository.count())));
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsWithInvalidCursor() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getProductByUpc() throws Exception {
+        // Initialize the database
+        cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).clear();
+        ProductCode productCode = ProductCodeResourceIT.createEntity(em);
+        em.persist(productCode);
+        em.flush();
+        product.setProductCode(productCode);
+        productRepository.saveAndFlush(product);
+        em.clear();
+
+        // Get the product by UPC
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "/by-upc/{upc}", productCode.getUpc()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(product.getId().intValue()))
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME));
+
+        // Only the id of the code is cached: a product write is seen without evicting the lookup
+        assertThat(cacheManager.getCache(ProductCodeRepository.PRODUCT_CODES_BY_UPC_CACHE).get(productCode.getUpc()).get())
+            .isEqualTo(productCode.getId());
+        productRepository.saveAndFlush(productRepository.findById(product.getId()).orElseThrow().name(UPDATED_NAME));
+        em.clear();
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "/by-upc/{upc}", productCode.getUpc()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+
+        // Get the product of an unknown UPC
+        restProductMockMvc.perform(get(ENTITY_API_URL + "/by-upc/{upc}", "unknown")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getProductSummary() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get the summary of the product
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/summary", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(product.getId().intValue()))
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.price").value(sameNumber(DEFAULT_PRICE)))
+            .andExpect(jsonPath("$.imageUrl").value("/api/products/" + product.getId() + "/image?v=" + DEFAULT_IMAGE_HASH))
+            .andExpect(jsonPath("$.status").value(DEFAULT_STATUS.toString()));
+
+        // Get the summary of a product that does not exist
+        restProductMockMvc.perform(get(ENTITY_API_URL_ID + "/summary", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getProductsByIdFiltering() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        Long id = product.getId();
+
+        defaultProductShouldBeFound("id.equals=" + id);
+        defaultProductShouldNotBeFound("id.notEquals=" + id);
+
+        defaultProductShouldBeFound("id.greaterThanOrEqual=" + id);
+        defaultProductShouldNotBeFound("id.greaterThan=" + id);
+
+        defaultProductShouldBeFound("id.lessThanOrEqual=" + id);
+        defaultProductShouldNotBeFound("id.lessThan=" + id);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByNameContainsSomething() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where name contains DEFAULT_NAME
+        defaultProductShouldBeFound("name.contains=" + DEFAULT_NAME);
+
+        // Get all the productList where name contains UPDATED_NAME
+        defaultProductShouldNotBeFound("name.contains=" + UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByTypeIsEqualToSomething() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where type equals to DEFAULT_TYPE
+        defaultProductShouldBeFound("type.equals=" + DEFAULT_TYPE);
+
+        // Get all the productList where type equals to UPDATED_TYPE
+        defaultProductShouldNotBeFound("type.equals=" + UPDATED_TYPE);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByStorageTypeIsInShouldWork() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where storageType in DEFAULT_STORAGE_TYPE or UPDATED_STORAGE_TYPE
+        defaultProductShouldBeFound("storageType.in=" + DEFAULT_STORAGE_TYPE + "," + UPDATED_STORAGE_TYPE);
+
+        // Get all the productList where storageType equals to UPDATED_STORAGE_TYPE
+        defaultProductShouldNotBeFound("storageType.in=" + UPDATED_STORAGE_TYPE);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByPriceIsGreaterThanSomething() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where price is greater than or equal to DEFAULT_PRICE
+        defaultProductShouldBeFound("price.greaterThanOrEqual=" + DEFAULT_PRICE);
+
+        // Get all the productList where price is greater than DEFAULT_PRICE
+        defaultProductShouldNotBeFound("price.greaterThan=" + DEFAULT_PRICE);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByPriceIsLessThanSomething() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where price is less than UPDATED_PRICE
+        defaultProductShouldBeFound("price.lessThan=" + UPDATED_PRICE);
+
+        // Get all the productList where price is less than DEFAULT_PRICE
+        defaultProductShouldNotBeFound("price.lessThan=" + DEFAULT_PRICE);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByStatusIsEqualToSomething() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where status equals to DEFAULT_STATUS
+        defaultProductShouldBeFound("status.equals=" + DEFAULT_STATUS);
+
+        // Get all the productList where status equals to UPDATED_STATUS
+        defaultProductShouldNotBeFound("status.equals=" + UPDATED_STATUS);
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByStatusIsNullOrNotNull() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList where status is not null
+        defaultProductShouldBeFound("status.specified=true");
+
+        // Get all the productList where status is null
+        defaultProductShouldNotBeFound("status.specified=false");
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByCategoryIsEqualToSomething() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIT.createEntity(em);
+        em.persist(category);
+        em.flush();
+        product.setCategory(category);
+        productRepository.saveAndFlush(product);
+        Long categoryId = category.getId();
+
+        // Get all the productList where category equals to categoryId
+        defaultProductShouldBeFound("categoryId.equals=" + categoryId);
+
+        // Get all the productList where category equals to (categoryId + 1)
+        defaultProductShouldNotBeFound("categoryId.equals=" + (categoryId + 1));
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByPackagingIsEqualToSomething() throws Exception {
+        // Initialize the database
+        Packaging packaging = PackagingResourceIT.createEntity(em);
+        em.persist(packaging);
+        em.flush();
+        product.setPackaging(packaging);
+        productRepository.saveAndFlush(product);
+        Long packagingId = packaging.getId();
+
+        // Get all the productList where packaging equals to packagingId
+        defaultProductShouldBeFound("packagingId.equals=" + packagingId);
+
+        // Get all the productList where packaging equals to (packagingId + 1)
+        defaultProductShouldNotBeFound("packagingId.equals=" + (packagingId + 1));
+    }
+
+    @Test
+    @Transactional
+    void getAllProductsByStatusWithKeysetPagination() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+        productRepository.saveAndFlush(createUpdatedEntity(em));
+
+        // Only the filtered products are paged and counted
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&count=true&status.equals=" + UPDATED_STATUS))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].status").value(hasItem(UPDATED_STATUS.toString())))
+            .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultProductShouldBeFound(String filter) throws Exception {
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(product.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
+            .andExpect(jsonPath("$.[*].type").value(hasItem(DEFAULT_TYPE.toString())))
+            .andExpect(jsonPath("$.[*].storageType").value(hasItem(DEFAULT_STORAGE_TYPE.toString())))
+            .andExpect(jsonPath("$.[*].price").value(hasItem(sameNumber(DEFAULT_PRICE))))
+            .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())));
+
+        // Check, that the count call also returns 1
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "/count?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("1"));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultProductShouldNotBeFound(String filter) throws Exception {
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$").isArray())
+            .andExpect(jsonPath("$").isEmpty());
+
+        // Check, that the count call also returns 0
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "/count?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("0"));
+    }
+
     @Test
     @Transactional
     void getNonExistingProduct() throws Exception {
@@ -380,7 +869,7 @@ class ProductResourceIT {
         assertThat(testProduct.getPrice()).isEqualTo(UPDATED_PRICE);
         assertThat(testProduct.getSalesUnit()).isEqualTo(UPDATED_SALES_UNIT);
         assertThat(testProduct.getSalesQuantity()).isEqualTo(UPDATED_SALES_QUANTITY);
-        assertThat(testProduct.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(testProduct.getImageHash()).isEqualTo(UPDATED_IMAGE_HASH);
         assertThat(testProduct.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
         assertThat(testProduct.getStatus()).isEqualTo(UPDATED_STATUS);
     }
@@ -487,7 +976,7 @@ class ProductResourceIT {
         assertThat(testProduct.getPrice()).isEqualByComparingTo(UPDATED_PRICE);
         assertThat(testProduct.getSalesUnit()).isEqualTo(DEFAULT_SALES_UNIT);
         assertThat(testProduct.getSalesQuantity()).isEqualByComparingTo(UPDATED_SALES_QUANTITY);
-        assertThat(testProduct.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(testProduct.getImageHash()).isEqualTo(UPDATED_IMAGE_HASH);
         assertThat(testProduct.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
         assertThat(testProduct.getStatus()).isEqualTo(UPDATED_STATUS);
     }
@@ -538,7 +1027,7 @@ class ProductResourceIT {
         assertThat(testProduct.getPrice()).isEqualByComparingTo(UPDATED_PRICE);
         assertThat(testProduct.getSalesUnit()).isEqualTo(UPDATED_SALES_UNIT);
         assertThat(testProduct.getSalesQuantity()).isEqualByComparingTo(UPDATED_SALES_QUANTITY);
-        assertThat(testProduct.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(testProduct.getImageHash()).isEqualTo(UPDATED_IMAGE_HASH);
         assertThat(testProduct.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
         assertThat(testProduct.getStatus()).isEqualTo(UPDATED_STATUS);
     }
@@ -606,6 +1095,175 @@ class ProductResourceIT {
         assertThat(productList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    void exportProductsAsCsv() throws Exception {
+        // The export runs in its own transaction, on another thread, so the product must be committed
+        Product exportedProduct = productRepository.saveAndFlush(createEntity(em).description("Quoted; \"description\""));
+        String expectedRow =
+            "\n" + exportedProduct.getId() + ";" + DEFAULT_NAME + ";\"Quoted; \"\"description\"\"\";" + DEFAULT_COMPANY + ";";
+        try {
+            MvcResult result = restProductMockMvc
+                .perform(get(ENTITY_API_URL + "/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restProductMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("products.csv")))
+                .andExpect(content().string(startsWith("id;name;description;company;type;storage_type;price;")))
+                .andExpect(content().string(containsString(expectedRow)));
+        } finally {
+            productRepository.deleteById(exportedProduct.getId());
+        }
+    }
+
+    @Test
+    void exportedCsvIsImportedBack() throws Exception {
+        // The export runs in its own transaction, on another thread, so the product must be committed
+        String description = "First line\nSecond; \"line\"";
+        Product exportedProduct = productRepository.saveAndFlush(createEntity(em).description(description));
+        try {
+            MvcResult result = restProductMockMvc
+                .perform(get(ENTITY_API_URL + "/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String csv = restProductMockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString();
+
+            restProductMockMvc
+                .perform(post(ENTITY_API_URL + "/import").with(csrf()).contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(1))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+
+            assertThat(productRepository.findAll())
+                .filteredOn(product -> !product.getId().equals(exportedProduct.getId()))
+                .extracting(Product::getDescription)
+                .containsExactly(description);
+        } finally {
+            productRepository.deleteAll(
+                productRepository
+                    .findAll()
+                    .stream()
+                    .filter(product -> description.equals(product.getDescription()))
+                    .collect(Collectors.toList())
+            );
+        }
+    }
+
+    @Test
+    void exportProductsAsGzippedNdjson() throws Exception {
+        // The export runs in its own transaction, on another thread, so the product must be committed
+        Product exportedProduct = productRepository.saveAndFlush(createEntity(em));
+        try {
+            MvcResult result = restProductMockMvc
+                .perform(get(ENTITY_API_URL + "/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            byte[] body = restProductMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+            String ndjson;
+            try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                ndjson = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertThat(ndjson.lines())
+                .anyMatch(line -> line.startsWith("{\"id\":" + exportedProduct.getId() + ",\"name\":\"" + DEFAULT_NAME + "\""));
+            assertThat(ndjson).endsWith("\n");
+        } finally {
+            productRepository.deleteById(exportedProduct.getId());
+        }
+    }
+
+    @Test
+    void exportProductsWithUnsupportedFormat() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "/export").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateProductsByFilter() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+        Product lockedProduct = createEntity(em).status(UPDATED_STATUS);
+        productRepository.saveAndFlush(lockedProduct);
+
+        String bulkUpdate =
+            "{\"filter\":{\"id\":{\"in\":[" + product.getId() + "," + lockedProduct.getId() + "]}," +
+            "\"status\":{\"equals\":\"" + DEFAULT_STATUS + "\"}},\"status\":\"" + UPDATED_STATUS + "\"}";
+
+        restProductMockMvc
+            .perform(patch(ENTITY_API_URL + "/bulk").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(bulkUpdate))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.updated").value(1))
+            .andExpect(jsonPath("$.statements").value(1));
+
+        // Validate the Products in the database
+        Product testProduct = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(testProduct.getStatus()).isEqualTo(UPDATED_STATUS);
+        assertThat(testProduct.getPrice()).isEqualByComparingTo(DEFAULT_PRICE);
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateProductsByIds() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        String bulkUpdate = "{\"ids\":[" + product.getId() + "," + product.getId() + ",-1],\"price\":" + UPDATED_PRICE + "}";
+
+        restProductMockMvc
+            .perform(patch(ENTITY_API_URL + "/bulk").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(bulkUpdate))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.updated").value(1))
+            .andExpect(jsonPath("$.statements").value(1));
+
+        // Validate the Product in the database
+        Product testProduct = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(testProduct.getPrice()).isEqualByComparingTo(UPDATED_PRICE);
+        assertThat(testProduct.getStatus()).isEqualTo(DEFAULT_STATUS);
+    }
+
+    @Test
+    @Transactional
+    void bulkUpdateProductsRequiresOneSelectionAndOneValue() throws Exception {
+        restProductMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk").with(csrf()).contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"LOCKED\"}")
+            )
+            .andExpect(status().isBadRequest());
+
+        restProductMockMvc
+            .perform(patch(ENTITY_API_URL + "/bulk").with(csrf()).contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[1]}"))
+            .andExpect(status().isBadRequest());
+
+        restProductMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ids\":[1],\"price\":-1}")
+            )
+            .andExpect(status().isBadRequest());
+
+        String tooManyIds = LongStream.rangeClosed(1, 10001).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        restProductMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ids\":[" + tooManyIds + "],\"price\":1}")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void deleteProduct() throws Exception {